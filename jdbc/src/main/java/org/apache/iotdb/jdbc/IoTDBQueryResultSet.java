@@ -672,6 +672,11 @@ public class IoTDBQueryResultSet implements ResultSet {
     if (emptyResultSet) {
       return false;
     }
+    if (tsQueryDataSet != null && tsQueryDataSet.isSetMoreData() && !tsQueryDataSet.isMoreData()) {
+      // the server tells that the consumed batch is the last one
+      emptyResultSet = true;
+      return false;
+    }
     if (fetchResults()) {
       constructOneRow();
       return true;
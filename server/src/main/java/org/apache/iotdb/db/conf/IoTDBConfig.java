@@ -109,6 +109,24 @@ public class IoTDBConfig {
    */
   private int walBufferSize = 16 * 1024 * 1024;
 
+  /**
+   * Whether to use the group commit mode of WAL. In this mode, logs of concurrent writers of a log
+   * node are persisted by a dedicated thread with one write and one force per commit, and each
+   * writer waits for the commit that covers its log after releasing the storage group lock.
+   */
+  private boolean enableWalGroupCommit = false;
+
+  /**
+   * How long (in ms) the commit thread of a log node waits to gather more logs before a commit in
+   * the group commit mode. 0 means committing as soon as the previous commit finishes.
+   */
+  private long walGroupCommitWindowInMs = 0;
+
+  /**
+   * Max number of logs that are persisted in one commit in the group commit mode.
+   */
+  private int walGroupCommitMaxBatchNum = 10000;
+
   /**
    * system base dir, stores all system metadata and wal
    */
@@ -159,16 +177,51 @@ public class IoTDBConfig {
    */
   private int batchSize = 100000;
 
+  /**
+   * The proportion of the memory in write process that is allocated for the idle primitive arrays
+   * kept by PrimitiveArrayPool.
+   */
+  private double primitiveArrayPoolMemoryProportion = 0.2;
+
+  /**
+   * Memory allocated for the idle primitive arrays in write process
+   */
+  private long allocateMemoryForPrimitiveArrayPool = (long) (allocateMemoryForWrite
+      * primitiveArrayPoolMemoryProportion);
+
   /**
    * How many threads can concurrently flush. When <= 0, use CPU core number.
    */
   private int concurrentFlushThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many devices of a memtable can be encoded concurrently in one flush. When <= 0, use CPU
+   * core number.
+   */
+  private int flushEncodingParallelism = Runtime.getRuntime().availableProcessors();
+
   /**
    * How many threads can concurrently query. When <= 0, use CPU core number.
    */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many series of an aggregation or group by query can be calculated concurrently. When <= 0,
+   * use CPU core number.
+   */
+  private int querySeriesParallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * How many batches of a query result are prepared in background before the client fetches them.
+   * 0 means the batches are prepared when fetched.
+   */
+  private int queryPrefetchBatchNum = 2;
+
+  /**
+   * The max memory of the prefetched batches of a query in byte.
+   */
+  private long queryPrefetchMemoryInByte = 16 * 1024 * 1024L;
+
   private ZoneId zoneID = ZoneId.systemDefault();
 
   /**
@@ -195,6 +248,38 @@ public class IoTDBConfig {
    */
   private long allocateMemoryForChumkMetaDataCache = allocateMemoryForRead * 6 / 19;
 
+  /**
+   * whether to cache the decompressed chunks of sealed tsfiles or not.
+   */
+  private boolean chunkCacheEnable = true;
+
+  /**
+   * The proportion of the memory in read process that is allocated for the chunk cache.
+   */
+  private double chunkCacheMemoryProportion = 0.1;
+
+  /**
+   * Memory allocated for chunk cache in read process
+   */
+  private long allocateMemoryForChunkCache = (long) (allocateMemoryForRead * chunkCacheMemoryProportion);
+
+  /**
+   * The proportion of the memory in read process that is shared by the queries as their working
+   * memory, e.g., the prefetched batches and the chunks sorted in memory.
+   */
+  private double queryMemoryProportion = 0.4;
+
+  /**
+   * Memory shared by the running queries in read process
+   */
+  private long allocateMemoryForQuery = (long) (allocateMemoryForRead * queryMemoryProportion);
+
+  /**
+   * The max working memory of a single query in byte. A query that needs more spills through
+   * external sort if possible, or fails.
+   */
+  private long maxMemoryPerQueryInByte = 256 * 1024 * 1024L;
+
   /**
    * The statMonitor writes statistics info into IoTDB every backLoopPeriodSec secs. The default
    * value is 5s.
@@ -219,6 +304,13 @@ public class IoTDBConfig {
    */
   private int mManagerCacheSize = 400000;
 
+  /**
+   * A checkpoint of the metadata tree is taken when the metadata log has grown by this many bytes
+   * since the last checkpoint, so that a restart only replays the log after the checkpoint. 0
+   * disables the checkpoints.
+   */
+  private long mtreeCheckpointThresholdInByte = 64 * 1024 * 1024L;
+
   /**
    * Is external sort enable.
    */
@@ -388,6 +480,34 @@ public class IoTDBConfig {
 
   private MergeFileStrategy mergeFileStrategy = MergeFileStrategy.MAX_SERIES_NUM;
 
+  /**
+   * The maximum bytes per second (in MB) that all merges and compactions read and write together,
+   * it can be adjusted at runtime. When <= 0, the throughput is unlimited.
+   */
+  private int mergeThroughputMbPerSec = 0;
+
+  /**
+   * When set to true, adjacent small sequence files of a storage group are compacted into a larger
+   * one after a sequence file is closed and in each global merge.
+   */
+  private boolean enableSeqFileCompaction = false;
+
+  /**
+   * How many threads will be set up to perform sequence file compactions.
+   */
+  private int seqFileCompactionThreadNum = 1;
+
+  /**
+   * A compaction is performed only when at least so many adjacent small sequence files are found.
+   */
+  private int seqFileCompactionFileNum = 10;
+
+  /**
+   * Sequence files smaller than this are considered small, and a compaction stops collecting files
+   * when their total size reaches it. Unit: byte.
+   */
+  private long seqFileCompactionTargetSize = 512 * 1024 * 1024L;
+
   /**
    * Default system file storage is in local file system (unsupported)
    */
@@ -682,6 +802,30 @@ public class IoTDBConfig {
     this.queryDir = queryDir;
   }
 
+  public boolean isEnableWalGroupCommit() {
+    return enableWalGroupCommit;
+  }
+
+  public void setEnableWalGroupCommit(boolean enableWalGroupCommit) {
+    this.enableWalGroupCommit = enableWalGroupCommit;
+  }
+
+  public long getWalGroupCommitWindowInMs() {
+    return walGroupCommitWindowInMs;
+  }
+
+  public void setWalGroupCommitWindowInMs(long walGroupCommitWindowInMs) {
+    this.walGroupCommitWindowInMs = walGroupCommitWindowInMs;
+  }
+
+  public int getWalGroupCommitMaxBatchNum() {
+    return walGroupCommitMaxBatchNum;
+  }
+
+  public void setWalGroupCommitMaxBatchNum(int walGroupCommitMaxBatchNum) {
+    this.walGroupCommitMaxBatchNum = walGroupCommitMaxBatchNum;
+  }
+
   public String getWalFolder() {
     return walFolder;
   }
@@ -722,6 +866,14 @@ public class IoTDBConfig {
     this.concurrentFlushThread = concurrentFlushThread;
   }
 
+  public int getFlushEncodingParallelism() {
+    return flushEncodingParallelism;
+  }
+
+  void setFlushEncodingParallelism(int flushEncodingParallelism) {
+    this.flushEncodingParallelism = flushEncodingParallelism;
+  }
+
   public int getConcurrentQueryThread() {
     return concurrentQueryThread;
   }
@@ -730,6 +882,30 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getQuerySeriesParallelism() {
+    return querySeriesParallelism;
+  }
+
+  void setQuerySeriesParallelism(int querySeriesParallelism) {
+    this.querySeriesParallelism = querySeriesParallelism;
+  }
+
+  public int getQueryPrefetchBatchNum() {
+    return queryPrefetchBatchNum;
+  }
+
+  void setQueryPrefetchBatchNum(int queryPrefetchBatchNum) {
+    this.queryPrefetchBatchNum = queryPrefetchBatchNum;
+  }
+
+  public long getQueryPrefetchMemoryInByte() {
+    return queryPrefetchMemoryInByte;
+  }
+
+  void setQueryPrefetchMemoryInByte(long queryPrefetchMemoryInByte) {
+    this.queryPrefetchMemoryInByte = queryPrefetchMemoryInByte;
+  }
+
   public long getTsFileSizeThreshold() {
     return tsFileSizeThreshold;
   }
@@ -786,6 +962,14 @@ public class IoTDBConfig {
     this.mManagerCacheSize = mManagerCacheSize;
   }
 
+  public long getMtreeCheckpointThresholdInByte() {
+    return mtreeCheckpointThresholdInByte;
+  }
+
+  void setMtreeCheckpointThresholdInByte(long mtreeCheckpointThresholdInByte) {
+    this.mtreeCheckpointThresholdInByte = mtreeCheckpointThresholdInByte;
+  }
+
   public boolean isSyncEnable() {
     return isSyncEnable;
   }
@@ -995,6 +1179,46 @@ public class IoTDBConfig {
     this.mergeFileStrategy = mergeFileStrategy;
   }
 
+  public int getMergeThroughputMbPerSec() {
+    return mergeThroughputMbPerSec;
+  }
+
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    this.mergeThroughputMbPerSec = mergeThroughputMbPerSec;
+  }
+
+  public boolean isEnableSeqFileCompaction() {
+    return enableSeqFileCompaction;
+  }
+
+  public void setEnableSeqFileCompaction(boolean enableSeqFileCompaction) {
+    this.enableSeqFileCompaction = enableSeqFileCompaction;
+  }
+
+  public int getSeqFileCompactionThreadNum() {
+    return seqFileCompactionThreadNum;
+  }
+
+  public void setSeqFileCompactionThreadNum(int seqFileCompactionThreadNum) {
+    this.seqFileCompactionThreadNum = seqFileCompactionThreadNum;
+  }
+
+  public int getSeqFileCompactionFileNum() {
+    return seqFileCompactionFileNum;
+  }
+
+  public void setSeqFileCompactionFileNum(int seqFileCompactionFileNum) {
+    this.seqFileCompactionFileNum = seqFileCompactionFileNum;
+  }
+
+  public long getSeqFileCompactionTargetSize() {
+    return seqFileCompactionTargetSize;
+  }
+
+  public void setSeqFileCompactionTargetSize(long seqFileCompactionTargetSize) {
+    this.seqFileCompactionTargetSize = seqFileCompactionTargetSize;
+  }
+
   public int getMergeChunkSubThreadNum() {
     return mergeChunkSubThreadNum;
   }
@@ -1043,6 +1267,70 @@ public class IoTDBConfig {
     this.allocateMemoryForChumkMetaDataCache = allocateMemoryForChumkMetaDataCache;
   }
 
+  public boolean isChunkCacheEnable() {
+    return chunkCacheEnable;
+  }
+
+  public void setChunkCacheEnable(boolean chunkCacheEnable) {
+    this.chunkCacheEnable = chunkCacheEnable;
+  }
+
+  public double getPrimitiveArrayPoolMemoryProportion() {
+    return primitiveArrayPoolMemoryProportion;
+  }
+
+  void setPrimitiveArrayPoolMemoryProportion(double primitiveArrayPoolMemoryProportion) {
+    this.primitiveArrayPoolMemoryProportion = primitiveArrayPoolMemoryProportion;
+  }
+
+  public long getAllocateMemoryForPrimitiveArrayPool() {
+    return allocateMemoryForPrimitiveArrayPool;
+  }
+
+  void setAllocateMemoryForPrimitiveArrayPool(long allocateMemoryForPrimitiveArrayPool) {
+    this.allocateMemoryForPrimitiveArrayPool = allocateMemoryForPrimitiveArrayPool;
+  }
+
+  public double getChunkCacheMemoryProportion() {
+    return chunkCacheMemoryProportion;
+  }
+
+  public void setChunkCacheMemoryProportion(double chunkCacheMemoryProportion) {
+    this.chunkCacheMemoryProportion = chunkCacheMemoryProportion;
+  }
+
+  public long getAllocateMemoryForChunkCache() {
+    return allocateMemoryForChunkCache;
+  }
+
+  public void setAllocateMemoryForChunkCache(long allocateMemoryForChunkCache) {
+    this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
+  }
+
+  public double getQueryMemoryProportion() {
+    return queryMemoryProportion;
+  }
+
+  void setQueryMemoryProportion(double queryMemoryProportion) {
+    this.queryMemoryProportion = queryMemoryProportion;
+  }
+
+  public long getAllocateMemoryForQuery() {
+    return allocateMemoryForQuery;
+  }
+
+  void setAllocateMemoryForQuery(long allocateMemoryForQuery) {
+    this.allocateMemoryForQuery = allocateMemoryForQuery;
+  }
+
+  public long getMaxMemoryPerQueryInByte() {
+    return maxMemoryPerQueryInByte;
+  }
+
+  void setMaxMemoryPerQueryInByte(long maxMemoryPerQueryInByte) {
+    this.maxMemoryPerQueryInByte = maxMemoryPerQueryInByte;
+  }
+
   public boolean isEnableWatermark() {
     return enableWatermark;
   }
@@ -140,6 +140,31 @@ public class IoTDBDescriptor {
           Boolean.parseBoolean(properties.getProperty("meta_data_cache_enable",
               Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setChunkCacheEnable(
+          Boolean.parseBoolean(properties.getProperty("chunk_cache_enable",
+              Boolean.toString(conf.isChunkCacheEnable()))));
+
+      double chunkCacheMemoryProportion = Double.parseDouble(properties
+          .getProperty("chunk_cache_memory_proportion",
+              Double.toString(conf.getChunkCacheMemoryProportion())).trim());
+      if (chunkCacheMemoryProportion > 0 && chunkCacheMemoryProportion < 1) {
+        conf.setChunkCacheMemoryProportion(chunkCacheMemoryProportion);
+      }
+
+      double queryMemoryProportion = Double.parseDouble(properties
+          .getProperty("query_memory_proportion",
+              Double.toString(conf.getQueryMemoryProportion())).trim());
+      if (queryMemoryProportion > 0 && queryMemoryProportion < 1) {
+        conf.setQueryMemoryProportion(queryMemoryProportion);
+      }
+
+      long maxMemoryPerQuery = Long.parseLong(properties
+          .getProperty("max_memory_per_query_in_byte",
+              Long.toString(conf.getMaxMemoryPerQueryInByte())).trim());
+      if (maxMemoryPerQuery > 0) {
+        conf.setMaxMemoryPerQueryInByte(maxMemoryPerQuery);
+      }
+
       initMemoryAllocate(properties);
 
       loadWALProps(properties);
@@ -203,10 +228,47 @@ public class IoTDBDescriptor {
         conf.setConcurrentFlushThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setFlushEncodingParallelism(Integer
+          .parseInt(properties.getProperty("flush_encoding_parallelism",
+              Integer.toString(conf.getFlushEncodingParallelism()))));
+
+      if (conf.getFlushEncodingParallelism() <= 0) {
+        conf.setFlushEncodingParallelism(Runtime.getRuntime().availableProcessors());
+      }
+
+      double primitiveArrayPoolMemoryProportion = Double.parseDouble(properties
+          .getProperty("primitive_array_pool_memory_proportion",
+              Double.toString(conf.getPrimitiveArrayPoolMemoryProportion())).trim());
+      if (primitiveArrayPoolMemoryProportion >= 0 && primitiveArrayPoolMemoryProportion < 1) {
+        conf.setPrimitiveArrayPoolMemoryProportion(primitiveArrayPoolMemoryProportion);
+      }
+      conf.setAllocateMemoryForPrimitiveArrayPool((long) (conf.getAllocateMemoryForWrite()
+          * conf.getPrimitiveArrayPoolMemoryProportion()));
+
+      conf.setQuerySeriesParallelism(Integer
+          .parseInt(properties.getProperty("query_series_parallelism",
+              Integer.toString(conf.getQuerySeriesParallelism()))));
+
+      if (conf.getQuerySeriesParallelism() <= 0) {
+        conf.setQuerySeriesParallelism(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setQueryPrefetchBatchNum(Math.max(0, Integer
+          .parseInt(properties.getProperty("query_prefetch_batch_num",
+              Integer.toString(conf.getQueryPrefetchBatchNum())).trim())));
+
+      conf.setQueryPrefetchMemoryInByte(Long
+          .parseLong(properties.getProperty("query_prefetch_memory_in_byte",
+              Long.toString(conf.getQueryPrefetchMemoryInByte())).trim()));
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("schema_manager_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
 
+      conf.setMtreeCheckpointThresholdInByte(Long
+          .parseLong(properties.getProperty("mtree_checkpoint_threshold_in_byte",
+              Long.toString(conf.getMtreeCheckpointThresholdInByte())).trim()));
+
       conf.setLanguageVersion(properties.getProperty("language_version",
           conf.getLanguageVersion()).trim());
 
@@ -243,6 +305,18 @@ public class IoTDBDescriptor {
           Boolean.toString(conf.isForceFullMerge()))));
       conf.setChunkMergePointThreshold(Integer.parseInt(properties.getProperty(
           "chunk_merge_point_threshold", Integer.toString(conf.getChunkMergePointThreshold()))));
+      conf.setMergeThroughputMbPerSec(Integer.parseInt(properties.getProperty(
+          "merge_throughput_mb_per_sec", Integer.toString(conf.getMergeThroughputMbPerSec()))));
+      conf.setEnableSeqFileCompaction(Boolean.parseBoolean(properties.getProperty(
+          "enable_seq_file_compaction", Boolean.toString(conf.isEnableSeqFileCompaction()))));
+      conf.setSeqFileCompactionThreadNum(Integer.parseInt(properties.getProperty(
+          "seq_file_compaction_thread_num",
+          Integer.toString(conf.getSeqFileCompactionThreadNum()))));
+      conf.setSeqFileCompactionFileNum(Integer.parseInt(properties.getProperty(
+          "seq_file_compaction_file_num", Integer.toString(conf.getSeqFileCompactionFileNum()))));
+      conf.setSeqFileCompactionTargetSize(Long.parseLong(properties.getProperty(
+          "seq_file_compaction_target_size",
+          Long.toString(conf.getSeqFileCompactionTargetSize()))));
 
       conf.setEnablePerformanceStat(Boolean
           .parseBoolean(properties.getProperty("enable_performance_stat",
@@ -361,6 +435,19 @@ public class IoTDBDescriptor {
         .parseLong(properties.getProperty("force_wal_period_in_ms",
             Long.toString(conf.getForceWalPeriodInMs()))));
 
+    conf.setEnableWalGroupCommit(Boolean.parseBoolean(properties.getProperty(
+        "enable_wal_group_commit", Boolean.toString(conf.isEnableWalGroupCommit()))));
+
+    conf.setWalGroupCommitWindowInMs(Long
+        .parseLong(properties.getProperty("wal_group_commit_window_in_ms",
+            Long.toString(conf.getWalGroupCommitWindowInMs()))));
+
+    int walGroupCommitMaxBatchNum = Integer
+        .parseInt(properties.getProperty("wal_group_commit_max_batch_num",
+            Integer.toString(conf.getWalGroupCommitMaxBatchNum())));
+    if (walGroupCommitMaxBatchNum > 0) {
+      conf.setWalGroupCommitMaxBatchNum(walGroupCommitMaxBatchNum);
+    }
   }
 
   private void loadAutoCreateSchemaProps(Properties properties){
@@ -430,6 +517,12 @@ public class IoTDBDescriptor {
             TSFileDescriptor.getInstance().getConfig().getValueEncoder()));
     TSFileDescriptor.getInstance().getConfig().setCompressor(properties
         .getProperty("compressor", TSFileDescriptor.getInstance().getConfig().getCompressor()));
+    TSFileDescriptor.getInstance().getConfig().setEnableMmapRead(Boolean
+        .parseBoolean(properties.getProperty("enable_mmap_read",
+            Boolean.toString(TSFileDescriptor.getInstance().getConfig().isEnableMmapRead()))));
+    TSFileDescriptor.getInstance().getConfig().setMaxMappedSizeInByte(Long
+        .parseLong(properties.getProperty("max_mapped_size_in_byte",
+            Long.toString(TSFileDescriptor.getInstance().getConfig().getMaxMappedSizeInByte()))));
   }
 
   public void loadHotModifiedProps() throws QueryProcessException {
@@ -506,6 +599,11 @@ public class IoTDBDescriptor {
           maxMemoryAvailable * Integer.parseInt(proportions[1].trim()) / proportionSum);
     }
 
+    conf.setAllocateMemoryForChunkCache(
+        (long) (conf.getAllocateMemoryForRead() * conf.getChunkCacheMemoryProportion()));
+    conf.setAllocateMemoryForQuery(
+        (long) (conf.getAllocateMemoryForRead() * conf.getQueryMemoryProportion()));
+
     if (!conf.isMetaDataCacheEnable()) {
       return;
     }
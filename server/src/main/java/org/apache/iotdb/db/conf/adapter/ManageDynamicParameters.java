@@ -54,12 +54,14 @@ public class ManageDynamicParameters implements ManageDynamicParametersMBean, IS
   public void showDynamicParameters() {
     LOGGER.info(
         "Memtable size threshold: {}B, Memtable number: {}, Tsfile size threshold: {}B, Compression ratio: {}, "
-            + "Storage group number: {}, Timeseries number: {}, Maximal timeseries number among storage groups: {}",
+            + "Storage group number: {}, Timeseries number: {}, Maximal timeseries number among storage groups: {}, "
+            + "Merge throughput limit: {}MB/s",
         CONFIG.getMemtableSizeThreshold(), CONFIG.getMaxMemtableNumber(),
         CONFIG.getTsFileSizeThreshold(), CompressionRatio.getInstance().getRatio(),
         IoTDBConfigDynamicAdapter.getInstance().getTotalStorageGroup(),
         IoTDBConfigDynamicAdapter.getInstance().getTotalTimeseries(),
-        MManager.getInstance().getMaximalSeriesNumberAmongStorageGroups());
+        MManager.getInstance().getMaximalSeriesNumberAmongStorageGroups(),
+        CONFIG.getMergeThroughputMbPerSec());
   }
 
   @Override
@@ -102,6 +104,16 @@ public class ManageDynamicParameters implements ManageDynamicParametersMBean, IS
     CONFIG.setTsFileSizeThreshold(tsfileSizeThreshold);
   }
 
+  @Override
+  public int getMergeThroughputMbPerSec() {
+    return CONFIG.getMergeThroughputMbPerSec();
+  }
+
+  @Override
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    CONFIG.setMergeThroughputMbPerSec(mergeThroughputMbPerSec);
+  }
+
   @Override
   public void start() throws StartupException {
     try {
@@ -23,7 +23,7 @@ public interface ManageDynamicParametersMBean {
   /**
    * Show all dynamic parameters, including memtable size threshold, memtable number, tsfile size
    * threshold, compression ratio, storage group number, timeseries number, max timeseries number
-   * among storage groups.
+   * among storage groups, merge throughput limit.
    */
   void showDynamicParameters();
 
@@ -43,4 +43,8 @@ public interface ManageDynamicParametersMBean {
 
   void setTsfileSizeThreshold(long tsfileSizeThreshold);
 
+  int getMergeThroughputMbPerSec();
+
+  void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec);
+
 }
@@ -22,6 +22,7 @@ public enum Operation {
   EXECUTE_JDBC_BATCH("EXECUTE_JDBC_BATCH"),
   EXECUTE_ONE_SQL_IN_BATCH("EXECUTE_ONE_SQL_IN_BATCH"),
   EXECUTE_RPC_BATCH_INSERT("EXECUTE_RPC_BATCH_INSERT"),
+  EXECUTE_RPC_MULTI_BATCH_INSERT("EXECUTE_RPC_MULTI_BATCH_INSERT"),
   EXECUTE_QUERY("EXECUTE_QUERY");
 
   public String getName() {
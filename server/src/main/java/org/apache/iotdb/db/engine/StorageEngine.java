@@ -21,9 +21,12 @@ package org.apache.iotdb.db.engine;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,6 +65,7 @@ import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -259,6 +263,42 @@ public class StorageEngine implements IService {
     }
   }
 
+  /**
+   * insert the BatchInsertPlans of several devices, the plans of the same storage group are
+   * inserted by its processor at once. The rows of a device whose storage group is not found are
+   * failed without affecting the others.
+   *
+   * @return result of each row of each plan
+   */
+  public List<Integer[]> insertBatches(List<BatchInsertPlan> batchInsertPlans) {
+    Integer[][] results = new Integer[batchInsertPlans.size()][];
+    Map<StorageGroupProcessor, List<Integer>> processorToPlanIndexes = new LinkedHashMap<>();
+    for (int i = 0; i < batchInsertPlans.size(); i++) {
+      BatchInsertPlan batchInsertPlan = batchInsertPlans.get(i);
+      try {
+        processorToPlanIndexes.computeIfAbsent(getProcessor(batchInsertPlan.getDeviceId()),
+            p -> new ArrayList<>()).add(i);
+      } catch (StorageEngineException e) {
+        logger.warn("get StorageGroupProcessor of device {} failed, because {}",
+            batchInsertPlan.getDeviceId(), e.getMessage(), e);
+        results[i] = new Integer[batchInsertPlan.getRowCount()];
+        Arrays.fill(results[i], TSStatusCode.STORAGE_ENGINE_ERROR.getStatusCode());
+      }
+    }
+
+    for (Entry<StorageGroupProcessor, List<Integer>> entry : processorToPlanIndexes.entrySet()) {
+      List<BatchInsertPlan> plansOfProcessor = new ArrayList<>(entry.getValue().size());
+      for (int index : entry.getValue()) {
+        plansOfProcessor.add(batchInsertPlans.get(index));
+      }
+      List<Integer[]> resultsOfProcessor = entry.getKey().insertBatches(plansOfProcessor);
+      for (int i = 0; i < entry.getValue().size(); i++) {
+        results[entry.getValue().get(i)] = resultsOfProcessor.get(i);
+      }
+    }
+    return Arrays.asList(results);
+  }
+
   /**
    * flush command Sync asyncCloseOneProcessor all file node processors.
    */
@@ -310,9 +350,17 @@ public class StorageEngine implements IService {
    */
   public void delete(String deviceId, String measurementId, long timestamp)
       throws StorageEngineException {
+    delete(deviceId, measurementId, Long.MIN_VALUE, timestamp);
+  }
+
+  /**
+   * delete data of timeseries "{deviceId}.{measurementId}" with startTime <= time <= endTime.
+   */
+  public void delete(String deviceId, String measurementId, long startTime, long endTime)
+      throws StorageEngineException {
     StorageGroupProcessor storageGroupProcessor = getProcessor(deviceId);
     try {
-      storageGroupProcessor.delete(deviceId, measurementId, timestamp);
+      storageGroupProcessor.delete(deviceId, measurementId, startTime, endTime);
     } catch (IOException e) {
       throw new StorageEngineException(e.getMessage());
     }
@@ -328,7 +376,8 @@ public class StorageEngine implements IService {
     String deviceId = seriesExpression.getSeriesPath().getDevice();
     String measurementId = seriesExpression.getSeriesPath().getMeasurement();
     StorageGroupProcessor storageGroupProcessor = getProcessor(deviceId);
-    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager);
+    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager,
+        seriesExpression.getFilter());
   }
 
   /**
@@ -379,6 +428,8 @@ public class StorageEngine implements IService {
     }
     for (StorageGroupProcessor storageGroupProcessor : processorMap.values()) {
       storageGroupProcessor.merge(fullMerge);
+      // a storage group that submits a merge skips the compaction
+      storageGroupProcessor.compact();
     }
   }
 
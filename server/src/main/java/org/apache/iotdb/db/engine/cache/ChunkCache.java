@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is used to cache <code>Chunk</code> of sealed tsfiles in IoTDB, so that repeated
+ * queries do not read and decompress the same chunks again. The pages of a cached chunk are
+ * stored decompressed. The caching strategy is an approximate LRU, see {@link
+ * ConcurrentLRUCache}.
+ * <p>
+ * The cached chunks carry no deletion information, the deletions of the given ChunkMetaData are
+ * attached to the chunk returned by each request, so deletions need no invalidation. A file must
+ * be removed from the cache by {@link #remove(TsFileResource)} once it is merged, deleted or
+ * moved.
+ */
+public class ChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChunkCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long MEMORY_THRESHOLD_IN_B = config.getAllocateMemoryForChunkCache();
+  private static boolean cacheEnable = config.isChunkCacheEnable();
+
+  /**
+   * approximate size of a ChunkHeader and the other fields of a cached Chunk besides the data.
+   */
+  private static final long CHUNK_OVERHEAD_IN_B = 128;
+
+  /**
+   * key: file path and offset of the chunk header.
+   * <p>
+   * value: the chunk whose pages are decompressed.
+   */
+  private final ConcurrentLRUCache<ChunkCacheKey, Chunk> lruCache;
+
+  private ChunkCache(long memoryThreshold) {
+    lruCache = new ConcurrentLRUCache<ChunkCacheKey, Chunk>(memoryThreshold) {
+      @Override
+      protected long calEntrySize(ChunkCacheKey key, Chunk value) {
+        return key.filePath.length() * 2 + CHUNK_OVERHEAD_IN_B + value.getData().capacity();
+      }
+    };
+  }
+
+  public static ChunkCache getInstance() {
+    return ChunkCacheHolder.INSTANCE;
+  }
+
+  /**
+   * get the chunk described by the given ChunkMetaData from the cache, or read it by the reader
+   * and cache it if absent. THREAD SAFE.
+   *
+   * @param chunkMetaData meta data of the chunk, its deletions are attached to the result
+   * @param reader the reader of the sealed file that contains the chunk
+   * @return a chunk whose data buffer is private to the caller
+   */
+  public Chunk get(ChunkMetaData chunkMetaData, TsFileSequenceReader reader) throws IOException {
+    if (!cacheEnable) {
+      return reader.readMemChunk(chunkMetaData);
+    }
+
+    ChunkCacheKey key = new ChunkCacheKey(reader.getFileName(),
+        chunkMetaData.getOffsetOfChunkHeader());
+    Chunk chunk = lruCache.get(key, k -> {
+      printMissLog();
+      return decompress(reader.readMemChunk(chunkMetaData));
+    });
+    Chunk copy = new Chunk(chunk.getHeader(), chunk.getData().duplicate(),
+        chunkMetaData.getDeletedAt(), chunk.getEndianType());
+    copy.setDeleteIntervalList(chunkMetaData.getDeleteIntervalList());
+    return copy;
+  }
+
+  /**
+   * convert a chunk into an uncompressed one by decompressing all its pages, the page headers
+   * are rewritten with compressedSize equal to uncompressedSize. The data of the result is always
+   * on heap, as the data of an uncompressed chunk may be a slice of a mapped file, which must not
+   * outlive the reader of the file.
+   */
+  static Chunk decompress(Chunk chunk) throws IOException {
+    ChunkHeader header = chunk.getHeader();
+    if (header.getCompressionType() == CompressionType.UNCOMPRESSED) {
+      if (!chunk.getData().isDirect()) {
+        return chunk;
+      }
+      ByteBuffer data = chunk.getData().duplicate();
+      byte[] heapData = new byte[data.remaining()];
+      data.get(heapData);
+      return new Chunk(header, ByteBuffer.wrap(heapData), chunk.getDeletedAt(),
+          chunk.getEndianType());
+    }
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(header.getCompressionType());
+    ByteBuffer compressedData = chunk.getData().duplicate();
+    PublicBAOS outputStream = new PublicBAOS(compressedData.remaining());
+    while (compressedData.hasRemaining()) {
+      PageHeader pageHeader = PageHeader.deserializeFrom(compressedData, header.getDataType());
+      byte[] compressedPageBody = new byte[pageHeader.getCompressedSize()];
+      compressedData.get(compressedPageBody);
+      byte[] pageBody = unCompressor.uncompress(compressedPageBody);
+      pageHeader.setCompressedSize(pageBody.length);
+      pageHeader.setUncompressedSize(pageBody.length);
+      pageHeader.serializeTo(outputStream);
+      outputStream.write(pageBody);
+    }
+    ChunkHeader uncompressedHeader = new ChunkHeader(header.getMeasurementID(),
+        outputStream.size(), header.getDataType(), CompressionType.UNCOMPRESSED,
+        header.getEncodingType(), header.getNumOfPages());
+    return new Chunk(uncompressedHeader, ByteBuffer.wrap(outputStream.toByteArray()),
+        chunk.getDeletedAt(), chunk.getEndianType());
+  }
+
+  /**
+   * hits are not logged as they take no lock and happen on the hot path of every query.
+   */
+  private void printMissLog() {
+    if (!logger.isDebugEnabled()) {
+      return;
+    }
+    logger.debug(
+        "[Chunk cache didn't hit] The number of requests for cache is {}, hit rate is {}.",
+        lruCache.getCacheRequestNum(), lruCache.calculateHitRatio());
+  }
+
+  public double calculateChunkHitRatio() {
+    return lruCache.calculateHitRatio();
+  }
+
+  /**
+   * clear LRUCache.
+   */
+  public void clear() {
+    lruCache.clear();
+  }
+
+  /**
+   * remove all chunks of the given file.
+   */
+  public void remove(TsFileResource resource) {
+    String filePath = resource.getFile().getPath();
+    lruCache.removeIf(key -> key.filePath.equals(filePath));
+  }
+
+  private static class ChunkCacheKey {
+
+    private final String filePath;
+    private final long offset;
+
+    private ChunkCacheKey(String filePath, long offset) {
+      this.filePath = filePath;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkCacheKey that = (ChunkCacheKey) o;
+      return offset == that.offset && filePath.equals(that.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, offset);
+    }
+  }
+
+  /**
+   * singleton pattern.
+   */
+  private static class ChunkCacheHolder {
+
+    private static final ChunkCache INSTANCE = new ChunkCache(MEMORY_THRESHOLD_IN_B);
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * This class is a memory bounded cache that is safe to be shared by concurrent queries.
+ * <p>
+ * The entries are spread over several segments by the hash of their keys, each segment owns an
+ * equal share of the memory. A read only looks up a ConcurrentHashMap and marks the entry as
+ * accessed, so hits take no lock. Writes and evictions lock a single segment, the eviction picks
+ * victims by the CLOCK (second chance) approximation of LRU. Concurrent misses of the same key are
+ * loaded only once, the other requests wait for the result of the first one.
+ * <p>
+ * The cached values are shared by all readers and must not be modified.
+ */
+public abstract class ConcurrentLRUCache<K, V> {
+
+  private static final int DEFAULT_SEGMENT_NUM = 16;
+
+  private final Segment<K, V>[] segments;
+  private final int segmentMask;
+  private final long maxMemInB;
+
+  /**
+   * the loading tasks of the keys that are missed and being loaded.
+   */
+  private final Map<K, FutureTask<V>> loadingTasks = new ConcurrentHashMap<>();
+
+  private final AtomicLong cacheHitNum = new AtomicLong();
+  private final AtomicLong cacheRequestNum = new AtomicLong();
+
+  public ConcurrentLRUCache(long maxMemInB) {
+    this(maxMemInB, DEFAULT_SEGMENT_NUM);
+  }
+
+  /**
+   * @param maxMemInB maximum memory threshold of the whole cache
+   * @param segmentNum the number of segments, which is rounded up to a power of 2
+   */
+  @SuppressWarnings("unchecked")
+  public ConcurrentLRUCache(long maxMemInB, int segmentNum) {
+    int num = 1;
+    while (num < segmentNum) {
+      num <<= 1;
+    }
+    this.maxMemInB = maxMemInB;
+    this.segmentMask = num - 1;
+    this.segments = new Segment[num];
+    for (int i = 0; i < num; i++) {
+      segments[i] = new Segment<>(maxMemInB / num);
+    }
+  }
+
+  /**
+   * approximately estimate the additional size of key and value.
+   */
+  protected abstract long calEntrySize(K key, V value);
+
+  /**
+   * load the value of a missed key.
+   */
+  @FunctionalInterface
+  public interface Loader<K, V> {
+
+    V load(K key) throws IOException;
+  }
+
+  private Segment<K, V> segmentFor(Object key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & segmentMask];
+  }
+
+  /**
+   * get the cached value of the key without loading it. LOCK FREE.
+   *
+   * @return the cached value, or null if absent
+   */
+  public V get(K key) {
+    cacheRequestNum.incrementAndGet();
+    V value = getIfPresent(key);
+    if (value != null) {
+      cacheHitNum.incrementAndGet();
+    }
+    return value;
+  }
+
+  private V getIfPresent(K key) {
+    Node<K, V> node = segmentFor(key).map.get(key);
+    if (node == null) {
+      return null;
+    }
+    node.accessed = true;
+    return node.value;
+  }
+
+  /**
+   * get the cached value of the key, or load and cache it if absent. Only one of the concurrent
+   * requests of a missed key loads it, the others wait for its result.
+   */
+  public V get(K key, Loader<K, V> loader) throws IOException {
+    cacheRequestNum.incrementAndGet();
+    V value = getIfPresent(key);
+    if (value != null) {
+      cacheHitNum.incrementAndGet();
+      return value;
+    }
+
+    // the key may have been cached by a loading task that finished after the look up above
+    FutureTask<V> task = new FutureTask<>(() -> {
+      V cachedValue = getIfPresent(key);
+      return cachedValue != null ? cachedValue : loader.load(key);
+    });
+    FutureTask<V> loadingTask = loadingTasks.putIfAbsent(key, task);
+    if (loadingTask == null) {
+      loadingTask = task;
+      try {
+        task.run();
+        value = getLoadedValue(task);
+        if (value != null) {
+          segmentFor(key)
+              .put(key, value, calEntrySize(key, value), () -> loadingTasks.get(key) == task);
+        }
+        return value;
+      } finally {
+        loadingTasks.remove(key, task);
+      }
+    }
+    return getLoadedValue(loadingTask);
+  }
+
+  private V getLoadedValue(FutureTask<V> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * cache the value if the key is absent.
+   */
+  public void putIfAbsent(K key, V value) {
+    segmentFor(key).put(key, value, calEntrySize(key, value), null);
+  }
+
+  public void remove(K key) {
+    // a value being loaded is not cached once its key is removed
+    loadingTasks.remove(key);
+    segmentFor(key).remove(key);
+  }
+
+  /**
+   * remove all the entries whose keys match the predicate.
+   */
+  public void removeIf(Predicate<K> predicate) {
+    loadingTasks.keySet().removeIf(predicate);
+    for (Segment<K, V> segment : segments) {
+      segment.removeIf(predicate);
+    }
+  }
+
+  public void clear() {
+    loadingTasks.clear();
+    for (Segment<K, V> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      size += segment.map.size();
+    }
+    return size;
+  }
+
+  /**
+   * calculate the proportion of used memory.
+   */
+  public double getUsedMemoryProportion() {
+    long usedMemInB = 0;
+    for (Segment<K, V> segment : segments) {
+      usedMemInB += segment.usedMemInB;
+    }
+    return usedMemInB * 1.0 / maxMemInB;
+  }
+
+  public long getCacheHitNum() {
+    return cacheHitNum.get();
+  }
+
+  public long getCacheRequestNum() {
+    return cacheRequestNum.get();
+  }
+
+  public double calculateHitRatio() {
+    long requestNum = cacheRequestNum.get();
+    if (requestNum != 0) {
+      return cacheHitNum.get() * 1.0 / requestNum;
+    } else {
+      return 0;
+    }
+  }
+
+  private static class Node<K, V> {
+
+    private final K key;
+    /**
+     * cleared once the node is removed, so that a removed node left in the clock holds no value.
+     */
+    private V value;
+    private final long size;
+    /**
+     * set by readers and cleared by the clock hand, an accessed node gets a second chance.
+     */
+    private volatile boolean accessed;
+    /**
+     * guarded by the segment, a removed node is dropped when the clock hand meets it.
+     */
+    private boolean removed;
+
+    private Node(K key, V value, long size) {
+      this.key = key;
+      this.value = value;
+      this.size = size;
+    }
+  }
+
+  private static class Segment<K, V> {
+
+    private final Map<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    /**
+     * the nodes in insertion order, the head is where the clock hand points.
+     */
+    private final ArrayDeque<Node<K, V>> clock = new ArrayDeque<>();
+    private final long maxMemInB;
+    private volatile long usedMemInB;
+    /**
+     * the number of removed nodes still in the clock.
+     */
+    private int removedNum;
+
+    private Segment(long maxMemInB) {
+      this.maxMemInB = maxMemInB;
+    }
+
+    /**
+     * @param condition if not null, the value is cached only when it holds
+     */
+    private synchronized void put(K key, V value, long size, BooleanSupplier condition) {
+      if (map.containsKey(key) || (condition != null && !condition.getAsBoolean())) {
+        return;
+      }
+      Node<K, V> node = new Node<>(key, value, size);
+      map.put(key, node);
+      clock.addLast(node);
+      usedMemInB += size;
+      evict();
+    }
+
+    private void evict() {
+      while (usedMemInB > maxMemInB && !clock.isEmpty()) {
+        Node<K, V> node = clock.pollFirst();
+        if (node.removed) {
+          removedNum--;
+          continue;
+        }
+        if (node.accessed) {
+          node.accessed = false;
+          clock.addLast(node);
+          continue;
+        }
+        map.remove(node.key, node);
+        node.removed = true;
+        node.value = null;
+        usedMemInB -= node.size;
+      }
+    }
+
+    /**
+     * the node stays in the clock until the clock hand meets it, or until the removed nodes
+     * outnumber the cached ones, when they are unlinked all at once.
+     */
+    private synchronized void remove(K key) {
+      Node<K, V> node = map.remove(key);
+      if (node != null) {
+        node.removed = true;
+        node.value = null;
+        usedMemInB -= node.size;
+        removedNum++;
+        if (removedNum > map.size()) {
+          clock.removeIf(n -> n.removed);
+          removedNum = 0;
+        }
+      }
+    }
+
+    private synchronized void removeIf(Predicate<K> predicate) {
+      clock.removeIf(node -> {
+        if (!node.removed && predicate.test(node.key)) {
+          map.remove(node.key, node);
+          node.removed = true;
+          node.value = null;
+          usedMemInB -= node.size;
+        }
+        return node.removed;
+      });
+      removedNum = 0;
+    }
+
+    private synchronized void clear() {
+      map.clear();
+      for (Node<K, V> node : clock) {
+        node.removed = true;
+        node.value = null;
+      }
+      clock.clear();
+      usedMemInB = 0;
+      removedNum = 0;
+    }
+  }
+}
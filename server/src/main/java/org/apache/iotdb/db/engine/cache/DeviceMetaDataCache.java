@@ -20,11 +20,12 @@ package org.apache.iotdb.db.engine.cache;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
@@ -39,7 +40,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This class is used to cache <code>List<ChunkMetaData></code> of tsfile in IoTDB. The caching
- * strategy is LRU.
+ * strategy is an approximate LRU, see {@link ConcurrentLRUCache}.
  */
 public class DeviceMetaDataCache {
 
@@ -51,12 +52,9 @@ public class DeviceMetaDataCache {
   /**
    * key: file path dot deviceId dot sensorId.
    * <p>
-   * value: chunkMetaData list of one timeseries in the file.
+   * value: unmodifiable chunkMetaData list of one timeseries in the file.
    */
-  private LRULinkedHashMap<String, List<ChunkMetaData>> lruCache;
-
-  private AtomicLong cacheHitNum = new AtomicLong();
-  private AtomicLong cacheRequestNum = new AtomicLong();
+  private ConcurrentLRUCache<String, List<ChunkMetaData>> lruCache;
 
   /**
    * approximate estimation of chunkMetaData size
@@ -64,7 +62,7 @@ public class DeviceMetaDataCache {
   private long chunkMetaDataSize = 0;
 
   private DeviceMetaDataCache(long memoryThreshold) {
-    lruCache = new LRULinkedHashMap<String, List<ChunkMetaData>>(memoryThreshold, true) {
+    lruCache = new ConcurrentLRUCache<String, List<ChunkMetaData>>(memoryThreshold) {
       @Override
       protected long calEntrySize(String key, List<ChunkMetaData> value) {
         if (chunkMetaDataSize == 0 && !value.isEmpty()) {
@@ -81,6 +79,10 @@ public class DeviceMetaDataCache {
 
   /**
    * get {@link ChunkMetaData}. THREAD SAFE.
+   * <p>
+   * A hit takes no lock and does not copy, the returned list and its elements are shared with the
+   * cache and other queries. Callers that need to modify them should work on a copy, see {@link
+   * org.apache.iotdb.db.utils.QueryUtils#copyChunkMetaData(List)}.
    */
   public List<ChunkMetaData> get(TsFileResource resource, Path seriesPath)
       throws IOException {
@@ -104,79 +106,69 @@ public class DeviceMetaDataCache {
       return TsFileMetadataUtils.getChunkMetaDataList(seriesPath.getMeasurement(), deviceMetaData);
     }
 
-    StringBuilder builder = new StringBuilder(resource.getFile().getPath()).append(".")
-        .append(seriesPath
-            .getDevice());
-    String pathDeviceStr = builder.toString();
-    String key = builder.append(".").append(seriesPath.getMeasurement()).toString();
-    Object devicePathObject = pathDeviceStr.intern();
-
-    synchronized (lruCache) {
-      cacheRequestNum.incrementAndGet();
-      if (lruCache.containsKey(key)) {
-        cacheHitNum.incrementAndGet();
-        printCacheLog(true);
-        return new ArrayList<>(lruCache.get(key));
+    String pathDeviceStr = resource.getFile().getPath() + "." + seriesPath.getDevice();
+    String key = pathDeviceStr + "." + seriesPath.getMeasurement();
+    return lruCache.get(key, k -> load(resource, seriesPath, pathDeviceStr));
+  }
+
+  /**
+   * read the chunkMetaData list of the series, the lists of the hot sensors of the same device are
+   * cached as well.
+   */
+  private List<ChunkMetaData> load(TsFileResource resource, Path seriesPath, String pathDeviceStr)
+      throws IOException {
+    printMissLog();
+    TsFileMetaData fileMetaData = TsFileMetaDataCache.getInstance().get(resource);
+    // bloom filter part
+    BloomFilter bloomFilter = fileMetaData.getBloomFilter();
+    if (bloomFilter != null && !bloomFilter.contains(seriesPath.getFullPath())) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("path not found by bloom filter, file is: " + resource.getFile() + " path is: " + seriesPath);
       }
+      return Collections.emptyList();
     }
-    synchronized (devicePathObject) {
-      synchronized (lruCache) {
-        if (lruCache.containsKey(key)) {
-          printCacheLog(true);
-          cacheHitNum.incrementAndGet();
-          return new ArrayList<>(lruCache.get(key));
-        }
-      }
-      printCacheLog(false);
-      TsFileMetaData fileMetaData = TsFileMetaDataCache.getInstance().get(resource);
-      // bloom filter part
-      BloomFilter bloomFilter = fileMetaData.getBloomFilter();
-      if (bloomFilter != null && !bloomFilter.contains(seriesPath.getFullPath())) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("path not found by bloom filter, file is: " + resource.getFile() + " path is: " + seriesPath);
-        }
-        return new ArrayList<>();
-      }
-      //
-      TsDeviceMetadata deviceMetaData = TsFileMetadataUtils
-          .getTsDeviceMetaData(resource, seriesPath, fileMetaData);
-      // If measurement isn't included in the tsfile, empty list is returned.
-      if (deviceMetaData == null) {
-        return new ArrayList<>();
-      }
-      Map<Path, List<ChunkMetaData>> chunkMetaData = TsFileMetadataUtils
-          .getChunkMetaDataList(calHotSensorSet(seriesPath), deviceMetaData);
-      synchronized (lruCache) {
-        chunkMetaData.forEach((path, chunkMetaDataList) -> {
-          String k = pathDeviceStr + "." + path.getMeasurement();
-          if (!lruCache.containsKey(k)) {
-            lruCache.put(k, chunkMetaDataList);
-          }
-        });
-        if (chunkMetaData.containsKey(seriesPath)) {
-          return new ArrayList<>(chunkMetaData.get(seriesPath));
-        }
-        return new ArrayList<>();
+    //
+    TsDeviceMetadata deviceMetaData = TsFileMetadataUtils
+        .getTsDeviceMetaData(resource, seriesPath, fileMetaData);
+    // If measurement isn't included in the tsfile, empty list is returned.
+    if (deviceMetaData == null) {
+      return Collections.emptyList();
+    }
+    Map<Path, List<ChunkMetaData>> chunkMetaData = TsFileMetadataUtils
+        .getChunkMetaDataList(calHotSensorSet(seriesPath), deviceMetaData);
+    List<ChunkMetaData> result = null;
+    for (Entry<Path, List<ChunkMetaData>> entry : chunkMetaData.entrySet()) {
+      List<ChunkMetaData> chunkMetaDataList = Collections.unmodifiableList(entry.getValue());
+      if (entry.getKey().equals(seriesPath)) {
+        // the requested one is cached by lruCache after being returned
+        result = chunkMetaDataList;
+      } else {
+        lruCache.putIfAbsent(pathDeviceStr + "." + entry.getKey().getMeasurement(),
+            chunkMetaDataList);
       }
     }
+    if (result == null) {
+      // the hot sensors do not include the requested one
+      result = Collections.unmodifiableList(TsFileMetadataUtils
+          .getChunkMetaDataList(seriesPath.getMeasurement(), deviceMetaData));
+    }
+    return result;
   }
 
-  private void printCacheLog(boolean isHit) {
+  /**
+   * hits are not logged as they take no lock and happen on the hot path of every query.
+   */
+  private void printMissLog() {
     if (!logger.isDebugEnabled()) {
       return;
     }
     logger.debug(
-        "[ChunkMetaData cache {}hit] The number of requests for cache is {}, hit rate is {}.",
-        isHit ? "" : "didn't ", cacheRequestNum.get(),
-        cacheHitNum.get() * 1.0 / cacheRequestNum.get());
+        "[ChunkMetaData cache didn't hit] The number of requests for cache is {}, hit rate is {}.",
+        lruCache.getCacheRequestNum(), lruCache.calculateHitRatio());
   }
 
   public double calculateChunkMetaDataHitRatio() {
-    if (cacheRequestNum.get() != 0) {
-      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
-    } else {
-      return 0;
-    }
+    return lruCache.calculateHitRatio();
   }
 
   /**
@@ -210,17 +202,12 @@ public class DeviceMetaDataCache {
    * clear LRUCache.
    */
   public void clear() {
-    synchronized (lruCache) {
-      if (lruCache != null) {
-        lruCache.clear();
-      }
-    }
+    lruCache.clear();
   }
 
   public void remove(TsFileResource resource) {
-    synchronized (lruCache) {
-      lruCache.entrySet().removeIf(e -> e.getKey().startsWith(resource.getFile().getPath()));
-    }
+    String prefix = resource.getFile().getPath() + ".";
+    lruCache.removeIf(key -> key.startsWith(prefix));
   }
 
   /**
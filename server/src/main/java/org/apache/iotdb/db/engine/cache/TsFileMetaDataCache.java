@@ -19,7 +19,6 @@
 package org.apache.iotdb.db.engine.cache;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -40,9 +39,7 @@ public class TsFileMetaDataCache {
   /**
    * key: Tsfile path. value: TsFileMetaData
    */
-  private LRULinkedHashMap<TsFileResource, TsFileMetaData> cache;
-  private AtomicLong cacheHitNum = new AtomicLong();
-  private AtomicLong cacheRequestNum = new AtomicLong();
+  private ConcurrentLRUCache<String, TsFileMetaData> cache;
 
   /**
    * estimated size of a deviceIndexMap entry in TsFileMetaData.
@@ -58,9 +55,9 @@ public class TsFileMetaDataCache {
   private long versionAndCreatebySize = 10;
 
   private TsFileMetaDataCache() {
-    cache = new LRULinkedHashMap<TsFileResource, TsFileMetaData>(MEMORY_THRESHOLD_IN_B, true) {
+    cache = new ConcurrentLRUCache<String, TsFileMetaData>(MEMORY_THRESHOLD_IN_B) {
       @Override
-      protected long calEntrySize(TsFileResource key, TsFileMetaData value) {
+      protected long calEntrySize(String key, TsFileMetaData value) {
         if (deviceIndexMapEntrySize == 0 && value.getDeviceMap().size() > 0) {
           deviceIndexMapEntrySize = RamUsageEstimator
               .sizeOf(value.getDeviceMap().entrySet().iterator().next());
@@ -72,7 +69,7 @@ public class TsFileMetaDataCache {
         long valueSize = value.getDeviceMap().size() * deviceIndexMapEntrySize
             + measurementSchemaEntrySize * value.getMeasurementSchema().size()
             + versionAndCreatebySize;
-        return key.getFile().getPath().length() * 2 + valueSize;
+        return key.length() * 2 + valueSize;
       }
     };
   }
@@ -82,7 +79,8 @@ public class TsFileMetaDataCache {
   }
 
   /**
-   * get the TsFileMetaData for given TsFile.
+   * get the TsFileMetaData for given TsFile. THREAD SAFE, a hit takes no lock and the returned
+   * TsFileMetaData is shared, so it must not be modified.
    *
    * @param tsFileResource -given TsFile
    */
@@ -91,70 +89,34 @@ public class TsFileMetaDataCache {
       return TsFileMetadataUtils.getTsFileMetaData(tsFileResource);
     }
 
-    String path = tsFileResource.getFile().getPath();
-    Object internPath = path.intern();
-    cacheRequestNum.incrementAndGet();
-    synchronized (cache) {
-      if (cache.containsKey(path)) {
-        cacheHitNum.incrementAndGet();
-        printCacheLog(true);
-        return cache.get(path);
-      }
-    }
-    synchronized (internPath) {
-      synchronized (cache) {
-        if (cache.containsKey(path)) {
-          cacheHitNum.incrementAndGet();
-          printCacheLog(true);
-          return cache.get(path);
-        }
-      }
-      printCacheLog(false);
-      TsFileMetaData fileMetaData = TsFileMetadataUtils.getTsFileMetaData(tsFileResource);
-      synchronized (cache) {
-        cache.put(tsFileResource, fileMetaData);
-        return fileMetaData;
-      }
-    }
+    return cache.get(tsFileResource.getFile().getPath(), path -> {
+      printMissLog();
+      return TsFileMetadataUtils.getTsFileMetaData(tsFileResource);
+    });
   }
 
-  private void printCacheLog(boolean isHit) {
+  /**
+   * hits are not logged as they take no lock and happen on the hot path of every query.
+   */
+  private void printMissLog() {
     if (!logger.isDebugEnabled()) {
       return;
     }
-    if (isHit) {
-      logger.debug(
-          "[TsFileMetaData cache hit] The number of requests for cache is {}, hit rate is {}.",
-          cacheRequestNum.get(), cacheHitNum.get() * 1.0 / cacheRequestNum.get());
-    } else {
-      logger.debug(
-          "[TsFileMetaData cache didn't hit] The number of requests for cache is {}, hit rate is {}.",
-          cacheRequestNum.get(), cacheHitNum.get() * 1.0 / cacheRequestNum.get());
-    }
+    logger.debug(
+        "[TsFileMetaData cache didn't hit] The number of requests for cache is {}, hit rate is {}.",
+        cache.getCacheRequestNum(), cache.calculateHitRatio());
   }
 
   public double calculateTsfileMetaDataHitRatio() {
-    if (cacheRequestNum.get() != 0) {
-      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
-    } else {
-      return 0;
-    }
+    return cache.calculateHitRatio();
   }
 
   public void remove(TsFileResource resource) {
-    synchronized (cache) {
-      if (cache != null) {
-        cache.remove(resource);
-      }
-    }
+    cache.remove(resource.getFile().getPath());
   }
 
   public void clear() {
-    synchronized (cache) {
-      if (cache != null) {
-        cache.clear();
-      }
-    }
+    cache.clear();
   }
 
   /**
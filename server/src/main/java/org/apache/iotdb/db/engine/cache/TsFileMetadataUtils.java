@@ -46,14 +46,17 @@ public class TsFileMetadataUtils {
   }
 
   /**
-   * get tsfile meta data.
+   * get tsfile meta data. The index of devices is not loaded if the file has an index tree, the
+   * index of a device is read by getTsDeviceMetaData() on demand.
    *
    * @param resource -given TsFile
    * @return -meta data
    */
   public static TsFileMetaData getTsFileMetaData(TsFileResource resource) throws IOException {
     TsFileSequenceReader reader = FileReaderManager.getInstance().get(resource, true);
-    return reader.readFileMetadata();
+    // the reader may load the device index into its own file metadata later, which must not
+    // change the file metadata already cached and sized
+    return reader.readFileMetadata(false).copy();
   }
 
   /**
@@ -69,9 +72,9 @@ public class TsFileMetadataUtils {
     if (!fileMetaData.getMeasurementSchema().containsKey(seriesPath.getMeasurement())) {
       return null;
     } else {
-      // get the index information of TsDeviceMetadata
-      TsDeviceMetadataIndex index = fileMetaData.getDeviceMetadataIndex(seriesPath.getDevice());
       TsFileSequenceReader tsFileReader = FileReaderManager.getInstance().get(resource, true);
+      // get the index information of TsDeviceMetadata
+      TsDeviceMetadataIndex index = tsFileReader.readDeviceMetadataIndex(seriesPath.getDevice());
       // read TsDeviceMetadata from file
       return tsFileReader.readTsDeviceMetaData(index);
     }
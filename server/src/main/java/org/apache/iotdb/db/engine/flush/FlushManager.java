@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.flush;
 
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.flush.pool.FlushTaskPoolManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
@@ -38,6 +39,17 @@ public class FlushManager implements FlushManagerMBean, IService {
 
   private FlushTaskPoolManager flushPool = FlushTaskPoolManager.getInstance();
 
+  /**
+   * accumulated time costs of each stage of the flushed memtables, the sort and encoding time are
+   * summed over all encoding sub tasks, so they can exceed the flush time.
+   */
+  private AtomicLong flushedMemTableNum = new AtomicLong();
+  private AtomicLong totalSortTime = new AtomicLong();
+  private AtomicLong totalEncodingTime = new AtomicLong();
+  private AtomicLong totalIoTime = new AtomicLong();
+  private AtomicLong totalFlushTime = new AtomicLong();
+  private volatile long[] lastFlushCosts = new long[4];
+
   @Override
   public void start() throws StartupException {
     FlushSubTaskPoolManager.getInstance().start();
@@ -81,6 +93,68 @@ public class FlushManager implements FlushManagerMBean, IService {
     return FlushSubTaskPoolManager.getInstance().getWaitingTasksNumber();
   }
 
+  @Override
+  public long getNumberOfFlushedMemTables() {
+    return flushedMemTableNum.get();
+  }
+
+  @Override
+  public double getAverageSortTimeInMs() {
+    return average(totalSortTime);
+  }
+
+  @Override
+  public double getAverageEncodingTimeInMs() {
+    return average(totalEncodingTime);
+  }
+
+  @Override
+  public double getAverageIoTimeInMs() {
+    return average(totalIoTime);
+  }
+
+  @Override
+  public double getAverageFlushTimeInMs() {
+    return average(totalFlushTime);
+  }
+
+  @Override
+  public long getLastFlushSortTimeInMs() {
+    return lastFlushCosts[0];
+  }
+
+  @Override
+  public long getLastFlushEncodingTimeInMs() {
+    return lastFlushCosts[1];
+  }
+
+  @Override
+  public long getLastFlushIoTimeInMs() {
+    return lastFlushCosts[2];
+  }
+
+  @Override
+  public long getLastFlushTimeInMs() {
+    return lastFlushCosts[3];
+  }
+
+  private double average(AtomicLong totalTime) {
+    long num = flushedMemTableNum.get();
+    return num == 0 ? 0 : (double) totalTime.get() / num;
+  }
+
+  /**
+   * Record the time costs (in ms) of each stage of a finished memtable flush.
+   */
+  void updateFlushStatistics(long sortTime, long encodingTime, long ioTime, long flushTime) {
+    totalSortTime.addAndGet(sortTime);
+    totalEncodingTime.addAndGet(encodingTime);
+    totalIoTime.addAndGet(ioTime);
+    totalFlushTime.addAndGet(flushTime);
+    flushedMemTableNum.incrementAndGet();
+    lastFlushCosts = new long[]{sortTime, encodingTime, ioTime, flushTime};
+  }
+
   class FlushThread implements Runnable {
 
     @Override
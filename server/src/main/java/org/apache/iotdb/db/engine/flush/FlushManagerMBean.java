@@ -29,4 +29,22 @@ public interface FlushManagerMBean {
 
   public int getNumberOfPendingSubTasks();
 
+  public long getNumberOfFlushedMemTables();
+
+  public double getAverageSortTimeInMs();
+
+  public double getAverageEncodingTimeInMs();
+
+  public double getAverageIoTimeInMs();
+
+  public double getAverageFlushTimeInMs();
+
+  public long getLastFlushSortTimeInMs();
+
+  public long getLastFlushEncodingTimeInMs();
+
+  public long getLastFlushIoTimeInMs();
+
+  public long getLastFlushTimeInMs();
+
 }
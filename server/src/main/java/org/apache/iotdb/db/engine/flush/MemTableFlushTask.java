@@ -19,9 +19,20 @@
 package org.apache.iotdb.db.engine.flush;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
@@ -29,7 +40,6 @@ import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
 import org.apache.iotdb.db.exception.runtime.FlushRunTimeException;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -38,31 +48,40 @@ import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * MemTableFlushTask flushes a memtable in two stages. The series of each device are sorted and
+ * encoded by a sub task in FlushSubTaskPoolManager, and at most flush_encoding_parallelism devices
+ * are encoded concurrently. The encoded chunk groups are handed over to the single io task in the
+ * order of the devices, so the layout of the chunk groups in the file does not change.
+ */
 public class MemTableFlushTask {
 
   private static final Logger logger = LoggerFactory.getLogger(MemTableFlushTask.class);
   private static final FlushSubTaskPoolManager subTaskPoolManager = FlushSubTaskPoolManager
       .getInstance();
-  private Future encodingTaskFuture;
+  private static final long HAND_OVER_CHECK_INTERVAL_MS = 100;
+  private static final Object NO_MORE_IO_TASK = new Object();
+
   private Future ioTaskFuture;
   private RestorableTsFileIOWriter writer;
 
-  private ConcurrentLinkedQueue ioTaskQueue = new ConcurrentLinkedQueue();
-  private ConcurrentLinkedQueue encodingTaskQueue = new ConcurrentLinkedQueue();
+  private int encodingParallelism = IoTDBDescriptor.getInstance().getConfig()
+      .getFlushEncodingParallelism();
+  private BlockingQueue<Object> ioTaskQueue = new ArrayBlockingQueue<>(encodingParallelism);
   private String storageGroup;
 
   private IMemTable memTable;
   private Schema schema;
 
-  private volatile boolean noMoreEncodingTask = false;
-  private volatile boolean noMoreIOTask = false;
+  private AtomicLong sortTime = new AtomicLong();
+  private AtomicLong encodingTime = new AtomicLong();
+  private long ioTime = 0;
 
   public MemTableFlushTask(IMemTable memTable, Schema schema, RestorableTsFileIOWriter writer, String storageGroup) {
     this.memTable = memTable;
     this.schema = schema;
     this.writer = writer;
     this.storageGroup = storageGroup;
-    this.encodingTaskFuture = subTaskPoolManager.submit(encodingTask);
     this.ioTaskFuture = subTaskPoolManager.submit(ioTask);
     logger.debug("flush task of Storage group {} memtable {} is created ",
         storageGroup, memTable.getVersion());
@@ -74,45 +93,78 @@ public class MemTableFlushTask {
    */
   public void syncFlushMemTable() throws ExecutionException, InterruptedException {
     long start = System.currentTimeMillis();
-    long sortTime = 0;
-    for (String deviceId : memTable.getMemTableMap().keySet()) {
-      encodingTaskQueue.add(new StartFlushGroupIOTask(deviceId));
-      for (String measurementId : memTable.getMemTableMap().get(deviceId).keySet()) {
-        long startTime = System.currentTimeMillis();
-        IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId);
-        MeasurementSchema desc = schema.getMeasurementSchema(measurementId);
-        TVList tvList = series.getSortedTVList();
-        sortTime += System.currentTimeMillis() - startTime;
-        encodingTaskQueue.add(new Pair<>(tvList, desc));
-        // register active time series to the ActiveTimeSeriesCounter
-        ActiveTimeSeriesCounter.getInstance().offer(storageGroup, deviceId, measurementId);
-      }
-      encodingTaskQueue.add(new EndChunkGroupIoTask(memTable.getVersion()));
-    }
-    ActiveTimeSeriesCounter.getInstance().updateActiveRatio(storageGroup);
-    noMoreEncodingTask = true;
-    logger.debug(
-        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms.",
-        storageGroup, memTable.getVersion(), sortTime);
-
+    Deque<Future<EncodedChunkGroup>> encodingTaskFutures = new ArrayDeque<>();
     try {
-      encodingTaskFuture.get();
-    } catch (InterruptedException | ExecutionException e) {
-      // avoid ioTask waiting forever
-      noMoreIOTask = true;
+      for (Entry<String, Map<String, IWritableMemChunk>> deviceEntry : memTable.getMemTableMap()
+          .entrySet()) {
+        String deviceId = deviceEntry.getKey();
+        for (String measurementId : deviceEntry.getValue().keySet()) {
+          // register active time series to the ActiveTimeSeriesCounter
+          ActiveTimeSeriesCounter.getInstance().offer(storageGroup, deviceId, measurementId);
+        }
+        if (encodingTaskFutures.size() >= encodingParallelism) {
+          handOver(encodingTaskFutures.poll());
+        }
+        encodingTaskFutures
+            .add(subTaskPoolManager.submit(new EncodingTask(deviceId, deviceEntry.getValue())));
+      }
+      ActiveTimeSeriesCounter.getInstance().updateActiveRatio(storageGroup);
+      while (!encodingTaskFutures.isEmpty()) {
+        handOver(encodingTaskFutures.poll());
+      }
+      putIOTask(NO_MORE_IO_TASK);
+    } catch (InterruptedException | ExecutionException | RuntimeException e) {
+      // avoid the encoding tasks and the ioTask running or waiting forever
+      for (Future<EncodedChunkGroup> future : encodingTaskFutures) {
+        future.cancel(true);
+      }
       ioTaskFuture.cancel(true);
       throw e;
     }
 
     ioTaskFuture.get();
 
+    long flushTime = System.currentTimeMillis() - start;
+    FlushManager.getInstance().updateFlushStatistics(sortTime.get(), encodingTime.get(), ioTime,
+        flushTime);
+    logger.debug(
+        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms, encoding "
+            + "time cost {} ms, io time cost {} ms.", storageGroup, memTable.getVersion(),
+        sortTime.get(), encodingTime.get(), ioTime);
     logger.info(
         "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
-        storageGroup, memTable, System.currentTimeMillis() - start);
+        storageGroup, memTable, flushTime);
+  }
+
+  /**
+   * Wait for the encoding of the next device and pass it to the ioTask in order.
+   */
+  private void handOver(Future<EncodedChunkGroup> encodingTaskFuture)
+      throws ExecutionException, InterruptedException {
+    putIOTask(encodingTaskFuture.get());
   }
 
+  private void putIOTask(Object task) throws ExecutionException, InterruptedException {
+    while (!ioTaskQueue.offer(task, HAND_OVER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+      if (ioTaskFuture.isDone()) {
+        // the ioTask has failed, get() throws the cause
+        ioTaskFuture.get();
+        throw new ExecutionException(new IllegalStateException(
+            "the io task of storage group " + storageGroup + " exits unexpectedly"));
+      }
+    }
+  }
+
+  private class EncodingTask implements Callable<EncodedChunkGroup> {
+
+    private String deviceId;
+    private Map<String, IWritableMemChunk> seriesMap;
+
+    private EncodingTask(String deviceId, Map<String, IWritableMemChunk> seriesMap) {
+      this.deviceId = deviceId;
+      this.seriesMap = seriesMap;
+    }
 
-  private Runnable encodingTask = new Runnable() {
     private void writeOneSeries(TVList tvPairs, IChunkWriter seriesWriterImpl,
         TSDataType dataType){
       for (int i = 0; i < tvPairs.size(); i++) {
@@ -150,111 +202,67 @@ public class MemTableFlushTask {
       }
     }
 
-    @SuppressWarnings("squid:S135")
     @Override
-    public void run() {
-      long memSerializeTime = 0;
-      boolean noMoreMessages = false;
-      logger.debug("Storage group {} memtable {}, starts to encoding data.", storageGroup,
-          memTable.getVersion());
-      while (true) {
-        if (noMoreEncodingTask) {
-          noMoreMessages = true;
-        }
-        Object task = encodingTaskQueue.poll();
-        if (task == null) {
-          if (noMoreMessages) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (@SuppressWarnings("squid:S2142") InterruptedException e) {
-            logger.error("Storage group {} memtable {}, encoding task is interrupted.",
-                storageGroup, memTable.getVersion(), e);
-            // generally it is because the thread pool is shutdown so the task should be aborted
-            break;
-          }
-        } else {
-          if (task instanceof StartFlushGroupIOTask) {
-            ioTaskQueue.add(task);
-          } else if (task instanceof EndChunkGroupIoTask) {
-            ioTaskQueue.add(task);
-          } else {
-            long starTime = System.currentTimeMillis();
-            Pair<TVList, MeasurementSchema> encodingMessage = (Pair<TVList, MeasurementSchema>) task;
-            IChunkWriter seriesWriter = new ChunkWriterImpl(encodingMessage.right);
-            writeOneSeries(encodingMessage.left, seriesWriter, encodingMessage.right.getType());
-            ioTaskQueue.add(seriesWriter);
-            memSerializeTime += System.currentTimeMillis() - starTime;
-          }
-        }
+    public EncodedChunkGroup call() {
+      List<IChunkWriter> chunkWriters = new ArrayList<>(seriesMap.size());
+      for (Entry<String, IWritableMemChunk> seriesEntry : seriesMap.entrySet()) {
+        long startTime = System.currentTimeMillis();
+        MeasurementSchema desc = schema.getMeasurementSchema(seriesEntry.getKey());
+        TVList tvList = seriesEntry.getValue().getSortedTVList();
+        long sortEndTime = System.currentTimeMillis();
+        sortTime.addAndGet(sortEndTime - startTime);
+
+        IChunkWriter seriesWriter = new ChunkWriterImpl(desc);
+        writeOneSeries(tvList, seriesWriter, desc.getType());
+        chunkWriters.add(seriesWriter);
+        encodingTime.addAndGet(System.currentTimeMillis() - sortEndTime);
       }
-      noMoreIOTask = true;
-      logger.debug("Storage group {}, flushing memtable {} into disk: Encoding data cost "
-              + "{} ms.",
-          storageGroup, memTable.getVersion(), memSerializeTime);
+      return new EncodedChunkGroup(deviceId, chunkWriters);
     }
-  };
+  }
 
   @SuppressWarnings("squid:S135")
   private Runnable ioTask = () -> {
-      long ioTime = 0;
-      boolean returnWhenNoTask = false;
       logger.debug("Storage group {} memtable {}, start io.", storageGroup, memTable.getVersion());
       while (true) {
-        if (noMoreIOTask) {
-          returnWhenNoTask = true;
+        Object ioMessage;
+        try {
+          ioMessage = ioTaskQueue.take();
+        } catch (@SuppressWarnings("squid:S2142") InterruptedException e) {
+          logger.error("Storage group {} memtable {}, io task is interrupted.", storageGroup
+              , memTable.getVersion(), e);
+          // generally it is because the thread pool is shutdown so the task should be aborted
+          break;
         }
-        Object ioMessage = ioTaskQueue.poll();
-        if (ioMessage == null) {
-          if (returnWhenNoTask) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (@SuppressWarnings("squid:S2142")  InterruptedException e) {
-            logger.error("Storage group {} memtable, io task is interrupted.", storageGroup
-                , memTable.getVersion(), e);
-            // generally it is because the thread pool is shutdown so the task should be aborted
-            break;
-          }
-        } else {
-          long starTime = System.currentTimeMillis();
-          try {
-            if (ioMessage instanceof StartFlushGroupIOTask) {
-              writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
-            } else if (ioMessage instanceof IChunkWriter) {
-              ChunkWriterImpl chunkWriter = (ChunkWriterImpl) ioMessage;
-              chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
-            } else {
-              EndChunkGroupIoTask endGroupTask = (EndChunkGroupIoTask) ioMessage;
-              writer.endChunkGroup(endGroupTask.version);
-            }
-          } catch (IOException e) {
-            logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
-                memTable.getVersion(), e);
-            throw new FlushRunTimeException(e);
+        if (ioMessage == NO_MORE_IO_TASK) {
+          break;
+        }
+        long starTime = System.currentTimeMillis();
+        EncodedChunkGroup chunkGroup = (EncodedChunkGroup) ioMessage;
+        try {
+          writer.startChunkGroup(chunkGroup.deviceId);
+          for (IChunkWriter chunkWriter : chunkGroup.chunkWriters) {
+            chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
           }
-          ioTime += System.currentTimeMillis() - starTime;
+          writer.endChunkGroup(memTable.getVersion());
+        } catch (IOException e) {
+          logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
+              memTable.getVersion(), e);
+          throw new FlushRunTimeException(e);
         }
+        ioTime += System.currentTimeMillis() - starTime;
       }
       logger.debug("flushing a memtable {} in storage group {}, io cost {}ms", memTable.getVersion(),
           storageGroup, ioTime);
     };
 
-  static class EndChunkGroupIoTask {
-    private long version;
-
-    EndChunkGroupIoTask(long version) {
-      this.version = version;
-    }
-  }
-
-  static class StartFlushGroupIOTask {
+  static class EncodedChunkGroup {
     private String deviceId;
+    private List<IChunkWriter> chunkWriters;
 
-    StartFlushGroupIOTask(String deviceId) {
+    EncodedChunkGroup(String deviceId, List<IChunkWriter> chunkWriters) {
       this.deviceId = deviceId;
+      this.chunkWriters = chunkWriters;
     }
   }
 
@@ -32,7 +32,10 @@ import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.db.utils.MemUtils;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 public abstract class AbstractMemTable implements IMemTable {
@@ -197,17 +200,16 @@ public abstract class AbstractMemTable implements IMemTable {
   @Override
   public ReadOnlyMemChunk query(String deviceId, String measurement, TSDataType dataType,
       Map<String, String> props, long timeLowerBound) {
-    TimeValuePairSorter sorter;
     if (!checkPath(deviceId, measurement)) {
       return null;
-    } else {
-      long undeletedTime = findUndeletedTime(deviceId, measurement, timeLowerBound);
-      IWritableMemChunk memChunk = memTableMap.get(deviceId).get(measurement);
-      IWritableMemChunk chunkCopy = new WritableMemChunk(dataType, memChunk.getTVList().clone());
-      chunkCopy.setTimeOffset(undeletedTime);
-      sorter = chunkCopy;
     }
-    return new ReadOnlyMemChunk(dataType, sorter, props);
+    long undeletedTime = findUndeletedTime(deviceId, measurement, timeLowerBound);
+    IWritableMemChunk memChunk = memTableMap.get(deviceId).get(measurement);
+    TVList snapshot = memChunk.getSortedTVListSnapshot();
+    snapshot.setTimeOffset(undeletedTime);
+    ReadOnlyMemChunk readOnlyMemChunk = new ReadOnlyMemChunk(dataType, snapshot, props);
+    readOnlyMemChunk.setDeleteIntervalList(findDeleteIntervals(deviceId, measurement));
+    return readOnlyMemChunk;
   }
 
 
@@ -216,24 +218,46 @@ public abstract class AbstractMemTable implements IMemTable {
     for (Modification modification : modifications) {
       if (modification instanceof Deletion) {
         Deletion deletion = (Deletion) modification;
-        if (deletion.getDevice().equals(deviceId) && deletion.getMeasurement().equals(measurement)
-            && deletion.getTimestamp() > undeletedTime) {
-          undeletedTime = deletion.getTimestamp();
+        if (deletion.isFromBeginning() && deletion.getDevice().equals(deviceId)
+            && deletion.getMeasurement().equals(measurement)
+            && deletion.getEndTime() > undeletedTime) {
+          undeletedTime = deletion.getEndTime();
         }
       }
     }
     return Math.max(undeletedTime + 1, timeLowerBound);
   }
 
+  /**
+   * @return the sorted and disjoint ranges of the deletions that do not start from the beginning,
+   * or null if there is no such deletion
+   */
+  private List<TimeRange> findDeleteIntervals(String deviceId, String measurement) {
+    List<TimeRange> deleteIntervals = null;
+    for (Modification modification : modifications) {
+      if (modification instanceof Deletion) {
+        Deletion deletion = (Deletion) modification;
+        if (!deletion.isFromBeginning() && deletion.getDevice().equals(deviceId)
+            && deletion.getMeasurement().equals(measurement)) {
+          if (deleteIntervals == null) {
+            deleteIntervals = new ArrayList<>();
+          }
+          deleteIntervals.add(new TimeRange(deletion.getStartTime(), deletion.getEndTime()));
+        }
+      }
+    }
+    return deleteIntervals == null ? null : QueryUtils.sortAndMergeDeleteIntervals(deleteIntervals);
+  }
+
   @Override
-  public void delete(String deviceId, String measurementId, long timestamp) {
+  public void delete(String deviceId, String measurementId, long startTime, long endTime) {
     Map<String, IWritableMemChunk> deviceMap = memTableMap.get(deviceId);
     if (deviceMap != null) {
       IWritableMemChunk chunk = deviceMap.get(measurementId);
       if (chunk == null) {
         return;
       }
-      chunk.delete(timestamp);
+      chunk.delete(startTime, endTime);
     }
   }
 
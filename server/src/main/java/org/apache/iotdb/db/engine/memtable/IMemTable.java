@@ -67,17 +67,18 @@ public interface IMemTable {
   boolean isEmpty();
 
   /**
-   * Delete data in it whose timestamp <= 'timestamp' and belonging to timeseries
+   * Delete data in it whose timestamp is in [startTime, endTime] and belonging to timeseries
    * deviceId.measurementId. Only called for non-flushing MemTable.
    *
    * @param deviceId the deviceId of the timeseries to be deleted.
    * @param measurementId the measurementId of the timeseries to be deleted.
-   * @param timestamp the upper-bound of deletion time.
+   * @param startTime the lower-bound of deletion time.
+   * @param endTime the upper-bound of deletion time.
    */
-  void delete(String deviceId, String measurementId, long timestamp);
+  void delete(String deviceId, String measurementId, long startTime, long endTime);
 
   /**
-   * Delete data in it whose timestamp <= 'timestamp' and belonging to timeseries
+   * Delete data in it whose timestamp is in the range of the deletion and belonging to timeseries
    * deviceId.measurementId. Only called for flushing MemTable.
    *
    * @param deletion and object representing this deletion
@@ -84,9 +84,19 @@ public interface IWritableMemChunk extends TimeValuePairSorter {
 
   default TVList getTVList(){return null;}
 
+  /**
+   * served for query requests, sort the data and take a copy-on-write snapshot of it so that the
+   * query does not need to clone the whole chunk.
+   * @return a read-only sorted snapshot of the data
+   */
+  default TVList getSortedTVListSnapshot(){return null;}
+
   default long getMinTime() {
     return Long.MIN_VALUE;
   }
 
-  void delete(long upperBound);
+  /**
+   * delete the data whose timestamp is in [lowerBound, upperBound].
+   */
+  void delete(long lowerBound, long upperBound);
 }
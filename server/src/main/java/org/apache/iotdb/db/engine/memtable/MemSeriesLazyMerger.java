@@ -39,6 +39,10 @@ public class MemSeriesLazyMerger implements TimeValuePairSorter {
     memSeriesList.add(series);
   }
 
+  public List<ReadOnlyMemChunk> getMemSeriesList() {
+    return memSeriesList;
+  }
+
   @Override
   public List<TimeValuePair> getSortedTimeValuePairList() {
     List<TimeValuePair> res = new ArrayList<>();
@@ -203,6 +203,12 @@ public class WritableMemChunk implements IWritableMemChunk {
     return list;
   }
 
+  @Override
+  public synchronized TVList getSortedTVListSnapshot() {
+    list.sort();
+    return list.getSnapshot();
+  }
+
   @Override
   public TVList getTVList() {
     return list;
@@ -274,7 +280,7 @@ public class WritableMemChunk implements IWritableMemChunk {
   }
 
   @Override
-  public void delete(long upperBound) {
-    list.delete(upperBound);
+  public void delete(long lowerBound, long upperBound) {
+    list.delete(lowerBound, upperBound);
   }
 }
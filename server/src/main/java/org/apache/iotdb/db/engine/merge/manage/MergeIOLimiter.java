@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.manage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.TestOnly;
+
+/**
+ * MergeIOLimiter throttles the disk IO of all merges and compactions with a token bucket, so that
+ * they do not starve the flushes and queries on the same disks. Each byte read or written takes a
+ * token and the tokens are refilled at the rate of "merge_throughput_mb_per_sec", which is read on
+ * each acquisition so that it can be adjusted at runtime. The bucket holds the tokens of at most
+ * one second, so a burst is allowed after a merge has been idle for a while.
+ */
+public class MergeIOLimiter {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * the current time in nanoseconds
+   */
+  private LongSupplier clock;
+
+  /**
+   * blocks the caller for the given nanoseconds
+   */
+  private LongConsumer sleeper;
+
+  /**
+   * the time when the tokens of the last acquisition are refilled, it is never earlier than one
+   * second ago
+   */
+  private long nextFreeTime;
+
+  private AtomicLong totalReadBytes = new AtomicLong();
+  private AtomicLong totalWrittenBytes = new AtomicLong();
+  private AtomicLong totalThrottledTime = new AtomicLong();
+
+  private MergeIOLimiter() {
+    this(System::nanoTime, MergeIOLimiter::sleep);
+  }
+
+  @TestOnly
+  public MergeIOLimiter(LongSupplier clock, LongConsumer sleeper) {
+    this.clock = clock;
+    this.sleeper = sleeper;
+    this.nextFreeTime = clock.getAsLong();
+  }
+
+  public static MergeIOLimiter getInstance() {
+    return MergeIOLimiterHolder.INSTANCE;
+  }
+
+  /**
+   * Block until the given bytes can be read from the disk.
+   */
+  public void acquireRead(long bytes) {
+    totalReadBytes.addAndGet(bytes);
+    acquire(bytes);
+  }
+
+  /**
+   * Block until the given bytes can be written to the disk.
+   */
+  public void acquireWrite(long bytes) {
+    totalWrittenBytes.addAndGet(bytes);
+    acquire(bytes);
+  }
+
+  private void acquire(long bytes) {
+    long bytesPerSec =
+        IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec() * 1024L * 1024L;
+    if (bytesPerSec <= 0 || bytes <= 0) {
+      return;
+    }
+    long waitTime;
+    synchronized (this) {
+      long now = clock.getAsLong();
+      nextFreeTime = Math.max(nextFreeTime, now - NANOS_PER_SECOND);
+      // the acquisition takes the tokens in advance and the next one pays for it
+      waitTime = nextFreeTime - now;
+      nextFreeTime += (long) ((double) bytes / bytesPerSec * NANOS_PER_SECOND);
+    }
+    if (waitTime > 0) {
+      totalThrottledTime.addAndGet(waitTime);
+      sleeper.accept(waitTime);
+    }
+  }
+
+  private static void sleep(long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      // the merge is being stopped
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public long getTotalReadBytes() {
+    return totalReadBytes.get();
+  }
+
+  public long getTotalWrittenBytes() {
+    return totalWrittenBytes.get();
+  }
+
+  public long getTotalThrottledTimeInMs() {
+    return TimeUnit.NANOSECONDS.toMillis(totalThrottledTime.get());
+  }
+
+  private static class MergeIOLimiterHolder {
+
+    private static final MergeIOLimiter INSTANCE = new MergeIOLimiter();
+  }
+}
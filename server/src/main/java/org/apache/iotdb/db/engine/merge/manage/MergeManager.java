@@ -22,24 +22,37 @@ package org.apache.iotdb.db.engine.merge.manage;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.merge.task.CompactionTask;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * MergeManager provides a ThreadPool to queue and run all merge tasks to restrain the total
- * resources occupied by merge and manages a Timer to periodically issue a global merge.
+ * resources occupied by merge and manages a Timer to periodically issue a global merge. Compactions
+ * of seqFiles run in a separated ThreadPool so that they are not queued behind long merges.
+ *
+ * The queued tasks are ordered by the number of files they remove, so that the tasks that reduce
+ * the most read amplification run first, and the tasks removing the same number of files are
+ * ordered by their sizes and then by their submission. The bytes read and written by the tasks are
+ * limited by {@link MergeIOLimiter}.
  */
-public class MergeManager implements IService {
+public class MergeManager implements IService, MergeManagerMBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MergeManager.class);
   private static final MergeManager INSTANCE = new MergeManager();
@@ -47,8 +60,13 @@ public class MergeManager implements IService {
   private AtomicInteger threadCnt = new AtomicInteger();
   private ThreadPoolExecutor mergeTaskPool;
   private ThreadPoolExecutor mergeChunkSubTaskPool;
+  private ThreadPoolExecutor compactionTaskPool;
   private ScheduledExecutorService timedMergeThreadPool;
 
+  private AtomicLong submitCnt = new AtomicLong();
+  private AtomicLong finishedTaskCnt = new AtomicLong();
+  private AtomicLong totalTaskTime = new AtomicLong();
+
   private MergeManager() {
   }
 
@@ -57,13 +75,36 @@ public class MergeManager implements IService {
   }
 
   public void submitMainTask(MergeTask mergeTask) {
-    mergeTaskPool.submit(mergeTask);
+    MergeResource resource = mergeTask.getResource();
+    mergeTaskPool.execute(new PrioritizedTask(mergeTask, resource.getUnseqFiles().size(),
+        getTotalFileSize(resource)));
   }
 
   public Future submitChunkSubTask(Callable callable) {
     return mergeChunkSubTaskPool.submit(callable);
   }
 
+  public void submitCompactionTask(CompactionTask compactionTask) {
+    MergeResource resource = compactionTask.getResource();
+    // n files are replaced by one
+    compactionTaskPool.execute(new PrioritizedTask(compactionTask,
+        resource.getSeqFiles().size() - 1, getTotalFileSize(resource)));
+  }
+
+  /**
+   * Select the files to be compacted of a storage group in the compaction ThreadPool, so that the
+   * caller, e.g., a flush thread, is not blocked by the lock of the storage group.
+   */
+  public void compactAsync(StorageGroupProcessor storageGroupProcessor) {
+    if (compactionTaskPool != null) {
+      // the selection is cheap, so it does not wait for the queued compactions
+      compactionTaskPool.execute(new PrioritizedTask(() -> {
+        storageGroupProcessor.compact();
+        return null;
+      }, Integer.MAX_VALUE, 0));
+    }
+  }
+
   @Override
   public void start() {
     if (mergeTaskPool == null) {
@@ -77,12 +118,18 @@ public class MergeManager implements IService {
         chunkSubThreadNum = 1;
       }
 
-      mergeTaskPool =
-          (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum,
-              r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
+      mergeTaskPool = newPriorityThreadPool(threadNum,
+          r -> new Thread(r, "MergeThread-" + threadCnt.getAndIncrement()));
       mergeChunkSubTaskPool =
           (ThreadPoolExecutor) Executors.newFixedThreadPool(threadNum * chunkSubThreadNum,
               r -> new Thread(r, "MergeChunkSubThread-" + threadCnt.getAndIncrement()));
+      int compactionThreadNum =
+          IoTDBDescriptor.getInstance().getConfig().getSeqFileCompactionThreadNum();
+      if (compactionThreadNum <= 0) {
+        compactionThreadNum = 1;
+      }
+      compactionTaskPool = newPriorityThreadPool(compactionThreadNum,
+          r -> new Thread(r, "CompactionThread-" + threadCnt.getAndIncrement()));
       long mergeInterval = IoTDBDescriptor.getInstance().getConfig().getMergeIntervalSec();
       if (mergeInterval > 0) {
         timedMergeThreadPool = Executors.newSingleThreadScheduledExecutor( r -> new Thread(r,
@@ -90,6 +137,7 @@ public class MergeManager implements IService {
         timedMergeThreadPool.scheduleAtFixedRate(this::mergeAll, mergeInterval,
             mergeInterval, TimeUnit.SECONDS);
       }
+      JMXService.registerMBean(this, ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("MergeManager started");
     }
   }
@@ -103,11 +151,15 @@ public class MergeManager implements IService {
       }
       mergeTaskPool.shutdownNow();
       mergeChunkSubTaskPool.shutdownNow();
+      compactionTaskPool.shutdownNow();
       logger.info("Waiting for task pool to shut down");
-      while (!mergeTaskPool.isTerminated() || !mergeChunkSubTaskPool.isTerminated() ) {
+      while (!mergeTaskPool.isTerminated() || !mergeChunkSubTaskPool.isTerminated()
+          || !compactionTaskPool.isTerminated()) {
         // wait
       }
       mergeTaskPool = null;
+      compactionTaskPool = null;
+      JMXService.deregisterMBean(ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("MergeManager stopped");
     }
   }
@@ -117,6 +169,87 @@ public class MergeManager implements IService {
     return ServiceType.MERGE_SERVICE;
   }
 
+  @Override
+  public int getNumberOfWorkingTasks() {
+    return mergeTaskPool == null ? 0 : mergeTaskPool.getActiveCount();
+  }
+
+  @Override
+  public int getNumberOfPendingTasks() {
+    return mergeTaskPool == null ? 0 : mergeTaskPool.getQueue().size();
+  }
+
+  @Override
+  public int getNumberOfWorkingCompactions() {
+    return compactionTaskPool == null ? 0 : compactionTaskPool.getActiveCount();
+  }
+
+  @Override
+  public int getNumberOfPendingCompactions() {
+    return compactionTaskPool == null ? 0 : compactionTaskPool.getQueue().size();
+  }
+
+  @Override
+  public long getNumberOfFinishedTasks() {
+    return finishedTaskCnt.get();
+  }
+
+  @Override
+  public int getMergeThroughputMbPerSec() {
+    return IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec();
+  }
+
+  @Override
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    IoTDBDescriptor.getInstance().getConfig().setMergeThroughputMbPerSec(mergeThroughputMbPerSec);
+  }
+
+  @Override
+  public long getTotalMergeReadBytes() {
+    return MergeIOLimiter.getInstance().getTotalReadBytes();
+  }
+
+  @Override
+  public long getTotalMergeWrittenBytes() {
+    return MergeIOLimiter.getInstance().getTotalWrittenBytes();
+  }
+
+  @Override
+  public long getTotalMergeThrottledTimeInMs() {
+    return MergeIOLimiter.getInstance().getTotalThrottledTimeInMs();
+  }
+
+  /**
+   * @return the bytes read and written by merges and compactions per second of their running time
+   */
+  @Override
+  public double getAverageMergeThroughputInMbPerSec() {
+    long taskTime = totalTaskTime.get();
+    if (taskTime == 0) {
+      return 0;
+    }
+    MergeIOLimiter limiter = MergeIOLimiter.getInstance();
+    double mb = (limiter.getTotalReadBytes() + limiter.getTotalWrittenBytes()) / 1024.0 / 1024.0;
+    return mb / taskTime * 1000;
+  }
+
+  static ThreadPoolExecutor newPriorityThreadPool(int threadNum,
+      ThreadFactory threadFactory) {
+    return new ThreadPoolExecutor(threadNum, threadNum, 0L, TimeUnit.MILLISECONDS,
+        new PriorityBlockingQueue<>(), threadFactory);
+  }
+
+  private static long getTotalFileSize(MergeResource resource) {
+    long size = 0;
+    for (TsFileResource seqFile : resource.getSeqFiles()) {
+      size += seqFile.getFileSize();
+    }
+    for (TsFileResource unseqFile : resource.getUnseqFiles()) {
+      size += unseqFile.getFileSize();
+    }
+    return size;
+  }
+
   private void mergeAll() {
     try {
       StorageEngine.getInstance().mergeAll(IoTDBDescriptor.getInstance().getConfig().isForceFullMerge());
@@ -124,4 +257,48 @@ public class MergeManager implements IService {
       logger.error("Cannot perform a global merge because", e);
     }
   }
+
+  /**
+   * A task in the queue of a merge ThreadPool. The tasks removing more files run first, then the
+   * smaller ones, then the earlier ones.
+   */
+  class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+    private Callable<Void> task;
+    private int removedFileNum;
+    private long fileSize;
+    private long submitOrder;
+
+    PrioritizedTask(Callable<Void> task, int removedFileNum, long fileSize) {
+      this.task = task;
+      this.removedFileNum = removedFileNum;
+      this.fileSize = fileSize;
+      this.submitOrder = submitCnt.getAndIncrement();
+    }
+
+    @Override
+    public void run() {
+      long startTime = System.currentTimeMillis();
+      try {
+        task.call();
+      } catch (Exception e) {
+        // the tasks have logged their own failures
+        logger.debug("A merge task failed", e);
+      } finally {
+        totalTaskTime.addAndGet(System.currentTimeMillis() - startTime);
+        finishedTaskCnt.incrementAndGet();
+      }
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask o) {
+      if (removedFileNum != o.removedFileNum) {
+        return Integer.compare(o.removedFileNum, removedFileNum);
+      }
+      if (fileSize != o.fileSize) {
+        return Long.compare(fileSize, o.fileSize);
+      }
+      return Long.compare(submitOrder, o.submitOrder);
+    }
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.recover;
+
+import static org.apache.iotdb.db.engine.merge.recover.MergeLogger.STR_ALL_TS_END;
+import static org.apache.iotdb.db.engine.merge.recover.MergeLogger.STR_MERGE_START;
+import static org.apache.iotdb.db.engine.merge.recover.MergeLogger.STR_SEQ_FILES;
+import static org.apache.iotdb.db.engine.merge.recover.MergeLogger.STR_UNSEQ_FILES;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CompactionLogAnalyzer scans the "compaction.log" file and recovers the source files and the
+ * target file of the last compaction and whether the target file is complete. An example of
+ * compacting 2 seqFiles is:
+ * seqFiles
+ * server/0-0-0.tsfile
+ * server/1-1-0.tsfile
+ * unseqFiles
+ * merge start
+ * server/1-1-1.tsfile 0
+ * all ts end
+ */
+public class CompactionLogAnalyzer {
+
+  private File logFile;
+
+  private List<File> sourceFiles = new ArrayList<>();
+  private File targetFile;
+  private boolean allTsEnd = false;
+
+  public CompactionLogAnalyzer(File logFile) {
+    this.logFile = logFile;
+  }
+
+  public void analyze() throws IOException {
+    try (BufferedReader bufferedReader = new BufferedReader(new FileReader(logFile))) {
+      String currLine = bufferedReader.readLine();
+      if (!STR_SEQ_FILES.equals(currLine)) {
+        return;
+      }
+      while ((currLine = bufferedReader.readLine()) != null && !STR_UNSEQ_FILES.equals(currLine)) {
+        sourceFiles.add(new File(currLine));
+      }
+      // a compaction has no unseqFiles
+      while (currLine != null && !STR_MERGE_START.equals(currLine)) {
+        currLine = bufferedReader.readLine();
+      }
+      currLine = bufferedReader.readLine();
+      if (currLine == null) {
+        return;
+      }
+      targetFile = new File(currLine.substring(0, currLine.lastIndexOf(' ')));
+      allTsEnd = STR_ALL_TS_END.equals(bufferedReader.readLine());
+    }
+  }
+
+  public List<File> getSourceFiles() {
+    return sourceFiles;
+  }
+
+  /**
+   * @return the target file, or null if the compaction crashed before the file was created
+   */
+  public File getTargetFile() {
+    return targetFile;
+  }
+
+  /**
+   * @return whether the target file and its resource are complete
+   */
+  public boolean isAllTsEnd() {
+    return allTsEnd;
+  }
+}
@@ -29,7 +29,8 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.tsfile.read.common.Path;
 
 /**
- * MergeLogger records the progress of a merge in file "merge.log" as text lines.
+ * MergeLogger records the progress of a merge in file "merge.log" (or the progress of a compaction
+ * in file "compaction.log") as text lines.
  */
 public class MergeLogger {
 
@@ -47,7 +48,15 @@ public class MergeLogger {
   private BufferedWriter logStream;
 
   public MergeLogger(String storageGroupDir) throws IOException {
-    logStream = new BufferedWriter(new FileWriter(new File(storageGroupDir, MERGE_LOG_NAME), true));
+    this(storageGroupDir, MERGE_LOG_NAME);
+  }
+
+  /**
+   * @param logName the name of the log file, so that tasks other than merges, e.g., compactions,
+   * can record their progress in the same format
+   */
+  public MergeLogger(String storageGroupDir, String logName) throws IOException {
+    logStream = new BufferedWriter(new FileWriter(new File(storageGroupDir, logName), true));
   }
 
   public void close() throws IOException {
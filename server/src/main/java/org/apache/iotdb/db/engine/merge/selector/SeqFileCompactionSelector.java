@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.selector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+/**
+ * SeqFileCompactionSelector selects a run of adjacent small seqFiles of the same time partition,
+ * which can be compacted into one larger file without overlapping the other seqFiles. Files are
+ * collected until their total size reaches the target size, and the run is selected only if it
+ * contains at least the given number of files, so that each compaction reduces the number of
+ * files remarkably and a compacted file will not be compacted again until it meets enough small
+ * files.
+ */
+public class SeqFileCompactionSelector {
+
+  private Collection<TsFileResource> seqFiles;
+  private long timeLowerBound;
+  private int minFileNum;
+  private long targetSize;
+
+  /**
+   * @param seqFiles the seqFiles of a storage group in the order of time
+   */
+  public SeqFileCompactionSelector(Collection<TsFileResource> seqFiles, long timeLowerBound,
+      int minFileNum, long targetSize) {
+    this.seqFiles = seqFiles;
+    this.timeLowerBound = timeLowerBound;
+    this.minFileNum = Math.max(2, minFileNum);
+    this.targetSize = targetSize;
+  }
+
+  /**
+   * @return the selected seqFiles in the order of time, or an empty list if no run of small files
+   * is long enough
+   */
+  public List<TsFileResource> select() {
+    List<TsFileResource> candidates = new ArrayList<>();
+    long totalSize = 0;
+    for (TsFileResource seqFile : seqFiles) {
+      boolean selectable = isSelectable(seqFile);
+      if (!selectable || !candidates.isEmpty()
+          && !isSamePartition(candidates.get(candidates.size() - 1), seqFile)) {
+        // the run is broken
+        if (candidates.size() >= minFileNum) {
+          return candidates;
+        }
+        candidates.clear();
+        totalSize = 0;
+        if (!selectable) {
+          continue;
+        }
+      }
+      candidates.add(seqFile);
+      totalSize += seqFile.getFileSize();
+      if (totalSize >= targetSize) {
+        if (candidates.size() >= minFileNum) {
+          return candidates;
+        }
+        // the files are too large to be worth compacting, start a new run after them
+        candidates.clear();
+        totalSize = 0;
+      }
+    }
+    return candidates.size() >= minFileNum ? candidates : Collections.emptyList();
+  }
+
+  private boolean isSelectable(TsFileResource seqFile) {
+    return seqFile.isClosed() && !seqFile.isDeleted() && !seqFile.isMerging()
+        && seqFile.stillLives(timeLowerBound) && seqFile.getFileSize() < targetSize;
+  }
+
+  private boolean isSamePartition(TsFileResource file1, TsFileResource file2) {
+    return file1.getFile().getParentFile().getName()
+        .equals(file2.getFile().getParentFile().getName());
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.task;
+
+import static org.apache.iotdb.db.utils.QueryUtils.modifyChunkMetaData;
+import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.merge.manage.MergeIOLimiter;
+import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.utils.MergeUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.Schema;
+import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CompactionTask compacts a run of adjacent small seqFiles into one new seqFile. The data of each
+ * timeseries in the seqFiles is re-encoded into as few chunks as possible, and the data deleted by
+ * the modifications of the seqFiles is dropped. The new file is named after the last seqFile with
+ * its merge count increased, so it takes the place of the seqFiles in the order of time.
+ *
+ * The progress is recorded in "compaction.log" in the same format as "merge.log": the seqFiles,
+ * "merge start", the new file, and "all ts end" once the new file and its resource are complete.
+ */
+public class CompactionTask implements Callable<Void> {
+
+  public static final String COMPACTION_LOG_NAME = "compaction.log";
+  private static final Logger logger = LoggerFactory.getLogger(CompactionTask.class);
+
+  private MergeResource resource;
+  private String storageGroupSysDir;
+  private String storageGroupName;
+  private CompactionCallback callback;
+  private String taskName;
+
+  private MergeLogger compactionLogger;
+  private TsFileResource targetFile;
+  private RestorableTsFileIOWriter fileWriter;
+  private boolean compacted = false;
+  private long totalPointWritten;
+
+  public CompactionTask(MergeResource resource, String storageGroupSysDir,
+      CompactionCallback callback, String taskName, String storageGroupName) {
+    this.resource = resource;
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.callback = callback;
+    this.taskName = taskName;
+    this.storageGroupName = storageGroupName;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    try {
+      doCompaction();
+    } catch (Exception e) {
+      logger.error("Runtime exception in compaction {}", taskName, e);
+      // once the new file is complete, it must not be removed as the seqFiles may have been
+      // removed, the compaction will be finished by the recovery after the system reboots
+      if (!compacted) {
+        cleanUp(false);
+      }
+      throw e;
+    }
+    return null;
+  }
+
+  private void doCompaction() throws IOException, MetadataException {
+    List<TsFileResource> sourceFiles = resource.getSeqFiles();
+    if (logger.isInfoEnabled()) {
+      logger.info("{} starts to compact {} seqFiles", taskName, sourceFiles.size());
+    }
+    long startTime = System.currentTimeMillis();
+    long totalFileSize = MergeUtils.collectFileSizes(sourceFiles, resource.getUnseqFiles());
+
+    compactionLogger = new MergeLogger(storageGroupSysDir, COMPACTION_LOG_NAME);
+    compactionLogger.logFiles(resource);
+    compactionLogger.logMergeStart();
+
+    resource.addMeasurements(MManager.getInstance().getSchemaForStorageGroup(storageGroupName));
+    targetFile = new TsFileResource(getTargetFile(sourceFiles.get(sourceFiles.size() - 1)
+        .getFile()));
+    compactionLogger.logFileMergeStart(targetFile.getFile(), 0);
+
+    fileWriter = new RestorableTsFileIOWriter(targetFile.getFile());
+    for (Entry<String, List<Path>> deviceEntry : collectDeviceSeries().entrySet()) {
+      compactDevice(deviceEntry.getKey(), deviceEntry.getValue());
+    }
+    fileWriter.endFile(new Schema(fileWriter.getKnownSchema()));
+    fileWriter = null;
+
+    Set<Long> historicalVersions = new HashSet<>();
+    for (TsFileResource sourceFile : sourceFiles) {
+      for (Entry<String, Long> entry : sourceFile.getStartTimeMap().entrySet()) {
+        targetFile.updateStartTime(entry.getKey(), entry.getValue());
+      }
+      for (Entry<String, Long> entry : sourceFile.getEndTimeMap().entrySet()) {
+        targetFile.updateEndTime(entry.getKey(), entry.getValue());
+      }
+      historicalVersions.addAll(sourceFile.getHistoricalVersions());
+    }
+    targetFile.setHistoricalVersions(historicalVersions);
+    targetFile.serialize();
+    targetFile.setClosed(true);
+    compactionLogger.logAllTsEnd();
+    compacted = true;
+
+    cleanUp(true);
+    if (logger.isInfoEnabled()) {
+      double elapsedTime = (double) (System.currentTimeMillis() - startTime) / 1000.0;
+      double byteRate = totalFileSize / elapsedTime / 1024 / 1024;
+      double ptRate = totalPointWritten / elapsedTime;
+      logger.info("{} ends after {}s, compacted {} seqFiles into {}, byteRate: {}MB/s, ptRate: "
+              + "{}/s", taskName, elapsedTime, sourceFiles.size(), targetFile.getFile().getName(),
+          byteRate, ptRate);
+    }
+  }
+
+  /**
+   * @return device -> the timeseries of the device, the devices are in the order of their first
+   * appearance in the seqFiles
+   */
+  private Map<String, List<Path>> collectDeviceSeries() throws MetadataException {
+    Set<String> devices = new HashSet<>();
+    for (TsFileResource sourceFile : resource.getSeqFiles()) {
+      devices.addAll(sourceFile.getStartTimeMap().keySet());
+    }
+    Map<String, List<Path>> deviceSeries = new LinkedHashMap<>();
+    for (String fullPath : MManager.getInstance().getPaths(storageGroupName + ".*")) {
+      Path path = new Path(fullPath);
+      if (devices.contains(path.getDevice())) {
+        deviceSeries.computeIfAbsent(path.getDevice(), d -> new ArrayList<>()).add(path);
+      }
+    }
+    return deviceSeries;
+  }
+
+  private void compactDevice(String deviceId, List<Path> paths) throws IOException {
+    // a compacted chunk is not larger than what a memtable can hold, so that reading it costs no
+    // more memory than reading a flushed one
+    long maxChunkSize = IoTDBDescriptor.getInstance().getConfig().getMemtableSizeThreshold();
+    boolean chunkGroupStarted = false;
+    long maxVersion = 0;
+    for (Path path : paths) {
+      MeasurementSchema schema = resource.getSchema(path.getMeasurement());
+      IChunkWriter chunkWriter = resource.getChunkWriter(schema);
+      int ptWritten = 0;
+      for (TsFileResource sourceFile : resource.getSeqFiles()) {
+        if (!sourceFile.getStartTimeMap().containsKey(deviceId)) {
+          continue;
+        }
+        TsFileSequenceReader reader = resource.getFileReader(sourceFile);
+        List<ChunkMetaData> chunkMetaDataList = resource.queryChunkMetadata(path, sourceFile);
+        List<Modification> modifications = resource.getModifications(sourceFile, path);
+        modifyChunkMetaData(chunkMetaDataList, modifications);
+        for (ChunkMetaData chunkMetaData : chunkMetaDataList) {
+          Chunk chunk = reader.readMemChunk(chunkMetaData);
+          MergeIOLimiter.getInstance().acquireRead(MergeUtils.getChunkSize(chunk));
+          ptWritten += MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
+          maxVersion = Math.max(maxVersion, chunkMetaData.getVersion());
+          if (chunkWriter.getCurrentChunkSize() >= maxChunkSize) {
+            chunkGroupStarted = startChunkGroup(deviceId, chunkGroupStarted);
+            fileWriter.addSchema(schema);
+            MergeIOLimiter.getInstance().acquireWrite(chunkWriter.getCurrentChunkSize());
+            chunkWriter.writeToFileWriter(fileWriter);
+            totalPointWritten += ptWritten;
+            ptWritten = 0;
+          }
+        }
+      }
+      if (ptWritten > 0) {
+        chunkGroupStarted = startChunkGroup(deviceId, chunkGroupStarted);
+        fileWriter.addSchema(schema);
+        MergeIOLimiter.getInstance().acquireWrite(chunkWriter.getCurrentChunkSize());
+        chunkWriter.writeToFileWriter(fileWriter);
+        totalPointWritten += ptWritten;
+      }
+    }
+    if (chunkGroupStarted) {
+      fileWriter.endChunkGroup(maxVersion);
+    }
+  }
+
+  private boolean startChunkGroup(String deviceId, boolean chunkGroupStarted)
+      throws IOException {
+    if (!chunkGroupStarted) {
+      fileWriter.startChunkGroup(deviceId);
+    }
+    return true;
+  }
+
+  /**
+   * @return a file in the same directory as the last seqFile, whose name only differs from the
+   * last seqFile in the merge count
+   */
+  private File getTargetFile(File lastSourceFile) {
+    String name = lastSourceFile.getName().replace(TSFILE_SUFFIX, "");
+    int separatorIndex = name.lastIndexOf(IoTDBConstant.TSFILE_NAME_SEPARATOR);
+    int mergeCnt = 0;
+    for (TsFileResource sourceFile : resource.getSeqFiles()) {
+      String sourceName = sourceFile.getFile().getName().replace(TSFILE_SUFFIX, "");
+      mergeCnt = Math.max(mergeCnt, Integer.parseInt(sourceName
+          .substring(sourceName.lastIndexOf(IoTDBConstant.TSFILE_NAME_SEPARATOR) + 1)));
+    }
+    return new File(lastSourceFile.getParentFile(), name.substring(0, separatorIndex + 1)
+        + (mergeCnt + 1) + TSFILE_SUFFIX);
+  }
+
+  public MergeResource getResource() {
+    return resource;
+  }
+
+  private void cleanUp(boolean succeeded) throws IOException {
+    logger.info("{} is cleaning up", taskName);
+
+    resource.clear();
+    if (compactionLogger != null) {
+      compactionLogger.close();
+    }
+    for (TsFileResource sourceFile : resource.getSeqFiles()) {
+      sourceFile.setMerging(false);
+    }
+
+    File logFile = new File(storageGroupSysDir, COMPACTION_LOG_NAME);
+    if (succeeded) {
+      // make sure compaction.log is not deleted until the seqFiles are removed so that when the
+      // system reboots, the undeleted seqFiles can be deleted again
+      callback.call(resource.getSeqFiles(), targetFile, logFile);
+    } else {
+      if (fileWriter != null) {
+        fileWriter.close();
+      }
+      if (targetFile != null) {
+        targetFile.remove();
+      }
+      // call the callback to make sure the StorageGroup exits merging status
+      callback.call(resource.getSeqFiles(), null, logFile);
+    }
+  }
+}
@@ -33,6 +33,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
+import org.apache.iotdb.db.engine.merge.manage.MergeIOLimiter;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
@@ -285,6 +286,7 @@ class MergeMultiChunkTask {
       synchronized (reader) {
         chunk = reader.readMemChunk(currMeta);
       }
+      MergeIOLimiter.getInstance().acquireRead(MergeUtils.getChunkSize(chunk));
       ptWrittens[pathIdx] = mergeChunkV2(currMeta, chunkOverflowed, chunkTooSmall, chunk,
               ptWrittens[pathIdx], pathIdx, mergeFileWriter, unseqReaders[pathIdx], chunkWriter,
               currFile);
@@ -302,6 +304,7 @@ class MergeMultiChunkTask {
         }
         // the last merged chunk may still be smaller than the threshold, flush it anyway
         if (ptWrittens[pathIdx] > 0) {
+          MergeIOLimiter.getInstance().acquireWrite(chunkWriter.getCurrentChunkSize());
           synchronized (mergeFileWriter) {
             chunkWriter.writeToFileWriter(mergeFileWriter);
           }
@@ -339,7 +342,8 @@ class MergeMultiChunkTask {
       IChunkWriter chunkWriter, TsFileResource currFile) throws IOException {
 
     int unclosedChunkPoint = lastUnclosedChunkPoint;
-    boolean chunkModified = currMeta.getDeletedAt() > Long.MIN_VALUE;
+    boolean chunkModified = currMeta.getDeletedAt() > Long.MIN_VALUE
+        || currMeta.getDeleteIntervalList() != null;
 
     // no need to write the chunk to .merge file
     if (!fullMerge && lastUnclosedChunkPoint == 0 && !chunkTooSmall && !chunkOverflowed && !chunkModified) {
@@ -351,6 +355,7 @@ class MergeMultiChunkTask {
 
     // write SK to .merge.file without compressing
     if (fullMerge && lastUnclosedChunkPoint == 0 && !chunkTooSmall && !chunkOverflowed && !chunkModified) {
+      MergeIOLimiter.getInstance().acquireWrite(MergeUtils.getChunkSize(chunk));
       synchronized (mergeFileWriter) {
         mergeFileWriter.writeChunk(chunk, currMeta);
       }
@@ -376,6 +381,7 @@ class MergeMultiChunkTask {
     if (minChunkPointNum > 0 && unclosedChunkPoint >= minChunkPointNum
         || unclosedChunkPoint > 0 && minChunkPointNum < 0) {
       // the new chunk's size is large enough and it should be flushed
+      MergeIOLimiter.getInstance().acquireWrite(chunkWriter.getCurrentChunkSize());
       synchronized (mergeFileWriter) {
         chunkWriter.writeToFileWriter(mergeFileWriter);
       }
@@ -145,6 +145,10 @@ public class MergeTask implements Callable<Void> {
     }
   }
 
+  public MergeResource getResource() {
+    return resource;
+  }
+
   void cleanUp(boolean executeCallback) throws IOException {
     logger.info("{} is cleaning up", taskName);
 
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.task;
+
+import static org.apache.iotdb.db.engine.merge.task.CompactionTask.COMPACTION_LOG_NAME;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.iotdb.db.engine.merge.recover.CompactionLogAnalyzer;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RecoverCompactionTask finishes or rolls back the last compaction by scanning compaction.log
+ * using CompactionLogAnalyzer. It must run before the TsFiles of the storage group are collected,
+ * so that either the source files or the target file are left, but not both.
+ */
+public class RecoverCompactionTask {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecoverCompactionTask.class);
+
+  private String storageGroupSysDir;
+  private File mergingModificationFile;
+  private String taskName;
+
+  /**
+   * @param mergingModificationFile the file that records the deletions during the compaction
+   */
+  public RecoverCompactionTask(String storageGroupSysDir, File mergingModificationFile,
+      String taskName) {
+    this.storageGroupSysDir = storageGroupSysDir;
+    this.mergingModificationFile = mergingModificationFile;
+    this.taskName = taskName;
+  }
+
+  public void recoverCompaction() throws IOException {
+    File logFile = new File(storageGroupSysDir, COMPACTION_LOG_NAME);
+    if (!logFile.exists()) {
+      logger.info("{} no compaction.log, compaction recovery ends", taskName);
+      return;
+    }
+
+    CompactionLogAnalyzer analyzer = new CompactionLogAnalyzer(logFile);
+    analyzer.analyze();
+    File targetFile = analyzer.getTargetFile();
+    if (analyzer.isAllTsEnd()) {
+      logger.info("{} the compacted file {} is complete, removing {} source files", taskName,
+          targetFile, analyzer.getSourceFiles().size());
+      // the deletions during the compaction are not in the compacted file yet
+      if (mergingModificationFile.exists()) {
+        try (ModificationFile mergingModification = new ModificationFile(
+            mergingModificationFile.getPath());
+            ModificationFile targetModification = new ModificationFile(
+                targetFile.getPath() + ModificationFile.FILE_SUFFIX)) {
+          for (Modification modification : mergingModification.getModifications()) {
+            targetModification.write(modification);
+          }
+        }
+      }
+      for (File sourceFile : analyzer.getSourceFiles()) {
+        removeTsFile(sourceFile);
+      }
+    } else {
+      logger.info("{} the compaction is not complete, rolling back", taskName);
+      if (targetFile != null) {
+        removeTsFile(targetFile);
+      }
+    }
+    mergingModificationFile.delete();
+    logFile.delete();
+  }
+
+  private void removeTsFile(File file) {
+    file.delete();
+    new File(file.getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+    new File(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
+  }
+}
@@ -22,8 +22,12 @@ package org.apache.iotdb.db.engine.modification;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.iotdb.db.engine.modification.io.LocalBinaryModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.ModificationReader;
 import org.apache.iotdb.db.engine.modification.io.ModificationWriter;
@@ -32,12 +36,20 @@ import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 /**
  * ModificationFile stores the Modifications of a TsFile or unseq file in another file in the same
  * directory. Methods in this class are highly synchronized for concurrency safety.
+ *
+ * New files are stored in binary format, files written in text format by older versions are still
+ * read and appended in text format. Once loaded, the modifications are also indexed by the full
+ * paths of their series, so that a reader only scans the modifications of the series it reads.
  */
 public class ModificationFile implements AutoCloseable {
 
   public static final String FILE_SUFFIX = ".mods";
 
   private List<Modification> modifications;
+  /**
+   * full path of a series -> the modifications of the series, in the order of their writing
+   */
+  private Map<String, List<Modification>> pathModifications;
   private ModificationWriter writer;
   private ModificationReader reader;
   private String filePath;
@@ -48,18 +60,36 @@ public class ModificationFile implements AutoCloseable {
    * @param filePath the path of the storage file.
    */
   public ModificationFile(String filePath) {
-    LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(filePath);
-    this.writer = accessor;
-    this.reader = accessor;
     this.filePath = filePath;
+    initAccessor();
+  }
+
+  private void initAccessor() {
+    if (LocalBinaryModificationAccessor.isBinaryFormat(filePath)) {
+      LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(filePath);
+      this.writer = accessor;
+      this.reader = accessor;
+    } else {
+      LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(filePath);
+      this.writer = accessor;
+      this.reader = accessor;
+    }
   }
 
   private void init() {
     synchronized (this) {
       modifications = (List<Modification>) reader.read();
+      pathModifications = new HashMap<>();
+      for (Modification modification : modifications) {
+        indexModification(modification);
+      }
     }
   }
 
+  private void indexModification(Modification mod) {
+    pathModifications.computeIfAbsent(mod.getPathString(), k -> new ArrayList<>()).add(mod);
+  }
+
   private void checkInit() {
     if (modifications == null) {
       init();
@@ -73,14 +103,31 @@ public class ModificationFile implements AutoCloseable {
     synchronized (this) {
       writer.close();
       modifications = null;
+      pathModifications = null;
+    }
+  }
+
+  /**
+   * Release the stream of the writer but keep the cached modifications, so that the file can still
+   * be read without being loaded again.
+   */
+  public void closeWriter() throws IOException {
+    synchronized (this) {
+      writer.close();
     }
   }
 
   public void abort() throws IOException {
     synchronized (this) {
+      checkInit();
       if (!modifications.isEmpty()) {
         writer.abort();
-        modifications.remove(modifications.size() - 1);
+        Modification aborted = modifications.remove(modifications.size() - 1);
+        List<Modification> modsOfPath = pathModifications.get(aborted.getPathString());
+        modsOfPath.remove(modsOfPath.size() - 1);
+        if (modsOfPath.isEmpty()) {
+          pathModifications.remove(aborted.getPathString());
+        }
       }
     }
   }
@@ -97,6 +144,7 @@ public class ModificationFile implements AutoCloseable {
       checkInit();
       writer.write(mod);
       modifications.add(mod);
+      indexModification(mod);
     }
   }
 
@@ -112,6 +160,20 @@ public class ModificationFile implements AutoCloseable {
     }
   }
 
+  /**
+   * Get the modifications of a series stored in this file.
+   *
+   * @param path the full path of the series.
+   * @return an ArrayList of the modifications of the series.
+   */
+  public List<Modification> getModifications(String path) {
+    synchronized (this) {
+      checkInit();
+      List<Modification> modsOfPath = pathModifications.get(path);
+      return modsOfPath == null ? Collections.emptyList() : new ArrayList<>(modsOfPath);
+    }
+  }
+
   public String getFilePath() {
     return filePath;
   }
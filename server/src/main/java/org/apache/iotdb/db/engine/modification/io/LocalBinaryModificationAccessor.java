@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LocalBinaryModificationAccessor uses a file on local file system to store the modifications in
+ * binary format, and writes modifications by appending to the tail of the file. The file starts
+ * with a magic string, followed by the records of the modifications. A record is a type byte
+ * followed by the fields of the modification, an abort record cancels the previous modification.
+ * A record torn by a crash is ignored on read and truncated before the next append.
+ */
+public class LocalBinaryModificationAccessor implements ModificationReader, ModificationWriter,
+    AutoCloseable {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(LocalBinaryModificationAccessor.class);
+
+  static final byte[] MAGIC_STRING = "IoTDBMods1".getBytes(StandardCharsets.UTF_8);
+  private static final byte DELETION = 0;
+  private static final byte ABORT = 1;
+
+  private String filePath;
+  private DataOutputStream writer;
+  private FileChannel channel;
+  /**
+   * the length of the magic string and the complete records in the file, -1 if unknown
+   */
+  private long validLength = -1;
+
+  /**
+   * Construct a LocalBinaryModificationAccessor using a file specified by filePath.
+   *
+   * @param filePath the path of the file that is used for storing modifications.
+   */
+  public LocalBinaryModificationAccessor(String filePath) {
+    this.filePath = filePath;
+  }
+
+  /**
+   * @return true if the file does not exist, is shorter than the magic string or starts with the
+   * magic string, so that it can be accessed by a LocalBinaryModificationAccessor. A file shorter
+   * than the magic string is one whose magic string was not completely written.
+   */
+  public static boolean isBinaryFormat(String filePath) {
+    File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+    if (!file.exists() || file.length() < MAGIC_STRING.length) {
+      return true;
+    }
+    try (InputStream inputStream = FSFactoryProducer.getFSFactory()
+        .getBufferedInputStream(filePath)) {
+      return inputStream != null && Arrays.equals(MAGIC_STRING, readMagic(inputStream));
+    } catch (IOException e) {
+      logger.error("Cannot read the header of the modification file {}", filePath, e);
+      return false;
+    }
+  }
+
+  private static byte[] readMagic(InputStream inputStream) throws IOException {
+    byte[] magic = new byte[MAGIC_STRING.length];
+    int offset = 0;
+    while (offset < magic.length) {
+      int len = inputStream.read(magic, offset, magic.length - offset);
+      if (len < 0) {
+        break;
+      }
+      offset += len;
+    }
+    return magic;
+  }
+
+  @Override
+  public Collection<Modification> read() {
+    File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+    if (!file.exists() || file.length() < MAGIC_STRING.length) {
+      logger.debug("No modification has been written to this file");
+      return new ArrayList<>();
+    }
+
+    List<Modification> modificationList = new ArrayList<>();
+    BufferedInputStream bufferedInputStream = FSFactoryProducer.getFSFactory()
+        .getBufferedInputStream(filePath);
+    if (bufferedInputStream == null) {
+      return modificationList;
+    }
+    try (DataInputStream inputStream = new DataInputStream(bufferedInputStream)) {
+      if (!Arrays.equals(MAGIC_STRING, readMagic(inputStream))) {
+        throw new IOException("Not a binary modification file: " + filePath);
+      }
+      validLength = readRecords(inputStream, modificationList);
+    } catch (IOException e) {
+      logger.error("An error occurred when reading modifications, and the remaining modifications "
+          + "were ignored.", e);
+    }
+    return modificationList;
+  }
+
+  /**
+   * Read the records after the magic string until the end of the file or an incomplete or unknown
+   * record.
+   *
+   * @return the length of the magic string and the complete records
+   */
+  private long readRecords(DataInputStream inputStream, List<Modification> modificationList)
+      throws IOException {
+    long length = MAGIC_STRING.length;
+    try {
+      int type;
+      while ((type = inputStream.read()) != -1) {
+        if (type == ABORT) {
+          if (!modificationList.isEmpty()) {
+            modificationList.remove(modificationList.size() - 1);
+          }
+          length += 1;
+        } else if (type == DELETION) {
+          Deletion deletion = readDeletion(inputStream);
+          modificationList.add(deletion);
+          length += getDeletionRecordSize(deletion);
+        } else {
+          logger.error("Unknown modification type {} in {}, the remaining modifications are "
+              + "ignored", type, filePath);
+          break;
+        }
+      }
+    } catch (EOFException e) {
+      // the last record was not completely written, e.g., the server crashed during writing
+      logger.warn("The last modification in {} is incomplete and ignored", filePath);
+    }
+    return length;
+  }
+
+  /**
+   * @return the length of the magic string and the complete records in the file, 0 if the magic
+   * string is incomplete
+   */
+  private long readValidLength(File file) throws IOException {
+    if (!file.exists() || file.length() < MAGIC_STRING.length) {
+      return 0;
+    }
+    try (DataInputStream inputStream = new DataInputStream(
+        FSFactoryProducer.getFSFactory().getBufferedInputStream(filePath))) {
+      if (!Arrays.equals(MAGIC_STRING, readMagic(inputStream))) {
+        throw new IOException("Not a binary modification file: " + filePath);
+      }
+      return readRecords(inputStream, new ArrayList<>());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+      channel = null;
+    }
+  }
+
+  @Override
+  public void abort() throws IOException {
+    openWriter();
+    writer.writeByte(ABORT);
+    writer.flush();
+    validLength = channel.size();
+  }
+
+  @Override
+  public void write(Modification mod) throws IOException {
+    if (!(mod instanceof Deletion)) {
+      throw new IOException("Unsupported modification type: " + mod.getType());
+    }
+    openWriter();
+    Deletion deletion = (Deletion) mod;
+    writer.writeByte(DELETION);
+    writer.writeUTF(deletion.getPathString());
+    writer.writeLong(deletion.getVersionNum());
+    writer.writeLong(deletion.getStartTime());
+    writer.writeLong(deletion.getEndTime());
+    writer.flush();
+    validLength = channel.size();
+  }
+
+  /**
+   * Open the writer at the end of the complete records, a torn record or an incomplete magic
+   * string is truncated so that the appended records can be read.
+   */
+  private void openWriter() throws IOException {
+    if (writer != null) {
+      return;
+    }
+    File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+    // the file may have been removed or replaced since it was read
+    if (validLength < 0 || !file.exists() || file.length() < validLength) {
+      validLength = readValidLength(file);
+    }
+    FileOutputStream outputStream = new FileOutputStream(file, true);
+    channel = outputStream.getChannel();
+    if (channel.size() > validLength) {
+      logger.warn("Truncate the incomplete modification at the end of {} from {} bytes to {}",
+          filePath, channel.size(), validLength);
+      channel.truncate(validLength);
+    }
+    writer = new DataOutputStream(new BufferedOutputStream(outputStream));
+    if (validLength == 0) {
+      writer.write(MAGIC_STRING);
+      writer.flush();
+      validLength = MAGIC_STRING.length;
+    }
+  }
+
+  private static long getDeletionRecordSize(Deletion deletion) {
+    // type, path in modified UTF-8 with its length, version, start time and end time
+    return 1 + 2 + getUTFLength(deletion.getPathString()) + 3 * Long.BYTES;
+  }
+
+  /**
+   * @return the length of the string in the modified UTF-8 of DataOutput.writeUTF
+   */
+  private static int getUTFLength(String str) {
+    int length = 0;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        length += 1;
+      } else if (c > 0x07FF) {
+        length += 3;
+      } else {
+        length += 2;
+      }
+    }
+    return length;
+  }
+
+  private static Deletion readDeletion(DataInputStream inputStream) throws IOException {
+    String path = inputStream.readUTF();
+    long versionNum = inputStream.readLong();
+    long startTime = inputStream.readLong();
+    long endTime = inputStream.readLong();
+    return new Deletion(new Path(path), versionNum, startTime, endTime);
+  }
+}
@@ -122,30 +122,39 @@ public class LocalTextModificationAccessor implements ModificationReader, Modifi
   }
 
   private static String encodeDeletion(Deletion del) {
-    return del.getType().toString() + SEPARATOR + del.getPathString()
+    String encoded = del.getType().toString() + SEPARATOR + del.getPathString()
         + SEPARATOR + del.getVersionNum() + SEPARATOR
-        + del.getTimestamp();
+        + del.getEndTime();
+    // the start time is only written for a range deletion to stay readable by older versions
+    if (!del.isFromBeginning()) {
+      encoded += SEPARATOR + del.getStartTime();
+    }
+    return encoded;
   }
 
   private static Deletion decodeDeletion(String[] fields) throws IOException {
-    if (fields.length != 4) {
+    if (fields.length != 4 && fields.length != 5) {
       throw new IOException("Incorrect deletion fields number: " + fields.length);
     }
 
     String path = fields[1];
     long versionNum;
-    long timestamp;
+    long endTime;
+    long startTime = Long.MIN_VALUE;
     try {
       versionNum = Long.parseLong(fields[2]);
     } catch (NumberFormatException e) {
       throw new IOException("Invalid version number: " + fields[2]);
     }
     try {
-      timestamp = Long.parseLong(fields[3]);
+      endTime = Long.parseLong(fields[3]);
+      if (fields.length == 5) {
+        startTime = Long.parseLong(fields[4]);
+      }
     } catch (NumberFormatException e) {
-      throw new IOException("Invalid timestamp: " + fields[3]);
+      throw new IOException("Invalid timestamp: " + String.join(SEPARATOR, fields));
     }
 
-    return new Deletion(new Path(path), versionNum, timestamp);
+    return new Deletion(new Path(path), versionNum, startTime, endTime);
   }
 }
@@ -18,93 +18,293 @@
  */
 package org.apache.iotdb.db.engine.querycontext;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import org.apache.iotdb.db.engine.memtable.MemSeriesLazyMerger;
 import org.apache.iotdb.db.engine.memtable.TimeValuePairSorter;
 import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsDouble;
-import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsFloat;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 
 //TODO: merge ReadOnlyMemChunk and WritableMemChunk and IWritableMemChunk
 public class ReadOnlyMemChunk implements TimeValuePairSorter {
 
-  private boolean initialized;
+  /**
+   * the max number of points in one BatchData returned by the batch reader.
+   */
+  private static final int BATCH_SIZE = TSFileConfig.DYNAMIC_DATA_SIZE;
 
   private TSDataType dataType;
-  private TimeValuePairSorter memSeries;
-  private List<TimeValuePair> sortedTimeValuePairList;
 
-  Map<String, String> props;
+  /**
+   * the sorted snapshot of the chunk in one memtable, null if this chunk is merged from the chunks
+   * of several memtables.
+   */
+  private TVList tvList;
+
+  /**
+   * the chunks with snapshots that make up this chunk, in the order they are read.
+   */
+  private List<ReadOnlyMemChunk> memChunks;
+
+  /**
+   * the sorted and disjoint ranges of the deletions on the snapshot that do not start from the
+   * beginning, null if none. The deletions from the beginning are handled by the time offset of
+   * the snapshot.
+   */
+  private List<TimeRange> deleteIntervalList;
+
   private int floatPrecision = TSFileDescriptor.getInstance().getConfig().getFloatPrecision();
 
   /**
-   * init by TSDataType and TimeValuePairSorter.
+   * init by TSDataType and a sorted snapshot of the TVList in a memtable.
    */
-  public ReadOnlyMemChunk(TSDataType dataType, TimeValuePairSorter memSeries, Map<String, String> props) {
+  public ReadOnlyMemChunk(TSDataType dataType, TVList tvList, Map<String, String> props) {
     this.dataType = dataType;
-    this.memSeries = memSeries;
-    this.initialized = false;
-    this.props = props;
+    this.tvList = tvList;
+    this.memChunks = Collections.singletonList(this);
     if (props.containsKey(Encoder.MAX_POINT_NUMBER)) {
       this.floatPrecision = Integer.parseInt(props.get(Encoder.MAX_POINT_NUMBER));
     }
   }
 
-  private void checkInitialized() {
-    if (!initialized) {
-      init();
+  /**
+   * init by TSDataType and the chunks of several memtables, each chunk has handled its own props.
+   */
+  public ReadOnlyMemChunk(TSDataType dataType, MemSeriesLazyMerger memSeries) {
+    this.dataType = dataType;
+    this.memChunks = new ArrayList<>();
+    for (ReadOnlyMemChunk memChunk : memSeries.getMemSeriesList()) {
+      memChunks.addAll(memChunk.memChunks);
     }
   }
 
-  private void init() {
-    sortedTimeValuePairList = memSeries.getSortedTimeValuePairList();
-    if (!(memSeries instanceof MemSeriesLazyMerger)) {
-      switch (dataType) {
-        case FLOAT:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsFloat(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getFloat(), floatPrecision))));
-          break;
-        case DOUBLE:
-          sortedTimeValuePairList.replaceAll(x -> new TimeValuePair(x.getTimestamp(),
-              new TsDouble(
-                  MathUtils.roundWithGivenPrecision(x.getValue().getDouble(), floatPrecision))));
-          break;
-        default:
-          break;
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  public void setDeleteIntervalList(List<TimeRange> deleteIntervalList) {
+    this.deleteIntervalList = deleteIntervalList;
+  }
+
+  /**
+   * Release the snapshots of this chunk once no reader uses them, so that the memtables can
+   * modify their data in place again.
+   */
+  public void release() {
+    for (ReadOnlyMemChunk memChunk : memChunks) {
+      if (memChunk.tvList != null) {
+        memChunk.tvList.releaseSnapshot();
       }
     }
-    //putBack memory
-    memSeries = null;
-    initialized = true;
   }
 
-  public TSDataType getDataType() {
-    return dataType;
+  /**
+   * @return a reader that fills BatchData directly from the primitive arrays of the snapshots,
+   * without creating a TimeValuePair for each point.
+   */
+  public MemChunkBatchReader getBatchReader() {
+    return new MemChunkBatchReader();
   }
 
+  /**
+   * notice, this method creates a TimeValuePair for each point, use {@link #getBatchReader()} in
+   * query processing instead.
+   */
   @Override
   public List<TimeValuePair> getSortedTimeValuePairList() {
-    checkInitialized();
-    return Collections.unmodifiableList(sortedTimeValuePairList);
+    List<TimeValuePair> sortedTimeValuePairList = new ArrayList<>();
+    MemChunkBatchReader batchReader = getBatchReader();
+    while (batchReader.hasNextBatch()) {
+      BatchData batchData = batchReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        sortedTimeValuePairList
+            .add(new TimeValuePair(batchData.currentTime(), batchData.currentTsPrimitiveType()));
+        batchData.next();
+      }
+    }
+    return sortedTimeValuePairList;
   }
 
   @Override
   public Iterator<TimeValuePair> getIterator() {
-    checkInitialized();
-    return sortedTimeValuePairList.iterator();
+    return getSortedTimeValuePairList().iterator();
   }
 
   @Override
   public boolean isEmpty() {
-    checkInitialized();
-    return sortedTimeValuePairList.isEmpty();
+    return !getBatchReader().hasNextBatch();
+  }
+
+  /**
+   * @return the index of the first point that is not deleted, i.e., whose timestamp is not less
+   * than the time offset of the snapshot
+   */
+  private int firstUndeletedIndex() {
+    long timeOffset = tvList.getTimeOffset();
+    int low = 0;
+    int high = tvList.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (tvList.getTime(mid) < timeOffset) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first point from index that is not in any deleted range, or the size
+   * of the snapshot if there is no such point
+   */
+  private int skipDeleted(int index) {
+    if (deleteIntervalList == null) {
+      return index;
+    }
+    int size = tvList.size();
+    while (index < size) {
+      TimeRange range = findDeleteInterval(tvList.getTime(index));
+      if (range == null) {
+        return index;
+      }
+      // jump over the points in the range
+      int low = index + 1;
+      int high = size;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (tvList.getTime(mid) <= range.getMax()) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      index = low;
+    }
+    return index;
+  }
+
+  /**
+   * @return the deleted range that contains the time, or null if the time is not deleted
+   */
+  private TimeRange findDeleteInterval(long time) {
+    int low = 0;
+    int high = deleteIntervalList.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      TimeRange range = deleteIntervalList.get(mid);
+      if (range.getMax() < time) {
+        low = mid + 1;
+      } else if (range.getMin() > time) {
+        high = mid - 1;
+      } else {
+        return range;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * put at most BATCH_SIZE points of the snapshot into the batchData, beginning from index. Among
+   * the points with the same timestamp, only the last written one is visible. The points in the
+   * deleted ranges are skipped.
+   *
+   * @return the index of the first point not read
+   */
+  private int fillBatch(BatchData batchData, int index) {
+    int size = tvList.size();
+    while (batchData.length() < BATCH_SIZE && (index = skipDeleted(index)) < size) {
+      long time = tvList.getTime(index);
+      if (index + 1 < size && time == tvList.getTime(index + 1)) {
+        index++;
+        continue;
+      }
+      switch (dataType) {
+        case BOOLEAN:
+          batchData.putBoolean(time, tvList.getBoolean(index));
+          break;
+        case INT32:
+          batchData.putInt(time, tvList.getInt(index));
+          break;
+        case INT64:
+          batchData.putLong(time, tvList.getLong(index));
+          break;
+        case FLOAT:
+          batchData.putFloat(time,
+              MathUtils.roundWithGivenPrecision(tvList.getFloat(index), floatPrecision));
+          break;
+        case DOUBLE:
+          batchData.putDouble(time,
+              MathUtils.roundWithGivenPrecision(tvList.getDouble(index), floatPrecision));
+          break;
+        case TEXT:
+          batchData.putBinary(time, tvList.getBinary(index));
+          break;
+        default:
+          throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+      }
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Read the snapshots one by one in BatchData of at most BATCH_SIZE points. As the snapshots are
+   * read-only, any number of readers can be opened on the same ReadOnlyMemChunk.
+   */
+  public class MemChunkBatchReader implements IBatchReader {
+
+    private int chunkIndex = -1;
+    private ReadOnlyMemChunk currentChunk;
+    // the index of the next point to be read in the snapshot of currentChunk
+    private int pointIndex;
+
+    private MemChunkBatchReader() {
+    }
+
+    @Override
+    public boolean hasNextBatch() {
+      while (true) {
+        if (currentChunk != null) {
+          pointIndex = currentChunk.skipDeleted(pointIndex);
+          if (pointIndex < currentChunk.tvList.size()) {
+            return true;
+          }
+        }
+        if (chunkIndex + 1 >= memChunks.size()) {
+          return false;
+        }
+        currentChunk = memChunks.get(++chunkIndex);
+        pointIndex = currentChunk.firstUndeletedIndex();
+      }
+    }
+
+    @Override
+    public BatchData nextBatch() {
+      if (!hasNextBatch()) {
+        throw new NoSuchElementException();
+      }
+      BatchData batchData = new BatchData(dataType);
+      pointIndex = currentChunk.fillBatch(batchData, pointIndex);
+      return batchData;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release as the snapshots are reclaimed by GC
+    }
   }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DeviceIdTable interns the device ids of all TsFileResources and maps them to dense ints, so that
+ * each device string is kept only once however many TsFiles contain it. The ints are assigned in
+ * the order the devices are first seen and are never reused.
+ */
+public class DeviceIdTable {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<String, Integer> deviceIdMap = new ConcurrentHashMap<>();
+  private volatile String[] devices = new String[INITIAL_CAPACITY];
+  private int size = 0;
+
+  private DeviceIdTable() {
+  }
+
+  public static DeviceIdTable getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * @return the int of the device, which is assigned if the device is new
+   */
+  public int getOrCreateId(String device) {
+    Integer id = deviceIdMap.get(device);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = deviceIdMap.get(device);
+      if (id == null) {
+        id = size;
+        String[] array = devices;
+        if (id == array.length) {
+          array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[id] = device;
+        devices = array;
+        size++;
+        // the device is published after it is stored in the array
+        deviceIdMap.put(device, id);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * @return the int of the device, or -1 if the device has never been seen
+   */
+  public int getId(String device) {
+    Integer id = deviceIdMap.get(device);
+    return id == null ? -1 : id;
+  }
+
+  public String getDevice(int id) {
+    return devices[id];
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private static class InstanceHolder {
+
+    private static final DeviceIdTable INSTANCE = new DeviceIdTable();
+
+    private InstanceHolder() {
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map from devices to times for sealed TsFileResources. Instead of device strings and
+ * boxed Longs, it keeps the ints of the devices in {@link DeviceIdTable}, sorted, and their times
+ * in primitive arrays, and looks a device up by binary search.
+ * <p>
+ * Reads are lock-free. Updating the time of a present device is done in place, while adding a
+ * device copies the arrays, which is expected to be rare once a TsFile is sealed.
+ */
+public class DeviceTimeMap extends AbstractMap<String, Long> {
+
+  private static final DeviceIdTable ID_TABLE = DeviceIdTable.getInstance();
+
+  private volatile Entries entries;
+
+  public DeviceTimeMap() {
+    entries = new Entries(new int[0], new long[0]);
+  }
+
+  public DeviceTimeMap(Map<String, Long> map) {
+    int[] ids = new int[map.size()];
+    long[] times = new long[map.size()];
+    int i = 0;
+    for (Entry<String, Long> entry : map.entrySet()) {
+      ids[i] = ID_TABLE.getOrCreateId(entry.getKey());
+      times[i] = entry.getValue();
+      i++;
+    }
+    entries = sort(ids, times, i);
+  }
+
+  /**
+   * @param ids the ints of the devices in {@link DeviceIdTable}, in any order
+   * @param size the number of the devices in the arrays, which may be shorter than the arrays
+   */
+  DeviceTimeMap(int[] ids, long[] times, int size) {
+    entries = sort(ids, times, size);
+  }
+
+  /**
+   * sort the devices by their ints, and the times along with them.
+   */
+  private static Entries sort(int[] ids, long[] times, int size) {
+    boolean sorted = true;
+    for (int i = 1; i < size && sorted; i++) {
+      sorted = ids[i - 1] < ids[i];
+    }
+    if (sorted) {
+      return new Entries(Arrays.copyOf(ids, size), Arrays.copyOf(times, size));
+    }
+    // the ids are non-negative ints, so an id and its position fit in one long
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = ((long) ids[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+    int[] sortedIds = new int[size];
+    long[] sortedTimes = new long[size];
+    for (int i = 0; i < size; i++) {
+      sortedIds[i] = (int) (keys[i] >>> 32);
+      sortedTimes[i] = times[(int) keys[i]];
+    }
+    return new Entries(sortedIds, sortedTimes);
+  }
+
+  private static int indexOf(Entries entries, Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    int id = ID_TABLE.getId((String) key);
+    if (id < 0) {
+      return -1;
+    }
+    int index = Arrays.binarySearch(entries.ids, id);
+    return index < 0 ? -1 : index;
+  }
+
+  @Override
+  public Long get(Object key) {
+    Entries current = entries;
+    int index = indexOf(current, key);
+    return index < 0 ? null : current.times[index];
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(entries, key) >= 0;
+  }
+
+  @Override
+  public synchronized Long put(String key, Long value) {
+    Entries current = entries;
+    int index = indexOf(current, key);
+    if (index >= 0) {
+      long oldValue = current.times[index];
+      current.times[index] = value;
+      return oldValue;
+    }
+    int id = ID_TABLE.getOrCreateId(key);
+    int insertion = -Arrays.binarySearch(current.ids, id) - 1;
+    int size = current.ids.length;
+    int[] ids = new int[size + 1];
+    long[] times = new long[size + 1];
+    System.arraycopy(current.ids, 0, ids, 0, insertion);
+    System.arraycopy(current.times, 0, times, 0, insertion);
+    ids[insertion] = id;
+    times[insertion] = value;
+    System.arraycopy(current.ids, insertion, ids, insertion + 1, size - insertion);
+    System.arraycopy(current.times, insertion, times, insertion + 1, size - insertion);
+    entries = new Entries(ids, times);
+    return null;
+  }
+
+  @Override
+  public int size() {
+    return entries.ids.length;
+  }
+
+  @Override
+  public Set<Entry<String, Long>> entrySet() {
+    Entries current = entries;
+    return new AbstractSet<Entry<String, Long>>() {
+      @Override
+      public Iterator<Entry<String, Long>> iterator() {
+        return new Iterator<Entry<String, Long>>() {
+          private int index = 0;
+
+          @Override
+          public boolean hasNext() {
+            return index < current.ids.length;
+          }
+
+          @Override
+          public Entry<String, Long> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, Long> entry = new SimpleImmutableEntry<>(
+                ID_TABLE.getDevice(current.ids[index]), current.times[index]);
+            index++;
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return current.ids.length;
+      }
+    };
+  }
+
+  private static class Entries {
+
+    private final int[] ids;
+    private final long[] times;
+
+    private Entries(int[] ids, long[] times) {
+      this.ids = ids;
+      this.times = times;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFF
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -44,6 +45,9 @@ import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
+import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
@@ -52,7 +56,10 @@ import org.apache.iotdb.db.engine.merge.selector.IMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxFileMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MaxSeriesMergeFileSelector;
 import org.apache.iotdb.db.engine.merge.selector.MergeFileStrategy;
+import org.apache.iotdb.db.engine.merge.selector.SeqFileCompactionSelector;
+import org.apache.iotdb.db.engine.merge.task.CompactionTask;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.engine.merge.task.RecoverCompactionTask;
 import org.apache.iotdb.db.engine.merge.task.RecoverMergeTask;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
@@ -73,10 +80,12 @@ import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.control.QueryFileManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.apache.iotdb.db.writelog.node.GroupCommitWriteLogNode;
 import org.apache.iotdb.db.writelog.recover.TsFileRecoverPerformer;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
@@ -86,6 +95,13 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.OrFilter;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -112,7 +128,8 @@ import org.slf4j.LoggerFactory;
  * method will be called as a callback.<br/>
  * <p>
  * When a TsFileProcessor is closed, the closeUnsealedTsFileProcessor() method will be called as a
- * callback.
+ * callback. If the closed TsFileProcessor is a sequence one, small sequence TsFiles may be
+ * compacted (if enabled) by compact().
  */
 public class StorageGroupProcessor {
 
@@ -162,6 +179,11 @@ public class StorageGroupProcessor {
   // includes sealed and unsealed unSequence TsFiles
   private List<TsFileResource> unSequenceFileList = new ArrayList<>();
   private CopyOnReadLinkedList<TsFileProcessor> closingUnSequenceTsFileProcessor = new CopyOnReadLinkedList<>();
+  /**
+   * indexes sequenceFileTreeSet and unSequenceFileList by device for queries, it must be
+   * invalidated when the two collections are changed other than adding a new TsFile
+   */
+  private TsFileResourceIndex resourceIndex = new TsFileResourceIndex();
   /*
    * time partition id -> map, which contains
    * device -> global latest timestamp of each device latestTimeForEachDevice caches non-flushed
@@ -255,14 +277,21 @@ public class StorageGroupProcessor {
     logger.info("recover Storage Group  {}", storageGroupName);
 
     try {
+      // finish or roll back the last compaction before collecting files, so that the compacted
+      // file and its source files are not both collected
+      new RecoverCompactionTask(storageGroupSysDir.getPath(),
+          SystemFileFactory.INSTANCE.getFile(storageGroupSysDir, MERGING_MODIFICATION_FILE_NAME),
+          storageGroupName + "-" + System.currentTimeMillis()).recoverCompaction();
+
       // collect TsFiles from sequential and unsequential data directory
       List<TsFileResource> seqTsFiles = getAllFiles(
           DirectoryManager.getInstance().getAllSequenceFileFolders());
       List<TsFileResource> unseqTsFiles =
           getAllFiles(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
 
-      recoverSeqFiles(seqTsFiles);
-      recoverUnseqFiles(unseqTsFiles);
+      TsFileResourceCatalog catalog = TsFileResourceCatalog.load(getResourceCatalogFile());
+      recoverSeqFiles(seqTsFiles, catalog);
+      recoverUnseqFiles(unseqTsFiles, catalog);
 
       for (TsFileResource resource : seqTsFiles) {
         allDirectFileVersions.addAll(resource.getHistoricalVersions());
@@ -289,6 +318,7 @@ public class StorageGroupProcessor {
     } catch (IOException | MetadataException e) {
       throw new StorageGroupProcessorException(e);
     }
+    saveResourceCatalog();
 
     for (TsFileResource resource : sequenceFileTreeSet) {
       long timePartitionId = getTimePartitionFromTsFileResource(resource);
@@ -301,6 +331,35 @@ public class StorageGroupProcessor {
     }
   }
 
+  private File getResourceCatalogFile() {
+    return SystemFileFactory.INSTANCE.getFile(storageGroupSysDir,
+        TsFileResourceCatalog.CATALOG_FILE_NAME);
+  }
+
+  /**
+   * save the sealed TsFileResources into the catalog, so that the next startup can restore them
+   * without reading their TsFiles and ".resource" files
+   */
+  private void saveResourceCatalog() {
+    List<TsFileResource> resources;
+    // the two collections are modified under the write lock of insertLock or mergeLock
+    insertLock.readLock().lock();
+    mergeLock.readLock().lock();
+    try {
+      resources = new ArrayList<>(sequenceFileTreeSet);
+      resources.addAll(unSequenceFileList);
+    } finally {
+      insertLock.readLock().unlock();
+      mergeLock.readLock().unlock();
+    }
+    try {
+      TsFileResourceCatalog.save(getResourceCatalogFile(), resources);
+    } catch (IOException e) {
+      logger.warn("Cannot save the TsFileResource catalog of storage group {}", storageGroupName,
+          e);
+    }
+  }
+
   private long getTimePartitionFromTsFileResource(TsFileResource resource) {
     // device id -> start map
     // if start time map is empty, tsfile resource is empty, return -1;
@@ -376,10 +435,16 @@ public class StorageGroupProcessor {
     }
   }
 
-  private void recoverSeqFiles(List<TsFileResource> tsFiles) throws StorageGroupProcessorException {
+  private void recoverSeqFiles(List<TsFileResource> tsFiles, TsFileResourceCatalog catalog)
+      throws StorageGroupProcessorException {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
       sequenceFileTreeSet.add(tsFileResource);
+      if (catalog.restore(tsFileResource)) {
+        // the TsFile is sealed and unchanged since the catalog was saved
+        tsFileResource.setClosed(true);
+        continue;
+      }
       long timePartitionId = getTimePartitionFromTsFileResource(tsFileResource);
 
       TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
@@ -403,11 +468,16 @@ public class StorageGroupProcessor {
     }
   }
 
-  private void recoverUnseqFiles(List<TsFileResource> tsFiles)
+  private void recoverUnseqFiles(List<TsFileResource> tsFiles, TsFileResourceCatalog catalog)
       throws StorageGroupProcessorException {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
       unSequenceFileList.add(tsFileResource);
+      if (catalog.restore(tsFileResource)) {
+        // the TsFile is sealed and unchanged since the catalog was saved
+        tsFileResource.setClosed(true);
+        continue;
+      }
       long timePartitionId = getTimePartitionFromTsFileResource(tsFileResource);
 
       TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
@@ -492,9 +562,70 @@ public class StorageGroupProcessor {
     } finally {
       writeUnlock();
     }
+    try {
+      awaitWalCommit();
+    } catch (IOException e) {
+      throw new QueryProcessException(
+          String.format("Failed to persist the WAL of %s: %s", insertPlan, e.getMessage()));
+    }
   }
 
   public Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
+    Integer[] results = insertBatchInLock(batchInsertPlan);
+    try {
+      awaitWalCommit();
+    } catch (IOException e) {
+      logger.error("Failed to persist the WAL of a batch insertion", e);
+      markFailedRows(results);
+    }
+    return results;
+  }
+
+  /**
+   * insert the batches of several devices of this storage group under one write lock, and wait
+   * for their WAL once. A batch that fails does not stop the following ones.
+   *
+   * @return the result of each row of each batch
+   */
+  public List<Integer[]> insertBatches(List<BatchInsertPlan> batchInsertPlans) {
+    List<Integer[]> results = new ArrayList<>(batchInsertPlans.size());
+    writeLock();
+    try {
+      for (BatchInsertPlan batchInsertPlan : batchInsertPlans) {
+        try {
+          results.add(insertBatchInLock(batchInsertPlan));
+        } catch (QueryProcessException e) {
+          logger.error("Failed to insert a batch of device {}", batchInsertPlan.getDeviceId(), e);
+          Integer[] failedResults = new Integer[batchInsertPlan.getRowCount()];
+          Arrays.fill(failedResults, TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+          results.add(failedResults);
+        }
+      }
+    } finally {
+      writeUnlock();
+    }
+    try {
+      awaitWalCommit();
+    } catch (IOException e) {
+      logger.error("Failed to persist the WAL of {} batch insertions", batchInsertPlans.size(), e);
+      results.forEach(this::markFailedRows);
+    }
+    return results;
+  }
+
+  /**
+   * mark the rows that were inserted successfully as failed.
+   */
+  private void markFailedRows(Integer[] results) {
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] != null && results[i] == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        results[i] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+      }
+    }
+  }
+
+  private Integer[] insertBatchInLock(BatchInsertPlan batchInsertPlan)
+      throws QueryProcessException {
     writeLock();
     try {
       Integer[] results = new Integer[batchInsertPlan.getRowCount()];
@@ -570,6 +701,18 @@ public class StorageGroupProcessor {
     }
   }
 
+  /**
+   * In the WAL group commit mode, the logs of an insertion are persisted asynchronously so that the
+   * force is not performed in the insert lock, and the insertion must wait for them here after the
+   * lock is released.
+   */
+  private void awaitWalCommit() throws IOException {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableWal() && IoTDBDescriptor.getInstance()
+        .getConfig().isEnableWalGroupCommit()) {
+      GroupCommitWriteLogNode.awaitPendingLogs();
+    }
+  }
+
   /**
    * @return whether the given time falls in ttl
    */
@@ -706,6 +849,7 @@ public class StorageGroupProcessor {
         TsFileProcessor newProcessor = createTsFileProcessor(sequence, timeRangeId);
         tsFileProcessorTreeMap.put(timeRangeId, newProcessor);
         fileList.add(newProcessor.getTsFileResource());
+        resourceIndex.addUnsealedFile(newProcessor.getTsFileResource(), sequence);
         res = newProcessor;
       } else {
         res = tsFileProcessorTreeMap.get(timeRangeId);
@@ -837,6 +981,7 @@ public class StorageGroupProcessor {
         logger.error("Cannot close a TsFileResource {}", tsFileResource, e);
       }
     }
+    saveResourceCatalog();
   }
 
   public void syncDeleteDataFiles() {
@@ -854,6 +999,12 @@ public class StorageGroupProcessor {
     writeLock();
     try {
       closeAllResources();
+      for (TsFileResource tsFileResource : sequenceFileTreeSet) {
+        ChunkCache.getInstance().remove(tsFileResource);
+      }
+      for (TsFileResource tsFileResource : unSequenceFileList) {
+        ChunkCache.getInstance().remove(tsFileResource);
+      }
       List<String> folder = DirectoryManager.getInstance().getAllSequenceFileFolders();
       folder.addAll(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
       deleteAllSGFolders(folder);
@@ -862,6 +1013,7 @@ public class StorageGroupProcessor {
       this.workUnsequenceTsFileProcessors.clear();
       this.sequenceFileTreeSet.clear();
       this.unSequenceFileList.clear();
+      resourceIndex.invalidate();
       this.latestFlushedTimeForEachDevice.clear();
       this.latestTimeForEachDevice.clear();
     } finally {
@@ -937,6 +1089,7 @@ public class StorageGroupProcessor {
           } else {
             unSequenceFileList.remove(resource);
           }
+          resourceIndex.invalidate();
         } finally {
           resource.getWriteQueryLock().writeLock().unlock();
         }
@@ -983,9 +1136,23 @@ public class StorageGroupProcessor {
     }
   }
 
-  // TODO need a read lock, please consider the concurrency with flush manager threads.
   public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
       QueryFileManager filePathsManager) {
+    return query(deviceId, measurementId, context, filePathsManager, null);
+  }
+
+  /**
+   * The read locks of insertLock and mergeLock are held while collecting the TsFiles, as
+   * sequenceFileTreeSet and unSequenceFileList are only modified under the write lock of either,
+   * and the unsealed TsFiles are queried under the read lock of closeQueryLock so that they are
+   * not closed by flush threads meanwhile.
+   *
+   * @param filter the TsFiles whose data of the device cannot satisfy the time part of the filter
+   * are not involved in the query, null if the query has no filter
+   */
+  public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
+      QueryFileManager filePathsManager, Filter filter) {
+    Filter timeFilter = extractTimeFilter(filter);
     insertLock.readLock().lock();
     mergeLock.readLock().lock();
     synchronized (lruForSensorUsedInQuery) {
@@ -995,10 +1162,12 @@ public class StorageGroupProcessor {
       lruForSensorUsedInQuery.add(measurementId);
     }
     try {
-      List<TsFileResource> seqResources = getFileResourceListForQuery(sequenceFileTreeSet,
-          deviceId, measurementId, context);
-      List<TsFileResource> unseqResources = getFileResourceListForQuery(unSequenceFileList,
-          deviceId, measurementId, context);
+      List<TsFileResource> seqResources = getFileResourceListForQuery(
+          resourceIndex.getSeqFiles(deviceId, sequenceFileTreeSet, unSequenceFileList), deviceId,
+          measurementId, context, timeFilter);
+      List<TsFileResource> unseqResources = getFileResourceListForQuery(
+          resourceIndex.getUnseqFiles(deviceId, sequenceFileTreeSet, unSequenceFileList),
+          deviceId, measurementId, context, timeFilter);
       QueryDataSource dataSource = new QueryDataSource(new Path(deviceId, measurementId),
           seqResources, unseqResources);
       // used files should be added before mergeLock is unlocked, or they may be deleted by
@@ -1051,7 +1220,7 @@ public class StorageGroupProcessor {
    */
   private List<TsFileResource> getFileResourceListForQuery(
       Collection<TsFileResource> tsFileResources,
-      String deviceId, String measurementId, QueryContext context) {
+      String deviceId, String measurementId, QueryContext context, Filter timeFilter) {
 
     MeasurementSchema mSchema = schema.getMeasurementSchema(measurementId);
     TSDataType dataType = mSchema.getType();
@@ -1062,8 +1231,8 @@ public class StorageGroupProcessor {
     context.setQueryTimeLowerBound(timeLowerBound);
 
     for (TsFileResource tsFileResource : tsFileResources) {
-      // TODO: try filtering files if the query contains time filter
-      if (!testResourceDevice(tsFileResource, deviceId)) {
+      if (!testResourceDevice(tsFileResource, deviceId)
+          || !testResourceTime(tsFileResource, deviceId, timeFilter)) {
         continue;
       }
       closeQueryLock.readLock().lock();
@@ -1103,6 +1272,50 @@ public class StorageGroupProcessor {
   }
 
 
+  /**
+   * @return true if the time range of the device in the TsFile may satisfy the time filter
+   */
+  private boolean testResourceTime(TsFileResource tsFileResource, String deviceId,
+      Filter timeFilter) {
+    return timeFilter == null || timeFilter
+        .satisfyStartEndTime(tsFileResource.getStartTimeMap().get(deviceId),
+            getDeviceEndTime(tsFileResource, deviceId));
+  }
+
+  /**
+   * @return the end time of the device in the TsFile, or Long.MAX_VALUE if it is unknown because
+   * the TsFile is not closed
+   */
+  private long getDeviceEndTime(TsFileResource tsFileResource, String deviceId) {
+    Long endTime = tsFileResource.getEndTimeMap().get(deviceId);
+    return !tsFileResource.isClosed() || endTime == null ? Long.MAX_VALUE : endTime;
+  }
+
+  /**
+   * @return a filter on time only which is satisfied by every point satisfying the given filter,
+   * or null if there is no such restriction
+   */
+  private static Filter extractTimeFilter(Filter filter) {
+    if (filter instanceof UnaryFilter) {
+      return ((UnaryFilter<?>) filter).getFilterType() == FilterType.TIME_FILTER ? filter : null;
+    } else if (filter instanceof GroupByFilter) {
+      return filter;
+    } else if (filter instanceof AndFilter) {
+      Filter left = extractTimeFilter(((AndFilter) filter).getLeft());
+      Filter right = extractTimeFilter(((AndFilter) filter).getRight());
+      if (left == null || right == null) {
+        return left == null ? right : left;
+      }
+      return FilterFactory.and(left, right);
+    } else if (filter instanceof OrFilter) {
+      Filter left = extractTimeFilter(((OrFilter) filter).getLeft());
+      Filter right = extractTimeFilter(((OrFilter) filter).getRight());
+      return left == null || right == null ? null : FilterFactory.or(left, right);
+    }
+    // a NotFilter never rules out a time range, see NotFilter.satisfyStartEndTime()
+    return null;
+  }
+
   /**
    * Delete data whose timestamp <= 'timestamp' and belongs to the time series
    * deviceId.measurementId.
@@ -1112,6 +1325,21 @@ public class StorageGroupProcessor {
    * @param timestamp     the delete range is (0, timestamp].
    */
   public void delete(String deviceId, String measurementId, long timestamp) throws IOException {
+    delete(deviceId, measurementId, Long.MIN_VALUE, timestamp);
+  }
+
+  /**
+   * Delete data whose timestamp is in [startTime, endTime] and belongs to the time series
+   * deviceId.measurementId.
+   *
+   * @param deviceId      the deviceId of the timeseries to be deleted.
+   * @param measurementId the measurementId of the timeseries to be deleted.
+   * @param startTime     the lower bound of the delete range, Long.MIN_VALUE to delete all data
+   *                      before endTime.
+   * @param endTime       the upper bound of the delete range.
+   */
+  public void delete(String deviceId, String measurementId, long startTime, long endTime)
+      throws IOException {
     // TODO: how to avoid partial deletion?
     //FIXME: notice that if we may remove a SGProcessor out of memory, we need to close all opened
     //mod files in mergingModification, sequenceFileList, and unsequenceFileList
@@ -1136,37 +1364,47 @@ public class StorageGroupProcessor {
         return;
       }
 
-      // time partition to divide storage group
-      long timePartitionId = fromTimeToTimePartition(timestamp);
-      // write log
+      // write log into the work processors of the partitions that the range may cover, the time
+      // partitions are compared only, as the one of endTime may not exist
+      long startTimePartitionId = fromTimeToTimePartition(startTime);
+      long endTimePartitionId = fromTimeToTimePartition(endTime);
       if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
-        DeletePlan deletionPlan = new DeletePlan(timestamp, new Path(deviceId, measurementId));
+        DeletePlan deletionPlan = new DeletePlan(startTime, endTime,
+            new Path(deviceId, measurementId));
         for (Map.Entry<Long, TsFileProcessor> entry : workSequenceTsFileProcessors.entrySet()) {
-          if (entry.getKey() <= timePartitionId) {
+          if (entry.getKey() >= startTimePartitionId && entry.getKey() <= endTimePartitionId) {
             entry.getValue().getLogNode()
                 .write(deletionPlan);
           }
         }
 
         for (Map.Entry<Long, TsFileProcessor> entry : workUnsequenceTsFileProcessors.entrySet()) {
-          if (entry.getKey() <= timePartitionId) {
+          if (entry.getKey() >= startTimePartitionId && entry.getKey() <= endTimePartitionId) {
             entry.getValue().getLogNode()
                 .write(deletionPlan);
           }
         }
       }
 
+      // the chunks of a file are versioned by the controller of its time partition, so the
+      // deletion in each file takes a version from that controller to be above all its chunks
       Path fullPath = new Path(deviceId, measurementId);
-      Deletion deletion = new Deletion(fullPath,
-          getVersionControllerByTimePartitionId(timePartitionId).nextVersion(), timestamp);
-      if (mergingModification != null) {
-        mergingModification.write(deletion);
+      Map<Long, Deletion> partitionDeletions = new HashMap<>();
+      deleteDataInFiles(sequenceFileTreeSet, fullPath, startTime, endTime, partitionDeletions,
+          updatedModFiles);
+      deleteDataInFiles(unSequenceFileList, fullPath, startTime, endTime, partitionDeletions,
+          updatedModFiles);
+
+      // the merged files may come from any of the partitions
+      if (mergingModification != null && !partitionDeletions.isEmpty()) {
+        long maxVersion = Long.MIN_VALUE;
+        for (Deletion deletion : partitionDeletions.values()) {
+          maxVersion = Math.max(maxVersion, deletion.getVersionNum());
+        }
+        mergingModification.write(new Deletion(fullPath, maxVersion, startTime, endTime));
         updatedModFiles.add(mergingModification);
       }
 
-      deleteDataInFiles(sequenceFileTreeSet, deletion, updatedModFiles);
-      deleteDataInFiles(unSequenceFileList, deletion, updatedModFiles);
-
     } catch (Exception e) {
       // roll back
       for (ModificationFile modFile : updatedModFiles) {
@@ -1177,23 +1415,40 @@ public class StorageGroupProcessor {
       writeUnlock();
       mergeLock.writeLock().unlock();
     }
+    awaitWalCommit();
   }
 
 
-  private void deleteDataInFiles(Collection<TsFileResource> tsFileResourceList, Deletion deletion,
+  /**
+   * Write the deletion of [startTime, endTime] of the series into the files that may contain it.
+   *
+   * @param partitionDeletions time partition -> the deletion of the partition, a deletion is
+   *                           created with a new version for the first file of each partition
+   */
+  private void deleteDataInFiles(Collection<TsFileResource> tsFileResourceList, Path path,
+      long startTime, long endTime, Map<Long, Deletion> partitionDeletions,
       List<ModificationFile> updatedModFiles)
       throws IOException {
-    String deviceId = deletion.getDevice();
+    String deviceId = path.getDevice();
     for (TsFileResource tsFileResource : tsFileResourceList) {
       if (!tsFileResource.containsDevice(deviceId) ||
-          deletion.getTimestamp() < tsFileResource.getStartTimeMap().get(deviceId)) {
+          endTime < tsFileResource.getStartTimeMap().get(deviceId)) {
+        continue;
+      }
+      Long fileEndTime = tsFileResource.getEndTimeMap().get(deviceId);
+      if (tsFileResource.isClosed() && fileEndTime != null && startTime > fileEndTime) {
         continue;
       }
+      Deletion deletion = partitionDeletions.computeIfAbsent(
+          getTimePartitionFromTsFileResource(tsFileResource),
+          timePartitionId -> new Deletion(path,
+              getVersionControllerByTimePartitionId(timePartitionId).nextVersion(), startTime,
+              endTime));
 
       // write deletion into modification file
       tsFileResource.getModFile().write(deletion);
-      // remember to close mod file
-      tsFileResource.getModFile().close();
+      // release the stream, the cached modifications are kept for the queries
+      tsFileResource.getModFile().closeWriter();
 
       // delete data in memory of unsealed file
       if (!tsFileResource.isClosed()) {
@@ -1246,9 +1501,13 @@ public class StorageGroupProcessor {
     } finally {
       closeQueryLock.writeLock().unlock();
     }
+    resourceIndex.sealFile(tsFileProcessor.getTsFileResource(), tsFileProcessor.isSequence());
     //closingSequenceTsFileProcessor is a thread safety class.
     if (closingSequenceTsFileProcessor.contains(tsFileProcessor)) {
       closingSequenceTsFileProcessor.remove(tsFileProcessor);
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableSeqFileCompaction()) {
+        MergeManager.getINSTANCE().compactAsync(this);
+      }
     } else {
       closingUnSequenceTsFileProcessor.remove(tsFileProcessor);
     }
@@ -1350,6 +1609,53 @@ public class StorageGroupProcessor {
     }
   }
 
+  /**
+   * Compact a run of adjacent small sequence files into a larger one if such a run exists. As a
+   * compaction replaces sequence files like a merge, it shares the merging status and the merging
+   * modification file with merges, so a storage group never runs a compaction and a merge at the
+   * same time.
+   */
+  public void compact() {
+    if (!IoTDBDescriptor.getInstance().getConfig().isEnableSeqFileCompaction()) {
+      return;
+    }
+    writeLock();
+    try {
+      if (isMerging) {
+        logger.debug("{} Last merge or compaction is ongoing, skip compaction", storageGroupName);
+        return;
+      }
+
+      long timeLowerBound = System.currentTimeMillis() - dataTTL;
+      List<TsFileResource> sourceFiles = new SeqFileCompactionSelector(sequenceFileTreeSet,
+          timeLowerBound, IoTDBDescriptor.getInstance().getConfig().getSeqFileCompactionFileNum(),
+          IoTDBDescriptor.getInstance().getConfig().getSeqFileCompactionTargetSize()).select();
+      if (sourceFiles.isEmpty()) {
+        logger.debug("{} no files to be compacted", storageGroupName);
+        return;
+      }
+
+      for (TsFileResource tsFileResource : sourceFiles) {
+        tsFileResource.setMerging(true);
+      }
+      String taskName = storageGroupName + "-compaction-" + System.currentTimeMillis();
+      CompactionTask compactionTask = new CompactionTask(
+          new MergeResource(sourceFiles, Collections.emptyList()), storageGroupSysDir.getPath(),
+          this::compactionEndAction, taskName, storageGroupName);
+      mergingModification = new ModificationFile(
+          storageGroupSysDir + File.separator + MERGING_MODIFICATION_FILE_NAME);
+      MergeManager.getINSTANCE().submitCompactionTask(compactionTask);
+      if (logger.isInfoEnabled()) {
+        logger.info("{} submits a compaction task {}, compacting {} seqFiles", storageGroupName,
+            taskName, sourceFiles.size());
+      }
+      isMerging = true;
+      mergeStartTime = System.currentTimeMillis();
+    } finally {
+      writeUnlock();
+    }
+  }
+
   private IMergeFileSelector getMergeFileSelector(long budget, MergeResource resource) {
     MergeFileStrategy strategy = IoTDBDescriptor.getInstance().getConfig().getMergeFileStrategy();
     switch (strategy) {
@@ -1366,6 +1672,8 @@ public class StorageGroupProcessor {
     mergeLock.writeLock().lock();
     try {
       unSequenceFileList.removeAll(unseqFiles);
+      // the merge has also changed the start times of the sequence files
+      resourceIndex.invalidate();
     } finally {
       mergeLock.writeLock().unlock();
     }
@@ -1447,6 +1755,67 @@ public class StorageGroupProcessor {
     logger.info("{} a merge task ends", storageGroupName);
   }
 
+  @SuppressWarnings("squid:S1141")
+  protected void compactionEndAction(List<TsFileResource> sourceFiles, TsFileResource targetFile,
+      File compactionLog) {
+    logger.info("{} a compaction task is ending...", storageGroupName);
+
+    if (targetFile != null) {
+      writeLock();
+      mergeLock.writeLock().lock();
+      try {
+        // the target file equals the last source file in the order of sequenceFileTreeSet, so
+        // the source files must be removed first
+        sequenceFileTreeSet.removeAll(sourceFiles);
+        sequenceFileTreeSet.add(targetFile);
+        resourceIndex.invalidate();
+        // the deletions during the compaction may not be in the target file
+        if (mergingModification != null) {
+          for (Modification modification : mergingModification.getModifications()) {
+            targetFile.getModFile().write(modification);
+          }
+          try {
+            targetFile.getModFile().close();
+          } catch (IOException e) {
+            logger.error("Cannot close the ModificationFile {}",
+                targetFile.getModFile().getFilePath(), e);
+          }
+        }
+      } catch (IOException e) {
+        logger.error("{} cannot write the ModificationFile of {} after compaction",
+            storageGroupName, targetFile.getFile(), e);
+      } finally {
+        mergeLock.writeLock().unlock();
+        writeUnlock();
+      }
+
+      for (TsFileResource sourceFile : sourceFiles) {
+        sourceFile.getWriteQueryLock().writeLock().lock();
+        try {
+          TsFileMetaDataCache.getInstance().remove(sourceFile);
+          DeviceMetaDataCache.getInstance().remove(sourceFile);
+          FileReaderManager.getInstance().closeFileAndRemoveReader(sourceFile);
+          sourceFile.remove();
+        } catch (IOException e) {
+          logger.error("{} cannot remove {} after compaction", storageGroupName,
+              sourceFile.getFile(), e);
+        } finally {
+          sourceFile.getWriteQueryLock().writeLock().unlock();
+        }
+      }
+    }
+
+    mergeLock.writeLock().lock();
+    try {
+      removeMergingModification();
+      isMerging = false;
+      compactionLog.delete();
+    } finally {
+      mergeLock.writeLock().unlock();
+    }
+    logger.info("{} a compaction task ends", storageGroupName);
+  }
+
   /**
    * Load a new tsfile to storage group processor. The mechanism of the sync module will make sure
    * that there has no file which is overlapping with the new file.
@@ -1679,6 +2048,7 @@ public class StorageGroupProcessor {
                 .getFile().getName());
         tsFileResource.setFile(targetFile);
         unSequenceFileList.add(tsFileResource);
+        resourceIndex.invalidate();
         logger.info("Load tsfile in unsequence list, move file from {} to {}",
             syncedTsFile.getAbsolutePath(), targetFile.getAbsolutePath());
         break;
@@ -1689,6 +2059,7 @@ public class StorageGroupProcessor {
                     + tsFileResource.getFile().getName());
         tsFileResource.setFile(targetFile);
         sequenceFileTreeSet.add(tsFileResource);
+        resourceIndex.invalidate();
         logger.info("Load tsfile in sequence list, move file from {} to {}",
             syncedTsFile.getAbsolutePath(), targetFile.getAbsolutePath());
         break;
@@ -1763,6 +2134,7 @@ public class StorageGroupProcessor {
           }
         }
       }
+      resourceIndex.invalidate();
     } finally {
       mergeLock.writeLock().unlock();
       writeUnlock();
@@ -1821,6 +2193,7 @@ public class StorageGroupProcessor {
           }
         }
       }
+      resourceIndex.invalidate();
     } finally {
       mergeLock.writeLock().unlock();
       writeUnlock();
@@ -51,6 +51,7 @@ import org.apache.iotdb.db.qp.constant.DatetimeUtils;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.rescon.MemTablePool;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
@@ -214,7 +215,7 @@ public class TsFileProcessor {
 
   /**
    * Delete data which belongs to the timeseries `deviceId.measurementId` and the timestamp of which
-   * <= 'timestamp' in the deletion. <br/>
+   * is in the range of the deletion. <br/>
    *
    * Delete data in both working MemTable and flushing MemTables.
    */
@@ -222,8 +223,8 @@ public class TsFileProcessor {
     flushQueryLock.writeLock().lock();
     try {
       if (workMemTable != null) {
-        workMemTable
-            .delete(deletion.getDevice(), deletion.getMeasurement(), deletion.getTimestamp());
+        workMemTable.delete(deletion.getDevice(), deletion.getMeasurement(),
+            deletion.getStartTime(), deletion.getEndTime());
       }
       // flushing memTables are immutable, only record this deletion in these memTables for query
       for (IMemTable memTable : flushingMemTables) {
@@ -238,6 +239,10 @@ public class TsFileProcessor {
     return tsFileResource;
   }
 
+  boolean isSequence() {
+    return sequence;
+  }
+
 
   boolean shouldFlush() {
     return workMemTable != null
@@ -599,10 +604,11 @@ public class TsFileProcessor {
           memSeriesLazyMerger.addMemSeries(memChunk);
         }
       }
-      // memSeriesLazyMerger has handled the props,
+      // the chunks in memSeriesLazyMerger have handled the props,
       // so we do not need to handle it again in the following readOnlyMemChunk
-      ReadOnlyMemChunk timeValuePairSorter = new ReadOnlyMemChunk(dataType, memSeriesLazyMerger,
-          Collections.emptyMap());
+      ReadOnlyMemChunk timeValuePairSorter = new ReadOnlyMemChunk(dataType, memSeriesLazyMerger);
+      QueryResourceManager.getInstance()
+          .registerMemChunk(context.getQueryId(), timeValuePairSorter);
 
       ModificationFile modificationFile = tsFileResource.getModFile();
       List<Modification> modifications = context.getPathModifications(modificationFile,
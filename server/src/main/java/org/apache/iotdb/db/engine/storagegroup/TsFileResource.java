@@ -35,6 +35,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.upgrade.UpgradeTask;
@@ -59,14 +60,15 @@ public class TsFileResource {
   private static final String CLOSING_SUFFIX = ".closing";
 
   /**
-   * device -> start time
+   * device -> start time. It is compacted into a DeviceTimeMap once the TsFile is sealed.
    */
-  private Map<String, Long> startTimeMap;
+  private volatile Map<String, Long> startTimeMap;
 
   /**
-   * device -> end time. It is null if it's an unsealed sequence tsfile
+   * device -> end time. It is null if it's an unsealed sequence tsfile. It is compacted into a
+   * DeviceTimeMap once the TsFile is sealed.
    */
-  private Map<String, Long> endTimeMap;
+  private volatile Map<String, Long> endTimeMap;
 
   public TsFileProcessor getProcessor() {
     return processor;
@@ -166,22 +168,8 @@ public class TsFileResource {
   public void deSerialize() throws IOException {
     try (InputStream inputStream = fsFactory.getBufferedInputStream(
         file + RESOURCE_SUFFIX)) {
-      int size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> startTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        startTimes.put(path, time);
-      }
-      size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> endTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        endTimes.put(path, time);
-      }
-      this.startTimeMap = startTimes;
-      this.endTimeMap = endTimes;
+      this.startTimeMap = deserializeTimeMap(inputStream);
+      this.endTimeMap = deserializeTimeMap(inputStream);
 
       if (inputStream.available() > 0) {
         int versionSize = ReadWriteIOUtils.readInt(inputStream);
@@ -197,6 +185,18 @@ public class TsFileResource {
     }
   }
 
+  private static DeviceTimeMap deserializeTimeMap(InputStream inputStream) throws IOException {
+    DeviceIdTable deviceIdTable = DeviceIdTable.getInstance();
+    int size = ReadWriteIOUtils.readInt(inputStream);
+    int[] deviceIds = new int[size];
+    long[] times = new long[size];
+    for (int i = 0; i < size; i++) {
+      deviceIds[i] = deviceIdTable.getOrCreateId(ReadWriteIOUtils.readString(inputStream));
+      times[i] = ReadWriteIOUtils.readLong(inputStream);
+    }
+    return new DeviceTimeMap(deviceIds, times, size);
+  }
+
   public void updateStartTime(String device, long time) {
     long startTime = startTimeMap.getOrDefault(device, Long.MAX_VALUE);
     if (time < startTime) {
@@ -258,6 +258,14 @@ public class TsFileResource {
     return endTimeMap;
   }
 
+  /**
+   * set the time maps restored from a TsFileResourceCatalog
+   */
+  void setTimeMaps(Map<String, Long> startTimeMap, Map<String, Long> endTimeMap) {
+    this.startTimeMap = startTimeMap;
+    this.endTimeMap = endTimeMap;
+  }
+
   public boolean isClosed() {
     return closed;
   }
@@ -270,6 +278,19 @@ public class TsFileResource {
     }
     processor = null;
     chunkMetaDataList = null;
+    compactTimeMaps();
+  }
+
+  /**
+   * replace the time maps with DeviceTimeMaps as the devices of a sealed TsFile seldom change
+   */
+  private void compactTimeMaps() {
+    if (!(startTimeMap instanceof DeviceTimeMap)) {
+      startTimeMap = new DeviceTimeMap(startTimeMap);
+    }
+    if (endTimeMap != null && !(endTimeMap instanceof DeviceTimeMap)) {
+      endTimeMap = new DeviceTimeMap(endTimeMap);
+    }
   }
 
   TsFileProcessor getUnsealedFileProcessor() {
@@ -292,12 +313,14 @@ public class TsFileResource {
   }
 
   public void remove() {
+    ChunkCache.getInstance().remove(this);
     file.delete();
     fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX).delete();
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
   }
 
   void moveTo(File targetDir) throws IOException {
+    ChunkCache.getInstance().remove(this);
     FileUtils.moveFile(file, new File(targetDir, file.getName()));
     FileUtils.moveFile(fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX),
         new File(targetDir, file.getName() + RESOURCE_SUFFIX));
@@ -328,6 +351,9 @@ public class TsFileResource {
 
   public void setClosed(boolean closed) {
     this.closed = closed;
+    if (closed) {
+      compactTimeMaps();
+    }
   }
 
   public boolean isDeleted() {
@@ -338,7 +364,7 @@ public class TsFileResource {
     this.deleted = deleted;
   }
 
-  boolean isMerging() {
+  public boolean isMerging() {
     return isMerging;
   }
 
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TsFileResourceCatalog is a snapshot of the sealed TsFileResources of a storage group, so that
+ * they can be restored at startup by one sequential read instead of opening every TsFile and
+ * deserializing its ".resource" file. The devices are written once per snapshot and referred to
+ * by ints, and an entry is only restored if its TsFile and ".resource" file are unchanged since
+ * the snapshot was taken, otherwise the TsFile is recovered as usual.
+ * <p>
+ * Format: version, device number, devices, file number, and for each file: TsFile path, TsFile
+ * length, TsFile modification time, ".resource" length, ".resource" modification time, start
+ * times, end times (each as number, device index and time pairs) and historical versions.
+ */
+public class TsFileResourceCatalog {
+
+  private static final Logger logger = LoggerFactory.getLogger(TsFileResourceCatalog.class);
+  private static final FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+
+  public static final String CATALOG_FILE_NAME = "resources.catalog";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int VERSION = 1;
+
+  /**
+   * TsFile path -> snapshot of its resource
+   */
+  private final Map<String, CatalogEntry> entries;
+
+  private TsFileResourceCatalog(Map<String, CatalogEntry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * @return the catalog in the file, or an empty catalog if the file does not exist or is broken
+   */
+  public static TsFileResourceCatalog load(File catalogFile) {
+    Map<String, CatalogEntry> entries = new HashMap<>();
+    if (!catalogFile.exists()) {
+      return new TsFileResourceCatalog(entries);
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(catalogFile.toPath()));
+      int version = ReadWriteIOUtils.readInt(buffer);
+      if (version != VERSION) {
+        logger.warn("Unknown version {} of TsFileResource catalog {}, ignore it", version,
+            catalogFile);
+        return new TsFileResourceCatalog(entries);
+      }
+      DeviceIdTable deviceIdTable = DeviceIdTable.getInstance();
+      int[] deviceIds = new int[ReadWriteIOUtils.readInt(buffer)];
+      for (int i = 0; i < deviceIds.length; i++) {
+        deviceIds[i] = deviceIdTable.getOrCreateId(ReadWriteIOUtils.readString(buffer));
+      }
+      int fileNum = ReadWriteIOUtils.readInt(buffer);
+      for (int i = 0; i < fileNum; i++) {
+        CatalogEntry entry = new CatalogEntry();
+        String path = ReadWriteIOUtils.readString(buffer);
+        entry.tsFileLength = ReadWriteIOUtils.readLong(buffer);
+        entry.tsFileLastModified = ReadWriteIOUtils.readLong(buffer);
+        entry.resourceLength = ReadWriteIOUtils.readLong(buffer);
+        entry.resourceLastModified = ReadWriteIOUtils.readLong(buffer);
+        entry.startTimeMap = readTimeMap(buffer, deviceIds);
+        entry.endTimeMap = readTimeMap(buffer, deviceIds);
+        int versionNum = ReadWriteIOUtils.readInt(buffer);
+        entry.historicalVersions = new HashSet<>();
+        for (int j = 0; j < versionNum; j++) {
+          entry.historicalVersions.add(ReadWriteIOUtils.readLong(buffer));
+        }
+        entries.put(path, entry);
+      }
+    } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+      logger.warn("Cannot load TsFileResource catalog {}, ignore it", catalogFile, e);
+      entries.clear();
+    }
+    return new TsFileResourceCatalog(entries);
+  }
+
+  private static DeviceTimeMap readTimeMap(ByteBuffer buffer, int[] deviceIds) {
+    int size = ReadWriteIOUtils.readInt(buffer);
+    int[] ids = new int[size];
+    long[] times = new long[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = deviceIds[ReadWriteIOUtils.readInt(buffer)];
+      times[i] = ReadWriteIOUtils.readLong(buffer);
+    }
+    return new DeviceTimeMap(ids, times, size);
+  }
+
+  /**
+   * Fill the time maps and historical versions of the resource from the catalog.
+   *
+   * @return true if the resource is restored, false if the catalog has no entry of the TsFile or
+   * the TsFile or its ".resource" file has changed since the snapshot
+   */
+  public boolean restore(TsFileResource resource) {
+    File tsFile = resource.getFile();
+    CatalogEntry entry = entries.get(tsFile.getAbsolutePath());
+    if (entry == null) {
+      return false;
+    }
+    File resourceFile = fsFactory.getFile(tsFile + TsFileResource.RESOURCE_SUFFIX);
+    if (tsFile.length() != entry.tsFileLength
+        || tsFile.lastModified() != entry.tsFileLastModified
+        || resourceFile.length() != entry.resourceLength
+        || resourceFile.lastModified() != entry.resourceLastModified) {
+      return false;
+    }
+    resource.setTimeMaps(entry.startTimeMap, entry.endTimeMap);
+    resource.setHistoricalVersions(entry.historicalVersions);
+    return true;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Write the sealed resources whose ".resource" files exist into the catalog file, other
+   * resources are left to be recovered from their TsFiles.
+   */
+  public static void save(File catalogFile, Collection<TsFileResource> resources)
+      throws IOException {
+    List<TsFileResource> sealedResources = new ArrayList<>();
+    Map<String, Integer> deviceIndexes = new LinkedHashMap<>();
+    for (TsFileResource resource : resources) {
+      if (!resource.isClosed() || resource.isDeleted() || !resource.fileExists()
+          || resource.getHistoricalVersions() == null) {
+        continue;
+      }
+      sealedResources.add(resource);
+      for (String device : resource.getStartTimeMap().keySet()) {
+        deviceIndexes.putIfAbsent(device, deviceIndexes.size());
+      }
+      for (String device : resource.getEndTimeMap().keySet()) {
+        deviceIndexes.putIfAbsent(device, deviceIndexes.size());
+      }
+    }
+
+    File tempFile = SystemFileFactory.INSTANCE.getFile(catalogFile.getPath() + TEMP_SUFFIX);
+    try (OutputStream outputStream = new BufferedOutputStream(
+        Files.newOutputStream(tempFile.toPath()))) {
+      ReadWriteIOUtils.write(VERSION, outputStream);
+      ReadWriteIOUtils.write(deviceIndexes.size(), outputStream);
+      for (String device : deviceIndexes.keySet()) {
+        ReadWriteIOUtils.write(device, outputStream);
+      }
+      ReadWriteIOUtils.write(sealedResources.size(), outputStream);
+      for (TsFileResource resource : sealedResources) {
+        File tsFile = resource.getFile();
+        File resourceFile = fsFactory.getFile(tsFile + TsFileResource.RESOURCE_SUFFIX);
+        ReadWriteIOUtils.write(tsFile.getAbsolutePath(), outputStream);
+        ReadWriteIOUtils.write(tsFile.length(), outputStream);
+        ReadWriteIOUtils.write(tsFile.lastModified(), outputStream);
+        ReadWriteIOUtils.write(resourceFile.length(), outputStream);
+        ReadWriteIOUtils.write(resourceFile.lastModified(), outputStream);
+        writeTimeMap(resource.getStartTimeMap(), deviceIndexes, outputStream);
+        writeTimeMap(resource.getEndTimeMap(), deviceIndexes, outputStream);
+        Set<Long> historicalVersions = resource.getHistoricalVersions();
+        ReadWriteIOUtils.write(historicalVersions.size(), outputStream);
+        for (Long historicalVersion : historicalVersions) {
+          ReadWriteIOUtils.write(historicalVersion, outputStream);
+        }
+      }
+    }
+    Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static void writeTimeMap(Map<String, Long> timeMap, Map<String, Integer> deviceIndexes,
+      OutputStream outputStream) throws IOException {
+    // the map is iterated on a snapshot so that the size matches the entries
+    List<Entry<String, Long>> timeEntries = new ArrayList<>(timeMap.entrySet());
+    ReadWriteIOUtils.write(timeEntries.size(), outputStream);
+    for (Entry<String, Long> entry : timeEntries) {
+      ReadWriteIOUtils.write(deviceIndexes.get(entry.getKey()), outputStream);
+      ReadWriteIOUtils.write(entry.getValue(), outputStream);
+    }
+  }
+
+  private static class CatalogEntry {
+
+    private long tsFileLength;
+    private long tsFileLastModified;
+    private long resourceLength;
+    private long resourceLastModified;
+    private DeviceTimeMap startTimeMap;
+    private DeviceTimeMap endTimeMap;
+    private Set<Long> historicalVersions;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TsFileResourceIndex indexes the sealed TsFiles of a storage group by device, so that a query of
+ * a device only visits the TsFiles containing the device instead of every TsFile.
+ * <p>
+ * For each device, the sealed sequence TsFiles are sorted by the start time of the device, which
+ * is the order of their data as the sequence data of a device never overlap, even across time
+ * partitions. The sealed unsequence TsFiles are kept in the order they are added to the storage
+ * group, which decides their priority. The unsealed TsFiles, whose devices change with insertions,
+ * are kept aside and always checked.
+ * <p>
+ * Creating and sealing a TsFile updates the index in place. Other changes of the TsFiles, e.g.,
+ * merges, compactions, loads and removals, invalidate it, and it is rebuilt from the TsFiles of
+ * the storage group by the next lookup. All methods are synchronized, as sealing is done by the
+ * flush threads without the locks of the storage group.
+ */
+class TsFileResourceIndex {
+
+  private boolean valid = false;
+
+  /**
+   * device -> the sealed sequence TsFiles containing the device, sorted by the start time of the
+   * device
+   */
+  private Map<String, List<TsFileResource>> seqFiles = new HashMap<>();
+
+  /**
+   * device -> the sealed unsequence TsFiles containing the device, in the order they are added
+   */
+  private Map<String, List<TsFileResource>> unseqFiles = new HashMap<>();
+
+  private List<TsFileResource> unsealedSeqFiles = new ArrayList<>();
+  private List<TsFileResource> unsealedUnseqFiles = new ArrayList<>();
+
+  /**
+   * unsequence TsFile -> the order it is added in
+   */
+  private Map<TsFileResource, Long> unseqOrders = new IdentityHashMap<>();
+  private long nextUnseqOrder = 0;
+
+  /**
+   * Drop the index, the next lookup rebuilds it.
+   */
+  synchronized void invalidate() {
+    valid = false;
+    seqFiles = new HashMap<>();
+    unseqFiles = new HashMap<>();
+    unsealedSeqFiles = new ArrayList<>();
+    unsealedUnseqFiles = new ArrayList<>();
+    unseqOrders = new IdentityHashMap<>();
+  }
+
+  /**
+   * Called when a TsFile is created and added to the end of the TsFiles of the storage group.
+   */
+  synchronized void addUnsealedFile(TsFileResource resource, boolean sequence) {
+    if (!valid) {
+      return;
+    }
+    if (sequence) {
+      unsealedSeqFiles.add(resource);
+    } else {
+      unseqOrders.put(resource, nextUnseqOrder++);
+      unsealedUnseqFiles.add(resource);
+    }
+  }
+
+  /**
+   * Called after a TsFile is sealed, so that its devices will not change.
+   */
+  synchronized void sealFile(TsFileResource resource, boolean sequence) {
+    if (!valid) {
+      return;
+    }
+    List<TsFileResource> unsealedFiles = sequence ? unsealedSeqFiles : unsealedUnseqFiles;
+    // the TsFile is not found if it was already sealed when the index was built
+    if (removeByIdentity(unsealedFiles, resource)) {
+      indexSealedFile(resource, sequence);
+    }
+  }
+
+  /**
+   * @param seqResources the sequence TsFiles of the storage group, used if the index is rebuilt
+   * @param unseqResources the unsequence TsFiles of the storage group in their order, used if the
+   * index is rebuilt
+   * @return the sequence TsFiles that may contain the device, sorted by the start time of the
+   * device
+   */
+  synchronized List<TsFileResource> getSeqFiles(String deviceId,
+      Collection<TsFileResource> seqResources, Collection<TsFileResource> unseqResources) {
+    checkValid(seqResources, unseqResources);
+    List<TsFileResource> result = new ArrayList<>(
+        seqFiles.getOrDefault(deviceId, new ArrayList<>()));
+    boolean hasUnsealedFile = false;
+    for (TsFileResource resource : unsealedSeqFiles) {
+      if (resource.containsDevice(deviceId)) {
+        result.add(resource);
+        hasUnsealedFile = true;
+      }
+    }
+    if (hasUnsealedFile) {
+      result.sort(startTimeComparator(deviceId));
+    }
+    return result;
+  }
+
+  /**
+   * @param seqResources the sequence TsFiles of the storage group, used if the index is rebuilt
+   * @param unseqResources the unsequence TsFiles of the storage group in their order, used if the
+   * index is rebuilt
+   * @return the unsequence TsFiles that may contain the device, in the order they are added
+   */
+  synchronized List<TsFileResource> getUnseqFiles(String deviceId,
+      Collection<TsFileResource> seqResources, Collection<TsFileResource> unseqResources) {
+    checkValid(seqResources, unseqResources);
+    List<TsFileResource> result = new ArrayList<>(
+        unseqFiles.getOrDefault(deviceId, new ArrayList<>()));
+    boolean hasUnsealedFile = false;
+    for (TsFileResource resource : unsealedUnseqFiles) {
+      if (resource.containsDevice(deviceId)) {
+        result.add(resource);
+        hasUnsealedFile = true;
+      }
+    }
+    if (hasUnsealedFile) {
+      result.sort(Comparator.comparingLong(unseqOrders::get));
+    }
+    return result;
+  }
+
+  private void checkValid(Collection<TsFileResource> seqResources,
+      Collection<TsFileResource> unseqResources) {
+    if (valid) {
+      return;
+    }
+    for (TsFileResource resource : seqResources) {
+      if (resource.isClosed()) {
+        indexSealedFile(resource, true);
+      } else {
+        unsealedSeqFiles.add(resource);
+      }
+    }
+    for (TsFileResource resource : unseqResources) {
+      unseqOrders.put(resource, nextUnseqOrder++);
+      if (resource.isClosed()) {
+        indexSealedFile(resource, false);
+      } else {
+        unsealedUnseqFiles.add(resource);
+      }
+    }
+    valid = true;
+  }
+
+  private void indexSealedFile(TsFileResource resource, boolean sequence) {
+    for (String deviceId : resource.getStartTimeMap().keySet()) {
+      if (sequence) {
+        List<TsFileResource> files = seqFiles.computeIfAbsent(deviceId, k -> new ArrayList<>());
+        // usually the newest TsFile of the device, so the position is searched from the end
+        long startTime = resource.getStartTimeMap().get(deviceId);
+        int index = files.size();
+        while (index > 0 && files.get(index - 1).getStartTimeMap().get(deviceId) > startTime) {
+          index--;
+        }
+        files.add(index, resource);
+      } else {
+        List<TsFileResource> files = unseqFiles.computeIfAbsent(deviceId, k -> new ArrayList<>());
+        // usually the newest TsFile, so the position is searched from the end
+        long order = unseqOrders.get(resource);
+        int index = files.size();
+        while (index > 0 && unseqOrders.get(files.get(index - 1)) > order) {
+          index--;
+        }
+        files.add(index, resource);
+      }
+    }
+  }
+
+  private static Comparator<TsFileResource> startTimeComparator(String deviceId) {
+    return Comparator.comparingLong(resource -> resource.getStartTimeMap().get(deviceId));
+  }
+
+  private static boolean removeByIdentity(List<TsFileResource> resources,
+      TsFileResource resource) {
+    for (int i = 0; i < resources.size(); i++) {
+      if (resources.get(i) == resource) {
+        resources.remove(i);
+        return true;
+      }
+    }
+    return false;
+  }
+}
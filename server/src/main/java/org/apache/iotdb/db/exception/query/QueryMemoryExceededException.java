@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.exception.query;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a query needs more working memory than its budget or than the free memory of the
+ * query memory pool. It is an IOException as it is raised while the data of the query is read.
+ */
+public class QueryMemoryExceededException extends IOException {
+
+  private static final long serialVersionUID = 4012458326574816792L;
+
+  public QueryMemoryExceededException(long queryId, long size, long usedMemory,
+      long maxMemoryPerQuery, long freeMemory) {
+    super(String.format(
+        "Query %d fails to reserve %d bytes of memory, it has used %d bytes of its budget %d "
+            + "bytes and there are %d bytes free in the query memory pool. Please narrow down "
+            + "the query or increase max_memory_per_query_in_byte", queryId, size, usedMemory,
+        maxMemoryPerQuery, freeMemory));
+  }
+}
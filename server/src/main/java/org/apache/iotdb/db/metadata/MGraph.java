@@ -407,6 +407,14 @@ public class MGraph implements Serializable {
   /**
    * @return storage group name -> the series number
    */
+  MTree getMTree() {
+    return mtree;
+  }
+
+  Map<String, PTree> getPTreeMap() {
+    return ptreeMap;
+  }
+
   Map<String, Integer> countSeriesNumberInEachStorageGroup() throws PathException {
     Map<String, Integer> res = new HashMap<>();
     List<String> storageGroups = this.getAllStorageGroupNames();
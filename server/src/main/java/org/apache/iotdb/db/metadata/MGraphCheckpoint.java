@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * MGraphCheckpoint is a binary snapshot of the MGraph together with the length of the metadata log
+ * it covers, so that a restart loads the snapshot and replays only the log written after it.
+ * <p>
+ * The nodes above the storage groups are written in pre-order, and the subtree of each storage
+ * group is written as a separate block, so that the blocks are loaded in parallel. A block begins
+ * with the distinct measurement schemas of the storage group, column by column, and each leaf
+ * refers to its schema by index instead of repeating it, so the leaves sharing a schema share one
+ * MeasurementSchema after loading.
+ * <p>
+ * Format: version, covered log length, the last bytes of the covered log, the nodes above the
+ * storage groups, the storage group blocks, each led by its length, and the PTrees.
+ */
+class MGraphCheckpoint {
+
+  private static final int VERSION = 1;
+  private static final String TEMP_SUFFIX = ".tmp";
+  /**
+   * the last bytes of the covered log are kept to check that the log is the one the checkpoint
+   * was taken upon
+   */
+  private static final int LOG_TAIL_SIZE = 64;
+
+  private static final byte INTERNAL_NODE = 0;
+  private static final byte STORAGE_GROUP_NODE = 1;
+  private static final byte LEAF_NODE = 2;
+
+  private MGraphCheckpoint() {
+    // util class
+  }
+
+  /**
+   * Write a checkpoint of the MGraph, which must not be modified during the call.
+   *
+   * @param logLength the length of the metadata log that the MGraph reflects
+   */
+  static void save(MGraph mgraph, File logFile, long logLength, File checkpointFile)
+      throws IOException {
+    File tempFile = SystemFileFactory.INSTANCE.getFile(checkpointFile.getPath() + TEMP_SUFFIX);
+    try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+      ReadWriteIOUtils.write(VERSION, outputStream);
+      ReadWriteIOUtils.write(logLength, outputStream);
+      byte[] logTail = readLogTail(logFile, logLength);
+      ReadWriteIOUtils.write(logTail.length, outputStream);
+      outputStream.write(logTail);
+
+      List<MNode> storageGroups = new ArrayList<>();
+      writeChildren(mgraph.getMTree().getRoot(), outputStream, storageGroups);
+      ReadWriteIOUtils.write(storageGroups.size(), outputStream);
+      PublicBAOS block = new PublicBAOS();
+      for (MNode storageGroup : storageGroups) {
+        block.reset();
+        writeStorageGroup(storageGroup, block);
+        ReadWriteIOUtils.write(block.size(), outputStream);
+        outputStream.write(block.getBuf(), 0, block.size());
+      }
+
+      Map<String, PTree> ptreeMap = mgraph.getPTreeMap();
+      ReadWriteIOUtils.write(ptreeMap.size(), outputStream);
+      for (PTree ptree : ptreeMap.values()) {
+        ReadWriteIOUtils.write(ptree.getName(), outputStream);
+        writePChildren(ptree.getRoot(), outputStream);
+      }
+    }
+    Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Fill an empty MGraph with the checkpoint, the storage groups are loaded by at most
+   * loadThreadNum threads.
+   *
+   * @return the length of the metadata log covered by the checkpoint
+   * @throws IOException if the checkpoint is broken or it is not taken upon the metadata log, then
+   * the MGraph may be partly filled and should be discarded
+   */
+  static long load(File checkpointFile, File logFile, MGraph mgraph, int loadThreadNum)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpointFile.toPath()));
+    try {
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unknown checkpoint version %d", version));
+      }
+      long logLength = buffer.getLong();
+      byte[] logTail = new byte[buffer.getInt()];
+      buffer.get(logTail);
+      if (logFile.length() < logLength
+          || !Arrays.equals(logTail, readLogTail(logFile, logLength))) {
+        throw new IOException(
+            String.format("The checkpoint is not taken upon the metadata log %s", logFile));
+      }
+
+      List<MNode> storageGroups = new ArrayList<>();
+      readChildren(mgraph.getMTree().getRoot(), buffer, storageGroups);
+      int storageGroupNum = buffer.getInt();
+      if (storageGroupNum != storageGroups.size()) {
+        throw new IOException(String.format("%d storage groups are expected but %d are found",
+            storageGroups.size(), storageGroupNum));
+      }
+      List<ByteBuffer> blocks = new ArrayList<>(storageGroupNum);
+      for (int i = 0; i < storageGroupNum; i++) {
+        int blockSize = buffer.getInt();
+        ByteBuffer block = buffer.slice();
+        block.limit(blockSize);
+        blocks.add(block);
+        buffer.position(buffer.position() + blockSize);
+      }
+      readStorageGroups(storageGroups, blocks, loadThreadNum);
+
+      int ptreeNum = buffer.getInt();
+      for (int i = 0; i < ptreeNum; i++) {
+        String ptreeName = ReadWriteIOUtils.readString(buffer);
+        mgraph.addAPTree(ptreeName);
+        readPChildren(mgraph.getPTreeMap().get(ptreeName).getRoot(), buffer);
+      }
+      return logLength;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+        | MetadataException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static byte[] readLogTail(File logFile, long logLength) throws IOException {
+    byte[] logTail = new byte[(int) Math.min(LOG_TAIL_SIZE, logLength)];
+    if (logTail.length > 0) {
+      try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+        file.seek(logLength - logTail.length);
+        file.readFully(logTail);
+      }
+    }
+    return logTail;
+  }
+
+  /**
+   * write the children of a node above the storage groups, and collect the storage groups whose
+   * blocks are written later
+   */
+  private static void writeChildren(MNode node, OutputStream outputStream,
+      List<MNode> storageGroups) throws IOException {
+    ReadWriteIOUtils.write(node.getChildren().size(), outputStream);
+    for (MNode child : node.getChildren().values()) {
+      if (child.isStorageGroup()) {
+        outputStream.write(STORAGE_GROUP_NODE);
+        ReadWriteIOUtils.write(child.getName(), outputStream);
+        storageGroups.add(child);
+      } else if (child.isLeaf()) {
+        // a timeseries without a storage group, which is only created in tests
+        outputStream.write(LEAF_NODE);
+        child.getSchema().serializeTo(outputStream);
+      } else {
+        outputStream.write(INTERNAL_NODE);
+        ReadWriteIOUtils.write(child.getName(), outputStream);
+        writeChildren(child, outputStream, storageGroups);
+      }
+    }
+  }
+
+  private static void readChildren(MNode node, ByteBuffer buffer, List<MNode> storageGroups) {
+    int childNum = buffer.getInt();
+    for (int i = 0; i < childNum; i++) {
+      byte nodeType = buffer.get();
+      MNode child;
+      if (nodeType == LEAF_NODE) {
+        MeasurementSchema schema = MeasurementSchema.deserializeFrom(buffer);
+        child = new MNode(schema.getMeasurementId(), node, true);
+        child.setSchema(schema);
+      } else {
+        child = new MNode(ReadWriteIOUtils.readString(buffer), node, false);
+        if (nodeType == STORAGE_GROUP_NODE) {
+          child.setStorageGroup(true);
+          storageGroups.add(child);
+        } else {
+          readChildren(child, buffer, storageGroups);
+        }
+      }
+      node.addChild(child.getName(), child);
+    }
+  }
+
+  private static void writeStorageGroup(MNode storageGroup, OutputStream outputStream)
+      throws IOException {
+    ReadWriteIOUtils.write(storageGroup.getDataTTL(), outputStream);
+
+    // schema with its props -> index
+    Map<Pair<MeasurementSchema, Map<String, String>>, Integer> schemaIndexes = new HashMap<>();
+    List<MeasurementSchema> schemas = new ArrayList<>();
+    collectSchemas(storageGroup, schemaIndexes, schemas);
+    ReadWriteIOUtils.write(schemas.size(), outputStream);
+    for (MeasurementSchema schema : schemas) {
+      ReadWriteIOUtils.write(schema.getMeasurementId(), outputStream);
+    }
+    for (MeasurementSchema schema : schemas) {
+      outputStream.write(schema.getType().serialize());
+    }
+    for (MeasurementSchema schema : schemas) {
+      outputStream.write(schema.getEncodingType().serialize());
+    }
+    for (MeasurementSchema schema : schemas) {
+      outputStream.write(schema.getCompressor().serialize());
+    }
+    for (MeasurementSchema schema : schemas) {
+      Map<String, String> props = schema.getProps();
+      ReadWriteIOUtils.write(props == null ? 0 : props.size(), outputStream);
+      if (props != null) {
+        for (Entry<String, String> entry : props.entrySet()) {
+          ReadWriteIOUtils.write(entry.getKey(), outputStream);
+          ReadWriteIOUtils.write(entry.getValue(), outputStream);
+        }
+      }
+    }
+
+    writeStorageGroupChildren(storageGroup, schemaIndexes, outputStream);
+  }
+
+  private static void collectSchemas(MNode node,
+      Map<Pair<MeasurementSchema, Map<String, String>>, Integer> schemaIndexes,
+      List<MeasurementSchema> schemas) {
+    for (MNode child : node.getChildren().values()) {
+      if (child.isLeaf()) {
+        MeasurementSchema schema = child.getSchema();
+        if (schemaIndexes.putIfAbsent(new Pair<>(schema, schema.getProps()), schemas.size())
+            == null) {
+          schemas.add(schema);
+        }
+      } else {
+        collectSchemas(child, schemaIndexes, schemas);
+      }
+    }
+  }
+
+  private static void writeStorageGroupChildren(MNode node,
+      Map<Pair<MeasurementSchema, Map<String, String>>, Integer> schemaIndexes,
+      OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(node.getChildren().size(), outputStream);
+    for (MNode child : node.getChildren().values()) {
+      if (child.isLeaf()) {
+        outputStream.write(LEAF_NODE);
+        MeasurementSchema schema = child.getSchema();
+        ReadWriteIOUtils.write(schemaIndexes.get(new Pair<>(schema, schema.getProps())),
+            outputStream);
+      } else {
+        outputStream.write(INTERNAL_NODE);
+        ReadWriteIOUtils.write(child.getName(), outputStream);
+        writeStorageGroupChildren(child, schemaIndexes, outputStream);
+      }
+    }
+  }
+
+  private static void readStorageGroups(List<MNode> storageGroups, List<ByteBuffer> blocks,
+      int loadThreadNum) throws IOException {
+    if (storageGroups.size() <= 1 || loadThreadNum <= 1) {
+      for (int i = 0; i < storageGroups.size(); i++) {
+        readStorageGroup(storageGroups.get(i), blocks.get(i));
+      }
+      return;
+    }
+    ExecutorService loadPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(Math.min(loadThreadNum, storageGroups.size()), "MTree-Checkpoint-Load");
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < storageGroups.size(); i++) {
+        MNode storageGroup = storageGroups.get(i);
+        ByteBuffer block = blocks.get(i);
+        futures.add(loadPool.submit(() -> {
+          readStorageGroup(storageGroup, block);
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      loadPool.shutdownNow();
+    }
+  }
+
+  private static void readStorageGroup(MNode storageGroup, ByteBuffer buffer) {
+    storageGroup.setDataTTL(buffer.getLong());
+
+    int schemaNum = buffer.getInt();
+    String[] measurementIds = new String[schemaNum];
+    for (int i = 0; i < schemaNum; i++) {
+      measurementIds[i] = ReadWriteIOUtils.readString(buffer);
+    }
+    byte[] types = new byte[schemaNum];
+    byte[] encodings = new byte[schemaNum];
+    byte[] compressors = new byte[schemaNum];
+    buffer.get(types);
+    buffer.get(encodings);
+    buffer.get(compressors);
+    MeasurementSchema[] schemas = new MeasurementSchema[schemaNum];
+    for (int i = 0; i < schemaNum; i++) {
+      int propNum = buffer.getInt();
+      Map<String, String> props = null;
+      if (propNum > 0) {
+        props = new HashMap<>(propNum);
+        for (int j = 0; j < propNum; j++) {
+          props.put(ReadWriteIOUtils.readString(buffer), ReadWriteIOUtils.readString(buffer));
+        }
+      }
+      schemas[i] = new MeasurementSchema(measurementIds[i], TSDataType.deserialize(types[i]),
+          TSEncoding.deserialize(encodings[i]), CompressionType.deserialize(compressors[i]), props);
+    }
+
+    String storageGroupName = storageGroup.getFullPath();
+    storageGroup.setDataFileName(storageGroupName);
+    readStorageGroupChildren(storageGroup, storageGroup, storageGroupName, schemas, buffer);
+  }
+
+  private static void readStorageGroupChildren(MNode node, MNode storageGroup,
+      String storageGroupName, MeasurementSchema[] schemas, ByteBuffer buffer) {
+    int childNum = buffer.getInt();
+    for (int i = 0; i < childNum; i++) {
+      MNode child;
+      if (buffer.get() == LEAF_NODE) {
+        MeasurementSchema schema = schemas[buffer.getInt()];
+        child = new MNode(schema.getMeasurementId(), node, true);
+        child.setSchema(schema);
+        // the schema maps of the storage group are rebuilt from its leaves
+        storageGroup.getSchemaMap().putIfAbsent(schema.getMeasurementId(), schema);
+        storageGroup.getNumSchemaMap().merge(schema.getMeasurementId(), 1, Integer::sum);
+      } else {
+        child = new MNode(ReadWriteIOUtils.readString(buffer), node, false);
+        readStorageGroupChildren(child, storageGroup, storageGroupName, schemas, buffer);
+      }
+      child.setDataFileName(storageGroupName);
+      node.addChild(child.getName(), child);
+    }
+  }
+
+  private static void writePChildren(PNode node, OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(node.getChildren().size(), outputStream);
+    for (PNode child : node.getChildren().values()) {
+      ReadWriteIOUtils.write(child.getName(), outputStream);
+      ReadWriteIOUtils.write(child.isLeaf(), outputStream);
+      if (child.isLeaf()) {
+        ReadWriteIOUtils.write(child.getLinkedMTreePathMap().size(), outputStream);
+        for (String mTreePath : child.getLinkedMTreePathMap().keySet()) {
+          ReadWriteIOUtils.write(mTreePath, outputStream);
+        }
+      } else {
+        writePChildren(child, outputStream);
+      }
+    }
+  }
+
+  private static void readPChildren(PNode node, ByteBuffer buffer) {
+    int childNum = buffer.getInt();
+    for (int i = 0; i < childNum; i++) {
+      String name = ReadWriteIOUtils.readString(buffer);
+      boolean isLeaf = ReadWriteIOUtils.readBool(buffer);
+      PNode child = new PNode(name, node, isLeaf);
+      if (isLeaf) {
+        int linkNum = buffer.getInt();
+        for (int j = 0; j < linkNum; j++) {
+          child.getLinkedMTreePathMap().put(ReadWriteIOUtils.readString(buffer), 1);
+        }
+      } else {
+        readPChildren(child, buffer);
+      }
+      node.addChild(name, child);
+    }
+  }
+}
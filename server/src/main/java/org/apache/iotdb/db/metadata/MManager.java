@@ -21,9 +21,10 @@ package org.apache.iotdb.db.metadata;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,8 +32,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -45,6 +51,7 @@ import org.apache.iotdb.db.exception.metadata.TimeseriesAlreadyExistException;
 import org.apache.iotdb.db.exception.path.MTreePathException;
 import org.apache.iotdb.db.exception.path.NotStorageGroupException;
 import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.runtime.MetadataRecoveryException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupException;
 import org.apache.iotdb.db.monitor.MonitorConstants;
 import org.apache.iotdb.db.utils.RandomDeleteCache;
@@ -69,21 +76,28 @@ public class MManager {
   private static final String DOUB_SEPARATOR = "\\.";
   private static final String ROOT_NAME = MetadataConstant.ROOT;
   private static final String TIME_SERIES_TREE_HEADER = "===  Timeseries Tree  ===\n\n";
+  private static final long CHECKPOINT_CHECK_INTERVAL_IN_MS = 60 * 1000L;
 
   // the lock for read/insert
   private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // held shared by the additions under the read lock, and exclusively by a checkpoint, so that a
+  // checkpoint sees no addition in progress while queries go on
+  private ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
   // the log file seriesPath
   private String logFilePath;
   private MGraph mgraph;
   private BufferedWriter logWriter;
   private boolean writeToLog;
   private String schemaDir;
+  // the length of the log covered by the latest checkpoint
+  private volatile long checkpointLogLength;
+  private ScheduledExecutorService checkpointThread;
 
   private RandomDeleteCache<String, PathCheckRet> checkAndGetDataTypeCache;
   private RandomDeleteCache<String, MNode> mNodeCache;
 
-  private Map<String, Integer> seriesNumberInStorageGroups = new HashMap<>();
-  private long maxSeriesNumberAmongStorageGroup;
+  private Map<String, Integer> seriesNumberInStorageGroups = new ConcurrentHashMap<>();
+  private volatile long maxSeriesNumberAmongStorageGroup;
   private boolean initialized;
 
   private MManager() {
@@ -147,8 +161,19 @@ public class MManager {
     File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
 
     try {
-      initFromLog(logFile);
-      seriesNumberInStorageGroups = mgraph.countSeriesNumberInEachStorageGroup();
+      try {
+        initFromLog(logFile, true);
+      } catch (PathException | IOException | MetadataException e) {
+        if (checkpointLogLength == 0) {
+          throw e;
+        }
+        logger.warn("Cannot replay the metadata log after the checkpoint, replay the whole log "
+            + "instead", e);
+        unregisterStorageGroups();
+        initFromLog(logFile, false);
+      }
+      seriesNumberInStorageGroups = new ConcurrentHashMap<>(
+          mgraph.countSeriesNumberInEachStorageGroup());
       if (seriesNumberInStorageGroups.isEmpty()) {
         maxSeriesNumberAmongStorageGroup = 0;
       } else {
@@ -157,8 +182,8 @@ public class MManager {
       }
       writeToLog = true;
     } catch (PathException | IOException | MetadataException e) {
-      mgraph = new MGraph(ROOT_NAME);
-      logger.error("Cannot read MGraph from file, using an empty new one", e);
+      // starting with a part of the metadata would lose or corrupt the data of the rest
+      throw new MetadataRecoveryException(logFilePath, e);
     } finally {
       lock.writeLock().unlock();
     }
@@ -166,13 +191,18 @@ public class MManager {
   }
 
 
-  private void initFromLog(File logFile)
+  /**
+   * @param useCheckpoint whether to init the metadata from the latest checkpoint and the log
+   * written after it, or from the whole log
+   */
+  private void initFromLog(File logFile, boolean useCheckpoint)
       throws IOException, PathException, MetadataException {
-    // init the metadata from the operation log
     mgraph = new MGraph(ROOT_NAME);
+    checkpointLogLength = useCheckpoint ? loadCheckpoint(logFile) : 0;
     if (logFile.exists()) {
-      try (FileReader fr = new FileReader(logFile);
-          BufferedReader br = new BufferedReader(fr)) {
+      try (FileInputStream inputStream = new FileInputStream(logFile);
+          BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
+        inputStream.getChannel().position(checkpointLogLength);
         String cmd;
         while ((cmd = br.readLine()) != null) {
           operation(cmd);
@@ -181,10 +211,138 @@ public class MManager {
     }
   }
 
+  /**
+   * undo the registration of the storage groups and timeseries recovered so far, before the
+   * metadata is recovered again.
+   */
+  private void unregisterStorageGroups() throws MetadataException {
+    Map<String, Integer> seriesNumbers = mgraph.countSeriesNumberInEachStorageGroup();
+    try {
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(-seriesNumbers.size());
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(
+          -seriesNumbers.values().stream().mapToInt(Integer::intValue).sum());
+    } catch (ConfigAdjusterException e) {
+      throw new MetadataException("Cannot unregister the recovered storage groups", e);
+    }
+  }
+
+  private File getCheckpointFile() {
+    return SystemFileFactory.INSTANCE.getFile(schemaDir, MetadataConstant.MTREE_CHECKPOINT);
+  }
+
+  /**
+   * Load the latest checkpoint into the empty mgraph, and register its storage groups and
+   * timeseries as replaying the log does.
+   *
+   * @return the length of the log covered by the checkpoint, or 0 if there is no usable checkpoint
+   */
+  private long loadCheckpoint(File logFile) throws PathException, MetadataException {
+    File checkpointFile = getCheckpointFile();
+    if (!checkpointFile.exists()) {
+      return 0;
+    }
+    long logLength;
+    try {
+      logLength = MGraphCheckpoint.load(checkpointFile, logFile, mgraph,
+          Runtime.getRuntime().availableProcessors());
+    } catch (IOException e) {
+      logger.warn("Cannot load the metadata checkpoint {}, replay the whole log instead",
+          checkpointFile, e);
+      mgraph = new MGraph(ROOT_NAME);
+      return 0;
+    }
+    Map<String, Integer> seriesNumbers = mgraph.countSeriesNumberInEachStorageGroup();
+    try {
+      for (Entry<String, Integer> entry : seriesNumbers.entrySet()) {
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
+        ActiveTimeSeriesCounter.getInstance().init(entry.getKey());
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(entry.getValue());
+      }
+    } catch (ConfigAdjusterException e) {
+      throw new MetadataException(e);
+    }
+    logger.info("{} storage groups are loaded from the metadata checkpoint {}, replay the log "
+        + "after {} bytes", seriesNumbers.size(), checkpointFile, logLength);
+    return logLength;
+  }
+
+  /**
+   * Take checkpoints periodically once the log has grown by mtree_checkpoint_threshold_in_byte,
+   * this is only called by the server, which is the only writer of the log.
+   */
+  public void startCheckpointThread() {
+    long threshold = IoTDBDescriptor.getInstance().getConfig().getMtreeCheckpointThresholdInByte();
+    if (threshold <= 0 || checkpointThread != null) {
+      return;
+    }
+    checkpointThread = IoTDBThreadPoolFactory
+        .newSingleThreadScheduledExecutor("MTree-Checkpoint");
+    checkpointThread.scheduleWithFixedDelay(() -> checkpoint(threshold),
+        CHECKPOINT_CHECK_INTERVAL_IN_MS, CHECKPOINT_CHECK_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopCheckpointThread() {
+    if (checkpointThread == null) {
+      return;
+    }
+    checkpointThread.shutdownNow();
+    try {
+      checkpointThread.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted when waiting for the checkpoint thread to stop", e);
+      Thread.currentThread().interrupt();
+    }
+    checkpointThread = null;
+  }
+
+  /**
+   * Take a checkpoint of the MGraph if the log has grown by at least minLogGrowth bytes since the
+   * latest checkpoint. The read lock blocks the operations under the write lock, and the write lock
+   * of checkpointLock blocks the additions of timeseries and devices, which only hold the read
+   * lock, so the MGraph and the log are unchanged meanwhile while queries are not blocked.
+   */
+  void checkpoint(long minLogGrowth) {
+    lock.readLock().lock();
+    checkpointLock.writeLock().lock();
+    try {
+      if (!writeToLog) {
+        // the MGraph is not recovered from the log successfully
+        return;
+      }
+      File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
+      long logLength = logFile.length();
+      if (logLength <= checkpointLogLength || logLength - checkpointLogLength < minLogGrowth) {
+        return;
+      }
+      long startTime = System.currentTimeMillis();
+      MGraphCheckpoint.save(mgraph, logFile, logLength, getCheckpointFile());
+      checkpointLogLength = logLength;
+      logger.info("A metadata checkpoint covering {} bytes of log is taken in {}ms", logLength,
+          System.currentTimeMillis() - startTime);
+    } catch (IOException e) {
+      logger.error("Cannot take a metadata checkpoint", e);
+    } finally {
+      checkpointLock.writeLock().unlock();
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Stop taking checkpoints periodically, and take a last one if the log has grown since the latest
+   * checkpoint, so that the next start replays no log.
+   */
+  public void stop() {
+    stopCheckpointThread();
+    if (IoTDBDescriptor.getInstance().getConfig().getMtreeCheckpointThresholdInByte() > 0) {
+      checkpoint(0);
+    }
+  }
+
   /**
    * function for clearing MGraph.
    */
   public void clear() {
+    stopCheckpointThread();
     lock.writeLock().lock();
     try {
       this.mgraph = new MGraph(ROOT_NAME);
@@ -192,6 +350,7 @@ public class MManager {
       this.mNodeCache.clear();
       this.seriesNumberInStorageGroups.clear();
       this.maxSeriesNumberAmongStorageGroup = 0;
+      this.checkpointLogLength = 0;
       if (logWriter != null) {
         logWriter.close();
         logWriter = null;
@@ -260,7 +419,7 @@ public class MManager {
     }
   }
 
-  private BufferedWriter getLogWriter() throws IOException {
+  private synchronized BufferedWriter getLogWriter() throws IOException {
     if (logWriter == null) {
       File logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
       File metadataDir = SystemFileFactory.INSTANCE.getFile(schemaDir);
@@ -298,20 +457,24 @@ public class MManager {
   public boolean addPathToMTree(Path path, TSDataType dataType, TSEncoding encoding,
       CompressionType compressor, Map<String, String> props)
       throws MetadataException, PathException {
-    lock.writeLock().lock();
-    try {
-      if (pathExist(path.getFullPath())) {
-        throw new TimeseriesAlreadyExistException(path.getFullPath());
-      }
-      IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
-      if (!checkStorageGroupByPath(path.getFullPath())) {
-        if (!conf.isAutoCreateSchemaEnabled()) {
-          throw new MetadataException("Storage group should be created first");
-        }
-        String storageGroupName = getStorageGroupNameByAutoLevel(
-            path.getFullPath(), conf.getDefaultStorageGroupLevel());
-        setStorageGroupToMTree(storageGroupName);
+    if (pathExist(path.getFullPath())) {
+      throw new TimeseriesAlreadyExistException(path.getFullPath());
+    }
+    IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
+    if (!checkStorageGroupByPath(path.getFullPath())) {
+      if (!conf.isAutoCreateSchemaEnabled()) {
+        throw new MetadataException("Storage group should be created first");
       }
+      String storageGroupName = getStorageGroupNameByAutoLevel(
+          path.getFullPath(), conf.getDefaultStorageGroupLevel());
+      // takes the write lock, so it must be done before the read lock is taken
+      setStorageGroupToMTree(storageGroupName);
+    }
+    // the read lock keeps the storage group from being deleted, and the timeseries in other storage
+    // groups can be added concurrently
+    lock.readLock().lock();
+    checkpointLock.readLock().lock();
+    try {
       // optimize the speed of adding timeseries
       String fileNodePath;
       try {
@@ -324,7 +487,8 @@ public class MManager {
       Map<String, Integer> numSchemaMap = getStorageGroupNumSchemaMap(fileNodePath);
       String lastNode = path.getMeasurement();
       boolean isNewMeasurement = true;
-      // Thread safety: just one thread can access/modify the schemaMap
+      // Thread safety: the schemaMap is the lock of the storage group, just one thread can
+      // modify the storage group subtree and its schemaMap
       synchronized (schemaMap) {
         // Need to check the path again to avoid duplicated inserting by multi concurrent threads
         if (pathExist(path.getFullPath())) {
@@ -340,42 +504,45 @@ public class MManager {
                 "The resultDataType or encoding or compression of the last node %s is conflicting "
                     + "in the storage group %s", lastNode, fileNodePath));
           }
-          try {
-            addPathToMTreeInternal(path.getFullPath(), dataType, encoding, compressor, props);
-          } catch (PathException | StorageGroupException e) {
-            throw new MetadataException(e);
-          } catch (IOException e) {
-            throw new MetadataException(e.getMessage());
-          }
-          numSchemaMap.put(lastNode, numSchemaMap.get(lastNode) + 1);
-        } else {
-          try {
-            addPathToMTreeInternal(path.getFullPath(), dataType, encoding, compressor, props);
-          } catch (PathException | StorageGroupException e) {
-            throw new MetadataException(e);
-          } catch (IOException e) {
-            throw new MetadataException(e.getMessage());
-          }
+        }
+        // reserve the timeseries before adding it, so that nothing needs to be undone if the
+        // system cannot afford it
+        try {
+          IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(1);
+        } catch (ConfigAdjusterException e) {
+          throw new MetadataException(e);
+        }
+        try {
+          addPathToMTreeInternal(path.getFullPath(), dataType, encoding, compressor, props);
+        } catch (PathException | StorageGroupException | IOException e) {
+          cancelTimeSeriesReservation();
+          throw new MetadataException(e);
+        }
+        if (isNewMeasurement) {
           MeasurementSchema columnSchema;
           try {
-            columnSchema = getSchemaForOnePath(path.toString());
+            columnSchema = mgraph.getSchemaForOnePath(path.toString());
           } catch (PathException e) {
             throw new MetadataException(e);
           }
           schemaMap.put(lastNode, columnSchema);
           numSchemaMap.put(lastNode, 1);
-        }
-        try {
-          IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(1);
-        } catch (ConfigAdjusterException e) {
-          // Undo create time series
-          deletePaths(Collections.singletonList(path), true);
-          throw new MetadataException(e);
+        } else {
+          numSchemaMap.put(lastNode, numSchemaMap.get(lastNode) + 1);
         }
         return isNewMeasurement;
       }
     } finally {
-      lock.writeLock().unlock();
+      checkpointLock.readLock().unlock();
+      lock.readLock().unlock();
+    }
+  }
+
+  private void cancelTimeSeriesReservation() {
+    try {
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(-1);
+    } catch (ConfigAdjusterException e) {
+      logger.error("Cannot cancel the reservation of a timeseries", e);
     }
   }
 
@@ -388,22 +555,27 @@ public class MManager {
 
     mgraph.addPathToMTree(path, dataType, encoding, compressor, props);
     String storageGroupName = mgraph.getStorageGroupNameByPath(path);
-    int size = seriesNumberInStorageGroups.get(storageGroupName);
-    seriesNumberInStorageGroups.put(storageGroupName, size + 1);
-    if (size + 1 > maxSeriesNumberAmongStorageGroup) {
-      maxSeriesNumberAmongStorageGroup = size + 1;
-    }
+    updateMaxSeriesNumber(seriesNumberInStorageGroups.merge(storageGroupName, 1, Integer::sum));
     if (writeToLog) {
       BufferedWriter writer = getLogWriter();
-      writer.write(String.format("%s,%s,%s,%s,%s", MetadataOperationType.ADD_PATH_TO_MTREE,
-          path, dataType.serialize(), encoding.serialize(), compressor.serialize()));
-      if (props != null) {
-        for (Map.Entry entry : props.entrySet()) {
-          writer.write(String.format(",%s=%s", entry.getKey(), entry.getValue()));
+      // timeseries of different storage groups are added concurrently
+      synchronized (writer) {
+        writer.write(String.format("%s,%s,%s,%s,%s", MetadataOperationType.ADD_PATH_TO_MTREE,
+            path, dataType.serialize(), encoding.serialize(), compressor.serialize()));
+        if (props != null) {
+          for (Map.Entry entry : props.entrySet()) {
+            writer.write(String.format(",%s=%s", entry.getKey(), entry.getValue()));
+          }
         }
+        writer.newLine();
+        writer.flush();
       }
-      writer.newLine();
-      writer.flush();
+    }
+  }
+
+  private synchronized void updateMaxSeriesNumber(int seriesNumber) {
+    if (seriesNumber > maxSeriesNumberAmongStorageGroup) {
+      maxSeriesNumberAmongStorageGroup = seriesNumber;
     }
   }
 
@@ -439,11 +611,22 @@ public class MManager {
    * @param deviceId the deviceId of a timeseries seriesPath
    */
   private MNode addDeviceIdToMTree(String deviceId) throws PathException {
-    lock.writeLock().lock();
+    lock.readLock().lock();
+    checkpointLock.readLock().lock();
     try {
-      return mgraph.addDeviceIdToMTree(deviceId);
+      Map<String, MeasurementSchema> schemaMap;
+      try {
+        schemaMap = mgraph.getSchemaMapForOneFileNode(mgraph.getStorageGroupNameByPath(deviceId));
+      } catch (StorageGroupException e) {
+        throw new PathException(e);
+      }
+      // the device is added under the lock of its storage group like a timeseries
+      synchronized (schemaMap) {
+        return mgraph.addDeviceIdToMTree(deviceId);
+      }
     } finally {
-      lock.writeLock().unlock();
+      checkpointLock.readLock().unlock();
+      lock.readLock().unlock();
     }
   }
 
@@ -525,8 +708,10 @@ public class MManager {
     // the two maps are stored in the storage group node
     Map<String, MeasurementSchema> schemaMap = getStorageGroupSchemaMap(storageGroupName);
     Map<String, Integer> numSchemaMap = getStorageGroupNumSchemaMap(storageGroupName);
-    // Thread safety: just one thread can access/modify the schemaMap
-    synchronized (schemaMap) {
+    // Thread safety: the write lock excludes the threads adding timeseries, and it must be taken
+    // before the lock of the storage group as they do
+    lock.writeLock().lock();
+    try {
       // TODO: don't delete the storage group seriesPath recursively
       Path path = new Path(pathStr);
       String measurementId = path.getMeasurement();
@@ -543,6 +728,8 @@ public class MManager {
       } catch (IOException e) {
         throw new MetadataException(e.getMessage());
       }
+    } finally {
+      lock.writeLock().unlock();
     }
     return emptiedStorageGroup;
   }
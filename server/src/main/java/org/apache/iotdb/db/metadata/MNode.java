@@ -19,10 +19,10 @@
 package org.apache.iotdb.db.metadata;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.utils.ConcurrentLinkedMap;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -51,6 +51,7 @@ public class MNode implements Serializable {
   // node is one leaf
   private MeasurementSchema schema;
   private MNode parent;
+  // children are read without locks on the insert path, so they must be in a concurrent map
   private Map<String, MNode> children;
 
   private String fullPath;
@@ -71,7 +72,7 @@ public class MNode implements Serializable {
     this.isLeaf = isLeaf;
     this.isStorageGroup = false;
     if (!isLeaf) {
-      children = new LinkedHashMap<>();
+      children = new ConcurrentLinkedMap<>();
     }
   }
 
@@ -91,8 +92,9 @@ public class MNode implements Serializable {
   public void setStorageGroup(boolean b) {
     this.isStorageGroup = b;
     if (b) {
-      schemaMap = new HashMap<>();
-      numSchemaMap = new HashMap<>();
+      // the schemas are read without the lock of the storage group
+      schemaMap = new ConcurrentHashMap<>();
+      numSchemaMap = new ConcurrentHashMap<>();
     } else {
       numSchemaMap = null;
       schemaMap = null;
@@ -305,6 +305,8 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
     addRowRecordForShowQuery(listDataSet, timestamp++,
         "maximal timeseries number among storage groups",
         Long.toString(MManager.getInstance().getMaximalSeriesNumberAmongStorageGroups()));
+    addRowRecordForShowQuery(listDataSet, timestamp++, "merge throughput limit",
+        IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec() + "MB/s");
     return listDataSet;
   }
 
@@ -381,7 +383,7 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
         }
       }
       for (String path : existingPaths) {
-        delete(new Path(path), deletePlan.getDeleteTime());
+        delete(new Path(path), deletePlan.getDeleteStartTime(), deletePlan.getDeleteTime());
       }
     } catch (MetadataException e) {
       throw new QueryProcessException(e);
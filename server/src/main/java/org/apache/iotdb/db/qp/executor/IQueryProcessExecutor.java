@@ -98,9 +98,10 @@ public interface IQueryProcessExecutor {
    * execute delete command and return whether the operator is successful.
    *
    * @param path       : delete series seriesPath
-   * @param deleteTime end time in delete command
+   * @param startTime  start time in delete command
+   * @param endTime    end time in delete command
    */
-  void delete(Path path, long deleteTime) throws QueryProcessException;
+  void delete(Path path, long startTime, long endTime) throws QueryProcessException;
 
   /**
    * execute insert command and return whether the operator is successful.
@@ -116,6 +117,14 @@ public interface IQueryProcessExecutor {
    */
   Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException;
 
+  /**
+   * execute the batch insert plans of several devices, the plans of the same storage group are
+   * inserted at once. A plan that fails does not stop the others.
+   *
+   * @return result of each row of each plan
+   */
+  List<Integer[]> insertBatches(List<BatchInsertPlan> batchInsertPlans);
+
   boolean judgePathExists(Path fullPath);
 
   /**
@@ -49,6 +49,7 @@ import org.apache.iotdb.db.utils.AuthUtils;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
 import org.apache.iotdb.db.utils.TypeInferenceUtils;
 import org.apache.iotdb.db.utils.UpgradeUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.cache.CacheException;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
@@ -319,7 +320,7 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
   }
 
   @Override
-  public void delete(Path path, long timestamp) throws QueryProcessException {
+  public void delete(Path path, long startTime, long endTime) throws QueryProcessException {
     String deviceId = path.getDevice();
     String measurementId = path.getMeasurement();
     try {
@@ -328,7 +329,7 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
             String.format("Time series %s does not exist.", path.getFullPath()));
       }
       mManager.getStorageGroupNameByPath(path.getFullPath());
-      storageEngine.delete(deviceId, measurementId, timestamp);
+      storageEngine.delete(deviceId, measurementId, startTime, endTime);
     } catch (StorageGroupException | StorageEngineException e) {
       throw new QueryProcessException(e);
     }
@@ -410,6 +411,41 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
 
   @Override
   public Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
+    checkBatchSchema(batchInsertPlan);
+    try {
+      return storageEngine.insertBatch(batchInsertPlan);
+    } catch (StorageEngineException e) {
+      throw new QueryProcessException(e);
+    }
+  }
+
+  @Override
+  public List<Integer[]> insertBatches(List<BatchInsertPlan> batchInsertPlans) {
+    Integer[][] results = new Integer[batchInsertPlans.size()][];
+    List<BatchInsertPlan> checkedPlans = new ArrayList<>(batchInsertPlans.size());
+    List<Integer> checkedIndexes = new ArrayList<>(batchInsertPlans.size());
+    for (int i = 0; i < batchInsertPlans.size(); i++) {
+      try {
+        checkBatchSchema(batchInsertPlans.get(i));
+        checkedPlans.add(batchInsertPlans.get(i));
+        checkedIndexes.add(i);
+      } catch (QueryProcessException e) {
+        results[i] = new Integer[batchInsertPlans.get(i).getRowCount()];
+        Arrays.fill(results[i], TSStatusCode.METADATA_ERROR.getStatusCode());
+      }
+    }
+    List<Integer[]> checkedResults = storageEngine.insertBatches(checkedPlans);
+    for (int i = 0; i < checkedIndexes.size(); i++) {
+      results[checkedIndexes.get(i)] = checkedResults.get(i);
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * check that the measurements of the plan exist, or create them if allowed, with the same data
+   * types as the plan.
+   */
+  private void checkBatchSchema(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
     try {
       String[] measurementList = batchInsertPlan.getMeasurements();
       String deviceId = batchInsertPlan.getDeviceId();
@@ -442,8 +478,6 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
                   measurementNode.getSchema().getType()));
         }
       }
-      return storageEngine.insertBatch(batchInsertPlan);
-
     } catch (PathException | StorageEngineException | MetadataException e) {
       throw new QueryProcessException(e);
     } catch (CacheException e) {
@@ -123,6 +123,11 @@ public abstract class PhysicalPlan {
           plan = new BatchInsertPlan();
           plan.deserializeFrom(buffer);
           break;
+        case RANGE_DELETE:
+          DeletePlan deletePlan = new DeletePlan();
+          deletePlan.deserializeRangeFrom(buffer);
+          plan = deletePlan;
+          break;
         default:
           throw new IOException("unrecognized log type " + type);
       }
@@ -131,7 +136,7 @@ public abstract class PhysicalPlan {
   }
 
   public enum PhysicalPlanType {
-    INSERT, DELETE, BATCHINSERT
+    INSERT, DELETE, BATCHINSERT, RANGE_DELETE
   }
 
 
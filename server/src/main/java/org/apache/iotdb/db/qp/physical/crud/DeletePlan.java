@@ -28,6 +28,7 @@ import org.apache.iotdb.tsfile.read.common.Path;
 
 public class DeletePlan extends PhysicalPlan {
 
+  private long deleteStartTime = Long.MIN_VALUE;
   private long deleteTime;
   private List<Path> paths = new ArrayList<>();
 
@@ -59,6 +60,40 @@ public class DeletePlan extends PhysicalPlan {
     this.paths = paths;
   }
 
+  /**
+   * constructor of DeletePlan that deletes a time range of a single path.
+   *
+   * @param deleteStartTime data points whose time is >= deleteStartTime and <= deleteTime are
+   * deleted
+   * @param deleteTime delete end time
+   * @param path time series path
+   */
+  public DeletePlan(long deleteStartTime, long deleteTime, Path path) {
+    this(deleteTime, path);
+    this.deleteStartTime = deleteStartTime;
+  }
+
+  /**
+   * constructor of DeletePlan that deletes a time range of multiple paths.
+   *
+   * @param deleteStartTime data points whose time is >= deleteStartTime and <= deleteTime are
+   * deleted
+   * @param deleteTime delete end time
+   * @param paths time series paths in List structure
+   */
+  public DeletePlan(long deleteStartTime, long deleteTime, List<Path> paths) {
+    this(deleteTime, paths);
+    this.deleteStartTime = deleteStartTime;
+  }
+
+  public long getDeleteStartTime() {
+    return deleteStartTime;
+  }
+
+  public void setDeleteStartTime(long deleteStartTime) {
+    this.deleteStartTime = deleteStartTime;
+  }
+
   public long getDeleteTime() {
     return deleteTime;
   }
@@ -86,7 +121,7 @@ public class DeletePlan extends PhysicalPlan {
 
   @Override
   public int hashCode() {
-    return Objects.hash(deleteTime, paths);
+    return Objects.hash(deleteStartTime, deleteTime, paths);
   }
 
   @Override
@@ -98,13 +133,23 @@ public class DeletePlan extends PhysicalPlan {
       return false;
     }
     DeletePlan that = (DeletePlan) o;
-    return deleteTime == that.deleteTime && Objects.equals(paths, that.paths);
+    return deleteStartTime == that.deleteStartTime && deleteTime == that.deleteTime
+        && Objects.equals(paths, that.paths);
   }
 
+  /**
+   * A deletion from the beginning is serialized as DELETE in the layout of the older versions, so
+   * that their logs can still be read, and a deletion of a time range is serialized as
+   * RANGE_DELETE, which is the start time followed by the layout of DELETE.
+   */
   @Override
   public void serializeTo(ByteBuffer buffer) {
-    int type = PhysicalPlanType.DELETE.ordinal();
-    buffer.put((byte) type);
+    if (deleteStartTime == Long.MIN_VALUE) {
+      buffer.put((byte) PhysicalPlanType.DELETE.ordinal());
+    } else {
+      buffer.put((byte) PhysicalPlanType.RANGE_DELETE.ordinal());
+      buffer.putLong(deleteStartTime);
+    }
     buffer.putLong(deleteTime);
     putString(buffer, paths.get(0).getFullPath());
   }
@@ -115,4 +160,12 @@ public class DeletePlan extends PhysicalPlan {
     this.paths = new ArrayList();
     this.paths.add(new Path(readString(buffer)));
   }
+
+  /**
+   * Deserialize a plan of type RANGE_DELETE.
+   */
+  public void deserializeRangeFrom(ByteBuffer buffer) {
+    this.deleteStartTime = buffer.getLong();
+    deserializeFrom(buffer);
+  }
 }
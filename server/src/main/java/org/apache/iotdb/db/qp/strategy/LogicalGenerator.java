@@ -157,6 +157,8 @@ import org.apache.iotdb.tsfile.utils.StringContainer;
  */
 public class LogicalGenerator extends SqlBaseBaseListener {
 
+  private static final String DELETE_TIME_FILTER_ERROR = "For delete command, where clause must "
+      + "be like : time < XXX, time > XXX or time > XXX and time < XXX";
   private RootOperator initializedOperator = null;
   private ZoneId zoneId;
   private int operatorType;
@@ -1089,8 +1091,7 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     switch (operatorType) {
       case SQLConstant.TOK_DELETE:
         deleteDataOp.setFilterOperator(whereOp.getChildren().get(0));
-        long deleteTime = parseDeleteTimeFilter(deleteDataOp);
-        deleteDataOp.setTime(deleteTime);
+        parseDeleteTimeFilter(deleteDataOp);
         break;
       case SQLConstant.TOK_QUERY:
         queryOp.setFilterOperator(whereOp.getChildren().get(0));
@@ -1238,22 +1239,56 @@ public class LogicalGenerator extends SqlBaseBaseListener {
   }
 
   /**
-   * for delete command, time should only have an end time.
+   * for delete command, time should have an end time, a start time or both of them.
    *
    * @param operator delete logical plan
    */
-  private long parseDeleteTimeFilter(DeleteDataOperator operator) {
+  private void parseDeleteTimeFilter(DeleteDataOperator operator) {
     FilterOperator filterOperator = operator.getFilterOperator();
-    if (filterOperator.getTokenIntType() != SQLConstant.LESSTHAN
-        && filterOperator.getTokenIntType() != SQLConstant.LESSTHANOREQUALTO) {
-      throw new SQLParserException(
-          "For delete command, where clause must be like : time < XXX or time <= XXX");
+    operator.setStartTime(Long.MIN_VALUE);
+    operator.setTime(Long.MAX_VALUE);
+    if (filterOperator.getTokenIntType() == SQLConstant.KW_AND) {
+      List<FilterOperator> children = filterOperator.getChildren();
+      if (children.size() != 2 || !children.get(0).isLeaf() || !children.get(1).isLeaf()) {
+        throw new SQLParserException(DELETE_TIME_FILTER_ERROR);
+      }
+      parseDeleteTimeBound(operator, children.get(0));
+      parseDeleteTimeBound(operator, children.get(1));
+      if (operator.getStartTime() == Long.MIN_VALUE || operator.getTime() == Long.MAX_VALUE) {
+        // both bounds are on the same side
+        throw new SQLParserException(DELETE_TIME_FILTER_ERROR);
+      }
+    } else {
+      parseDeleteTimeBound(operator, filterOperator);
+    }
+    if (operator.getStartTime() > operator.getTime()) {
+      throw new SQLParserException(String
+          .format("For delete command, the start time %d is larger than the end time %d",
+              operator.getStartTime(), operator.getTime()));
+    }
+  }
+
+  private void parseDeleteTimeBound(DeleteDataOperator operator, FilterOperator filterOperator) {
+    if (!(filterOperator instanceof BasicFunctionOperator)) {
+      throw new SQLParserException(DELETE_TIME_FILTER_ERROR);
     }
     long time = Long.parseLong(((BasicFunctionOperator) filterOperator).getValue());
-    if (filterOperator.getTokenIntType() == SQLConstant.LESSTHAN) {
-      time = time - 1;
+    switch (filterOperator.getTokenIntType()) {
+      case SQLConstant.LESSTHAN:
+        operator.setTime(time - 1);
+        break;
+      case SQLConstant.LESSTHANOREQUALTO:
+        operator.setTime(time);
+        break;
+      case SQLConstant.GREATERTHAN:
+        operator.setStartTime(time + 1);
+        break;
+      case SQLConstant.GREATERTHANOREQUALTO:
+        operator.setStartTime(time);
+        break;
+      default:
+        throw new SQLParserException(DELETE_TIME_FILTER_ERROR);
     }
-    return time;
   }
 
   private void checkMetadataArgs(String dataType, String encoding, String compressor) {
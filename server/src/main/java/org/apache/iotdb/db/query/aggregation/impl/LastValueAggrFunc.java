@@ -138,6 +138,13 @@ public class LastValueAggrFunc extends AggregateFunction {
     return false;
   }
 
+  /**
+   * calculate the result from the last point of the series found by SeriesLastPointReader.
+   */
+  public void calculateValueFromLastPoint(TimeValuePair lastPoint) {
+    updateLastResult(lastPoint.getTimestamp(), lastPoint.getValue().getValue());
+  }
+
   private void updateLastResult(long time, Object value) {
     if (!resultData.isSetTime()) {
       resultData.putTimeAndValue(time, value);
@@ -126,6 +126,13 @@ public class MaxTimeAggrFunc extends AggregateFunction {
     return false;
   }
 
+  /**
+   * calculate the result from the last point of the series found by SeriesLastPointReader.
+   */
+  public void calculateValueFromLastPoint(TimeValuePair lastPoint) {
+    updateMaxTimeResult(0, lastPoint.getTimestamp());
+  }
+
   private void updateMaxTimeResult(long time, long value) {
     if (!resultData.isSetValue() || value >= resultData.getLongRet()) {
       resultData.setTimestamp(time);
@@ -19,13 +19,13 @@
 
 package org.apache.iotdb.db.query.context;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.exception.query.QueryMemoryExceededException;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 
 /**
@@ -38,12 +38,6 @@ public class QueryContext {
    * the value is the Modifications of a timeseries in this file.
    */
   private Map<String, Map<String, List<Modification>>> filePathModCache = new ConcurrentHashMap<>();
-  /**
-   * The key is the path of a ModificationFile and the value is all Modifications in this file. We
-   * use this field because each call of Modification.getModifications() return a copy of the
-   * Modifications, and we do not want it to create multiple copies within a query.
-   */
-  private Map<String, List<Modification>> fileModCache = new HashMap<>();
 
   private long queryId;
 
@@ -58,27 +52,13 @@ public class QueryContext {
 
   /**
    * Find the modifications of timeseries 'path' in 'modFile'. If they are not in the cache, read
-   * them from 'modFile' and put then into the cache.
+   * them from the path index of 'modFile' and put then into the cache, so that the modifications
+   * seen by a query do not change during the query.
    */
   public List<Modification> getPathModifications(ModificationFile modFile, String path) {
     Map<String, List<Modification>> fileModifications =
         filePathModCache.computeIfAbsent(modFile.getFilePath(), k -> new ConcurrentHashMap<>());
-    return fileModifications.computeIfAbsent(path, k -> {
-      List<Modification> allModifications = fileModCache.get(modFile.getFilePath());
-      if (allModifications == null) {
-        allModifications = (List<Modification>) modFile.getModifications();
-        fileModCache.put(modFile.getFilePath(), allModifications);
-      }
-      List<Modification> finalPathModifications = new ArrayList<>();
-      if (!allModifications.isEmpty()) {
-        allModifications.forEach(modification -> {
-          if (modification.getPathString().equals(path)) {
-            finalPathModifications.add(modification);
-          }
-        });
-      }
-      return finalPathModifications;
-    });
+    return fileModifications.computeIfAbsent(path, modFile::getModifications);
   }
 
   public long getQueryId() {
@@ -96,4 +76,25 @@ public class QueryContext {
   public boolean chunkNotSatisfy(ChunkMetaData chunkMetaData) {
     return chunkMetaData.getEndTime() < queryTimeLowerBound;
   }
+
+  /**
+   * Reserve working memory for this query from {@link QueryMemoryPool}. The memory that is not
+   * released explicitly is released when the query ends.
+   *
+   * @return false if the memory exceeds the budget of the query or the free memory of the pool
+   */
+  public boolean tryReserveMemory(long size) {
+    return QueryMemoryPool.getInstance().tryReserve(queryId, size);
+  }
+
+  /**
+   * Reserve working memory for this query, fail the query if it cannot be reserved.
+   */
+  public void reserveMemory(long size) throws QueryMemoryExceededException {
+    QueryMemoryPool.getInstance().reserve(queryId, size);
+  }
+
+  public void releaseMemory(long size) {
+    QueryMemoryPool.getInstance().release(queryId, size);
+  }
 }
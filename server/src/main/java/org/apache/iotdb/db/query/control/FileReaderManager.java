@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.control;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -29,8 +30,12 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.fileSystem.FSType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.UnClosedTsFileReader;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,6 +91,11 @@ public class FileReaderManager implements IService {
     return FileReaderManagerHelper.INSTANCE;
   }
 
+  /**
+   * Close the readers of the file before it is modified or deleted, a mapped file is unmapped at
+   * once. The caller should hold the write lock of the file, which waits for the queries reading
+   * it, so that no slice of the mapping is accessed after it is unmapped.
+   */
   public synchronized void closeFileAndRemoveReader(TsFileResource seqFile) throws IOException {
     closedReferenceMap.remove(seqFile);
     TsFileSequenceReader reader = closedFileReaderMap.remove(seqFile);
@@ -151,7 +161,7 @@ public class FileReaderManager implements IService {
       }
 
       TsFileSequenceReader tsFileReader = !isClosed ? new UnClosedTsFileReader(tsFile.getFile().getPath())
-          : new TsFileSequenceReader(tsFile.getFile().getPath());
+          : createClosedFileReader(tsFile.getFile().getPath());
 
       readerMap.put(tsFile, tsFileReader);
       return tsFileReader;
@@ -160,6 +170,18 @@ public class FileReaderManager implements IService {
     return readerMap.get(tsFile);
   }
 
+  /**
+   * sealed files on the local file system are mapped into memory if enable_mmap_read is set, as
+   * they are no longer modified. The files beyond max_mapped_size_in_byte are read as usual.
+   */
+  private TsFileSequenceReader createClosedFileReader(String filePath) throws IOException {
+    TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+    if (tsFileConfig.isEnableMmapRead() && tsFileConfig.getTSFileStorageFs() == FSType.LOCAL) {
+      return new TsFileSequenceReader(filePath, MmapTsFileInput.open(Paths.get(filePath)), true);
+    }
+    return new TsFileSequenceReader(filePath);
+  }
+
   /**
    * Increase the reference count of the reader specified by filePath. Only when the reference count
    * of a reader equals zero, the reader can be closed and removed.
@@ -22,15 +22,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.serialize.IExternalSortFileDeserializer;
+import org.apache.iotdb.db.query.pool.SeriesTaskRunner;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 /**
  * <p>
@@ -50,10 +55,25 @@ public class QueryResourceManager {
    * Key: query job id. Value: temporary file list used for external sorting.
    */
   private Map<Long, List<IExternalSortFileDeserializer>> externalSortFileMap;
+  /**
+   * Record the running SeriesTaskRunners, which are cancelled when the query ends.
+   *
+   * Key: query job id. Value: the runners calculating the series of the query.
+   */
+  private Map<Long, Set<SeriesTaskRunner>> taskRunnerMap;
+  /**
+   * Record the in-memory chunks read by each query, whose memtable snapshots are released when
+   * the query ends.
+   *
+   * Key: query job id. Value: the in-memory chunks of unsealed files read by the query.
+   */
+  private Map<Long, List<ReadOnlyMemChunk>> memChunkMap;
 
   private QueryResourceManager() {
     filePathsManager = new QueryFileManager();
     externalSortFileMap = new ConcurrentHashMap<>();
+    taskRunnerMap = new ConcurrentHashMap<>();
+    memChunkMap = new ConcurrentHashMap<>();
   }
 
   public static QueryResourceManager getInstance() {
@@ -68,6 +88,8 @@ public class QueryResourceManager {
     long queryId = queryIdAtom.incrementAndGet();
     if (isDataQuery) {
       filePathsManager.addQueryId(queryId);
+      QueryMemoryPool.getInstance().registerQuery(queryId);
+      memChunkMap.put(queryId, new ArrayList<>());
     }
     return queryId;
   }
@@ -82,11 +104,46 @@ public class QueryResourceManager {
     externalSortFileMap.computeIfAbsent(queryId, x -> new ArrayList<>()).add(deserializer);
   }
 
+  /**
+   * register a running SeriesTaskRunner so that it is cancelled once the query ends.
+   */
+  public void registerTaskRunner(long queryId, SeriesTaskRunner runner) {
+    taskRunnerMap.computeIfAbsent(queryId, x -> ConcurrentHashMap.newKeySet()).add(runner);
+  }
+
+  /**
+   * register an in-memory chunk so that its snapshots are released once the query ends. The chunks
+   * of unregistered queries are left to the copy-on-write of the memtables.
+   */
+  public void registerMemChunk(long queryId, ReadOnlyMemChunk memChunk) {
+    memChunkMap.computeIfPresent(queryId, (x, memChunks) -> {
+      memChunks.add(memChunk);
+      return memChunks;
+    });
+  }
+
+  public void unregisterTaskRunner(long queryId, SeriesTaskRunner runner) {
+    taskRunnerMap.computeIfPresent(queryId, (x, runners) -> {
+      runners.remove(runner);
+      return runners.isEmpty() ? null : runners;
+    });
+  }
+
 
   public QueryDataSource getQueryDataSource(Path selectedPath,
       QueryContext context) throws StorageEngineException {
+    return getQueryDataSource(selectedPath, context, null);
+  }
 
-    SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(selectedPath, null);
+  /**
+   * @param timeFilter the files that cannot satisfy the time filter are excluded from the
+   * QueryDataSource, null if there is no time filter
+   */
+  public QueryDataSource getQueryDataSource(Path selectedPath,
+      QueryContext context, Filter timeFilter) throws StorageEngineException {
+
+    SingleSeriesExpression singleSeriesExpression = new SingleSeriesExpression(selectedPath,
+        timeFilter);
     return StorageEngine
         .getInstance().query(singleSeriesExpression, context, filePathsManager);
   }
@@ -96,6 +153,18 @@ public class QueryResourceManager {
    * query tokens created by this jdbc request must be cleared.
    */
   public void endQuery(long queryId) throws StorageEngineException {
+    // stop calculating the series of the query
+    Set<SeriesTaskRunner> runners = taskRunnerMap.remove(queryId);
+    if (runners != null) {
+      runners.forEach(SeriesTaskRunner::cancel);
+    }
+    // the memtables own their data again once no query reads their snapshots
+    List<ReadOnlyMemChunk> memChunks = memChunkMap.remove(queryId);
+    if (memChunks != null) {
+      memChunks.forEach(ReadOnlyMemChunk::release);
+    }
+    // return the working memory of the query
+    QueryMemoryPool.getInstance().unregisterQuery(queryId);
     // close file stream of external sort files, and delete
     if (externalSortFileMap.get(queryId) != null) {
       for (IExternalSortFileDeserializer deserializer : externalSortFileMap.get(queryId)) {
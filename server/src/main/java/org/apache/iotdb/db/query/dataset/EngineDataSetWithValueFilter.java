@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.dataset;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
@@ -28,26 +29,52 @@ import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
+/**
+ * The rows are generated batch by batch: the time generator produces a batch of timestamps, then
+ * each series answers all of them in one pass. The values of the series already read by the time
+ * generator are reused instead of being read again.
+ */
 public class EngineDataSetWithValueFilter extends QueryDataSet {
 
+  private static final int TIME_BATCH_SIZE = 1024;
+
   private EngineTimeGenerator timeGenerator;
   private List<IReaderByTimestamp> seriesReaderByTimestampList;
   private boolean hasCachedRowRecord;
   private RowRecord cachedRowRecord;
 
+  /**
+   * the series whose values are read by the time generator, and their indexes in paths
+   */
+  private List<Path> generatedPaths = new ArrayList<>();
+  private List<Integer> generatedPathIndexes = new ArrayList<>();
+
+  private long[] timestamps;
+  private Object[][] generatedValues;
+  private RowRecord[] rowRecords;
+  private int rowNum = 0;
+  private int rowIndex = 0;
+
   /**
    * constructor of EngineDataSetWithValueFilter.
    *
    * @param paths paths in List structure
    * @param dataTypes time series data type
    * @param timeGenerator EngineTimeGenerator object
-   * @param readers readers in List(IReaderByTimeStamp) structure
+   * @param readers readers in List(IReaderByTimeStamp) structure, null for a series whose values
+   * are read by the time generator
    */
   public EngineDataSetWithValueFilter(List<Path> paths, List<TSDataType> dataTypes,
       EngineTimeGenerator timeGenerator, List<IReaderByTimestamp> readers) {
     super(paths, dataTypes);
     this.timeGenerator = timeGenerator;
     this.seriesReaderByTimestampList = readers;
+    for (int i = 0; i < readers.size(); i++) {
+      if (readers.get(i) == null) {
+        generatedPaths.add(paths.get(i));
+        generatedPathIndexes.add(i);
+      }
+    }
   }
 
   @Override
@@ -73,27 +100,70 @@ public class EngineDataSetWithValueFilter extends QueryDataSet {
    * @return if there has next row record.
    */
   private boolean cacheRowRecord() throws IOException {
-    while (timeGenerator.hasNext()) {
+    while (rowIndex >= rowNum) {
+      if (!fillRowRecords()) {
+        return false;
+      }
+    }
+    cachedRowRecord = rowRecords[rowIndex];
+    rowRecords[rowIndex++] = null;
+    hasCachedRowRecord = true;
+    return true;
+  }
+
+  /**
+   * Generate the rows of the next batch of timestamps, a timestamp without any value is skipped.
+   *
+   * @return false if there is no more timestamp
+   */
+  private boolean fillRowRecords() throws IOException {
+    if (timestamps == null) {
+      int batchSize = TIME_BATCH_SIZE;
+      if (hasLimit()) {
+        // no more rows than the limit are needed
+        batchSize = (int) Math.max(1, Math.min(batchSize, (long) rowLimit + rowOffset));
+      }
+      timestamps = new long[batchSize];
+      generatedValues = new Object[generatedPaths.size()][batchSize];
+      rowRecords = new RowRecord[batchSize];
+    }
+
+    int length = timeGenerator.next(timestamps, generatedPaths, generatedValues);
+    if (length == 0) {
+      return false;
+    }
+    Object[][] columns = new Object[seriesReaderByTimestampList.size()][];
+    for (int i = 0; i < generatedPathIndexes.size(); i++) {
+      columns[generatedPathIndexes.get(i)] = generatedValues[i];
+    }
+    for (int i = 0; i < columns.length; i++) {
+      IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
+      if (reader != null) {
+        columns[i] = reader.getValuesInTimestamps(timestamps, length);
+      }
+    }
+
+    rowNum = 0;
+    rowIndex = 0;
+    for (int row = 0; row < length; row++) {
       boolean hasField = false;
-      long timestamp = timeGenerator.next();
-      RowRecord rowRecord = new RowRecord(timestamp);
-      for (int i = 0; i < seriesReaderByTimestampList.size(); i++) {
-        IReaderByTimestamp reader = seriesReaderByTimestampList.get(i);
-        Object value = reader.getValueInTimestamp(timestamp);
-        if (value == null) {
-          rowRecord.addField(new Field(null));
-        } else {
+      for (Object[] column : columns) {
+        if (column[row] != null) {
           hasField = true;
-          rowRecord.addField(getField(value, dataTypes.get(i)));
+          break;
         }
       }
-      if (hasField) {
-        hasCachedRowRecord = true;
-        cachedRowRecord = rowRecord;
-        break;
+      if (!hasField) {
+        continue;
+      }
+      RowRecord rowRecord = new RowRecord(timestamps[row]);
+      for (int i = 0; i < columns.length; i++) {
+        Object value = columns[i][row];
+        rowRecord.addField(value == null ? new Field(null) : getField(value, dataTypes.get(i)));
       }
+      rowRecords[rowNum++] = rowRecord;
     }
-    return hasCachedRowRecord;
+    return true;
   }
 
   public EngineTimeGenerator getTimeGenerator() {
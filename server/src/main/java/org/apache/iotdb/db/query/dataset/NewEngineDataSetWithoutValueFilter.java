@@ -19,9 +19,12 @@
 
 package org.apache.iotdb.db.query.dataset;
 
+import org.apache.iotdb.db.exception.query.QueryMemoryExceededException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.ManagedSeriesReader;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -47,10 +50,20 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
 
     private final ManagedSeriesReader reader;
     private BlockingQueue<BatchData> blockingQueue;
+    private final QueryContext context;
 
-    public ReadTask(ManagedSeriesReader reader, BlockingQueue<BatchData> blockingQueue) {
+    /**
+     * the batch that has been read but not put into the queue, because its memory could not be
+     * reserved when the queue held other batches. It is put when the task is resubmitted after
+     * the consumer takes a batch and releases its memory.
+     */
+    private BatchData pendingBatchData;
+
+    public ReadTask(ManagedSeriesReader reader, BlockingQueue<BatchData> blockingQueue,
+        QueryContext context) {
       this.reader = reader;
       this.blockingQueue = blockingQueue;
+      this.context = context;
     }
 
     @Override
@@ -60,12 +73,23 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
           // if the task is submitted, there must be free space in the queue
           // so here we don't need to check whether the queue has free space
           // the reader has next batch
-          while (reader.hasNextBatch()) {
-            BatchData batchData = reader.nextBatch();
+          while (pendingBatchData != null || reader.hasNextBatch()) {
+            BatchData batchData = pendingBatchData != null ? pendingBatchData : reader.nextBatch();
+            pendingBatchData = null;
             // iterate until we get first batch data with valid value
             if (batchData.isEmpty()) {
               continue;
             }
+            if (!context.tryReserveMemory(getMemorySize(batchData))) {
+              if (!blockingQueue.isEmpty()) {
+                // stop prefetching until the consumer releases the memory of a batch
+                pendingBatchData = batchData;
+                reader.setManagedByQueryManager(false);
+                return;
+              }
+              // nothing is buffered for this series, the query cannot go on within its budget
+              context.reserveMemory(getMemorySize(batchData));
+            }
             blockingQueue.put(batchData);
             // if the queue also has free space, just submit another itself
             if (blockingQueue.remainingCapacity() > 0) {
@@ -89,14 +113,47 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
         }
       } catch (InterruptedException e) {
         LOGGER.error("Interrupted while putting into the blocking queue: ", e);
+        Thread.currentThread().interrupt();
+      } catch (QueryMemoryExceededException e) {
+        LOGGER.debug("Query {} exceeds its memory budget: ", context.getQueryId(), e);
+        putException(e);
       } catch (IOException e) {
         LOGGER.error("Something gets wrong while reading from the series reader: ", e);
+        putException(e);
       } catch (Exception e) {
         LOGGER.error("Something gets wrong: ", e);
+        putException(new IOException(e));
+      }
+    }
+
+    /**
+     * tell the consumer that the series fails instead of leaving it blocked on the queue.
+     */
+    private void putException(IOException e) {
+      reader.setHasRemaining(false);
+      reader.setManagedByQueryManager(false);
+      if (!blockingQueue.offer(new ExceptionBatchData(e))) {
+        // the queue is full, the consumer meets the exception after the queued batches
+        blockingQueue.clear();
+        blockingQueue.offer(new ExceptionBatchData(e));
       }
     }
   }
 
+  /**
+   * It notifies the consumer that the series reader fails, after which no batch follows.
+   */
+  private static class ExceptionBatchData extends BatchData {
+
+    private static final long serialVersionUID = -3358765285936393735L;
+
+    private final transient IOException exception;
+
+    private ExceptionBatchData(IOException exception) {
+      this.exception = exception;
+    }
+  }
+
   private List<ManagedSeriesReader> seriesReaderWithoutValueFilterList;
 
   private TreeSet<Long> timeHeap;
@@ -114,6 +171,10 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
 
   private BatchData[] cachedBatchDataArray;
 
+  private ReadTask[] readTaskArray;
+
+  private QueryContext context;
+
   private static final int FLAG = 0x01;
 
   // capacity for blocking queue
@@ -130,27 +191,32 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
    * @param paths paths in List structure
    * @param dataTypes time series data type
    * @param readers readers in List(IPointReader) structure
+   * @param context the batches buffered in the blocking queues are reserved against its memory
    */
   public NewEngineDataSetWithoutValueFilter(List<Path> paths, List<TSDataType> dataTypes,
-                                            List<ManagedSeriesReader> readers) throws InterruptedException {
+      List<ManagedSeriesReader> readers, QueryContext context)
+      throws InterruptedException, IOException {
     super(paths, dataTypes);
     this.seriesReaderWithoutValueFilterList = readers;
+    this.context = context;
     blockingQueueArray = new BlockingQueue[readers.size()];
+    readTaskArray = new ReadTask[readers.size()];
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
       blockingQueueArray[i] = new LinkedBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
+      readTaskArray[i] = new ReadTask(readers.get(i), blockingQueueArray[i], context);
     }
     cachedBatchDataArray = new BatchData[readers.size()];
     noMoreDataInQueueArray = new boolean[readers.size()];
     init();
   }
 
-  private void init() throws InterruptedException {
+  private void init() throws InterruptedException, IOException {
     timeHeap = new TreeSet<>();
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
       ManagedSeriesReader reader = seriesReaderWithoutValueFilterList.get(i);
       reader.setHasRemaining(true);
       reader.setManagedByQueryManager(true);
-      pool.submit(new ReadTask(reader, blockingQueueArray[i]));
+      pool.submit(readTaskArray[i]);
     }
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
       fillCache(i);
@@ -330,14 +396,21 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
     return tsQueryDataSet;
   }
 
-  private void fillCache(int seriesIndex) throws InterruptedException {
+  private void fillCache(int seriesIndex) throws InterruptedException, IOException {
     BatchData batchData = blockingQueueArray[seriesIndex].take();
     // no more batch data in this time series queue
     if (batchData instanceof SignalBatchData) {
       noMoreDataInQueueArray[seriesIndex] = true;
+    } else if (batchData instanceof ExceptionBatchData) {
+      noMoreDataInQueueArray[seriesIndex] = true;
+      throw ((ExceptionBatchData) batchData).exception;
     }
     // there are more batch data in this time series queue
     else {
+      // the consumed batch is replaced, so is its memory
+      if (cachedBatchDataArray[seriesIndex] != null) {
+        context.releaseMemory(getMemorySize(cachedBatchDataArray[seriesIndex]));
+      }
       cachedBatchDataArray[seriesIndex] = batchData;
 
       synchronized (seriesReaderWithoutValueFilterList.get(seriesIndex)) {
@@ -349,13 +422,17 @@ public class NewEngineDataSetWithoutValueFilter extends QueryDataSet {
           // now we should submit it again
           if (!reader.isManagedByQueryManager() && reader.hasRemaining()) {
             reader.setManagedByQueryManager(true);
-            pool.submit(new ReadTask(reader, blockingQueueArray[seriesIndex]));
+            pool.submit(readTaskArray[seriesIndex]);
           }
         }
       }
     }
   }
 
+  private static long getMemorySize(BatchData batchData) {
+    return batchData.length() * MemUtils.getPointSize(batchData.getDataType());
+  }
+
   private void putPBOSToBuffer(PublicBAOS[] bitmapBAOSList, List<ByteBuffer> bitmapBufferList,
                                int tsIndex) {
     ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapBAOSList[tsIndex].size());
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.iotdb.db.query.pool.QueryPrefetchPoolManager;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryDataSetPrefetcher serves the fetch requests of a query and prepares the following batches on
+ * {@link QueryPrefetchPoolManager} in the meantime, so that the next batch is computed and encoded
+ * while the current one is transferred and consumed by the client.
+ * <p>
+ * At most one batch is being produced at any time, either by the background task or by the
+ * fetching thread when nothing is prefetched, as the underlying QueryDataSet is not thread safe.
+ * The background task stops when the number or the memory of the buffered batches reaches the
+ * limit, and is resumed by the next fetch.
+ * <p>
+ * Each returned batch tells whether more data may follow, so that the client can skip the last
+ * fetch that returns nothing.
+ */
+public class QueryDataSetPrefetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryDataSetPrefetcher.class);
+
+  private static final QueryPrefetchPoolManager pool = QueryPrefetchPoolManager.getInstance();
+
+  private final long queryId;
+  private final BatchProducer producer;
+  private final int maxBatchNum;
+  private final long maxMemoryInByte;
+
+  private final Deque<TSQueryDataSet> batches = new ArrayDeque<>();
+  private long bufferedMemoryInByte;
+
+  /**
+   * the fetch size of the latest request, used by the following prefetches.
+   */
+  private int fetchSize;
+  /**
+   * whether a batch is being produced by the background task.
+   */
+  private boolean producing;
+  /**
+   * whether the produced batches have covered all data of the query.
+   */
+  private boolean exhausted;
+  private boolean closed;
+  private Exception failure;
+
+  /**
+   * produce the next batch of at most fetchSize rows of the query.
+   */
+  @FunctionalInterface
+  public interface BatchProducer {
+
+    TSQueryDataSet produce(int fetchSize) throws Exception;
+  }
+
+  /**
+   * @param maxBatchNum the max number of prefetched batches, 0 disables prefetching
+   * @param maxMemoryInByte no more batch is prefetched once the buffered batches exceed it
+   */
+  public QueryDataSetPrefetcher(long queryId, BatchProducer producer, int maxBatchNum,
+      long maxMemoryInByte) {
+    this.queryId = queryId;
+    this.producer = producer;
+    this.maxBatchNum = maxBatchNum;
+    this.maxMemoryInByte = maxMemoryInByte;
+  }
+
+  /**
+   * get the next batch, from the prefetched ones if any, and start prefetching the following ones.
+   *
+   * @return the next batch, whose time buffer is empty if the query has no more data
+   */
+  public synchronized TSQueryDataSet next(int fetchSize) throws Exception {
+    if (closed) {
+      throw new IllegalStateException(String.format("Query %d is closed", queryId));
+    }
+    this.fetchSize = fetchSize;
+    while (batches.isEmpty() && producing && failure == null) {
+      wait();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+
+    TSQueryDataSet batch = batches.poll();
+    if (batch != null) {
+      bufferedMemoryInByte -= getMemoryInByte(batch);
+    } else {
+      // nothing is prefetched and the background task is not running
+      batch = produce(fetchSize);
+      exhausted = !batch.isMoreData();
+    }
+    TSQueryDataSet nextBatch = batches.peek();
+    if (nextBatch != null && getRowCount(nextBatch) == 0) {
+      batch.setMoreData(false);
+    }
+    schedulePrefetch();
+    return batch;
+  }
+
+  /**
+   * stop prefetching and drop the prefetched batches. It waits for the batch being produced so
+   * that the resources of the query can be released safely afterwards.
+   */
+  public synchronized void close() {
+    closed = true;
+    batches.clear();
+    bufferedMemoryInByte = 0;
+    boolean interrupted = false;
+    while (producing) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  synchronized int getPrefetchedBatchNum() {
+    return batches.size();
+  }
+
+  synchronized boolean isProducing() {
+    return producing;
+  }
+
+  private TSQueryDataSet produce(int fetchSize) throws Exception {
+    TSQueryDataSet batch = producer.produce(fetchSize);
+    // a batch is not full only if the query has no more data
+    batch.setMoreData(getRowCount(batch) >= fetchSize);
+    return batch;
+  }
+
+  private void schedulePrefetch() {
+    if (producing || !needPrefetch()) {
+      return;
+    }
+    producing = true;
+    try {
+      pool.submit(this::prefetch);
+    } catch (RejectedExecutionException e) {
+      // the pool is shutting down, the batches will be produced when fetched
+      producing = false;
+    }
+  }
+
+  private boolean needPrefetch() {
+    return !closed && !exhausted && failure == null && batches.size() < maxBatchNum
+        && bufferedMemoryInByte < maxMemoryInByte;
+  }
+
+  private void prefetch() {
+    while (true) {
+      int size;
+      synchronized (this) {
+        if (!needPrefetch()) {
+          producing = false;
+          notifyAll();
+          return;
+        }
+        size = fetchSize;
+      }
+
+      TSQueryDataSet batch = null;
+      Exception exception = null;
+      try {
+        batch = produce(size);
+      } catch (Exception e) {
+        exception = e;
+      }
+
+      synchronized (this) {
+        if (exception != null) {
+          logger.debug("Failed to prefetch the result of query {}", queryId, exception);
+          failure = exception;
+        } else if (!closed) {
+          exhausted = !batch.isMoreData();
+          batches.add(batch);
+          bufferedMemoryInByte += getMemoryInByte(batch);
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  private static int getRowCount(TSQueryDataSet batch) {
+    // a timestamp takes 8 bytes
+    return batch.time.remaining() / Long.BYTES;
+  }
+
+  private static long getMemoryInByte(TSQueryDataSet batch) {
+    long size = batch.time.remaining();
+    for (ByteBuffer buffer : batch.valueList) {
+      size += buffer.remaining();
+    }
+    for (ByteBuffer buffer : batch.bitmapList) {
+      size += buffer.remaining();
+    }
+    return size;
+  }
+}
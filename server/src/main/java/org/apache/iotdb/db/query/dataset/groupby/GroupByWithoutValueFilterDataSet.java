@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
@@ -28,6 +29,7 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.pool.SeriesTaskRunner;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
@@ -50,6 +52,11 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
   private List<BatchData> batchDataList;
   private List<Boolean> hasCachedSequenceDataList;
   private Filter timeFilter;
+  /**
+   * calculate the series of a time interval concurrently, the state of a series is only accessed
+   * by the worker calculating it.
+   */
+  private SeriesTaskRunner seriesTaskRunner;
 
   /**
    * constructor.
@@ -63,6 +70,8 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     this.timeFilter = null;
     this.hasCachedSequenceDataList = new ArrayList<>();
     this.batchDataList = new ArrayList<>();
+    this.seriesTaskRunner = new SeriesTaskRunner(queryId,
+        IoTDBDescriptor.getInstance().getConfig().getQuerySeriesParallelism());
     for (int i = 0; i < paths.size(); i++) {
       hasCachedSequenceDataList.add(false);
       batchDataList.add(null);
@@ -83,7 +92,7 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
     for (Path path : paths) {
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(path, context);
+          .getQueryDataSource(path, context, timeFilter);
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
@@ -110,13 +119,13 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
     hasCachedTimeInterval = false;
     RowRecord record = new RowRecord(startTime);
-    for (int i = 0; i < functions.size(); i++) {
-      AggreResultData res;
-      try {
-        res = nextSeries(i);
-      } catch (QueryProcessException e) {
-        throw new IOException(e);
-      }
+    List<AggreResultData> results;
+    try {
+      results = seriesTaskRunner.run(functions.size(), this::nextSeries);
+    } catch (QueryProcessException e) {
+      throw new IOException(e);
+    }
+    for (AggreResultData res : results) {
       if (res == null) {
         record.addField(new Field(null));
       } else {
@@ -160,11 +169,10 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       } else {
         // page data
         long minTime = pageHeader.getStartTime();
-        long maxTime = pageHeader.getEndTime();
         // no point in sequence data with a timestamp less than endTime
         if (minTime >= endTime) {
           finishCheckSequenceData = true;
-        } else if (canUseHeader(minTime, maxTime, unsequenceReader, function)) {
+        } else if (canUseHeader(pageHeader, unsequenceReader, function)) {
           // cal using page header
           function.calculateValueFromPageHeader(pageHeader);
           sequenceReader.skipPageData();
@@ -302,9 +310,16 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
   }
 
-  private boolean canUseHeader(long minTime, long maxTime, IPointReader unSequenceReader,
+  private boolean canUseHeader(PageHeader pageHeader, IPointReader unSequenceReader,
       AggregateFunction function)
       throws IOException, QueryProcessException {
+    // the statistics of the page still count its deleted data
+    if (pageHeader.isModified()) {
+      return false;
+    }
+
+    long minTime = pageHeader.getStartTime();
+    long maxTime = pageHeader.getEndTime();
     if (timeFilter != null && !timeFilter.containStartEndTime(minTime, maxTime)) {
       return false;
     }
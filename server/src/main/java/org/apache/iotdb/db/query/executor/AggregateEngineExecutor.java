@@ -37,12 +37,15 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.AggreResultDataPointReader;
 import org.apache.iotdb.db.query.dataset.OldEngineDataSetWithoutValueFilter;
 import org.apache.iotdb.db.query.factory.AggreFuncFactory;
+import org.apache.iotdb.db.query.pool.SeriesTaskRunner;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.db.query.reader.seriesRelated.SeriesLastPointReader;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -65,6 +68,11 @@ public class AggregateEngineExecutor {
    **/
   private int aggregateFetchSize;
 
+  /**
+   * the max number of series that are aggregated concurrently.
+   */
+  private int querySeriesParallelism;
+
   /**
    * constructor.
    */
@@ -74,6 +82,8 @@ public class AggregateEngineExecutor {
     this.aggres = aggregationPlan.getDeduplicatedAggregations();
     this.expression = aggregationPlan.getExpression();
     this.aggregateFetchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
+    this.querySeriesParallelism = IoTDBDescriptor.getInstance().getConfig()
+        .getQuerySeriesParallelism();
   }
 
   /**
@@ -99,10 +109,19 @@ public class AggregateEngineExecutor {
       aggregateFunctions.add(function);
 
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(selectedSeries.get(i), context);
+          .getQueryDataSource(selectedSeries.get(i), context, timeFilter);
       // add additional time filter if TTL is set
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
+      if ((function instanceof MaxTimeAggrFunc || function instanceof LastValueAggrFunc)
+          && calculateByLastPoint(function, selectedSeries.get(i), tsDataType, queryDataSource,
+          timeFilter, context)) {
+        // the result is calculated, no reader is needed
+        readersOfSequenceData.add(null);
+        readersOfUnSequenceData.add(null);
+        continue;
+      }
+
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader;
       if (function instanceof MaxTimeAggrFunc || function instanceof LastValueAggrFunc) {
@@ -121,16 +140,43 @@ public class AggregateEngineExecutor {
       readersOfSequenceData.add(seqResourceIterateReader);
       readersOfUnSequenceData.add(unseqResourceMergeReader);
     }
-    List<AggreResultData> aggreResultDataList = new ArrayList<>();
-    //TODO use multi-thread
-    for (int i = 0; i < selectedSeries.size(); i++) {
-      AggreResultData aggreResultData = aggregateWithoutValueFilter(aggregateFunctions.get(i),
-          readersOfSequenceData.get(i), readersOfUnSequenceData.get(i), timeFilter);
-      aggreResultDataList.add(aggreResultData);
-    }
+    Filter finalTimeFilter = timeFilter;
+    List<AggreResultData> aggreResultDataList = new SeriesTaskRunner(context.getQueryId(),
+        querySeriesParallelism).run(selectedSeries.size(), i -> {
+      if (readersOfSequenceData.get(i) == null) {
+        return aggregateFunctions.get(i).getResult();
+      }
+      return aggregateWithoutValueFilter(aggregateFunctions.get(i),
+          readersOfSequenceData.get(i), readersOfUnSequenceData.get(i), finalTimeFilter);
+    });
     return constructDataSet(aggreResultDataList);
   }
 
+  /**
+   * try to calculate last and max_time aggregate function by the last point of the sequence data,
+   * which reads the statistics of the newest chunks only.
+   *
+   * @return false if unsequence data overlaps and the function is not calculated
+   */
+  private boolean calculateByLastPoint(AggregateFunction function, Path seriesPath,
+      TSDataType dataType, QueryDataSource queryDataSource, Filter timeFilter,
+      QueryContext context) throws IOException {
+    SeriesLastPointReader lastPointReader = new SeriesLastPointReader(seriesPath, dataType,
+        queryDataSource, timeFilter, context);
+    if (!lastPointReader.readLastPoint()) {
+      return false;
+    }
+    TimeValuePair lastPoint = lastPointReader.getLastPoint();
+    if (lastPoint != null) {
+      if (function instanceof MaxTimeAggrFunc) {
+        ((MaxTimeAggrFunc) function).calculateValueFromLastPoint(lastPoint);
+      } else {
+        ((LastValueAggrFunc) function).calculateValueFromLastPoint(lastPoint);
+      }
+    }
+    return true;
+  }
+
   /**
    * calculation aggregate result with only time filter or no filter for one series.
    *
@@ -178,8 +224,9 @@ public class AggregateEngineExecutor {
   private boolean canUseHeader(AggregateFunction function, PageHeader pageHeader,
       IPointReader unSequenceReader, Filter filter)
       throws IOException, QueryProcessException {
-    // if page data is memory data.
-    if (pageHeader == null) {
+    // if page data is memory data, or some data of the page are deleted, which are still counted
+    // by the statistics of the page
+    if (pageHeader == null || pageHeader.isModified()) {
       return false;
     }
 
@@ -295,13 +342,7 @@ public class AggregateEngineExecutor {
 
       // generate timestamps for aggregate
       long[] timeArray = new long[aggregateFetchSize];
-      int timeArrayLength = 0;
-      for (int cnt = 0; cnt < aggregateFetchSize; cnt++) {
-        if (!timestampGenerator.hasNext()) {
-          break;
-        }
-        timeArray[timeArrayLength++] = timestampGenerator.next();
-      }
+      int timeArrayLength = timestampGenerator.next(timeArray);
 
       // cal part of aggregate result
       for (int i = 0; i < readersOfSelectedSeries.size(); i++) {
@@ -83,7 +83,7 @@ public class EngineExecutor {
 
     try {
       return new NewEngineDataSetWithoutValueFilter(deduplicatedPaths, deduplicatedDataTypes,
-          readersOfSelectedSeries);
+          readersOfSelectedSeries, context);
     } catch (InterruptedException e) {
       throw new StorageEngineException(e.getMessage());
     }
@@ -103,6 +103,11 @@ public class EngineExecutor {
 
     List<IReaderByTimestamp> readersOfSelectedSeries = new ArrayList<>();
     for (Path path : deduplicatedPaths) {
+      if (timestampGenerator.hasValues(path)) {
+        // the values are read by the time generator already
+        readersOfSelectedSeries.add(null);
+        continue;
+      }
       SeriesReaderByTimestamp seriesReaderByTimestamp = new SeriesReaderByTimestamp(path, context);
       readersOfSelectedSeries.add(seriesReaderByTimestamp);
     }
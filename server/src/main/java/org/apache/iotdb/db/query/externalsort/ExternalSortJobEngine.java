@@ -20,6 +20,7 @@ package org.apache.iotdb.db.query.externalsort;
 
 import java.io.IOException;
 import java.util.List;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
@@ -31,10 +32,11 @@ public interface ExternalSortJobEngine {
    * Receive a list of ChunkReaderWraps and judge whether it should be processed using external
    * sort. If needed, do the merge sort for all ChunkReaderWraps using specific strategy.
    *
-   * @param queryId query job id
+   * @param context the context of the query, against whose memory budget the sources sorted in
+   * memory are reserved
    * @param chunkReaderWraps A list of ChunkReaderWrap
    */
-  List<IPointReader> executeForIPointReader(long queryId, List<ChunkReaderWrap>
+  List<IPointReader> executeForIPointReader(QueryContext context, List<ChunkReaderWrap>
       chunkReaderWraps) throws IOException;
 
   /**
@@ -43,7 +45,7 @@ public interface ExternalSortJobEngine {
    *
    * @param chunkReaderWraps A list of ChunkReaderWrap
    */
-  List<IReaderByTimestamp> executeForByTimestampReader(long queryId, List<ChunkReaderWrap>
+  List<IReaderByTimestamp> executeForByTimestampReader(QueryContext context, List<ChunkReaderWrap>
       chunkReaderWraps) throws IOException;
 
   /**
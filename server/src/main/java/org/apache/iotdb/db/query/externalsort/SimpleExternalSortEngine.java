@@ -24,17 +24,26 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryMemoryExceededException;
 import org.apache.iotdb.db.exception.runtime.StorageEngineFailureException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.adapter.ByTimestampReaderAdapter;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 public class SimpleExternalSortEngine implements ExternalSortJobEngine {
 
+  /**
+   * the number of sources merged by each job part when the sources are sorted externally because
+   * they exceed the memory budget of the query, so that the fewest sources are read at a time.
+   */
+  private static final int SPILL_SOURCE_COUNT = 2;
+
   private ExternalSortJobScheduler scheduler;
 
   private String queryDir;
@@ -59,36 +68,105 @@ public class SimpleExternalSortEngine implements ExternalSortJobEngine {
   }
 
   @Override
-  public List<IPointReader> executeForIPointReader(long queryId,
+  public List<IPointReader> executeForIPointReader(QueryContext context,
       List<ChunkReaderWrap> chunkReaderWraps)
       throws IOException {
-    if (!enableExternalSort || chunkReaderWraps.size() < minExternalSortSourceCount) {
-      return generateIPointReader(chunkReaderWraps, 0, chunkReaderWraps.size());
+    long reservedMemory = reserveForInMemorySort(context, chunkReaderWraps);
+    if (reservedMemory >= 0) {
+      List<IPointReader> readers = generateIPointReader(chunkReaderWraps, 0,
+          chunkReaderWraps.size());
+      if (reservedMemory > 0) {
+        for (int i = 0; i < readers.size(); i++) {
+          readers.set(i, new MemoryReleasingPointReader(readers.get(i), context,
+              chunkReaderWraps.get(i).getMemorySize()));
+        }
+      }
+      return readers;
     }
     if (logger.isInfoEnabled()) {
-      logger.info("query {} measurement {} uses external sort.", queryId,
+      logger.info("query {} measurement {} uses external sort.", context.getQueryId(),
           chunkReaderWraps.get(0).getMeasurementUid());
     }
-    ExternalSortJob job = createJob(queryId, chunkReaderWraps);
+    ExternalSortJob job = createJob(context.getQueryId(), chunkReaderWraps,
+        getExternalSortSourceCount(chunkReaderWraps));
     return job.executeForIPointReader();
   }
 
   @Override
-  public List<IReaderByTimestamp> executeForByTimestampReader(long queryId,
+  public List<IReaderByTimestamp> executeForByTimestampReader(QueryContext context,
       List<ChunkReaderWrap> chunkReaderWraps) throws IOException {
-    if (!enableExternalSort || chunkReaderWraps.size() < minExternalSortSourceCount) {
-      return generateIReaderByTimestamp(chunkReaderWraps, 0, chunkReaderWraps.size());
+    long reservedMemory = reserveForInMemorySort(context, chunkReaderWraps);
+    if (reservedMemory >= 0) {
+      List<IReaderByTimestamp> readers = generateIReaderByTimestamp(chunkReaderWraps, 0,
+          chunkReaderWraps.size());
+      if (reservedMemory > 0) {
+        for (int i = 0; i < readers.size(); i++) {
+          readers.set(i, new MemoryReleasingReaderByTimestamp(readers.get(i), context,
+              chunkReaderWraps.get(i).getMemorySize()));
+        }
+      }
+      return readers;
     }
     if (logger.isInfoEnabled()) {
-      logger.info("query {} measurement {} uses external sort.", queryId,
+      logger.info("query {} measurement {} uses external sort.", context.getQueryId(),
           chunkReaderWraps.get(0).getMeasurementUid());
     }
-    ExternalSortJob job = createJob(queryId, chunkReaderWraps);
+    ExternalSortJob job = createJob(context.getQueryId(), chunkReaderWraps,
+        getExternalSortSourceCount(chunkReaderWraps));
     return convert(job.executeForIPointReader());
   }
 
+  /**
+   * The sources are sorted in memory if they are fewer than minExternalSortSourceCount and their
+   * memory can be reserved for the query. If external sort is disabled, the query fails when the
+   * memory cannot be reserved. A single source is read in memory even if its memory cannot be
+   * reserved, as it needs no sort.
+   *
+   * @return the memory reserved for the sources, which is returned source by source as their
+   * readers are exhausted, or -1 if the sources are sorted externally
+   */
+  private long reserveForInMemorySort(QueryContext context,
+      List<ChunkReaderWrap> chunkReaderWraps) throws QueryMemoryExceededException {
+    long memorySize = 0;
+    for (ChunkReaderWrap chunkReaderWrap : chunkReaderWraps) {
+      memorySize += chunkReaderWrap.getMemorySize();
+    }
+    if (!enableExternalSort) {
+      context.reserveMemory(memorySize);
+      return memorySize;
+    }
+    if (chunkReaderWraps.size() >= minExternalSortSourceCount) {
+      return -1;
+    }
+    if (context.tryReserveMemory(memorySize)) {
+      return memorySize;
+    }
+    if (chunkReaderWraps.size() < SPILL_SOURCE_COUNT) {
+      return 0;
+    }
+    logger.debug("the {} sources of query {} exceed its memory budget", chunkReaderWraps.size(),
+        context.getQueryId());
+    return -1;
+  }
+
+  /**
+   * @return the number of sources merged by each job part of external sort
+   */
+  private int getExternalSortSourceCount(List<ChunkReaderWrap> chunkReaderWraps) {
+    return chunkReaderWraps.size() >= minExternalSortSourceCount ? minExternalSortSourceCount
+        : SPILL_SOURCE_COUNT;
+  }
+
   @Override
   public ExternalSortJob createJob(long queryId, List<ChunkReaderWrap> readerWrapList) {
+    return createJob(queryId, readerWrapList, minExternalSortSourceCount);
+  }
+
+  /**
+   * @param sourceCount the number of sources merged by each job part
+   */
+  private ExternalSortJob createJob(long queryId, List<ChunkReaderWrap> readerWrapList,
+      int sourceCount) {
     long jobId = scheduler.genJobId();
     List<ExternalSortJobPart> ret = new ArrayList<>();
     for (ChunkReaderWrap readerWrap : readerWrapList) {
@@ -96,10 +174,10 @@ public class SimpleExternalSortEngine implements ExternalSortJobEngine {
     }
 
     int partId = 0;
-    while (ret.size() >= minExternalSortSourceCount) {
+    while (ret.size() >= sourceCount) {
       List<ExternalSortJobPart> tmpPartList = new ArrayList<>();
       for (int i = 0; i < ret.size(); ) {
-        int toIndex = Math.min(i + minExternalSortSourceCount, ret.size());
+        int toIndex = Math.min(i + sourceCount, ret.size());
         List<ExternalSortJobPart> partGroup = ret.subList(i, toIndex);
         i = toIndex;
         StringBuilder tmpFilePath = new StringBuilder(queryDir).append(jobId).append("_")
@@ -168,6 +246,98 @@ public class SimpleExternalSortEngine implements ExternalSortJobEngine {
     return readerByTimestampList;
   }
 
+  /**
+   * It returns the memory reserved for a source sorted in memory once the source is exhausted or
+   * closed, instead of holding it until the query ends.
+   */
+  private static class MemoryReleasingPointReader implements IPointReader {
+
+    private final IPointReader reader;
+    private final QueryContext context;
+    private long memorySize;
+
+    private MemoryReleasingPointReader(IPointReader reader, QueryContext context,
+        long memorySize) {
+      this.reader = reader;
+      this.context = context;
+      this.memorySize = memorySize;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+      boolean hasNext = reader.hasNext();
+      if (!hasNext) {
+        releaseMemory();
+      }
+      return hasNext;
+    }
+
+    @Override
+    public TimeValuePair next() throws IOException {
+      return reader.next();
+    }
+
+    @Override
+    public TimeValuePair current() throws IOException {
+      return reader.current();
+    }
+
+    @Override
+    public void close() throws IOException {
+      releaseMemory();
+      reader.close();
+    }
+
+    private void releaseMemory() {
+      if (memorySize > 0) {
+        context.releaseMemory(memorySize);
+        memorySize = 0;
+      }
+    }
+  }
+
+  /**
+   * It returns the memory reserved for a source sorted in memory once the source is exhausted.
+   */
+  private static class MemoryReleasingReaderByTimestamp implements IReaderByTimestamp {
+
+    private final IReaderByTimestamp reader;
+    private final QueryContext context;
+    private long memorySize;
+
+    private MemoryReleasingReaderByTimestamp(IReaderByTimestamp reader, QueryContext context,
+        long memorySize) {
+      this.reader = reader;
+      this.context = context;
+      this.memorySize = memorySize;
+    }
+
+    @Override
+    public Object getValueInTimestamp(long timestamp) throws IOException {
+      Object value = reader.getValueInTimestamp(timestamp);
+      if (memorySize > 0 && !reader.hasNext()) {
+        releaseMemory();
+      }
+      return value;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+      boolean hasNext = reader.hasNext();
+      if (!hasNext) {
+        releaseMemory();
+      }
+      return hasNext;
+    }
+
+    private void releaseMemory() {
+      if (memorySize > 0) {
+        context.releaseMemory(memorySize);
+        memorySize = 0;
+      }
+    }
+  }
+
   private static class SimpleExternalSortJobEngineHelper {
 
     private static SimpleExternalSortEngine INSTANCE = new SimpleExternalSortEngine();
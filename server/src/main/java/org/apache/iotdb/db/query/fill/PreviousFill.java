@@ -19,17 +19,31 @@
 package org.apache.iotdb.db.query.fill;
 
 import java.io.IOException;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.reader.IPointReader;
+import org.apache.iotdb.db.query.reader.seriesRelated.SeriesLastPointReader;
+import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderWithoutValueFilter;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 
 public class PreviousFill extends IFill {
 
   private long beforeRange;
 
+  /**
+   * whether the last point before queryTime is found by SeriesLastPointReader without merging all
+   * data, if so allDataReader is not constructed.
+   */
+  private boolean isLastPointFound;
+  private TimeValuePair lastPoint;
+
   public PreviousFill(TSDataType dataType, long queryTime, long beforeRange) {
     super(dataType, queryTime);
     this.beforeRange = beforeRange;
@@ -47,7 +61,22 @@ public class PreviousFill extends IFill {
   @Override
   public void constructReaders(Path path, QueryContext context)
       throws IOException, StorageEngineException {
-    super.constructReaders(path, context, beforeRange);
+    Filter timeFilter = TimeFilter.ltEq(queryTime);
+    if (beforeRange != -1) {
+      timeFilter = FilterFactory.and(TimeFilter.gtEq(queryTime - beforeRange), timeFilter);
+    }
+    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
+        .getQueryDataSource(path, context, timeFilter);
+    SeriesLastPointReader lastPointReader = new SeriesLastPointReader(path, dataType,
+        queryDataSource, queryDataSource.updateTimeFilter(timeFilter), context);
+    isLastPointFound = lastPointReader.readLastPoint();
+    if (isLastPointFound) {
+      lastPoint = lastPointReader.getLastPoint();
+    } else {
+      // unsequence data may overlap, merge all the data in the fill range of the same data source
+      allDataReader = new SeriesReaderWithoutValueFilter(queryDataSource, dataType, timeFilter,
+          context, true);
+    }
   }
 
   public long getBeforeRange() {
@@ -56,6 +85,11 @@ public class PreviousFill extends IFill {
 
   @Override
   public IPointReader getFillResult() throws IOException {
+    if (isLastPointFound) {
+      return new TimeValuePairPointReader(lastPoint == null ? new TimeValuePair(queryTime, null)
+          : new TimeValuePair(queryTime, lastPoint.getValue()));
+    }
+
     TimeValuePair beforePair = null;
     TimeValuePair cachedPair = null;
     while (allDataReader.hasNext()) {
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.pool;
+
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.flush.pool.AbstractPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryPrefetchPoolManager runs the tasks preparing the result batches of queries before they are
+ * fetched. They are kept apart from {@link QueryTaskPoolManager} because a prefetch task waits for
+ * the read tasks of its query, which would never run if the prefetch tasks took all the threads of
+ * that pool.
+ */
+public class QueryPrefetchPoolManager extends AbstractPoolManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryPrefetchPoolManager.class);
+
+  private QueryPrefetchPoolManager() {
+    int threadCnt = IoTDBDescriptor.getInstance().getConfig().getConcurrentQueryThread();
+    pool = IoTDBThreadPoolFactory.newFixedThreadPool(threadCnt, ThreadName.QUERY_PREFETCH_SERVICE.getName());
+  }
+
+  public static QueryPrefetchPoolManager getInstance() {
+    return QueryPrefetchPoolManager.InstanceHolder.instance;
+  }
+
+  @Override
+  public Logger getLogger() {
+    return LOGGER;
+  }
+
+  @Override
+  public String getName() {
+    return "query prefetch";
+  }
+
+  @Override
+  public void start() {
+    if (pool == null) {
+      int threadCnt = IoTDBDescriptor.getInstance().getConfig().getConcurrentQueryThread();
+      pool = IoTDBThreadPoolFactory
+              .newFixedThreadPool(threadCnt, ThreadName.QUERY_PREFETCH_SERVICE.getName());
+    }
+
+  }
+
+  @Override
+  public void stop() {
+    if (pool != null) {
+      close();
+      pool = null;
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+      //allowed to do nothing
+    }
+
+    private static QueryPrefetchPoolManager instance = new QueryPrefetchPoolManager();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+
+/**
+ * SeriesTaskRunner calculates the series of a query concurrently on {@link QueryTaskPoolManager}.
+ * <p>
+ * At most parallelism - 1 workers are submitted to the pool, and the thread calling {@link
+ * #run(int, SeriesTask)} works as well, each worker repeatedly claims the next series that is not
+ * calculated. So the query always makes progress even if the pool is busy, and the calling thread
+ * never waits for a worker that has not started.
+ * <p>
+ * The runner is registered in {@link QueryResourceManager} while running, so that closing the
+ * query cancels it. The workers are not interrupted as an interrupt closes the file channels
+ * shared by other queries, instead they stop claiming series and the calling thread gets a
+ * QueryProcessException.
+ */
+public class SeriesTaskRunner {
+
+  private static final QueryTaskPoolManager pool = QueryTaskPoolManager.getInstance();
+
+  private final long queryId;
+  private final int parallelism;
+
+  private volatile boolean cancelled;
+
+  /**
+   * calculate the series indexed by seriesIndex.
+   */
+  @FunctionalInterface
+  public interface SeriesTask<T> {
+
+    T call(int seriesIndex) throws IOException, QueryProcessException;
+  }
+
+  public SeriesTaskRunner(long queryId, int parallelism) {
+    this.queryId = queryId;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * calculate the series 0 to seriesNum - 1 and wait for all of them.
+   *
+   * @return the results in the order of series
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> run(int seriesNum, SeriesTask<T> task)
+      throws IOException, QueryProcessException {
+    Object[] results = new Object[seriesNum];
+    AtomicInteger nextIndex = new AtomicInteger();
+    CountDownLatch finishedLatch = new CountDownLatch(seriesNum);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Runnable worker = () -> {
+      int index;
+      while ((index = nextIndex.getAndIncrement()) < seriesNum) {
+        try {
+          // the remaining series are only claimed and skipped once the run is stopped
+          if (!cancelled && failure.get() == null) {
+            results[index] = task.call(index);
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          finishedLatch.countDown();
+        }
+      }
+    };
+
+    QueryResourceManager.getInstance().registerTaskRunner(queryId, this);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      int workerNum = Math.min(parallelism, seriesNum) - 1;
+      for (int i = 0; i < workerNum; i++) {
+        futures.add(pool.submit(worker));
+      }
+      worker.run();
+      finishedLatch.await();
+    } catch (InterruptedException e) {
+      cancelled = true;
+      Thread.currentThread().interrupt();
+      throw new QueryProcessException(
+          String.format("Interrupted while calculating the series of query %d", queryId));
+    } finally {
+      // the workers that have not started have nothing to do
+      for (Future<?> future : futures) {
+        future.cancel(false);
+      }
+      QueryResourceManager.getInstance().unregisterTaskRunner(queryId, this);
+    }
+
+    throwFailure(failure.get());
+    if (cancelled) {
+      throw new QueryProcessException(String.format("Query %d is closed", queryId));
+    }
+    return (List<T>) Arrays.asList(results);
+  }
+
+  private void throwFailure(Throwable failure) throws IOException, QueryProcessException {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    } else if (failure instanceof QueryProcessException) {
+      throw (QueryProcessException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IOException(failure);
+  }
+
+  /**
+   * stop calculating the series that are not started, called when the query is closed.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+}
@@ -36,5 +36,18 @@ public interface IReaderByTimestamp {
    */
   Object getValueInTimestamp(long timestamp) throws IOException;
 
+  /**
+   * Returns the values under the first <code>length</code> timestamps in one pass, null for a
+   * timestamp without value. The same restrictions as <code>getValueInTimestamp</code> apply: the
+   * timestamps must be in ascending order and larger than any timestamp given before.
+   */
+  default Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = getValueInTimestamp(timestamps[i]);
+    }
+    return values;
+  }
+
   boolean hasNext() throws IOException;
 }
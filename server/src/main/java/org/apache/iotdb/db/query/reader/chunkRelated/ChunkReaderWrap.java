@@ -22,6 +22,7 @@ import java.io.IOException;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
@@ -87,6 +88,17 @@ public class ChunkReaderWrap {
     }
   }
 
+  /**
+   * @return the estimated memory of the points of a disk chunk when it is read, a mem chunk takes
+   * no more memory as it shares the arrays of the memtable
+   */
+  public long getMemorySize() {
+    if (type == ChunkReaderType.DISK_CHUNK) {
+      return chunkMetaData.getNumOfPoints() * MemUtils.getPointSize(chunkMetaData.getDataType());
+    }
+    return 0;
+  }
+
   public String getMeasurementUid() {
     if (chunkMetaData != null) {
       return chunkMetaData.getMeasurementUid();
@@ -18,7 +18,9 @@
  */
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
+import java.util.NoSuchElementException;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.MemChunkBatchReader;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
@@ -28,22 +30,24 @@ import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
- * To read chunk data in memory
+ * To read chunk data in memory. The data is read from the snapshots in the ReadOnlyMemChunk batch
+ * by batch, and without a filter, the batches are returned by nextBatch() as they are.
  */
 public class MemChunkReader implements IPointReader, IAggregateReader {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
+  private MemChunkBatchReader batchReader;
   private Filter filter;
+  // the batch being read by hasNext() and next()
+  private BatchData batchData;
   private boolean hasCachedTimeValuePair;
   private TimeValuePair cachedTimeValuePair;
 
   private TSDataType dataType;
 
   public MemChunkReader(ReadOnlyMemChunk readableChunk, Filter filter) {
-    timeValuePairIterator = readableChunk.getIterator();
+    batchReader = readableChunk.getBatchReader();
     this.filter = filter;
     this.dataType = readableChunk.getDataType();
   }
@@ -53,57 +57,87 @@ public class MemChunkReader implements IPointReader, IAggregateReader {
     if (hasCachedTimeValuePair) {
       return true;
     }
-    while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
+    while (hasCurrentInBatch()) {
+      long time = batchData.currentTime();
+      if (filter == null || filter.satisfy(time, batchData.currentValue())) {
         hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
+        cachedTimeValuePair = new TimeValuePair(time, batchData.currentTsPrimitiveType());
+      }
+      batchData.next();
+      if (hasCachedTimeValuePair) {
         break;
       }
     }
     return hasCachedTimeValuePair;
   }
 
+  private boolean hasCurrentInBatch() {
+    while (batchData == null || !batchData.hasCurrent()) {
+      if (!loadNextBatch()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean loadNextBatch() {
+    if (!batchReader.hasNextBatch()) {
+      return false;
+    }
+    batchData = batchReader.nextBatch();
+    return true;
+  }
+
   @Override
   public TimeValuePair next() {
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      return cachedTimeValuePair;
-    } else {
-      return timeValuePairIterator.next();
+    if (!hasNext()) {
+      throw new NoSuchElementException();
     }
+    hasCachedTimeValuePair = false;
+    return cachedTimeValuePair;
   }
 
   @Override
   public TimeValuePair current() {
-    if (!hasCachedTimeValuePair) {
-      cachedTimeValuePair = timeValuePairIterator.next();
-      hasCachedTimeValuePair = true;
+    if (!hasNext()) {
+      throw new NoSuchElementException();
     }
     return cachedTimeValuePair;
   }
 
   @Override
-  public boolean hasNextBatch() throws IOException {
-    return hasNext();
+  public boolean hasNextBatch() {
+    if (filter != null) {
+      return hasNext();
+    }
+    return hasCachedTimeValuePair || (batchData != null && batchData.hasCurrent())
+        || batchReader.hasNextBatch();
   }
 
   @Override
   public BatchData nextBatch() {
-    BatchData batchData = new BatchData(dataType);
+    if (filter == null && !hasCachedTimeValuePair && (batchData == null || !batchData
+        .hasCurrent()) && batchReader.hasNextBatch()) {
+      // nothing is read point by point, so the batch can be returned without copying
+      return batchReader.nextBatch();
+    }
+    BatchData result = new BatchData(dataType);
     if (hasCachedTimeValuePair) {
       hasCachedTimeValuePair = false;
-      batchData.putAnObject(cachedTimeValuePair.getTimestamp(), cachedTimeValuePair.getValue().getValue());
+      result.putAnObject(cachedTimeValuePair.getTimestamp(),
+          cachedTimeValuePair.getValue().getValue());
     }
-    while (timeValuePairIterator.hasNext()) {
-      TimeValuePair timeValuePair = timeValuePairIterator.next();
-      if (filter == null || filter
-          .satisfy(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue())) {
-        batchData.putAnObject(timeValuePair.getTimestamp(), timeValuePair.getValue().getValue());
+    do {
+      while (batchData != null && batchData.hasCurrent()) {
+        long time = batchData.currentTime();
+        Object value = batchData.currentValue();
+        if (filter == null || filter.satisfy(time, value)) {
+          result.putAnObject(time, value);
+        }
+        batchData.next();
       }
-    }
-    return batchData;
+    } while (result.isEmpty() && loadNextBatch());
+    return result;
   }
 
   @Override
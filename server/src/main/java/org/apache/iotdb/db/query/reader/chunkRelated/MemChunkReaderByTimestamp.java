@@ -18,11 +18,11 @@
  */
 package org.apache.iotdb.db.query.reader.chunkRelated;
 
-import java.util.Iterator;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.MemChunkBatchReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileReaderByTimestamp;
-import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 
 /**
  * To read data in memory by timestamp, this class implements an interface {@link
@@ -33,46 +33,32 @@ import org.apache.iotdb.db.utils.TimeValuePair;
  */
 public class MemChunkReaderByTimestamp implements IReaderByTimestamp {
 
-  private Iterator<TimeValuePair> timeValuePairIterator;
-  private boolean hasCachedTimeValuePair;
-  private TimeValuePair cachedTimeValuePair;
+  private MemChunkBatchReader batchReader;
+  private BatchData batchData;
 
   public MemChunkReaderByTimestamp(ReadOnlyMemChunk readableChunk) {
-    timeValuePairIterator = readableChunk.getIterator();
+    batchReader = readableChunk.getBatchReader();
   }
 
   @Override
   public boolean hasNext() {
-    if (hasCachedTimeValuePair) {
-      return true;
-    }
-    return timeValuePairIterator.hasNext();
-  }
-
-  private TimeValuePair next() {
-    if (hasCachedTimeValuePair) {
-      hasCachedTimeValuePair = false;
-      return cachedTimeValuePair;
-    } else {
-      return timeValuePairIterator.next();
-    }
+    return (batchData != null && batchData.hasCurrent()) || batchReader.hasNextBatch();
   }
 
-  // TODO consider change timeValuePairIterator to List structure, and use binary search instead of
-  // sequential search
+  /**
+   * the timestamps are given in ascending order, so the batches whose last timestamp is less than
+   * the given one are skipped without being iterated.
+   */
   @Override
   public Object getValueInTimestamp(long timestamp) {
-    while (hasNext()) {
-      TimeValuePair timeValuePair = next();
-      long time = timeValuePair.getTimestamp();
-      if (time == timestamp) {
-        return timeValuePair.getValue().getValue();
-      } else if (time > timestamp) {
-        hasCachedTimeValuePair = true;
-        cachedTimeValuePair = timeValuePair;
-        break;
+    while (batchData == null || !batchData.hasCurrent()
+        || batchData.getTimeByIndex(batchData.length() - 1) < timestamp) {
+      if (!batchReader.hasNextBatch()) {
+        batchData = null;
+        return null;
       }
+      batchData = batchReader.nextBatch();
     }
-    return null;
+    return batchData.getValueInTimestamp(timestamp);
   }
 }
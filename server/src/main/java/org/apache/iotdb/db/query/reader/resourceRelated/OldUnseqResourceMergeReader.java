@@ -31,12 +31,14 @@ import org.apache.iotdb.db.query.externalsort.ExternalSortJobEngine;
 import org.apache.iotdb.db.query.externalsort.SimpleExternalSortEngine;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 /**
@@ -52,12 +54,10 @@ import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 public class OldUnseqResourceMergeReader extends PriorityMergeReader {
 
   private Path seriesPath;
-  private long queryId;
 
   public OldUnseqResourceMergeReader(Path seriesPath, List<TsFileResource> unseqResources,
       QueryContext context, Filter filter) throws IOException {
     this.seriesPath = seriesPath;
-    this.queryId = context.getQueryId();
 
     List<ChunkReaderWrap> readerWrapList = new ArrayList<>();
     for (TsFileResource tsFileResource : unseqResources) {
@@ -74,6 +74,8 @@ public class OldUnseqResourceMergeReader extends PriorityMergeReader {
         List<Modification> pathModifications = context
             .getPathModifications(tsFileResource.getModFile(), seriesPath.getFullPath());
         if (!pathModifications.isEmpty()) {
+          // the cached list is shared by other queries
+          metaDataList = QueryUtils.copyChunkMetaData(metaDataList);
           QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
         }
       } else {
@@ -85,11 +87,12 @@ public class OldUnseqResourceMergeReader extends PriorityMergeReader {
         metaDataList = tsFileResource.getChunkMetaDataList();
       }
 
-      ChunkLoaderImpl chunkLoader = null;
+      IChunkLoader chunkLoader = null;
       if (!metaDataList.isEmpty()) {
         TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
             .get(tsFileResource, tsFileResource.isClosed());
-        chunkLoader = new ChunkLoaderImpl(tsFileReader);
+        chunkLoader = tsFileResource.isClosed() ? new DiskChunkLoader(tsFileReader)
+            : new ChunkLoaderImpl(tsFileReader);
       }
 
       for (ChunkMetaData chunkMetaData : metaDataList) {
@@ -109,7 +112,7 @@ public class OldUnseqResourceMergeReader extends PriorityMergeReader {
 
     ExternalSortJobEngine externalSortJobEngine = SimpleExternalSortEngine.getInstance();
     List<IPointReader> readerList = externalSortJobEngine
-        .executeForIPointReader(queryId, readerWrapList);
+        .executeForIPointReader(context, readerWrapList);
     int priorityValue = 1;
     for (IPointReader chunkReader : readerList) {
       addReaderWithPriority(chunkReader, priorityValue++);
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.reader.resourceRelated;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
@@ -26,6 +27,7 @@ import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileIterateReader;
 import org.apache.iotdb.db.query.reader.universal.IterateReader;
 import org.apache.iotdb.db.utils.QueryUtils;
@@ -34,7 +36,6 @@ import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
-import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
@@ -140,16 +141,19 @@ public class SeqResourceIterateReader extends IterateReader {
     List<Modification> pathModifications = context.getPathModifications(sealedTsFile.getModFile(),
         seriesPath.getFullPath());
     if (!pathModifications.isEmpty()) {
+      // the cached list is shared by other queries
+      metaDataList = QueryUtils.copyChunkMetaData(metaDataList);
       QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
     }
 
     if (enableReverse) {
+      metaDataList = new ArrayList<>(metaDataList);
       Collections.reverse(metaDataList);
     }
     // prepare chunkLoader
     TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
         .get(sealedTsFile, true);
-    IChunkLoader chunkLoader = new ChunkLoaderImpl(tsFileReader);
+    IChunkLoader chunkLoader = new DiskChunkLoader(tsFileReader);
 
     // init fileSeriesReader
     return new FileSeriesReader(chunkLoader, metaDataList, filter);
@@ -30,12 +30,14 @@ import org.apache.iotdb.db.query.externalsort.ExternalSortJobEngine;
 import org.apache.iotdb.db.query.externalsort.SimpleExternalSortEngine;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReaderByTimestamp;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 
 /**
  * To read a list of unsequence TsFiles by timestamp, this class extends {@link
@@ -48,11 +50,8 @@ import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
  */
 public class UnseqResourceReaderByTimestamp extends PriorityMergeReaderByTimestamp {
 
-  private long queryId;
-
   public UnseqResourceReaderByTimestamp(Path seriesPath,
       List<TsFileResource> unseqResources, QueryContext context) throws IOException {
-    this.queryId = context.getQueryId();
     List<ChunkReaderWrap> chunkReaderWrapList = new ArrayList<>();
     for (TsFileResource tsFileResource : unseqResources) {
 
@@ -64,18 +63,21 @@ public class UnseqResourceReaderByTimestamp extends PriorityMergeReaderByTimesta
         List<Modification> pathModifications = context
             .getPathModifications(tsFileResource.getModFile(), seriesPath.getFullPath());
         if (!pathModifications.isEmpty()) {
+          // the cached list is shared by other queries
+          metaDataList = QueryUtils.copyChunkMetaData(metaDataList);
           QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
         }
       } else {
         metaDataList = tsFileResource.getChunkMetaDataList();
       }
 
-      ChunkLoaderImpl chunkLoader = null;
+      IChunkLoader chunkLoader = null;
       if (!metaDataList.isEmpty()) {
         // create and add ChunkReader with priority
         TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
             .get(tsFileResource, tsFileResource.isClosed());
-        chunkLoader = new ChunkLoaderImpl(tsFileReader);
+        chunkLoader = tsFileResource.isClosed() ? new DiskChunkLoader(tsFileReader)
+            : new ChunkLoaderImpl(tsFileReader);
       }
       for (ChunkMetaData chunkMetaData : metaDataList) {
         chunkReaderWrapList.add(new ChunkReaderWrap(chunkMetaData, chunkLoader, null));
@@ -92,7 +94,7 @@ public class UnseqResourceReaderByTimestamp extends PriorityMergeReaderByTimesta
 
     ExternalSortJobEngine externalSortJobEngine = SimpleExternalSortEngine.getInstance();
     List<IReaderByTimestamp> readerList = externalSortJobEngine
-        .executeForByTimestampReader(queryId, chunkReaderWrapList);
+        .executeForByTimestampReader(context, chunkReaderWrapList);
     int priorityValue = 1;
     for (IReaderByTimestamp chunkReader : readerList) {
       addReaderWithPriority(chunkReader, priorityValue++);
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.seriesRelated;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.MemChunkBatchReader;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+/**
+ * To find the last point of a series that satisfies a time filter, which answers previous fill and
+ * the LAST and MAX_TIME aggregations.
+ * <p>
+ * The sequence TsFiles are visited from the newest to the oldest, and so are the chunks in each
+ * TsFile. The end time and last value in the statistics of a chunk or a page are used directly
+ * when the end time satisfies the filter and is not deleted, so that only the chunks and pages
+ * that straddle the filter or a deletion are read and decoded.
+ * <p>
+ * The result from sequence data is final only if no unsequence TsFile may contain a point that is
+ * not earlier than it, otherwise the caller should fall back to merging all data.
+ */
+public class SeriesLastPointReader {
+
+  private Path seriesPath;
+  private TSDataType dataType;
+  private QueryDataSource dataSource;
+  private Filter timeFilter;
+  private QueryContext context;
+
+  private TimeValuePair lastPoint;
+
+  /**
+   * @param timeFilter time filter (with TTL considered) or null
+   */
+  public SeriesLastPointReader(Path seriesPath, TSDataType dataType, QueryDataSource dataSource,
+      Filter timeFilter, QueryContext context) {
+    this.seriesPath = seriesPath;
+    this.dataType = dataType;
+    this.dataSource = dataSource;
+    this.timeFilter = timeFilter;
+    this.context = context;
+  }
+
+  /**
+   * find the last point in the sequence data.
+   *
+   * @return true if the found point (or the absence of points) is also the answer of the whole
+   * series, false if unsequence data overlaps and must be merged
+   */
+  public boolean readLastPoint() throws IOException {
+    String deviceId = seriesPath.getDevice();
+    List<TsFileResource> seqResources = dataSource.getSeqResources();
+    for (int i = seqResources.size() - 1; i >= 0 && lastPoint == null; i--) {
+      TsFileResource resource = seqResources.get(i);
+      Long startTime = resource.getStartTimeMap().get(deviceId);
+      if (startTime == null || (timeFilter != null && !timeFilter
+          .satisfyStartEndTime(startTime, getDeviceEndTime(resource, deviceId)))) {
+        continue;
+      }
+      lastPoint = resource.isClosed() ? readSealedFile(resource) : readUnsealedFile(resource);
+    }
+    return !isOverlappedByUnseqData(deviceId);
+  }
+
+  /**
+   * @return the last point found by readLastPoint(), or null if there is none
+   */
+  public TimeValuePair getLastPoint() {
+    return lastPoint;
+  }
+
+  private TimeValuePair readSealedFile(TsFileResource resource) throws IOException {
+    List<ChunkMetaData> metaDataList = DeviceMetaDataCache.getInstance()
+        .get(resource, seriesPath);
+    List<Modification> pathModifications = context.getPathModifications(resource.getModFile(),
+        seriesPath.getFullPath());
+    if (!pathModifications.isEmpty()) {
+      // the cached list is shared by other queries
+      metaDataList = QueryUtils.copyChunkMetaData(metaDataList);
+      QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
+    }
+    if (metaDataList.isEmpty()) {
+      return null;
+    }
+    TsFileSequenceReader reader = FileReaderManager.getInstance().get(resource, true);
+    return readChunks(metaDataList, new DiskChunkLoader(reader));
+  }
+
+  /**
+   * the data in memory of an unsealed sequence TsFile are newer than its flushed chunks.
+   */
+  private TimeValuePair readUnsealedFile(TsFileResource resource) throws IOException {
+    ReadOnlyMemChunk memChunk = resource.getReadOnlyMemChunk();
+    if (memChunk != null && !memChunk.isEmpty()) {
+      TimeValuePair point = null;
+      MemChunkBatchReader batchReader = memChunk.getBatchReader();
+      while (batchReader.hasNextBatch()) {
+        TimeValuePair pointInBatch = readLastPoint(batchReader.nextBatch());
+        if (pointInBatch != null) {
+          point = pointInBatch;
+        }
+      }
+      if (point != null) {
+        return point;
+      }
+    }
+
+    // metadata list of already flushed chunks in unsealed file, already applied modifications
+    List<ChunkMetaData> metaDataList = resource.getChunkMetaDataList();
+    if (metaDataList == null || metaDataList.isEmpty()) {
+      return null;
+    }
+    TsFileSequenceReader reader = FileReaderManager.getInstance().get(resource, false);
+    return readChunks(metaDataList, new ChunkLoaderImpl(reader));
+  }
+
+  /**
+   * the chunks are visited backwards, a chunk is skipped if it cannot contain a point later than
+   * the one already found, so a chunk is read only if its last point does not satisfy the filter
+   * or is deleted.
+   */
+  private TimeValuePair readChunks(List<ChunkMetaData> metaDataList, IChunkLoader chunkLoader)
+      throws IOException {
+    TimeValuePair point = null;
+    for (int i = metaDataList.size() - 1; i >= 0; i--) {
+      ChunkMetaData metaData = metaDataList.get(i);
+      long endTime = metaData.getEndTime();
+      if ((point != null && endTime <= point.getTimestamp()) || (timeFilter != null
+          && !timeFilter.satisfyStartEndTime(metaData.getStartTime(), endTime))) {
+        continue;
+      }
+      TimeValuePair pointInChunk;
+      if (isLastPointValid(endTime, metaData.getDeletedAt(), metaData.getDeleteIntervalList())) {
+        pointInChunk = getLastPoint(endTime, metaData.getStatistics());
+      } else {
+        pointInChunk = readChunk(new ChunkReader(chunkLoader.getChunk(metaData), timeFilter),
+            metaData.getDeletedAt(), metaData.getDeleteIntervalList());
+      }
+      if (pointInChunk != null) {
+        point = pointInChunk;
+      }
+    }
+    return point;
+  }
+
+  /**
+   * the pages satisfying the filter are visited in time order, only the pages whose last point
+   * does not satisfy the filter or is deleted are decoded.
+   */
+  private TimeValuePair readChunk(ChunkReader chunkReader, long deletedAt,
+      List<TimeRange> deleteIntervals) throws IOException {
+    TimeValuePair point = null;
+    while (chunkReader.hasNextSatisfiedPage()) {
+      PageHeader pageHeader = chunkReader.nextPageHeader();
+      TimeValuePair pointInPage;
+      if (isLastPointValid(pageHeader.getEndTime(), deletedAt, deleteIntervals)) {
+        pointInPage = getLastPoint(pageHeader.getEndTime(), pageHeader.getStatistics());
+        chunkReader.skipPageData();
+      } else {
+        pointInPage = readLastPoint(chunkReader.nextPageData());
+      }
+      if (pointInPage != null) {
+        point = pointInPage;
+      }
+    }
+    return point;
+  }
+
+  private TimeValuePair readLastPoint(BatchData batchData) {
+    TimeValuePair point = null;
+    while (batchData.hasCurrent()) {
+      if (timeFilter == null || timeFilter.satisfy(batchData.currentTime(),
+          batchData.currentValue())) {
+        point = new TimeValuePair(batchData.currentTime(),
+            TsPrimitiveType.getByType(dataType, batchData.currentValue()));
+      }
+      batchData.next();
+    }
+    return point;
+  }
+
+  private boolean isLastPointValid(long endTime, long deletedAt, List<TimeRange> deleteIntervals) {
+    if (endTime <= deletedAt) {
+      return false;
+    }
+    if (deleteIntervals != null) {
+      for (TimeRange range : deleteIntervals) {
+        if (range.getMin() <= endTime && endTime <= range.getMax()) {
+          return false;
+        }
+      }
+    }
+    return timeFilter == null || timeFilter.satisfy(endTime, null);
+  }
+
+  private TimeValuePair getLastPoint(long endTime, Statistics statistics) {
+    return new TimeValuePair(endTime, TsPrimitiveType.getByType(dataType,
+        statistics.getLastValue()));
+  }
+
+  /**
+   * @return whether any unsequence TsFile may contain a point that satisfies the filter and is not
+   * earlier than the last point of sequence data
+   */
+  private boolean isOverlappedByUnseqData(String deviceId) {
+    long lowerBound = lastPoint == null ? Long.MIN_VALUE : lastPoint.getTimestamp();
+    for (TsFileResource resource : dataSource.getUnseqResources()) {
+      Long startTime = resource.getStartTimeMap().get(deviceId);
+      if (startTime == null) {
+        continue;
+      }
+      long endTime = getDeviceEndTime(resource, deviceId);
+      if (endTime >= lowerBound && (timeFilter == null || timeFilter
+          .satisfyStartEndTime(Math.max(startTime, lowerBound), endTime))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the end time of the device in the TsFile, or Long.MAX_VALUE if it is unknown because
+   * the TsFile is not closed
+   */
+  private long getDeviceEndTime(TsFileResource resource, String deviceId) {
+    Long endTime = resource.getEndTimeMap().get(deviceId);
+    return !resource.isClosed() || endTime == null ? Long.MAX_VALUE : endTime;
+  }
+}
@@ -84,8 +84,17 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
    */
   public SeriesReaderWithoutValueFilter(Path seriesPath, TSDataType dataType, Filter timeFilter,
       QueryContext context, boolean pushdownUnseq) throws StorageEngineException, IOException {
-    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-            .getQueryDataSource(seriesPath, context);
+    this(QueryResourceManager.getInstance().getQueryDataSource(seriesPath, context, timeFilter),
+        dataType, timeFilter, context, pushdownUnseq);
+  }
+
+  /**
+   * @param queryDataSource the data source of the series which is already obtained with the time
+   * filter by the caller
+   */
+  public SeriesReaderWithoutValueFilter(QueryDataSource queryDataSource, TSDataType dataType,
+      Filter timeFilter, QueryContext context, boolean pushdownUnseq) throws IOException {
+    Path seriesPath = queryDataSource.getSeriesPath();
     timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
     // reader for sequence resources
@@ -50,6 +50,40 @@ public class PriorityMergeReaderByTimestamp implements IReaderByTimestamp {
     return value;
   }
 
+  @Override
+  public Object[] getValuesInTimestamps(long[] timestamps, int length) throws IOException {
+    Object[] values = new Object[length];
+    // the indexes of the timestamps that have no value in the readers of higher priorities
+    int[] missingIndexes = new int[length];
+    int missingNum = length;
+    for (int i = 0; i < length; i++) {
+      missingIndexes[i] = i;
+    }
+    long[] missingTimestamps = timestamps;
+    for (int i = readerList.size() - 1; i >= 0 && missingNum > 0; i--) {
+      Object[] readerValues = readerList.get(i).getValuesInTimestamps(missingTimestamps,
+          missingNum);
+      // like getValueInTimestamp, the readers of lower priorities are only asked for the
+      // timestamps still missing
+      int newMissingNum = 0;
+      for (int j = 0; j < missingNum; j++) {
+        if (readerValues[j] != null) {
+          values[missingIndexes[j]] = readerValues[j];
+        } else {
+          missingIndexes[newMissingNum++] = missingIndexes[j];
+        }
+      }
+      if (newMissingNum < missingNum) {
+        missingTimestamps = new long[newMissingNum];
+        for (int j = 0; j < newMissingNum; j++) {
+          missingTimestamps[j] = timestamps[missingIndexes[j]];
+        }
+      }
+      missingNum = newMissingNum;
+    }
+    return values;
+  }
+
   /**
    * This is an empty method.
    * <p>
@@ -21,7 +21,7 @@ package org.apache.iotdb.db.query.timegenerator;
 
 import java.io.IOException;
 import org.apache.iotdb.db.query.reader.IPointReader;
-import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.read.query.timegenerator.node.Node;
 import org.apache.iotdb.tsfile.read.query.timegenerator.node.NodeType;
 
@@ -29,7 +29,10 @@ public class EngineLeafNode implements Node {
 
   private IPointReader reader;
 
-  private BatchData data = null;
+  /**
+   * the last point returned by next()
+   */
+  private TimeValuePair current = null;
 
   public EngineLeafNode(IPointReader reader) {
     this.reader = reader;
@@ -42,15 +45,17 @@ public class EngineLeafNode implements Node {
 
   @Override
   public long next() throws IOException {
-    return reader.next().getTimestamp();
+    current = reader.next();
+    return current.getTimestamp();
   }
 
   /**
-   * check if current value is equals to input value.
+   * @return the value of the last point returned by next() if it is at the given time, otherwise
+   * null
    */
   public Object currentValue(long time) {
-    if (data.currentTime() == time) {
-      return data.currentValue();
+    if (current != null && current.getTimestamp() == time) {
+      return current.getValue().getValue();
     }
     return null;
   }
@@ -19,9 +19,12 @@
 
 package org.apache.iotdb.db.query.timegenerator;
 
+import static org.apache.iotdb.tsfile.read.expression.ExpressionType.OR;
 import static org.apache.iotdb.tsfile.read.expression.ExpressionType.SERIES;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.metadata.MManager;
@@ -36,6 +39,13 @@ import org.apache.iotdb.tsfile.read.query.timegenerator.node.Node;
 
 public class EngineNodeConstructor extends AbstractNodeConstructor {
 
+  /**
+   * the leaves that are not under any OR node, each of them produces every timestamp of the tree
+   */
+  private Map<Path, EngineLeafNode> leavesOfAllTimestamps = new HashMap<>();
+
+  private int orDepth = 0;
+
   public EngineNodeConstructor() {
     // nothing to initialize
     // TODO: make this a util class
@@ -56,13 +66,32 @@ public class EngineNodeConstructor extends AbstractNodeConstructor {
         Filter filter = ((SingleSeriesExpression) expression).getFilter();
         Path path = ((SingleSeriesExpression) expression).getSeriesPath();
         TSDataType dataType = MManager.getInstance().getSeriesType(path.getFullPath());
-        return new EngineLeafNode(new SeriesReaderWithValueFilter(path, dataType, filter, context));
+        EngineLeafNode leafNode = new EngineLeafNode(
+            new SeriesReaderWithValueFilter(path, dataType, filter, context));
+        if (orDepth == 0) {
+          leavesOfAllTimestamps.putIfAbsent(path, leafNode);
+        }
+        return leafNode;
       } catch (IOException | PathException e) {
         throw new StorageEngineException(e.getMessage());
       }
 
+    } else if (expression.getType() == OR) {
+      orDepth++;
+      try {
+        return constructNotSeriesNode(expression, context);
+      } finally {
+        orDepth--;
+      }
     } else {
       return constructNotSeriesNode(expression, context);
     }
   }
+
+  /**
+   * @return the leaves constructed so far that are not under any OR node, by their series
+   */
+  Map<Path, EngineLeafNode> getLeavesOfAllTimestamps() {
+    return leavesOfAllTimestamps;
+  }
 }
@@ -19,6 +19,8 @@
 package org.apache.iotdb.db.query.timegenerator;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -34,6 +36,7 @@ public class EngineTimeGenerator implements TimeGenerator {
 
   private IExpression expression;
   private Node operatorNode;
+  private Map<Path, EngineLeafNode> leavesOfAllTimestamps;
 
   /**
    * Constructor of EngineTimeGenerator.
@@ -47,6 +50,7 @@ public class EngineTimeGenerator implements TimeGenerator {
   private void initNode(QueryContext context) throws StorageEngineException {
     EngineNodeConstructor engineNodeConstructor = new EngineNodeConstructor();
     this.operatorNode = engineNodeConstructor.construct(expression, context);
+    this.leavesOfAllTimestamps = engineNodeConstructor.getLeavesOfAllTimestamps();
   }
 
   @Override
@@ -59,9 +63,64 @@ public class EngineTimeGenerator implements TimeGenerator {
     return operatorNode.next();
   }
 
+  /**
+   * Generate the next timestamps in ascending order.
+   *
+   * @param timestamps filled with the generated timestamps
+   * @return the number of the generated timestamps, less than the length of the array only if there
+   * is no more timestamp
+   */
+  public int next(long[] timestamps) throws IOException {
+    int length = 0;
+    while (length < timestamps.length && operatorNode.hasNext()) {
+      timestamps[length++] = operatorNode.next();
+    }
+    return length;
+  }
+
+  /**
+   * Generate the next timestamps in ascending order, together with the values of the given series
+   * at them, which must be read by this generator.
+   *
+   * @param timestamps filled with the generated timestamps
+   * @param paths series whose values are read by this generator, see {@link #hasValues(Path)}
+   * @param values filled with the values of each series in <code>paths</code> at the timestamps
+   * @return the number of the generated timestamps, less than the length of the array only if there
+   * is no more timestamp
+   */
+  public int next(long[] timestamps, List<Path> paths, Object[][] values) throws IOException {
+    EngineLeafNode[] leaves = new EngineLeafNode[paths.size()];
+    for (int i = 0; i < leaves.length; i++) {
+      leaves[i] = leavesOfAllTimestamps.get(paths.get(i));
+    }
+    int length = 0;
+    while (length < timestamps.length && operatorNode.hasNext()) {
+      long timestamp = operatorNode.next();
+      for (int i = 0; i < leaves.length; i++) {
+        values[i][length] = leaves[i].currentValue(timestamp);
+      }
+      timestamps[length++] = timestamp;
+    }
+    return length;
+  }
+
+  /**
+   * Whether the value of the series at each generated timestamp is read by this generator. It is
+   * true if the series is filtered by a leaf that is not under any OR node, as such a leaf produces
+   * every timestamp of the generator.
+   */
+  public boolean hasValues(Path path) {
+    return leavesOfAllTimestamps.containsKey(path);
+  }
+
+  /**
+   * @return the value of the series at the last generated timestamp, or null if it is not read by
+   * this generator
+   */
   @Override
   public Object getValue(Path path, long time) {
-    return null;
+    EngineLeafNode leaf = leavesOfAllTimestamps.get(path);
+    return leaf == null ? null : leaf.currentValue(time);
   }
 
 }
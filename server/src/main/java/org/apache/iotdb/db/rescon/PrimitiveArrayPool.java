@@ -16,106 +16,144 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+
 package org.apache.iotdb.db.rescon;
 
 import java.util.ArrayDeque;
 import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 /**
  * Manage all primitive data list in memory, including get and release operation.
+ * <p>
+ * The idle arrays of each data type are kept in several stripes and a global overflow queue. A
+ * thread takes and returns arrays through the stripe chosen by the hash of its id, which is guarded
+ * by its own lock and counts its own arrays, and falls back to the lock free overflow queue when
+ * the stripe is empty or full, so the inserting threads do not contend on a single monitor or
+ * counter.
+ * <p>
+ * The memory of the idle arrays is capped, the arrays released beyond the cap are left to GC. The
+ * cap is checked against a LongAdder without reservation, so concurrent releases may exceed it by
+ * at most one array each.
  */
 public class PrimitiveArrayPool {
 
+  public static final int ARRAY_SIZE = 128;
+
   /**
-   * data type -> Array<PrimitiveArray>
+   * the max number of idle arrays of a data type in a stripe, the others go to the overflow queue.
    */
-  private static final EnumMap<TSDataType, ArrayDeque> primitiveArraysMap = new EnumMap<>(TSDataType.class);
+  private static final int STRIPE_CAPACITY = 64;
 
-  public static final int ARRAY_SIZE = 128;
+  private static final int STRIPE_NUM = stripeNum(Runtime.getRuntime().availableProcessors());
 
-  static {
-    primitiveArraysMap.put(TSDataType.BOOLEAN, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT32, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT64, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.FLOAT, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.DOUBLE, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.TEXT, new ArrayDeque());
-  }
+  /**
+   * data type -> pool of the arrays of the type
+   */
+  private final EnumMap<TSDataType, TypedArrayPool> typedPoolMap = new EnumMap<>(
+      TSDataType.class);
+
+  /**
+   * memory of all idle arrays in the pool.
+   */
+  private final LongAdder pooledMemoryInB = new LongAdder();
+
+  private volatile long maxMemoryInB;
 
   public static PrimitiveArrayPool getInstance() {
     return INSTANCE;
   }
 
-  private static final PrimitiveArrayPool INSTANCE = new PrimitiveArrayPool();
+  private static final PrimitiveArrayPool INSTANCE = new PrimitiveArrayPool(
+      IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForPrimitiveArrayPool());
 
+  PrimitiveArrayPool(long maxMemoryInB) {
+    this.maxMemoryInB = maxMemoryInB;
+    for (TSDataType dataType : new TSDataType[]{TSDataType.BOOLEAN, TSDataType.INT32,
+        TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.TEXT}) {
+      typedPoolMap.put(dataType, new TypedArrayPool(dataType));
+    }
+  }
 
-  private PrimitiveArrayPool() {}
+  private static int stripeNum(int processorNum) {
+    int num = 1;
+    while (num < processorNum) {
+      num <<= 1;
+    }
+    return num;
+  }
 
-  public synchronized Object getPrimitiveDataListByType(TSDataType dataType) {
-    ArrayDeque dataListQueue = primitiveArraysMap.computeIfAbsent(dataType, k ->new ArrayDeque<>());
-    Object dataArray = dataListQueue.poll();
+  public Object getPrimitiveDataListByType(TSDataType dataType) {
+    TypedArrayPool typedPool = typedPoolMap.get(dataType);
+    if (typedPool == null) {
+      throw new UnSupportedDataTypeException("DataType: " + dataType);
+    }
+    Object dataArray = typedPool.poll();
+    if (dataArray != null) {
+      pooledMemoryInB.add(-typedPool.arraySizeInB);
+      return dataArray;
+    }
+    typedPool.allocatedNum.increment();
     switch (dataType) {
       case BOOLEAN:
-        if (dataArray == null) {
-          dataArray = new boolean[ARRAY_SIZE];
-        }
-        break;
+        return new boolean[ARRAY_SIZE];
       case INT32:
-        if (dataArray == null) {
-          dataArray = new int[ARRAY_SIZE];
-        }
-        break;
+        return new int[ARRAY_SIZE];
       case INT64:
-        if (dataArray == null) {
-          dataArray = new long[ARRAY_SIZE];
-        }
-        break;
+        return new long[ARRAY_SIZE];
       case FLOAT:
-        if (dataArray == null) {
-          dataArray = new float[ARRAY_SIZE];
-        }
-        break;
+        return new float[ARRAY_SIZE];
       case DOUBLE:
-        if (dataArray == null) {
-          dataArray = new double[ARRAY_SIZE];
-        }
-        break;
+        return new double[ARRAY_SIZE];
       case TEXT:
-        if (dataArray == null) {
-          dataArray = new Binary[ARRAY_SIZE];
-        }
-        break;
+        return new Binary[ARRAY_SIZE];
       default:
         throw new UnSupportedDataTypeException("DataType: " + dataType);
     }
-    return dataArray;
   }
 
 
-  public synchronized void release(Object dataArray) {
+  public void release(Object dataArray) {
+    TypedArrayPool typedPool;
     if (dataArray instanceof boolean[]) {
-      primitiveArraysMap.get(TSDataType.BOOLEAN).add(dataArray);
+      typedPool = typedPoolMap.get(TSDataType.BOOLEAN);
     } else if (dataArray instanceof int[]) {
-      primitiveArraysMap.get(TSDataType.INT32).add(dataArray);
-    } else if (dataArray instanceof long[]){
-      primitiveArraysMap.get(TSDataType.INT64).add(dataArray);
+      typedPool = typedPoolMap.get(TSDataType.INT32);
+    } else if (dataArray instanceof long[]) {
+      typedPool = typedPoolMap.get(TSDataType.INT64);
     } else if (dataArray instanceof float[]) {
-      primitiveArraysMap.get(TSDataType.FLOAT).add(dataArray);
+      typedPool = typedPoolMap.get(TSDataType.FLOAT);
     } else if (dataArray instanceof double[]) {
-      primitiveArraysMap.get(TSDataType.DOUBLE).add(dataArray);
+      typedPool = typedPoolMap.get(TSDataType.DOUBLE);
     } else if (dataArray instanceof Binary[]) {
-      primitiveArraysMap.get(TSDataType.TEXT).add(dataArray);
+      typedPool = typedPoolMap.get(TSDataType.TEXT);
+    } else {
+      return;
+    }
+
+    if (pooledMemoryInB.sum() + typedPool.arraySizeInB > maxMemoryInB) {
+      // the pool is full
+      typedPool.droppedNum.increment();
+      return;
     }
+    pooledMemoryInB.add(typedPool.arraySizeInB);
+    typedPool.offer(dataArray);
   }
 
   /**
    * @param size needed capacity
    * @return an array of primitive data arrays
    */
-  public synchronized Object getDataListsByType(TSDataType dataType, int size) {
+  public Object getDataListsByType(TSDataType dataType, int size) {
     int arrayNumber = (int) Math.ceil((float) size / (float)ARRAY_SIZE);
     switch (dataType) {
       case BOOLEAN:
@@ -159,4 +197,183 @@ public class PrimitiveArrayPool {
     }
   }
 
+  public long getMaxMemoryInB() {
+    return maxMemoryInB;
+  }
+
+  /**
+   * set the memory cap of idle arrays. Lowering the cap drops no idle array, but the released
+   * arrays are not pooled until the pooled memory falls below the cap.
+   */
+  public void setMaxMemoryInB(long maxMemoryInB) {
+    this.maxMemoryInB = maxMemoryInB;
+  }
+
+  public long getPooledMemoryInB() {
+    return pooledMemoryInB.sum();
+  }
+
+  /**
+   * @return data type -> the number of idle arrays in the pool
+   */
+  public Map<String, Long> getPooledArrayNumbers() {
+    Map<String, Long> numbers = new TreeMap<>();
+    typedPoolMap.forEach((type, pool) -> numbers.put(type.name(), pool.pooledNum()));
+    return numbers;
+  }
+
+  /**
+   * @return data type -> the number of arrays that are newly allocated as the pool is empty
+   */
+  public Map<String, Long> getAllocatedArrayNumbers() {
+    Map<String, Long> numbers = new TreeMap<>();
+    typedPoolMap.forEach((type, pool) -> numbers.put(type.name(), pool.allocatedNum.sum()));
+    return numbers;
+  }
+
+  /**
+   * @return data type -> the number of arrays that are reused from the pool
+   */
+  public Map<String, Long> getReusedArrayNumbers() {
+    Map<String, Long> numbers = new TreeMap<>();
+    typedPoolMap.forEach((type, pool) -> numbers.put(type.name(), pool.reusedNum.sum()));
+    return numbers;
+  }
+
+  /**
+   * @return data type -> the number of released arrays that are dropped as the pool is full
+   */
+  public Map<String, Long> getDroppedArrayNumbers() {
+    Map<String, Long> numbers = new TreeMap<>();
+    typedPoolMap.forEach((type, pool) -> numbers.put(type.name(), pool.droppedNum.sum()));
+    return numbers;
+  }
+
+  /**
+   * drop all idle arrays.
+   */
+  public void clear() {
+    for (TypedArrayPool typedPool : typedPoolMap.values()) {
+      pooledMemoryInB.add(-typedPool.clear() * typedPool.arraySizeInB);
+    }
+  }
+
+  /**
+   * the idle arrays of a data type owned by a group of threads, guarded by itself.
+   */
+  private static class Stripe {
+
+    private final ArrayDeque<Object> arrays = new ArrayDeque<>(STRIPE_CAPACITY);
+    /**
+     * the size of arrays, which can be read without the lock.
+     */
+    private volatile int pooledNum;
+  }
+
+  private static class TypedArrayPool {
+
+    private final long arraySizeInB;
+    private final Stripe[] stripes;
+    private final Queue<Object> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicLong overflowNum = new AtomicLong();
+
+    private final LongAdder allocatedNum = new LongAdder();
+    private final LongAdder reusedNum = new LongAdder();
+    private final LongAdder droppedNum = new LongAdder();
+
+    private TypedArrayPool(TSDataType dataType) {
+      this.arraySizeInB = (long) ARRAY_SIZE * elementSizeInB(dataType);
+      this.stripes = new Stripe[STRIPE_NUM];
+      for (int i = 0; i < STRIPE_NUM; i++) {
+        stripes[i] = new Stripe();
+      }
+    }
+
+    private static int elementSizeInB(TSDataType dataType) {
+      switch (dataType) {
+        case BOOLEAN:
+          return 1;
+        case INT32:
+        case FLOAT:
+          return 4;
+        case INT64:
+        case DOUBLE:
+          return 8;
+        case TEXT:
+          // the size of a reference, the Binaries are owned by the memtable
+          return 8;
+        default:
+          throw new UnSupportedDataTypeException("DataType: " + dataType);
+      }
+    }
+
+    /**
+     * thread ids are mostly consecutive, they are mixed by the golden ratio so that the threads
+     * created together, like the ones of a pool, spread over the stripes.
+     */
+    private Stripe stripe() {
+      long mixed = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+      return stripes[(int) (mixed >>> 32) & (STRIPE_NUM - 1)];
+    }
+
+    private long pooledNum() {
+      long num = overflowNum.get();
+      for (Stripe stripe : stripes) {
+        num += stripe.pooledNum;
+      }
+      return num;
+    }
+
+    private Object poll() {
+      Stripe stripe = stripe();
+      Object dataArray;
+      synchronized (stripe) {
+        // the most recently released array is the most likely to be in CPU cache
+        dataArray = stripe.arrays.pollLast();
+        stripe.pooledNum = stripe.arrays.size();
+      }
+      if (dataArray == null) {
+        dataArray = overflow.poll();
+        if (dataArray != null) {
+          overflowNum.decrementAndGet();
+        }
+      }
+      if (dataArray != null) {
+        reusedNum.increment();
+      }
+      return dataArray;
+    }
+
+    /**
+     * @return the number of dropped arrays
+     */
+    private long clear() {
+      long clearedNum = 0;
+      for (Stripe stripe : stripes) {
+        synchronized (stripe) {
+          clearedNum += stripe.arrays.size();
+          stripe.arrays.clear();
+          stripe.pooledNum = 0;
+        }
+      }
+      while (overflow.poll() != null) {
+        overflowNum.decrementAndGet();
+        clearedNum++;
+      }
+      return clearedNum;
+    }
+
+    private void offer(Object dataArray) {
+      Stripe stripe = stripe();
+      synchronized (stripe) {
+        if (stripe.arrays.size() < STRIPE_CAPACITY) {
+          stripe.arrays.addLast(dataArray);
+          stripe.pooledNum = stripe.arrays.size();
+          return;
+        }
+      }
+      overflowNum.incrementAndGet();
+      overflow.add(dataArray);
+    }
+  }
 }
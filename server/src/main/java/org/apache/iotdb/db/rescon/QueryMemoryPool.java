@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.rescon;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryMemoryExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * QueryMemoryPool accounts the working memory of the running queries, e.g., the prefetched batches
+ * and the chunks sorted in memory, against the memory allocated for queries in read process and
+ * the budget of each query.
+ * <p>
+ * Only the queries registered by QueryResourceManager are accounted. All memory of a query is
+ * returned to the pool when it is unregistered, and reservations made after that, by the tasks
+ * that have not noticed the end of the query, are allowed without being accounted.
+ */
+public class QueryMemoryPool {
+
+  private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final Logger logger = LoggerFactory.getLogger(QueryMemoryPool.class);
+
+  private final long maxMemory;
+  private final long maxMemoryPerQuery;
+
+  private long usedMemory = 0;
+
+  private final Map<Long, QueryMemory> queryMemoryMap = new ConcurrentHashMap<>();
+
+  private QueryMemoryPool() {
+    this(CONFIG.getAllocateMemoryForQuery(), CONFIG.getMaxMemoryPerQueryInByte());
+  }
+
+  QueryMemoryPool(long maxMemory, long maxMemoryPerQuery) {
+    this.maxMemory = maxMemory;
+    this.maxMemoryPerQuery = maxMemoryPerQuery;
+  }
+
+  public static QueryMemoryPool getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  public void registerQuery(long queryId) {
+    queryMemoryMap.put(queryId, new QueryMemory());
+  }
+
+  /**
+   * return all memory of the query to the pool.
+   */
+  public void unregisterQuery(long queryId) {
+    QueryMemory queryMemory = queryMemoryMap.remove(queryId);
+    if (queryMemory == null) {
+      return;
+    }
+    synchronized (queryMemory) {
+      queryMemory.unregistered = true;
+      releaseFromPool(queryMemory.used);
+      queryMemory.used = 0;
+    }
+  }
+
+  /**
+   * @return true if the memory is reserved within both the budget of the query and the pool
+   */
+  public boolean tryReserve(long queryId, long size) {
+    QueryMemory queryMemory = queryMemoryMap.get(queryId);
+    if (queryMemory == null || size <= 0) {
+      return true;
+    }
+    synchronized (queryMemory) {
+      if (queryMemory.unregistered) {
+        return true;
+      }
+      if (queryMemory.used + size > maxMemoryPerQuery || !reserveFromPool(size)) {
+        return false;
+      }
+      queryMemory.used += size;
+      return true;
+    }
+  }
+
+  /**
+   * reserve the memory, or throw an exception that tells how the budget is exceeded.
+   */
+  public void reserve(long queryId, long size) throws QueryMemoryExceededException {
+    if (!tryReserve(queryId, size)) {
+      logger.debug("Query {} fails to reserve {} bytes of memory", queryId, size);
+      throw new QueryMemoryExceededException(queryId, size, getQueryMemory(queryId),
+          maxMemoryPerQuery, getFreeMemory());
+    }
+  }
+
+  public void release(long queryId, long size) {
+    QueryMemory queryMemory = queryMemoryMap.get(queryId);
+    if (queryMemory == null) {
+      return;
+    }
+    synchronized (queryMemory) {
+      long released = Math.min(size, queryMemory.used);
+      queryMemory.used -= released;
+      releaseFromPool(released);
+    }
+  }
+
+  public long getQueryMemory(long queryId) {
+    QueryMemory queryMemory = queryMemoryMap.get(queryId);
+    if (queryMemory == null) {
+      return 0;
+    }
+    synchronized (queryMemory) {
+      return queryMemory.used;
+    }
+  }
+
+  public synchronized long getFreeMemory() {
+    return maxMemory - usedMemory;
+  }
+
+  private synchronized boolean reserveFromPool(long size) {
+    if (usedMemory + size > maxMemory) {
+      return false;
+    }
+    usedMemory += size;
+    return true;
+  }
+
+  private synchronized void releaseFromPool(long size) {
+    usedMemory -= size;
+  }
+
+  public long getMaxMemoryPerQuery() {
+    return maxMemoryPerQuery;
+  }
+
+  private static class QueryMemory {
+
+    private long used;
+    private boolean unregistered;
+  }
+
+  private static class InstanceHolder {
+
+    private static final QueryMemoryPool INSTANCE = new QueryMemoryPool();
+
+    private InstanceHolder() {
+    }
+  }
+}
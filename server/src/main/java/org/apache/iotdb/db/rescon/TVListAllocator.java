@@ -19,10 +19,10 @@
 
 package org.apache.iotdb.db.rescon;
 
-import java.util.ArrayDeque;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
@@ -37,8 +37,15 @@ import org.apache.iotdb.db.utils.datastructure.LongTVList;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
+/**
+ * Reuse the TVLists of flushed memtables. The idle TVLists of each data type are kept in a lock
+ * free queue, so the inserting threads do not contend on a single monitor.
+ */
 public class TVListAllocator implements TVListAllocatorMBean, IService {
 
+  /**
+   * data type -> idle TVLists, the map is filled in the constructor and never modified.
+   */
   private Map<TSDataType, Queue<TVList>> tvListCache = new EnumMap<>(TSDataType.class);
   private String mbeanName = String
       .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
@@ -46,23 +53,28 @@ public class TVListAllocator implements TVListAllocatorMBean, IService {
 
   private static final TVListAllocator INSTANCE = new TVListAllocator();
 
+  private TVListAllocator() {
+    for (TSDataType dataType : new TSDataType[]{TSDataType.BOOLEAN, TSDataType.INT32,
+        TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.TEXT}) {
+      tvListCache.put(dataType, new ConcurrentLinkedQueue<>());
+    }
+  }
+
   public static TVListAllocator getInstance() {
     return INSTANCE;
   }
 
-  public synchronized TVList allocate(TSDataType dataType) {
-    Queue<TVList> tvLists = tvListCache.computeIfAbsent(dataType,
-        k -> new ArrayDeque<>());
-    TVList list = tvLists.poll();
+  public TVList allocate(TSDataType dataType) {
+    TVList list = tvListCache.get(dataType).poll();
     return list != null ? list : TVList.newList(dataType);
   }
 
-  public synchronized void release(TSDataType dataType, TVList list) {
+  public void release(TSDataType dataType, TVList list) {
     list.clear();
     tvListCache.get(dataType).add(list);
   }
 
-  public synchronized void release(TVList list) {
+  public void release(TVList list) {
     list.clear();
     if (list instanceof BinaryTVList) {
       tvListCache.get(TSDataType.TEXT).add(list);
@@ -88,6 +100,41 @@ public class TVListAllocator implements TVListAllocatorMBean, IService {
     return number;
   }
 
+  @Override
+  public long getPrimitiveArrayPoolMaxMemoryInB() {
+    return PrimitiveArrayPool.getInstance().getMaxMemoryInB();
+  }
+
+  @Override
+  public void setPrimitiveArrayPoolMaxMemoryInB(long maxMemoryInB) {
+    PrimitiveArrayPool.getInstance().setMaxMemoryInB(maxMemoryInB);
+  }
+
+  @Override
+  public long getPrimitiveArrayPoolMemoryInB() {
+    return PrimitiveArrayPool.getInstance().getPooledMemoryInB();
+  }
+
+  @Override
+  public Map<String, Long> getPooledPrimitiveArrayNumbers() {
+    return PrimitiveArrayPool.getInstance().getPooledArrayNumbers();
+  }
+
+  @Override
+  public Map<String, Long> getAllocatedPrimitiveArrayNumbers() {
+    return PrimitiveArrayPool.getInstance().getAllocatedArrayNumbers();
+  }
+
+  @Override
+  public Map<String, Long> getReusedPrimitiveArrayNumbers() {
+    return PrimitiveArrayPool.getInstance().getReusedArrayNumbers();
+  }
+
+  @Override
+  public Map<String, Long> getDroppedPrimitiveArrayNumbers() {
+    return PrimitiveArrayPool.getInstance().getDroppedArrayNumbers();
+  }
+
   @Override
   public void start() throws StartupException {
     try {
@@ -100,7 +147,7 @@ public class TVListAllocator implements TVListAllocatorMBean, IService {
   @Override
   public void stop() {
     JMXService.deregisterMBean(mbeanName);
-    tvListCache.clear();
+    tvListCache.values().forEach(Queue::clear);
   }
 
   @Override
@@ -18,8 +18,38 @@
  */
 package org.apache.iotdb.db.rescon;
 
+import java.util.Map;
+
 public interface TVListAllocatorMBean {
 
   int getNumberOfTVLists();
 
+  /**
+   * the memory cap of the idle arrays in PrimitiveArrayPool.
+   */
+  long getPrimitiveArrayPoolMaxMemoryInB();
+
+  void setPrimitiveArrayPoolMaxMemoryInB(long maxMemoryInB);
+
+  long getPrimitiveArrayPoolMemoryInB();
+
+  /**
+   * data type -> the number of idle arrays in PrimitiveArrayPool
+   */
+  Map<String, Long> getPooledPrimitiveArrayNumbers();
+
+  /**
+   * data type -> the number of arrays newly allocated by PrimitiveArrayPool
+   */
+  Map<String, Long> getAllocatedPrimitiveArrayNumbers();
+
+  /**
+   * data type -> the number of arrays reused from PrimitiveArrayPool
+   */
+  Map<String, Long> getReusedPrimitiveArrayNumbers();
+
+  /**
+   * data type -> the number of released arrays dropped as PrimitiveArrayPool is full
+   */
+  Map<String, Long> getDroppedPrimitiveArrayNumbers();
 }
@@ -113,12 +113,14 @@ public class IoTDB implements IoTDBMBean {
   private void deactivate() {
     logger.info("Deactivating IoTDB...");
     registerManager.deregisterAll();
+    MManager.getInstance().stop();
     JMXService.deregisterMBean(mbeanName);
     logger.info("IoTDB is deactivated.");
   }
 
   private void initMManager(){
     MManager.getInstance().init();
+    MManager.getInstance().startCheckpointThread();
     IoTDBConfigDynamicAdapter.getInstance().setInitialized(true);
     logger.info(
         "After initializing, max memTable num is {}, tsFile threshold is {}, memtableSize is {}",
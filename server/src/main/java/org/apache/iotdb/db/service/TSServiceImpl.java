@@ -25,6 +25,7 @@ import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TTL;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_USER;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.ZoneId;
@@ -76,6 +77,7 @@ import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.NewEngineDataSetWithoutValueFilter;
+import org.apache.iotdb.db.query.dataset.QueryDataSetPrefetcher;
 import org.apache.iotdb.db.tools.watermark.GroupedLSBWatermarkEncoder;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
 import org.apache.iotdb.db.utils.QueryDataSetUtils;
@@ -100,6 +102,7 @@ import org.apache.iotdb.service.rpc.thrift.TSGetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSInsertInBatchReq;
 import org.apache.iotdb.service.rpc.thrift.TSInsertReq;
+import org.apache.iotdb.service.rpc.thrift.TSMultiBatchInsertionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
@@ -148,8 +151,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // (statementId -> Set(queryId))
   private Map<Long, Set<Long>> statementId2QueryId = new ConcurrentHashMap<>();
 
-  // (queryId -> QueryDataSet)
-  private Map<Long, QueryDataSet> queryId2DataSet = new ConcurrentHashMap<>();
+  // (queryId -> QueryDataSetPrefetcher)
+  private Map<Long, QueryDataSetPrefetcher> queryId2Prefetcher = new ConcurrentHashMap<>();
 
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
@@ -255,7 +258,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     for (long statementId : statementIds) {
       Set<Long> queryIds = statementId2QueryId.getOrDefault(statementId, Collections.emptySet());
       for (long queryId : queryIds) {
-        queryId2DataSet.remove(queryId);
+        closePrefetcher(queryId);
 
         try {
           QueryResourceManager.getInstance().endQuery(queryId);
@@ -317,10 +320,20 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
    */
   private void releaseQueryResource(long queryId) throws StorageEngineException {
     // remove the corresponding Physical Plan
-    queryId2DataSet.remove(queryId);
+    closePrefetcher(queryId);
     QueryResourceManager.getInstance().endQuery(queryId);
   }
 
+  /**
+   * stop preparing the batches of the query before its resources are released
+   */
+  private void closePrefetcher(long queryId) {
+    QueryDataSetPrefetcher prefetcher = queryId2Prefetcher.remove(queryId);
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
+  }
+
   /**
    * convert from TSStatusCode to TSStatus according to status code and status message
    *
@@ -600,7 +613,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
       // create and cache dataset
       QueryDataSet newDataSet = createQueryDataSet(queryId, plan);
-      TSQueryDataSet result = fillRpcReturnData(fetchSize, newDataSet, username);
+      QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(queryId,
+          size -> fillRpcReturnData(size, newDataSet, username),
+          config.getQueryPrefetchBatchNum(), config.getQueryPrefetchMemoryInByte());
+      queryId2Prefetcher.put(queryId, prefetcher);
+      TSQueryDataSet result = prefetcher.next(fetchSize);
       resp.setQueryDataSet(result);
       resp.setQueryId(queryId);
       return resp;
@@ -800,18 +817,18 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         return getTSFetchResultsResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR));
       }
 
-      if (!queryId2DataSet.containsKey(req.queryId)) {
+      QueryDataSetPrefetcher prefetcher = queryId2Prefetcher.get(req.queryId);
+      if (prefetcher == null) {
         return getTSFetchResultsResp(
             getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, "Has not executed query"));
       }
 
-      QueryDataSet queryDataSet = queryId2DataSet.get(req.queryId);
-      TSQueryDataSet result = fillRpcReturnData(req.fetchSize, queryDataSet,
-          sessionIdUsernameMap.get(req.sessionId));
+      // the batch has been prepared in background unless the client fetches faster
+      TSQueryDataSet result = prefetcher.next(req.fetchSize);
 
       boolean hasResultSet = result.bufferForTime().limit() != 0;
       if (!hasResultSet) {
-        queryId2DataSet.remove(req.queryId);
+        closePrefetcher(req.queryId);
       }
 
       TSFetchResultsResp resp = getTSFetchResultsResp(getStatus(TSStatusCode.SUCCESS_STATUS,
@@ -861,15 +878,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   }
 
   /**
-   * create QueryDataSet and buffer it for fetchResults
+   * create QueryDataSet, which is buffered in a QueryDataSetPrefetcher for fetchResults
    */
   private QueryDataSet createQueryDataSet(long queryId, PhysicalPlan physicalPlan) throws
       QueryProcessException, QueryFilterOptimizationException, StorageEngineException, IOException, MetadataException, SQLException {
 
     QueryContext context = new QueryContext(queryId);
-    QueryDataSet queryDataSet = processor.getExecutor().processQuery(physicalPlan, context);
-    queryId2DataSet.put(queryId, queryDataSet);
-    return queryDataSet;
+    return processor.getExecutor().processQuery(physicalPlan, context);
   }
 
   @Override
@@ -1052,6 +1067,15 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return resp;
   }
 
+  @Override
+  public TSExecuteBatchStatementResp testInsertMultiBatch(TSMultiBatchInsertionReq req) {
+    logger.debug("Test insert multi batch request receive.");
+    TSExecuteBatchStatementResp resp = new TSExecuteBatchStatementResp();
+    resp.setStatus(getStatus(TSStatusCode.SUCCESS_STATUS));
+    resp.setResult(Collections.emptyList());
+    return resp;
+  }
+
   @Override
   public TSStatus testInsertRow(TSInsertReq req) {
     logger.debug("Test insert row request receive.");
@@ -1119,12 +1143,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR), null);
       }
 
-      BatchInsertPlan batchInsertPlan = new BatchInsertPlan(req.deviceId, req.measurements);
-      batchInsertPlan.setTimes(QueryDataSetUtils.readTimesFromBuffer(req.timestamps, req.size));
-      batchInsertPlan.setColumns(QueryDataSetUtils
-          .readValuesFromBuffer(req.values, req.types, req.measurements.size(), req.size));
-      batchInsertPlan.setRowCount(req.size);
-      batchInsertPlan.setDataTypes(req.types);
+      BatchInsertPlan batchInsertPlan = createBatchInsertPlan(req.deviceId, req.measurements,
+          req.types, req.timestamps, req.values, req.size);
 
       boolean isAllSuccessful = true;
       TSStatus status = checkAuthority(batchInsertPlan, req.getSessionId());
@@ -1158,6 +1178,85 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  /**
+   * decode a tablet of a device from the binary timestamps and values of a request.
+   */
+  private BatchInsertPlan createBatchInsertPlan(String deviceId, List<String> measurements,
+      List<Integer> types, ByteBuffer timestamps, ByteBuffer values, int size) {
+    BatchInsertPlan batchInsertPlan = new BatchInsertPlan(deviceId, measurements);
+    batchInsertPlan.setTimes(QueryDataSetUtils.readTimesFromBuffer(timestamps, size));
+    batchInsertPlan.setColumns(
+        QueryDataSetUtils.readValuesFromBuffer(values, types, measurements.size(), size));
+    batchInsertPlan.setRowCount(size);
+    batchInsertPlan.setDataTypes(types);
+    return batchInsertPlan;
+  }
+
+  /**
+   * insert the tablets of several devices. The authority of all devices is checked at once, and
+   * the tablets of the same storage group are inserted under one lock and wait for the WAL once.
+   */
+  @Override
+  public TSExecuteBatchStatementResp insertMultiBatch(TSMultiBatchInsertionReq req) {
+    long t1 = System.currentTimeMillis();
+    try {
+      if (!checkLogin(req.getSessionId())) {
+        logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+        return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR), null);
+      }
+
+      List<BatchInsertPlan> batchInsertPlans = new ArrayList<>(req.deviceIds.size());
+      List<Path> paths = new ArrayList<>();
+      for (int i = 0; i < req.deviceIds.size(); i++) {
+        BatchInsertPlan batchInsertPlan = createBatchInsertPlan(req.deviceIds.get(i),
+            req.measurementsList.get(i), req.typesList.get(i), req.timestampsList.get(i),
+            req.valuesList.get(i), req.sizeList.get(i));
+        batchInsertPlans.add(batchInsertPlan);
+        paths.addAll(batchInsertPlan.getPaths());
+      }
+      if (batchInsertPlans.isEmpty()) {
+        return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.SUCCESS_STATUS),
+            Collections.emptyList());
+      }
+
+      if (!checkAuthorization(paths, batchInsertPlans.get(0),
+          sessionIdUsernameMap.get(req.getSessionId()))) {
+        return new TSExecuteBatchStatementResp(getStatus(TSStatusCode.NO_PERMISSION_ERROR,
+            "No permissions for this operation " + batchInsertPlans.get(0).getOperatorType()));
+      }
+      List<Integer[]> results = processor.getExecutor().insertBatches(batchInsertPlans);
+
+      List<Integer> resultList = new ArrayList<>();
+      boolean isAllSuccessful = true;
+      for (Integer[] planResults : results) {
+        for (Integer result : planResults) {
+          isAllSuccessful =
+              isAllSuccessful && result == TSStatusCode.SUCCESS_STATUS.getStatusCode();
+          resultList.add(result);
+        }
+      }
+
+      if (isAllSuccessful) {
+        logger.debug("Insert {} RowBatches successfully", batchInsertPlans.size());
+        return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.SUCCESS_STATUS), resultList);
+      } else {
+        logger.debug("Insert {} RowBatches failed!", batchInsertPlans.size());
+        return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.INTERNAL_SERVER_ERROR),
+            resultList);
+      }
+    } catch (AuthException e) {
+      logger.error("meet error while checking authorization.", e);
+      return new TSExecuteBatchStatementResp(
+          getStatus(TSStatusCode.UNINITIALIZED_AUTH_ERROR, e.getMessage()));
+    } catch (Exception e) {
+      logger.info("{}: error occurs when executing statements", IoTDBConstant.GLOBAL_DB_NAME, e);
+      return getTSBatchExecuteStatementResp(
+          getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, e.getMessage()), null);
+    } finally {
+      Measurement.INSTANCE.addOperationLatency(Operation.EXECUTE_RPC_MULTI_BATCH_INSERT, t1);
+    }
+  }
+
   @Override
   public TSStatus setStorageGroup(long sessionId, String storageGroup) {
     if (!checkLogin(sessionId)) {
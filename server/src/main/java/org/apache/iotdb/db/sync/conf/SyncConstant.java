@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.db.sync.conf;
 
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+
 public class SyncConstant {
 
   private SyncConstant() {
@@ -40,6 +42,11 @@ public class SyncConstant {
    **/
   public static final int DATA_CHUNK_SIZE = 64 * 1024 * 1024;
 
+  /**
+   * The compression of the file data on the wire when it is enabled
+   */
+  public static final CompressionType DATA_COMPRESSION = CompressionType.SNAPPY;
+
   // sender section
 
   public static final String LOCK_FILE_NAME = "sync_lock";
@@ -76,6 +83,15 @@ public class SyncConstant {
 
   public static final String DEVICE_OWNER_TMP_FILE_NAME = "device_owner.tmp";
 
+  public static final String CHUNK_INDEX_FILE_NAME = "chunk_index";
+
+  public static final String CHUNK_INDEX_TMP_FILE_NAME = "chunk_index.tmp";
+
+  /**
+   * The maximum number of received chunks that are remembered to deduplicate the transfer
+   */
+  public static final int MAX_CHUNK_INDEX_SIZE = 1_000_000;
+
   public static final int SUCCESS_CODE = 1;
 
   public static final int ERROR_CODE = -1;
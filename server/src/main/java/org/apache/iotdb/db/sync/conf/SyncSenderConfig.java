@@ -41,6 +41,17 @@ public class SyncSenderConfig {
    */
   private int maxNumOfSyncFileRetry = 5;
 
+  /**
+   * The number of files of a storage group that are transferred in parallel, each through its own
+   * connection to the receiver.
+   */
+  private int syncParallelism = 4;
+
+  /**
+   * Whether the data of files is compressed before it is sent to the receiver.
+   */
+  private boolean compressSyncData = true;
+
   /**
    * Storage groups which participate in sync process
    */
@@ -127,4 +138,20 @@ public class SyncSenderConfig {
   public void setMaxNumOfSyncFileRetry(int maxNumOfSyncFileRetry) {
     this.maxNumOfSyncFileRetry = maxNumOfSyncFileRetry;
   }
+
+  public int getSyncParallelism() {
+    return syncParallelism;
+  }
+
+  public void setSyncParallelism(int syncParallelism) {
+    this.syncParallelism = syncParallelism;
+  }
+
+  public boolean isCompressSyncData() {
+    return compressSyncData;
+  }
+
+  public void setCompressSyncData(boolean compressSyncData) {
+    this.compressSyncData = compressSyncData;
+  }
 }
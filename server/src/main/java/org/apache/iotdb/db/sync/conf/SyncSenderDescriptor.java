@@ -101,6 +101,10 @@ public class SyncSenderDescriptor {
       conf.setMaxNumOfSyncFileRetry(Integer
           .parseInt(properties.getProperty("max_number_of_sync_file_retry",
               Integer.toString(conf.getMaxNumOfSyncFileRetry()))));
+      conf.setSyncParallelism(Math.max(1, Integer.parseInt(properties
+          .getProperty("sync_parallelism", Integer.toString(conf.getSyncParallelism())))));
+      conf.setCompressSyncData(Boolean.parseBoolean(properties
+          .getProperty("compress_sync_data", Boolean.toString(conf.isCompressSyncData()))));
     } catch (IOException e) {
       logger.warn("Cannot load sync config file, use default sync configuration.", e);
     } catch (Exception e) {
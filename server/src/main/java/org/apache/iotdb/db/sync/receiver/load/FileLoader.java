@@ -30,6 +30,7 @@ import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.SyncDeviceOwnerConflictException;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.db.sync.receiver.transfer.ReceivedChunkIndex;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -137,6 +138,8 @@ public class FileLoader implements IFileLoader {
     try {
       FileLoaderManager.getInstance().checkAndUpdateDeviceOwner(tsFileResource);
       StorageEngine.getInstance().loadNewTsFileForSync(tsFileResource);
+      // the received chunks are moved with the file
+      ReceivedChunkIndex.getInstance().relocate(newTsFile, tsFileResource.getFile());
     } catch (SyncDeviceOwnerConflictException e) {
       LOGGER.error("Device owner has conflicts, so skip the loading file", e);
     } catch (TsFileProcessorException | StorageEngineException e) {
@@ -170,6 +173,7 @@ public class FileLoader implements IFileLoader {
       new File(syncFolderPath, SyncConstant.SYNC_LOG_NAME).delete();
       new File(syncFolderPath, SyncConstant.LOAD_LOG_NAME).delete();
       FileUtils.deleteDirectory(new File(syncFolderPath, SyncConstant.RECEIVER_DATA_FOLDER_NAME));
+      ReceivedChunkIndex.getInstance().save();
       FileLoaderManager.getInstance().removeFileLoader(senderName);
       LOGGER.info("Sync loading process for {} has finished.", senderName);
     } catch (IOException e) {
@@ -25,6 +25,9 @@ import java.io.IOException;
 
 public class SyncReceiverLogger implements ISyncReceiverLogger {
 
+  /**
+   * the logger is shared by all connections of a sender, which receive files in parallel
+   */
   private BufferedWriter bw;
 
   public SyncReceiverLogger(File logFile) throws IOException {
@@ -35,35 +38,35 @@ public class SyncReceiverLogger implements ISyncReceiverLogger {
   }
 
   @Override
-  public void startSyncDeletedFilesName() throws IOException {
+  public synchronized void startSyncDeletedFilesName() throws IOException {
     bw.write(SYNC_DELETED_FILE_NAME_START);
     bw.newLine();
     bw.flush();
   }
 
   @Override
-  public void finishSyncDeletedFileName(File file) throws IOException {
+  public synchronized void finishSyncDeletedFileName(File file) throws IOException {
     bw.write(file.getAbsolutePath());
     bw.newLine();
     bw.flush();
   }
 
   @Override
-  public void startSyncTsFiles() throws IOException {
+  public synchronized void startSyncTsFiles() throws IOException {
     bw.write(SYNC_TSFILE_START);
     bw.newLine();
     bw.flush();
   }
 
   @Override
-  public void finishSyncTsfile(File file) throws IOException {
+  public synchronized void finishSyncTsfile(File file) throws IOException {
     bw.write(file.getAbsolutePath());
     bw.newLine();
     bw.flush();
   }
 
   @Override
-  public void close() throws IOException {
+  public synchronized void close() throws IOException {
     if(bw != null) {
       bw.close();
       bw = null;
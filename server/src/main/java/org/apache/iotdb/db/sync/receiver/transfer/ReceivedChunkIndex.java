@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.receiver.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.service.sync.thrift.ChunkDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class indexes the chunks of the files received from all senders by their digests, so that a
+ * sender only transfers the chunks that cannot be found on the receiver. As a file may be changed
+ * or deleted after it is received, a chunk is verified by its digest again whenever it is read.
+ */
+public class ReceivedChunkIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReceivedChunkIndex.class);
+
+  /**
+   * digest -> location, in the order of their insertion so that the oldest chunks are evicted first
+   */
+  private Map<String, ChunkLocation> chunks = new LinkedHashMap<>();
+
+  /**
+   * file path -> the digests of the chunks in the file
+   */
+  private Map<String, Set<String>> fileChunks = new HashMap<>();
+
+  private File indexFile;
+
+  private File indexTmpFile;
+
+  private ReceivedChunkIndex() {
+    String syncSystemDir = IoTDBDescriptor.getInstance().getConfig().getSyncDir();
+    indexFile = new File(syncSystemDir, SyncConstant.CHUNK_INDEX_FILE_NAME);
+    indexTmpFile = new File(syncSystemDir, SyncConstant.CHUNK_INDEX_TMP_FILE_NAME);
+    try {
+      recover();
+    } catch (IOException e) {
+      LOGGER.error("Can not recover the index of received chunks from file {}",
+          indexFile.getAbsolutePath(), e);
+      chunks.clear();
+      fileChunks.clear();
+    }
+  }
+
+  public static ReceivedChunkIndex getInstance() {
+    return ReceivedChunkIndexHolder.INSTANCE;
+  }
+
+  /**
+   * Whether the chunk may be copied from a received file. Only the location of the chunk is
+   * checked, the content is verified by {@link #read(ChunkDigest)}.
+   */
+  public synchronized boolean contains(ChunkDigest chunk) {
+    ChunkLocation location = chunks.get(chunk.getDigest());
+    if (location == null) {
+      return false;
+    }
+    if (location.length != chunk.getLength()
+        || new File(location.filePath).length() < location.offset + location.length) {
+      remove(chunk.getDigest());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the content of the chunk, or null if it cannot be found or has changed
+   */
+  public byte[] read(ChunkDigest chunk) throws IOException {
+    ChunkLocation location;
+    synchronized (this) {
+      location = chunks.get(chunk.getDigest());
+    }
+    if (location == null || location.length != chunk.getLength()) {
+      return null;
+    }
+    byte[] data = new byte[location.length];
+    try (RandomAccessFile file = new RandomAccessFile(location.filePath, "r")) {
+      file.seek(location.offset);
+      file.readFully(data);
+    } catch (IOException e) {
+      LOGGER.info("Can not read the received chunk {} from {}", chunk.getDigest(),
+          location.filePath, e);
+      removeIfUnchanged(chunk.getDigest(), location);
+      return null;
+    }
+    if (!chunk.getDigest().equals(digest(data))) {
+      removeIfUnchanged(chunk.getDigest(), location);
+      return null;
+    }
+    return data;
+  }
+
+  /**
+   * Index the chunks of a file that is received completely.
+   */
+  public synchronized void addChunks(File file, List<ChunkDigest> fileChunkDigests) {
+    String filePath = file.getAbsolutePath();
+    removeFile(filePath);
+    Set<String> digests = new HashSet<>();
+    for (ChunkDigest chunk : fileChunkDigests) {
+      remove(chunk.getDigest());
+      chunks.put(chunk.getDigest(), new ChunkLocation(filePath, chunk.getOffset(),
+          chunk.getLength()));
+      digests.add(chunk.getDigest());
+    }
+    fileChunks.put(filePath, digests);
+    evict();
+  }
+
+  /**
+   * Update the locations of the chunks in a file that is moved, e.g., when it is loaded.
+   */
+  public synchronized void relocate(File from, File to) {
+    Set<String> digests = fileChunks.remove(from.getAbsolutePath());
+    if (digests == null) {
+      return;
+    }
+    String filePath = to.getAbsolutePath();
+    removeFile(filePath);
+    for (String digest : digests) {
+      ChunkLocation location = chunks.get(digest);
+      location.filePath = filePath;
+    }
+    fileChunks.put(filePath, digests);
+  }
+
+  /**
+   * Persist the index, the chunks in the files that no longer exist are dropped.
+   */
+  public synchronized void save() throws IOException {
+    fileChunks.entrySet().removeIf(entry -> {
+      if (new File(entry.getKey()).exists()) {
+        return false;
+      }
+      entry.getValue().forEach(chunks::remove);
+      return true;
+    });
+    if (!indexTmpFile.getParentFile().exists()) {
+      indexTmpFile.getParentFile().mkdirs();
+    }
+    try (DataOutputStream outputStream = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(indexTmpFile, false)))) {
+      outputStream.writeInt(chunks.size());
+      for (Entry<String, ChunkLocation> entry : chunks.entrySet()) {
+        outputStream.writeUTF(entry.getKey());
+        outputStream.writeUTF(entry.getValue().filePath);
+        outputStream.writeLong(entry.getValue().offset);
+        outputStream.writeInt(entry.getValue().length);
+      }
+    }
+    indexFile.delete();
+    FileUtils.moveFile(indexTmpFile, indexFile);
+  }
+
+  private void recover() throws IOException {
+    // the temporary file is complete only if the index file has been deleted
+    if (indexTmpFile.exists()) {
+      if (indexFile.exists()) {
+        indexTmpFile.delete();
+      } else {
+        FileUtils.moveFile(indexTmpFile, indexFile);
+      }
+    }
+    if (!indexFile.exists()) {
+      return;
+    }
+    try (DataInputStream inputStream = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(indexFile)))) {
+      int size = inputStream.readInt();
+      for (int i = 0; i < size; i++) {
+        String digest = inputStream.readUTF();
+        String filePath = inputStream.readUTF();
+        long offset = inputStream.readLong();
+        int length = inputStream.readInt();
+        // share the path among the chunks of a file
+        Set<String> digests = fileChunks.get(filePath);
+        if (digests == null) {
+          digests = new HashSet<>();
+          fileChunks.put(filePath, digests);
+        } else {
+          filePath = chunks.get(digests.iterator().next()).filePath;
+        }
+        digests.add(digest);
+        chunks.put(digest, new ChunkLocation(filePath, offset, length));
+      }
+    }
+  }
+
+  private void removeIfUnchanged(String digest, ChunkLocation location) {
+    synchronized (this) {
+      if (chunks.get(digest) == location) {
+        remove(digest);
+      }
+    }
+  }
+
+  private void remove(String digest) {
+    ChunkLocation location = chunks.remove(digest);
+    if (location != null) {
+      Set<String> digests = fileChunks.get(location.filePath);
+      if (digests != null) {
+        digests.remove(digest);
+        if (digests.isEmpty()) {
+          fileChunks.remove(location.filePath);
+        }
+      }
+    }
+  }
+
+  private void removeFile(String filePath) {
+    Set<String> digests = fileChunks.remove(filePath);
+    if (digests != null) {
+      digests.forEach(chunks::remove);
+    }
+  }
+
+  private void evict() {
+    while (chunks.size() > SyncConstant.MAX_CHUNK_INDEX_SIZE) {
+      remove(chunks.keySet().iterator().next());
+    }
+  }
+
+  static String digest(byte[] data) {
+    try {
+      MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+      md.update(data);
+      return new BigInteger(1, md.digest()).toString(16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class ChunkLocation {
+
+    private String filePath;
+    private long offset;
+    private int length;
+
+    private ChunkLocation(String filePath, long offset, int length) {
+      this.filePath = filePath;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private static class ReceivedChunkIndexHolder {
+
+    private static final ReceivedChunkIndex INSTANCE = new ReceivedChunkIndex();
+  }
+}
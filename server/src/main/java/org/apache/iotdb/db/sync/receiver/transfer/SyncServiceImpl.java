@@ -18,15 +18,23 @@
  */
 package org.apache.iotdb.db.sync.receiver.transfer;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -46,8 +54,11 @@ import org.apache.iotdb.db.sync.receiver.recover.SyncReceiverLogAnalyzer;
 import org.apache.iotdb.db.sync.receiver.recover.SyncReceiverLogger;
 import org.apache.iotdb.db.utils.FilePathUtils;
 import org.apache.iotdb.db.utils.SyncUtils;
+import org.apache.iotdb.service.sync.thrift.ChunkDigest;
 import org.apache.iotdb.service.sync.thrift.SyncService;
 import org.apache.iotdb.service.sync.thrift.SyncStatus;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +67,8 @@ public class SyncServiceImpl implements SyncService.Iface {
 
   private static final Logger logger = LoggerFactory.getLogger(SyncServiceImpl.class);
 
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   private ThreadLocal<String> syncFolderPath = new ThreadLocal<>();
@@ -72,6 +85,16 @@ public class SyncServiceImpl implements SyncService.Iface {
 
   private ThreadLocal<MessageDigest> messageDigest = new ThreadLocal<>();
 
+  /**
+   * The chunks of the current file, they are indexed when the file is received completely.
+   */
+  private ThreadLocal<List<ChunkDigest>> currentChunks = new ThreadLocal<>();
+
+  /**
+   * senderName -> the sync process of the sender, which is shared by all its connections
+   */
+  private Map<String, SenderContext> senderContexts = new ConcurrentHashMap<>();
+
   /**
    * Verify IP address of sender
    */
@@ -115,6 +138,8 @@ public class SyncServiceImpl implements SyncService.Iface {
       FileLoader.createFileLoader(senderName.get(), syncFolderPath.get());
       syncLog
           .set(new SyncReceiverLogger(new File(syncFolderPath.get(), SyncConstant.SYNC_LOG_NAME)));
+      senderContexts
+          .put(senderName.get(), new SenderContext(syncFolderPath.get(), syncLog.get()));
       return getSuccessResult();
     } catch (DiskSpaceInsufficientException | IOException e) {
       logger.error("Can not receiver data from sender", e);
@@ -149,6 +174,36 @@ public class SyncServiceImpl implements SyncService.Iface {
     return getSuccessResult();
   }
 
+  /**
+   * Attach a connection to the sync process of the sender, so that the files of a storage group
+   * are received in parallel.
+   */
+  @Override
+  public SyncStatus joinSync(String ipAddress, String uuid, String storageGroup) {
+    Thread.currentThread().setName(ThreadName.SYNC_SERVER.getName());
+    if (!SyncUtils.verifyIPSegment(config.getIpWhiteList(), ipAddress)) {
+      return getErrorResult(
+          "Sender IP is not in the white list of receiver IP and synchronization tasks are not allowed.");
+    }
+    String name = ipAddress + SyncConstant.SYNC_DIR_NAME_SEPARATOR + uuid;
+    SenderContext context = senderContexts.get(name);
+    if (context == null) {
+      return getErrorResult(String.format("There is no sync process of sender %s to join", name));
+    }
+    try {
+      closeCurrentFileWriter();
+    } catch (IOException e) {
+      logger.error("Can not close the file of the previous connection", e);
+    }
+    senderName.set(name);
+    syncFolderPath.set(context.syncFolderPath);
+    syncLog.set(context.syncLog);
+    currentSG.set(storageGroup);
+    logger.info("A connection joins the sync process of sender {} for storage group {}", name,
+        storageGroup);
+    return getSuccessResult();
+  }
+
   @Override
   public SyncStatus syncDeletedFileName(String fileName) throws TException {
     try {
@@ -184,6 +239,7 @@ public class SyncServiceImpl implements SyncService.Iface {
       currentFileWriter.set(new FileOutputStream(file).getChannel());
       syncLog.get().startSyncTsFiles();
       messageDigest.set(MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME));
+      currentChunks.remove();
     } catch (IOException | NoSuchAlgorithmException e) {
       logger.error("Can not init sync resource for file {}", filename, e);
       return getErrorResult(
@@ -193,6 +249,165 @@ public class SyncServiceImpl implements SyncService.Iface {
     return getSuccessResult();
   }
 
+  /**
+   * Init the chunk-level transfer of a file. If a part of the same file has been received by a
+   * connection that dropped, the writer of that connection is closed and the transfer resumes at
+   * the end of the part on disk.
+   *
+   * @param md5 the MD5 of the whole file, which identifies the content of a part
+   * @return the offset from which the file should be transferred in the msg
+   */
+  @Override
+  public SyncStatus initSyncChunks(String filename, long length, String md5) {
+    SenderContext context =
+        senderName.get() == null ? null : senderContexts.get(senderName.get());
+    if (context == null || currentSG.get() == null) {
+      return getErrorResult(
+          String.format("Can not receive file %s out of a sync process", filename));
+    }
+    try {
+      closeCurrentFileWriter();
+      File file = new File(getSyncDataPath(), currentSG.get() + File.separatorChar + filename);
+      // the connection that dropped may still be writing the file, so its writer is closed before
+      // the received part is measured
+      FileChannel staleWriter = context.partialFileWriters.remove(file.getAbsolutePath());
+      if (staleWriter != null) {
+        staleWriter.close();
+      }
+      MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+      boolean resume = file.exists() && file.length() <= length
+          && md5.equals(context.partialFiles.get(file.getAbsolutePath()));
+      if (!resume) {
+        file.delete();
+        if (!file.getParentFile().exists()) {
+          file.getParentFile().mkdirs();
+        }
+      }
+      context.partialFiles.put(file.getAbsolutePath(), md5);
+      FileChannel writer = new FileOutputStream(file, true).getChannel();
+      context.partialFileWriters.put(file.getAbsolutePath(), writer);
+      currentFile.set(file);
+      currentFileWriter.set(writer);
+      // the received part is what is on disk, the data after it is sent again
+      long offset = writer.size();
+      if (offset > 0) {
+        // the digest of the received part is not kept, so it is computed again
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+          byte[] buffer = new byte[READ_BUFFER_SIZE];
+          long remaining = offset;
+          int readLength;
+          while (remaining > 0 && (readLength = inputStream
+              .read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            md.update(buffer, 0, readLength);
+            remaining -= readLength;
+          }
+        }
+        logger.info("Resume receiving {} from offset {}", file, offset);
+      }
+      messageDigest.set(md);
+      currentChunks.set(Collections.emptyList());
+      syncLog.get().startSyncTsFiles();
+      return new SyncStatus(SyncConstant.SUCCESS_CODE, Long.toString(offset));
+    } catch (IOException | NoSuchAlgorithmException e) {
+      logger.error("Can not init sync resource for file {}", filename, e);
+      return getErrorResult(
+          String.format("Can not init sync resource for file %s because %s", filename,
+              e.getMessage()));
+    }
+  }
+
+  @Override
+  public List<Boolean> checkChunks(List<ChunkDigest> chunks) {
+    currentChunks.set(chunks);
+    List<Boolean> existence = new ArrayList<>(chunks.size());
+    for (ChunkDigest chunk : chunks) {
+      existence.add(ReceivedChunkIndex.getInstance().contains(chunk));
+    }
+    return existence;
+  }
+
+  @Override
+  public SyncStatus syncChunkData(long offset, ByteBuffer buff, short compressionType) {
+    try {
+      SyncStatus status = checkOffset(offset);
+      if (status != null) {
+        return status;
+      }
+      CompressionType type = CompressionType.deserialize(compressionType);
+      if (type == CompressionType.UNCOMPRESSED) {
+        writeCurrentFile(buff);
+      } else {
+        byte[] compressed = new byte[buff.remaining()];
+        buff.get(compressed);
+        IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
+        byte[] data = new byte[unCompressor
+            .getUncompressedLength(compressed, 0, compressed.length)];
+        unCompressor.uncompress(compressed, 0, compressed.length, data, 0);
+        writeCurrentFile(ByteBuffer.wrap(data));
+      }
+    } catch (IOException e) {
+      logger.error("Can not sync data for file {}", currentFile.get().getAbsoluteFile(), e);
+      return getErrorResult(String
+          .format("Can not sync data for file %s because %s", currentFile.get().getName(),
+              e.getMessage()));
+    }
+    return getSuccessResult();
+  }
+
+  /**
+   * Copy a chunk that the receiver already has into the current file.
+   */
+  @Override
+  public SyncStatus syncChunkReference(ChunkDigest chunk) {
+    try {
+      SyncStatus status = checkOffset(chunk.getOffset());
+      if (status != null) {
+        return status;
+      }
+      byte[] data = ReceivedChunkIndex.getInstance().read(chunk);
+      if (data == null) {
+        return getErrorResult(String
+            .format("Can not find chunk %s of file %s on the receiver", chunk.getDigest(),
+                currentFile.get().getName()));
+      }
+      writeCurrentFile(ByteBuffer.wrap(data));
+    } catch (IOException e) {
+      logger.error("Can not sync data for file {}", currentFile.get().getAbsoluteFile(), e);
+      return getErrorResult(String
+          .format("Can not sync data for file %s because %s", currentFile.get().getName(),
+              e.getMessage()));
+    }
+    return getSuccessResult();
+  }
+
+  /**
+   * @return an error if the data does not continue the received part of the current file,
+   * otherwise null
+   */
+  private SyncStatus checkOffset(long offset) throws IOException {
+    long receivedLength = currentFileWriter.get().size();
+    if (offset != receivedLength) {
+      return getErrorResult(String
+          .format("The data of file %s is expected from offset %d, but is from %d",
+              currentFile.get().getName(), receivedLength, offset));
+    }
+    return null;
+  }
+
+  private void writeCurrentFile(ByteBuffer data) throws IOException {
+    ByteBuffer digestBuffer = data.duplicate();
+    while (data.hasRemaining()) {
+      currentFileWriter.get().write(data);
+    }
+    messageDigest.get().update(digestBuffer);
+  }
+
+  private void closeCurrentFileWriter() throws IOException {
+    if (currentFileWriter.get() != null && currentFileWriter.get().isOpen()) {
+      currentFileWriter.get().close();
+    }
+  }
+
   @Override
   public SyncStatus syncData(ByteBuffer buff) {
     try {
@@ -218,10 +433,25 @@ public class SyncServiceImpl implements SyncService.Iface {
       if (!md5OfSender.equals(md5OfReceiver)) {
         currentFile.get().delete();
         currentFileWriter.set(new FileOutputStream(currentFile.get()).getChannel());
+        SenderContext context = senderContexts.get(senderName.get());
+        if (context != null) {
+          context.partialFileWriters
+              .replace(currentFile.get().getAbsolutePath(), currentFileWriter.get());
+        }
         return getErrorResult(String
             .format("MD5 of the sender is differ from MD5 of the receiver of the file %s.",
                 currentFile.get().getAbsolutePath()));
       } else {
+        SenderContext context = senderContexts.get(senderName.get());
+        if (context != null) {
+          context.partialFiles.remove(currentFile.get().getAbsolutePath());
+          context.partialFileWriters.remove(currentFile.get().getAbsolutePath());
+        }
+        List<ChunkDigest> chunks = currentChunks.get();
+        if (chunks != null && !chunks.isEmpty()) {
+          ReceivedChunkIndex.getInstance().addChunks(currentFile.get(), chunks);
+        }
+        currentChunks.remove();
         if (currentFile.get().getName().endsWith(MetadataConstant.METADATA_LOG)) {
           loadMetadata();
         } else {
@@ -282,6 +512,7 @@ public class SyncServiceImpl implements SyncService.Iface {
         return getErrorResult(
             String.format("File Loader of the storage group %s is null", currentSG.get()));
       }
+      senderContexts.remove(senderName.get());
       logger.info("Sync process with sender {} finished.", senderName.get());
     } catch (IOException e) {
       logger.error("Can not end sync", e);
@@ -302,4 +533,27 @@ public class SyncServiceImpl implements SyncService.Iface {
     return new SyncStatus(SyncConstant.ERROR_CODE, errorMsg);
   }
 
+  private static class SenderContext {
+
+    private String syncFolderPath;
+
+    private SyncReceiverLogger syncLog;
+
+    /**
+     * path -> MD5 of the whole content, of the files that are partially received
+     */
+    private Map<String, String> partialFiles = new ConcurrentHashMap<>();
+
+    /**
+     * path -> the writer of the connection that receives the file, which is closed when another
+     * connection resumes the file
+     */
+    private Map<String, FileChannel> partialFileWriters = new ConcurrentHashMap<>();
+
+    private SenderContext(String syncFolderPath, SyncReceiverLogger syncLog) {
+      this.syncFolderPath = syncFolderPath;
+      this.syncLog = syncLog;
+    }
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.sender.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.service.sync.thrift.ChunkDigest;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Split a file into the pieces transferred by the sync client. A tsfile is split at the
+ * boundaries of its chunks, so that a chunk copied unchanged into another file, e.g., by a merge,
+ * can be found by its digest on the receiver. Other files are split into pieces of a fixed size.
+ */
+class FileChunkSplitter {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileChunkSplitter.class);
+
+  private FileChunkSplitter() {
+  }
+
+  /**
+   * @param fileDigest updated with the whole content of the file
+   * @return the pieces of the file in the order of their offsets
+   */
+  static List<ChunkDigest> split(File file, MessageDigest fileDigest)
+      throws IOException, NoSuchAlgorithmException {
+    TreeSet<Long> boundaries = new TreeSet<>();
+    boundaries.add(0L);
+    boundaries.add(file.length());
+    if (file.getName().endsWith(TsFileConstant.TSFILE_SUFFIX)) {
+      addChunkBoundaries(file, boundaries);
+    }
+
+    List<ChunkDigest> chunks = new ArrayList<>();
+    MessageDigest chunkDigest = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    byte[] buffer = new byte[0];
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+      Iterator<Long> iterator = boundaries.iterator();
+      long start = iterator.next();
+      while (iterator.hasNext()) {
+        long end = iterator.next();
+        // a piece is never larger than a transmission
+        while (start < end) {
+          int length = (int) Math.min(end - start, SyncConstant.DATA_CHUNK_SIZE);
+          if (buffer.length < length) {
+            buffer = new byte[length];
+          }
+          readFully(inputStream, buffer, length);
+          chunkDigest.reset();
+          chunkDigest.update(buffer, 0, length);
+          fileDigest.update(buffer, 0, length);
+          chunks.add(new ChunkDigest(start, length,
+              new BigInteger(1, chunkDigest.digest()).toString(16)));
+          start += length;
+        }
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Add the start and the end of each chunk of the tsfile. If the tsfile cannot be read, it is
+   * split like other files.
+   */
+  private static void addChunkBoundaries(File file, TreeSet<Long> boundaries) {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getAbsolutePath())) {
+      for (ChunkGroupMetaData chunkGroupMetaData : reader
+          .getSortedChunkGroupMetaDataListByDeviceIds()) {
+        for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+          long offset = chunkMetaData.getOffsetOfChunkHeader();
+          reader.position(offset);
+          reader.readMarker();
+          ChunkHeader header = reader.readChunkHeader();
+          long end = reader.position() + header.getDataSize();
+          if (end > file.length()) {
+            throw new IOException("The chunk at " + offset + " exceeds the file");
+          }
+          boundaries.add(offset);
+          boundaries.add(end);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Cannot read the chunks of {}, split it into pieces of a fixed size", file, e);
+      boundaries.retainAll(Arrays.asList(0L, file.length()));
+    }
+  }
+
+  private static void readFully(InputStream inputStream, byte[] buffer, int length)
+      throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      int readLength = inputStream.read(buffer, offset, length - offset);
+      if (readLength == -1) {
+        throw new IOException("The file is shorter than expected");
+      }
+      offset += readLength;
+    }
+  }
+}
@@ -25,7 +25,6 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -40,6 +39,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,8 +48,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
@@ -67,8 +74,11 @@ import org.apache.iotdb.db.sync.sender.recover.ISyncSenderLogger;
 import org.apache.iotdb.db.sync.sender.recover.SyncSenderLogAnalyzer;
 import org.apache.iotdb.db.sync.sender.recover.SyncSenderLogger;
 import org.apache.iotdb.db.utils.SyncUtils;
+import org.apache.iotdb.service.sync.thrift.ChunkDigest;
 import org.apache.iotdb.service.sync.thrift.SyncService;
 import org.apache.iotdb.service.sync.thrift.SyncStatus;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
@@ -121,6 +131,19 @@ public class SyncClient implements ISyncClient {
 
   private ScheduledExecutorService executorService;
 
+  /**
+   * Transfer the files of a storage group in parallel.
+   */
+  private ExecutorService transferExecutorService;
+
+  /**
+   * The address and the uuid that identify this sender to the receiver, so that more connections
+   * can join the sync process.
+   */
+  private String localAddress;
+
+  private String uuid;
+
   private SyncClient() {
     init();
   }
@@ -188,6 +211,10 @@ public class SyncClient implements ISyncClient {
       executorService = IoTDBThreadPoolFactory.newScheduledThreadPool(2,
           "sync-client-timer");
     }
+    if (transferExecutorService == null) {
+      transferExecutorService = IoTDBThreadPoolFactory
+          .newFixedThreadPool(config.getSyncParallelism(), "sync-client-transfer");
+    }
   }
 
   @Override
@@ -214,6 +241,8 @@ public class SyncClient implements ISyncClient {
   public void stop() {
     executorService.shutdownNow();
     executorService = null;
+    transferExecutorService.shutdownNow();
+    transferExecutorService = null;
   }
 
   @Override
@@ -285,8 +314,9 @@ public class SyncClient implements ISyncClient {
   @Override
   public void confirmIdentity() throws SyncConnectionException {
     try (Socket socket = new Socket(config.getServerIp(), config.getServerPort())){
-      SyncStatus status = serviceClient
-          .check(socket.getLocalAddress().getHostAddress(), getOrCreateUUID(getUuidFile()));
+      localAddress = socket.getLocalAddress().getHostAddress();
+      uuid = getOrCreateUUID(getUuidFile());
+      SyncStatus status = serviceClient.check(localAddress, uuid);
       if (status.code != SUCCESS_CODE) {
         throw new SyncConnectionException(
             "The receiver rejected the synchronization task because " + status.msg);
@@ -527,24 +557,93 @@ public class SyncClient implements ISyncClient {
     }
     syncLog.startSyncTsFiles();
     logger.info("Sync process starts to transfer data of storage group {}", sgName);
-    int cnt = 0;
-    for (File tsfile : toBeSyncFiles) {
-      cnt++;
+    // each file is transferred through one of the connections, which are shared by the files
+    BlockingQueue<SyncConnection> connections = new LinkedBlockingQueue<>();
+    try {
+      for (int i = 0; i < Math.min(config.getSyncParallelism(), toBeSyncFiles.size()); i++) {
+        connections.add(new SyncConnection(config.getServerIp(), config.getServerPort(),
+            localAddress, uuid, sgName));
+      }
+      AtomicInteger cnt = new AtomicInteger();
+      // once a device owner conflicts, the other files of the storage group are skipped
+      AtomicBoolean conflicted = new AtomicBoolean(false);
+      List<Future<Void>> futures = new ArrayList<>();
+      for (File tsfile : toBeSyncFiles) {
+        futures.add(transferExecutorService.submit(() -> {
+          if (conflicted.get()) {
+            return null;
+          }
+          SyncConnection connection = connections.take();
+          try {
+            syncTsFile(connection, sgName, timeRangeId, tsfile);
+            logger.info("Task of synchronization has completed {}/{}.", cnt.incrementAndGet(),
+                toBeSyncFiles.size());
+          } catch (SyncDeviceOwnerConflictException e) {
+            conflicted.set(true);
+            throw e;
+          } finally {
+            connections.add(connection);
+          }
+          return null;
+        }));
+      }
+      waitForTransfers(futures);
+    } finally {
+      connections.forEach(SyncConnection::close);
+    }
+    logger.info("Sync process has finished storage group {}.", sgName);
+  }
+
+  /**
+   * Wait for all the transfers to end, and throw the first device owner conflict, or else the
+   * first failure.
+   */
+  private void waitForTransfers(List<Future<Void>> futures)
+      throws SyncConnectionException, SyncDeviceOwnerConflictException {
+    SyncDeviceOwnerConflictException conflict = null;
+    SyncConnectionException failure = null;
+    for (Future<Void> future : futures) {
       try {
-        File snapshotFile = makeFileSnapshot(tsfile);
-        // firstly sync .resource file, then sync tsfile
-        syncSingleFile(new File(snapshotFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX));
-        syncSingleFile(snapshotFile);
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        throw new SyncConnectionException("Interrupted while transferring files.", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SyncDeviceOwnerConflictException) {
+          conflict = conflict == null ? (SyncDeviceOwnerConflictException) cause : conflict;
+        } else if (failure == null) {
+          failure = cause instanceof SyncConnectionException ? (SyncConnectionException) cause
+              : new SyncConnectionException("Cannot sync data with receiver.", cause);
+        }
+      }
+    }
+    if (conflict != null) {
+      throw conflict;
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void syncTsFile(SyncConnection connection, String sgName, Long timeRangeId,
+      File tsfile) throws SyncConnectionException, SyncDeviceOwnerConflictException {
+    try {
+      File snapshotFile = makeFileSnapshot(tsfile);
+      // firstly sync .resource file, then sync tsfile
+      syncSingleFile(connection,
+          new File(snapshotFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX));
+      syncSingleFile(connection, snapshotFile);
+      synchronized (this) {
         lastLocalFilesMap.get(sgName).get(timeRangeId).add(tsfile);
         syncLog.finishSyncTsfile(tsfile);
-        logger.info("Task of synchronization has completed {}/{}.", cnt, toBeSyncFiles.size());
-      } catch (IOException e) {
-        logger.info(
-            "Tsfile {} can not make snapshot, so skip the tsfile and continue to sync other tsfiles",
-            tsfile, e);
       }
+    } catch (IOException e) {
+      logger.info(
+          "Tsfile {} can not make snapshot, so skip the tsfile and continue to sync other tsfiles",
+          tsfile, e);
     }
-    logger.info("Sync process has finished storage group {}.", sgName);
   }
 
   /**
@@ -569,15 +668,16 @@ public class SyncClient implements ISyncClient {
   }
 
   /**
-   * Transfer data of a tsfile to the receiver.
+   * Transfer data of a tsfile to the receiver. Only the chunks that the receiver does not have are
+   * sent, and the transfer resumes from where it stops if the connection drops.
    */
-  private void syncSingleFile(File snapshotFile)
+  private void syncSingleFile(SyncConnection connection, File snapshotFile)
       throws SyncConnectionException, SyncDeviceOwnerConflictException {
     try {
-      int retryCount = 0;
       MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
-      serviceClient.initSyncData(snapshotFile.getName());
-      outer:
+      List<ChunkDigest> chunks = FileChunkSplitter.split(snapshotFile, md);
+      String md5OfSender = (new BigInteger(1, md.digest())).toString(16);
+      int retryCount = 0;
       while (true) {
         retryCount++;
         if (retryCount > config.getMaxNumOfSyncFileRetry()) {
@@ -585,36 +685,16 @@ public class SyncClient implements ISyncClient {
               .format("Can not sync file %s after %s tries.", snapshotFile.getAbsoluteFile(),
                   config.getMaxNumOfSyncFileRetry()));
         }
-        md.reset();
-        byte[] buffer = new byte[SyncConstant.DATA_CHUNK_SIZE];
-        int dataLength;
-        try (FileInputStream fis = new FileInputStream(snapshotFile);
-            ByteArrayOutputStream bos = new ByteArrayOutputStream(SyncConstant.DATA_CHUNK_SIZE)) {
-          while ((dataLength = fis.read(buffer)) != -1) { // cut the file into pieces to send
-            bos.write(buffer, 0, dataLength);
-            md.update(buffer, 0, dataLength);
-            ByteBuffer buffToSend = ByteBuffer.wrap(bos.toByteArray());
-            bos.reset();
-            SyncStatus status = serviceClient.syncData(buffToSend);
-            if(status.code == CONFLICT_CODE){
-              throw new SyncDeviceOwnerConflictException(status.msg);
-            }
-            if (status.code != SUCCESS_CODE) {
-              logger.info("Receiver failed to receive data from {} because {}, retry.",
-                  status.msg, snapshotFile.getAbsoluteFile());
-              continue outer;
-            }
+        try {
+          if (tryToSyncSingleFile(connection.getServiceClient(), snapshotFile, chunks,
+              md5OfSender)) {
+            logger.info("Receiver has received {} successfully.", snapshotFile.getAbsoluteFile());
+            break;
           }
-        }
-
-        // the file is sent successfully
-        String md5OfSender = (new BigInteger(1, md.digest())).toString(16);
-        SyncStatus status = serviceClient.checkDataMD5(md5OfSender);
-        if (status.code == SUCCESS_CODE && md5OfSender.equals(status.msg)) {
-          logger.info("Receiver has received {} successfully.", snapshotFile.getAbsoluteFile());
-          break;
-        } else {
-          logger.error("MD5 check of tsfile {} failed, retry", snapshotFile.getAbsoluteFile());
+        } catch (TTransportException e) {
+          logger.info("Connection dropped when syncing {}, reconnect and resume.",
+              snapshotFile.getAbsoluteFile(), e);
+          connection.reconnect();
         }
       }
     } catch (IOException | TException | NoSuchAlgorithmException e) {
@@ -622,6 +702,77 @@ public class SyncClient implements ISyncClient {
     }
   }
 
+  /**
+   * @return true if the receiver has received the file correctly
+   */
+  private boolean tryToSyncSingleFile(SyncService.Client client, File snapshotFile,
+      List<ChunkDigest> chunks, String md5OfSender)
+      throws IOException, TException, SyncDeviceOwnerConflictException {
+    SyncStatus status = client
+        .initSyncChunks(snapshotFile.getName(), snapshotFile.length(), md5OfSender);
+    if (status.code != SUCCESS_CODE) {
+      logger.info("Receiver failed to init the transfer of {} because {}, retry.",
+          snapshotFile.getAbsoluteFile(), status.msg);
+      return false;
+    }
+    // the receiver has the data before the offset
+    long offset = Long.parseLong(status.msg);
+    List<Boolean> existence = client.checkChunks(chunks);
+    try (RandomAccessFile input = new RandomAccessFile(snapshotFile, "r")) {
+      for (int i = 0; i < chunks.size(); i++) {
+        ChunkDigest chunk = chunks.get(i);
+        long chunkEnd = chunk.getOffset() + chunk.getLength();
+        if (chunkEnd <= offset) {
+          continue;
+        }
+        if (chunk.getOffset() >= offset && existence.get(i)) {
+          status = client.syncChunkReference(chunk);
+          if (status.code == SUCCESS_CODE) {
+            continue;
+          }
+          // the chunk is gone on the receiver, so send its data instead
+          logger.debug("Receiver cannot copy chunk {} of {} because {}", chunk.getDigest(),
+              snapshotFile.getAbsoluteFile(), status.msg);
+        }
+        long start = Math.max(chunk.getOffset(), offset);
+        byte[] data = new byte[(int) (chunkEnd - start)];
+        input.seek(start);
+        input.readFully(data);
+        status = sendChunkData(client, start, data);
+        if (status.code != SUCCESS_CODE) {
+          logger.info("Receiver failed to receive data from {} because {}, retry.",
+              snapshotFile.getAbsoluteFile(), status.msg);
+          return false;
+        }
+      }
+    }
+
+    // the file is sent successfully
+    status = client.checkDataMD5(md5OfSender);
+    if (status.code == CONFLICT_CODE) {
+      throw new SyncDeviceOwnerConflictException(status.msg);
+    }
+    if (status.code == SUCCESS_CODE && md5OfSender.equals(status.msg)) {
+      return true;
+    }
+    logger.error("MD5 check of tsfile {} failed, retry", snapshotFile.getAbsoluteFile());
+    return false;
+  }
+
+  private SyncStatus sendChunkData(SyncService.Client client, long offset, byte[] data)
+      throws IOException, TException {
+    if (config.isCompressSyncData()) {
+      byte[] compressed = ICompressor.getCompressor(SyncConstant.DATA_COMPRESSION).compress(data);
+      // incompressible data is sent as it is
+      if (compressed.length < data.length) {
+        return client.syncChunkData(offset, ByteBuffer.wrap(compressed),
+            SyncConstant.DATA_COMPRESSION.serialize());
+      }
+    }
+    return client.syncChunkData(offset, ByteBuffer.wrap(data),
+        CompressionType.UNCOMPRESSED.serialize());
+  }
+
   private void endSync() throws IOException {
     File currentLocalFile = getCurrentLogFile();
     File lastLocalFile = new File(config.getLastFileInfoPath());
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.sender.transfer;
+
+import static org.apache.iotdb.db.sync.conf.SyncConstant.SUCCESS_CODE;
+
+import org.apache.iotdb.db.exception.SyncConnectionException;
+import org.apache.iotdb.service.sync.thrift.SyncService;
+import org.apache.iotdb.service.sync.thrift.SyncStatus;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+
+/**
+ * A connection that joins the sync process of the sender on the receiver to transfer the files of
+ * a storage group. When it drops, it can be connected again to resume the transfer.
+ */
+class SyncConnection {
+
+  private String serverIp;
+
+  private int serverPort;
+
+  private String address;
+
+  private String uuid;
+
+  private String storageGroup;
+
+  private TTransport transport;
+
+  private SyncService.Client serviceClient;
+
+  SyncConnection(String serverIp, int serverPort, String address, String uuid,
+      String storageGroup) throws SyncConnectionException {
+    this.serverIp = serverIp;
+    this.serverPort = serverPort;
+    this.address = address;
+    this.uuid = uuid;
+    this.storageGroup = storageGroup;
+    connect();
+  }
+
+  SyncService.Client getServiceClient() {
+    return serviceClient;
+  }
+
+  void reconnect() throws SyncConnectionException {
+    close();
+    connect();
+  }
+
+  private void connect() throws SyncConnectionException {
+    transport = new TSocket(serverIp, serverPort);
+    serviceClient = new SyncService.Client(new TBinaryProtocol(transport));
+    try {
+      transport.open();
+      SyncStatus status = serviceClient.joinSync(address, uuid, storageGroup);
+      if (status.code != SUCCESS_CODE) {
+        throw new SyncConnectionException(
+            "The receiver rejected the connection because " + status.msg);
+      }
+    } catch (TException e) {
+      close();
+      throw new SyncConnectionException("Cannot connect to the receiver.", e);
+    } catch (SyncConnectionException e) {
+      close();
+      throw e;
+    }
+  }
+
+  void close() {
+    if (transport != null && transport.isOpen()) {
+      transport.close();
+    }
+  }
+}
@@ -159,6 +159,11 @@ public class TsFileSketchTool {
             "|\t\t" + tsDeviceMetadata.getChunkGroupMetaDataList().size() + " ChunkGroupMetaData");
       }
 
+      if (tsFileMetaData.hasMetadataIndex()) {
+        printlnBoth(pw, String.format("%20s", tsFileMetaData.getMetadataIndexOffset())
+            + "|\t[MetadataIndexNode] root of the device index, size:" + tsFileMetaData
+            .getMetadataIndexLen());
+      }
       printlnBoth(pw, String.format("%20s", reader.getFileMetadataPos()) + "|\t[TsFileMetaData]");
       printlnBoth(pw,
           String.format("%20s", "") + "|\t\t[num of devices] " + tsFileMetaData
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A concurrent map that iterates its entries in their insertion order like a LinkedHashMap. Reads
+ * are lock-free on a ConcurrentHashMap, insertions and removals are serialized, and the iterators
+ * are weakly consistent like those of ConcurrentHashMap. Null keys and values are not allowed.
+ * <p>
+ * Removing a key takes time linear to the size, as removals are expected to be rare.
+ */
+public class ConcurrentLinkedMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+  private static final long serialVersionUID = 4217329563727245516L;
+
+  private final Map<K, V> map = new ConcurrentHashMap<>();
+  // the keys in their insertion order
+  private final ConcurrentLinkedQueue<K> keys = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public V get(Object key) {
+    return map.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  @Override
+  public synchronized V put(K key, V value) {
+    V oldValue = map.put(key, value);
+    if (oldValue == null) {
+      keys.add(key);
+    }
+    return oldValue;
+  }
+
+  @Override
+  public synchronized V remove(Object key) {
+    V oldValue = map.remove(key);
+    if (oldValue != null) {
+      keys.remove(key);
+    }
+    return oldValue;
+  }
+
+  @Override
+  public synchronized void clear() {
+    map.clear();
+    keys.clear();
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return map.size();
+      }
+    };
+  }
+
+  private class EntryIterator implements Iterator<Entry<K, V>> {
+
+    private final Iterator<K> keyIterator = keys.iterator();
+    private Entry<K, V> nextEntry;
+    private K lastKey;
+
+    @Override
+    public boolean hasNext() {
+      // skip the keys removed after the iterator is created
+      while (nextEntry == null && keyIterator.hasNext()) {
+        K key = keyIterator.next();
+        V value = map.get(key);
+        if (value != null) {
+          nextEntry = new SimpleImmutableEntry<>(key, value);
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> entry = nextEntry;
+      nextEntry = null;
+      lastKey = entry.getKey();
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      ConcurrentLinkedMap.this.remove(lastKey);
+      lastKey = null;
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.utils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
@@ -95,6 +96,29 @@ public class MemUtils {
     return memSize;
   }
 
+  /**
+   * function for getting the size of a point of the given type read in query, the value of a TEXT
+   * point is estimated as a reference and a short array.
+   */
+  public static long getPointSize(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+        return 8L + 4L;
+      case INT64:
+        return 8L + 8L;
+      case FLOAT:
+        return 8L + 4L;
+      case DOUBLE:
+        return 8L + 8L;
+      case BOOLEAN:
+        return 8L + 1L;
+      case TEXT:
+        return 8L + 8L + 20L + 16L;
+      default:
+        return 8L + 8L;
+    }
+  }
+
   /**
    * Calculate how much memory will be used if the given record is written to sequence file.
    */
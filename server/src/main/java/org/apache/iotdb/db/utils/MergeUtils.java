@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
+import org.apache.iotdb.db.engine.merge.manage.MergeIOLimiter;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -223,6 +224,7 @@ public class MergeUtils {
       MetaListEntry metaListEntry = chunkMetaHeap.poll();
       ChunkMetaData currMeta = metaListEntry.current();
       Chunk chunk = tsFileReader.readMemChunk(currMeta);
+      MergeIOLimiter.getInstance().acquireRead(getChunkSize(chunk));
       ret[metaListEntry.pathId].add(chunk);
       if (metaListEntry.hasNext()) {
         metaListEntry.next();
@@ -231,6 +233,13 @@ public class MergeUtils {
     }
   }
 
+  /**
+   * @return the size of the chunk in the file, including its header
+   */
+  public static long getChunkSize(Chunk chunk) {
+    return (long) chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+  }
+
   public static boolean isChunkOverflowed(TimeValuePair timeValuePair, ChunkMetaData metaData) {
     return timeValuePair != null
         && timeValuePair.getTimestamp() < metaData.getEndTime();
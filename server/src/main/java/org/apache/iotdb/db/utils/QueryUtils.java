@@ -19,10 +19,13 @@
 
 package org.apache.iotdb.db.utils;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
 
 public class QueryUtils {
 
@@ -30,9 +33,23 @@ public class QueryUtils {
     // util class
   }
 
+  /**
+   * copy a chunkMetaData list that may be shared (e.g., by DeviceMetaDataCache), both the list
+   * and its elements can be modified without affecting the original ones.
+   */
+  public static List<ChunkMetaData> copyChunkMetaData(List<ChunkMetaData> chunkMetaData) {
+    List<ChunkMetaData> copy = new ArrayList<>(chunkMetaData.size());
+    for (ChunkMetaData metaData : chunkMetaData) {
+      copy.add(metaData.copy());
+    }
+    return copy;
+  }
+
   /**
    * modifyChunkMetaData iterates the chunkMetaData and applies all available modifications on it to
-   * generate a ModifiedChunkMetadata.
+   * generate a ModifiedChunkMetadata. The deletions from the beginning are merged into the deletedAt
+   * of a chunk, and the other deletions overlapping the chunk are merged into its
+   * deleteIntervalList. The chunks that are completely deleted are removed.
    * <br/>
    * the caller should guarantee that chunkMetaData and modifications refer to the same time series
    * paths.
@@ -41,36 +58,82 @@ public class QueryUtils {
    */
   public static void modifyChunkMetaData(List<ChunkMetaData> chunkMetaData,
                                          List<Modification> modifications) {
-    int modIndex = 0;
-
-    for (int metaIndex = 0; metaIndex < chunkMetaData.size(); metaIndex++) {
-      ChunkMetaData metaData = chunkMetaData.get(metaIndex);
-      for (int j = modIndex; j < modifications.size(); j++) {
-        // iterate each modification to find the max deletion time
-        Modification modification = modifications.get(j);
-        if (modification.getVersionNum() > metaData.getVersion()) {
-          // this modification is after the Chunk, try modifying the chunk
-          // if this modification succeeds, update modIndex so in the next loop the previous
-          // modifications will not be examined
-          modIndex = doModifyChunkMetaData(modification, metaData)? j : modIndex;
-        } else {
-          // skip old modifications for next metadata
-          modIndex++;
+    if (modifications.isEmpty()) {
+      return;
+    }
+    for (ChunkMetaData metaData : chunkMetaData) {
+      List<TimeRange> deleteIntervals = null;
+      for (Modification modification : modifications) {
+        // only the modifications after the chunk apply to it
+        if (!(modification instanceof Deletion)
+            || modification.getVersionNum() <= metaData.getVersion()) {
+          continue;
+        }
+        Deletion deletion = (Deletion) modification;
+        if (deletion.isFromBeginning()) {
+          if (metaData.getDeletedAt() < deletion.getEndTime()) {
+            metaData.setDeletedAt(deletion.getEndTime());
+          }
+        } else if (deletion.getStartTime() <= metaData.getEndTime()
+            && deletion.getEndTime() >= metaData.getStartTime()) {
+          if (deleteIntervals == null) {
+            deleteIntervals = new ArrayList<>();
+          }
+          deleteIntervals.add(new TimeRange(deletion.getStartTime(), deletion.getEndTime()));
         }
       }
+      if (deleteIntervals != null) {
+        metaData.setDeleteIntervalList(sortAndMergeDeleteIntervals(deleteIntervals));
+      }
     }
     // remove chunks that are completely deleted
-    chunkMetaData.removeIf(metaData -> metaData.getDeletedAt() >= metaData.getEndTime());
+    chunkMetaData.removeIf(QueryUtils::isChunkDeleted);
   }
 
-  private static boolean doModifyChunkMetaData(Modification modification, ChunkMetaData metaData) {
-    if (modification instanceof Deletion) {
-      Deletion deletion = (Deletion) modification;
-      if (metaData.getDeletedAt() < deletion.getTimestamp()) {
-        metaData.setDeletedAt(deletion.getTimestamp());
+  /**
+   * @return true if all data of the chunk, according to its statistics, are deleted
+   */
+  private static boolean isChunkDeleted(ChunkMetaData metaData) {
+    if (metaData.getDeletedAt() >= metaData.getEndTime()) {
+      return true;
+    }
+    List<TimeRange> deleteIntervals = metaData.getDeleteIntervalList();
+    if (deleteIntervals == null) {
+      return false;
+    }
+    // the data before deletedAt are deleted already
+    long undeletedStartTime = Math.max(metaData.getStartTime(), metaData.getDeletedAt() + 1);
+    for (TimeRange range : deleteIntervals) {
+      if (range.getMin() <= undeletedStartTime && range.getMax() >= metaData.getEndTime()) {
         return true;
       }
     }
     return false;
   }
+
+  /**
+   * Sort the closed time ranges of deletions by their start times and merge the overlapping or
+   * adjacent ones, as the readers require the ranges to be sorted and disjoint.
+   *
+   * @param deleteIntervals the ranges to be merged, which may be sorted in place
+   * @return the sorted and disjoint ranges
+   */
+  public static List<TimeRange> sortAndMergeDeleteIntervals(List<TimeRange> deleteIntervals) {
+    deleteIntervals.sort(Comparator.comparingLong(TimeRange::getMin));
+    List<TimeRange> mergedIntervals = new ArrayList<>();
+    TimeRange current = null;
+    for (TimeRange range : deleteIntervals) {
+      if (current != null && (range.getMin() <= current.getMax()
+          || range.getMin() - 1 == current.getMax())) {
+        if (range.getMax() > current.getMax()) {
+          current = new TimeRange(current.getMin(), range.getMax());
+          mergedIntervals.set(mergedIntervals.size() - 1, current);
+        }
+      } else {
+        current = range;
+        mergedIntervals.add(current);
+      }
+    }
+    return mergedIntervals;
+  }
 }
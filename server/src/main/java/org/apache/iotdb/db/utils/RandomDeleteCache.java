@@ -45,7 +45,7 @@ public abstract class RandomDeleteCache<K, V> implements Cache<K, V> {
   }
 
   private void randomRemoveObjectIfCacheIsFull() throws CacheException {
-    if (cache.size() == this.cacheSize) {
+    if (cache.size() >= this.cacheSize) {
       removeFirstObject();
     }
   }
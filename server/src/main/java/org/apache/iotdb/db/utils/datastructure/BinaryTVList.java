@@ -83,6 +83,24 @@ public class BinaryTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public BinaryTVList getSnapshot() {
+    BinaryTVList snapshot = new BinaryTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValuesOnWrite() {
+    for (int i = 0; i < values.size(); i++) {
+      Binary[] copy = (Binary[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.TEXT);
+      System.arraycopy(values.get(i), 0, copy, 0, ARRAY_SIZE);
+      values.set(i, copy);
+    }
+  }
+
   private Binary[] cloneValue(Binary[] array) {
     Binary[] cloneArray = new Binary[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -90,6 +108,10 @@ public class BinaryTVList extends TVList {
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyOnWrite();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -107,8 +129,10 @@ public class BinaryTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (Binary[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (Binary[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
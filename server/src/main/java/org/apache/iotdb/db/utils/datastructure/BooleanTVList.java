@@ -82,6 +82,24 @@ public class BooleanTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public BooleanTVList getSnapshot() {
+    BooleanTVList snapshot = new BooleanTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValuesOnWrite() {
+    for (int i = 0; i < values.size(); i++) {
+      boolean[] copy = (boolean[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.BOOLEAN);
+      System.arraycopy(values.get(i), 0, copy, 0, ARRAY_SIZE);
+      values.set(i, copy);
+    }
+  }
+
   private boolean[] cloneValue(boolean[] array) {
     boolean[] cloneArray = new boolean[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -89,6 +107,10 @@ public class BooleanTVList extends TVList {
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyOnWrite();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -106,8 +128,10 @@ public class BooleanTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (boolean[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (boolean[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
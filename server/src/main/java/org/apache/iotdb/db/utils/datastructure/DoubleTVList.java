@@ -82,6 +82,24 @@ public class DoubleTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public DoubleTVList getSnapshot() {
+    DoubleTVList snapshot = new DoubleTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValuesOnWrite() {
+    for (int i = 0; i < values.size(); i++) {
+      double[] copy = (double[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.DOUBLE);
+      System.arraycopy(values.get(i), 0, copy, 0, ARRAY_SIZE);
+      values.set(i, copy);
+    }
+  }
+
   private double[] cloneValue(double[] array) {
     double[] cloneArray = new double[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -89,6 +107,10 @@ public class DoubleTVList extends TVList {
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyOnWrite();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -106,8 +128,10 @@ public class DoubleTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (double[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (double[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
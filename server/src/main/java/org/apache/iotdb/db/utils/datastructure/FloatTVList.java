@@ -82,6 +82,24 @@ public class FloatTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public FloatTVList getSnapshot() {
+    FloatTVList snapshot = new FloatTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValuesOnWrite() {
+    for (int i = 0; i < values.size(); i++) {
+      float[] copy = (float[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.FLOAT);
+      System.arraycopy(values.get(i), 0, copy, 0, ARRAY_SIZE);
+      values.set(i, copy);
+    }
+  }
+
   private float[] cloneValue(float[] array) {
     float[] cloneArray = new float[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -89,6 +107,10 @@ public class FloatTVList extends TVList {
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyOnWrite();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -106,8 +128,10 @@ public class FloatTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (float[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (float[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
@@ -82,6 +82,24 @@ public class IntTVList extends TVList {
     return cloneList;
   }
 
+  @Override
+  public IntTVList getSnapshot() {
+    IntTVList snapshot = new IntTVList();
+    snapshotAs(snapshot);
+    snapshot.values.addAll(values);
+    return snapshot;
+  }
+
+  @Override
+  protected void copyValuesOnWrite() {
+    for (int i = 0; i < values.size(); i++) {
+      int[] copy = (int[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.INT32);
+      System.arraycopy(values.get(i), 0, copy, 0, ARRAY_SIZE);
+      values.set(i, copy);
+    }
+  }
+
   private int[] cloneValue(int[] array) {
     int[] cloneArray = new int[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -89,6 +107,10 @@ public class IntTVList extends TVList {
   }
 
   public void sort() {
+    if (sorted) {
+      return;
+    }
+    copyOnWrite();
     if (sortedTimestamps == null || sortedTimestamps.length < size) {
       sortedTimestamps = (long[][]) PrimitiveArrayPool
           .getInstance().getDataListsByType(TSDataType.INT64, size);
@@ -106,8 +128,10 @@ public class IntTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (int[] dataArray : values) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (int[] dataArray : values) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       values.clear();
     }
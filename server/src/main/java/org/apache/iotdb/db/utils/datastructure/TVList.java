@@ -23,6 +23,7 @@ import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.ARRAY_SIZE;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.rescon.PrimitiveArrayPool;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -45,6 +46,19 @@ public abstract class TVList {
    */
   private long timeOffset = Long.MIN_VALUE;
 
+  /**
+   * the reference count of the snapshots sharing the primitive arrays of this list, or the one
+   * this snapshot holds. Shared arrays must be copied before they are modified in place and must
+   * not be put back into the PrimitiveArrayPool, otherwise the snapshot would see data it does not
+   * own. Once all snapshots are released, the arrays are owned by this list again.
+   */
+  private AtomicInteger snapshotRefCount;
+
+  /**
+   * whether this list is a snapshot, which never owns its primitive arrays.
+   */
+  private boolean isSnapshot = false;
+
   protected long pivotTime;
 
   protected long minTime;
@@ -182,6 +196,64 @@ public abstract class TVList {
 
   public abstract TVList clone();
 
+  /**
+   * Get a read-only snapshot of the current content of this list. Instead of copying the data,
+   * the snapshot shares the primitive arrays with this list, which is safe because appending only
+   * writes positions beyond the size of the snapshot, and the arrays will be copied (copy-on-write)
+   * before they are sorted or deleted in place. The snapshot must never be modified.
+   */
+  public abstract TVList getSnapshot();
+
+  protected void snapshotAs(TVList snapshot) {
+    snapshot.timestamps.addAll(timestamps);
+    snapshot.size = size;
+    snapshot.sorted = sorted;
+    snapshot.minTime = minTime;
+    snapshot.timeOffset = timeOffset;
+    if (snapshotRefCount == null) {
+      snapshotRefCount = new AtomicInteger();
+    }
+    snapshotRefCount.incrementAndGet();
+    snapshot.snapshotRefCount = snapshotRefCount;
+    snapshot.isSnapshot = true;
+  }
+
+  /**
+   * Release this snapshot, so that the list it was taken from can modify the shared arrays in
+   * place again once all of its snapshots are released. Calling it more than once has no effect.
+   */
+  public void releaseSnapshot() {
+    if (isSnapshot && snapshotRefCount != null) {
+      snapshotRefCount.decrementAndGet();
+      snapshotRefCount = null;
+    }
+  }
+
+  protected boolean isShared() {
+    return isSnapshot || (snapshotRefCount != null && snapshotRefCount.get() > 0);
+  }
+
+  /**
+   * Replace the primitive arrays with private copies if they are shared with any snapshot. Must
+   * be called before the existing data is modified in place.
+   */
+  protected void copyOnWrite() {
+    if (!isShared()) {
+      return;
+    }
+    for (int i = 0; i < timestamps.size(); i++) {
+      long[] copy = (long[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.INT64);
+      System.arraycopy(timestamps.get(i), 0, copy, 0, ARRAY_SIZE);
+      timestamps.set(i, copy);
+    }
+    copyValuesOnWrite();
+    // the snapshots taken so far keep the old arrays, and release a count no longer used
+    snapshotRefCount = null;
+  }
+
+  protected abstract void copyValuesOnWrite();
+
   protected abstract void releaseLastValueArray();
 
   protected void releaseLastTimeArray() {
@@ -189,11 +261,19 @@ public abstract class TVList {
   }
 
   public void delete(long upperBound) {
+    delete(Long.MIN_VALUE, upperBound);
+  }
+
+  /**
+   * delete the points whose timestamps are in [lowerBound, upperBound] in place.
+   */
+  public void delete(long lowerBound, long upperBound) {
+    copyOnWrite();
     int newSize = 0;
     minTime = Long.MAX_VALUE;
     for (int i = 0; i < size; i++) {
       long time = getTime(i);
-      if (time > upperBound) {
+      if (time < lowerBound || time > upperBound) {
         set(i, newSize++);
         minTime = time < minTime ? time : minTime;
       }
@@ -229,12 +309,16 @@ public abstract class TVList {
 
     clearValue();
     clearSortedValue();
+    releaseSnapshot();
+    snapshotRefCount = null;
   }
 
   protected void clearTime() {
     if (timestamps != null) {
-      for (long[] dataArray : timestamps) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+      if (!isShared()) {
+        for (long[] dataArray : timestamps) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       timestamps.clear();
     }
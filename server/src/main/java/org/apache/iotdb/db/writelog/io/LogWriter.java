@@ -41,6 +41,8 @@ public class LogWriter implements ILogWriter {
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
   private ByteBuffer checkSumBuffer = ByteBuffer.allocate(8);
+  private ByteBuffer[] frameBuffers = new ByteBuffer[3];
+  private boolean autoForce = true;
 
   public LogWriter(String logFilePath) {
     logFile = SystemFileFactory.INSTANCE.getFile(logFilePath);
@@ -50,6 +52,15 @@ public class LogWriter implements ILogWriter {
     this.logFile = logFile;
   }
 
+  /**
+   * @param autoForce whether to force the channel after each write when force_wal_period_in_ms is
+   * 0, callers that force the logs by themselves (e.g., group commit) should set it to false.
+   */
+  public LogWriter(File logFile, boolean autoForce) {
+    this.logFile = logFile;
+    this.autoForce = autoForce;
+  }
+
   @Override
   public void write(ByteBuffer logBuffer) throws IOException {
     if (channel == null) {
@@ -73,11 +84,15 @@ public class LogWriter implements ILogWriter {
     lengthBuffer.flip();
     checkSumBuffer.flip();
 
-    channel.write(lengthBuffer);
-    channel.write(logBuffer);
-    channel.write(checkSumBuffer);
+    // write the length, the logs and the check sum with one gathering write
+    frameBuffers[0] = lengthBuffer;
+    frameBuffers[1] = logBuffer;
+    frameBuffers[2] = checkSumBuffer;
+    while (checkSumBuffer.hasRemaining()) {
+      channel.write(frameBuffers);
+    }
 
-    if (config.getForceWalPeriodInMs() == 0) {
+    if (autoForce && config.getForceWalPeriodInMs() == 0) {
       channel.force(true);
     }
   }
@@ -29,6 +29,7 @@ import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.db.writelog.node.ExclusiveWriteLogNode;
+import org.apache.iotdb.db.writelog.node.GroupCommitWriteLogNode;
 import org.apache.iotdb.db.writelog.node.WriteLogNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,11 +87,15 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
   public WriteLogNode getNode(String identifier) {
     WriteLogNode node = nodeMap.get(identifier);
     if (node == null) {
-      node = new ExclusiveWriteLogNode(identifier);
-      WriteLogNode oldNode = nodeMap.putIfAbsent(identifier, node);
-      if (oldNode != null) {
-        return oldNode;
-      }
+      // only the node kept in the map is registered as an MBean
+      node = nodeMap.computeIfAbsent(identifier, id -> {
+        if (!config.isEnableWalGroupCommit()) {
+          return new ExclusiveWriteLogNode(id);
+        }
+        GroupCommitWriteLogNode groupCommitNode = new GroupCommitWriteLogNode(id);
+        groupCommitNode.registerMBean();
+        return groupCommitNode;
+      });
     }
     return node;
   }
@@ -0,0 +1,592 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.node;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.management.ObjectName;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.writelog.io.ILogReader;
+import org.apache.iotdb.db.writelog.io.ILogWriter;
+import org.apache.iotdb.db.writelog.io.LogWriter;
+import org.apache.iotdb.db.writelog.io.MultiFileLogReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GroupCommitWriteLogNode separates appending logs from persisting them. A writer only serializes
+ * its plan and appends it to a lock-free queue, while a dedicated commit thread drains the queue,
+ * copies the logs into a direct buffer and persists them with one write and one force. Each such
+ * commit is an epoch, and the writers whose logs are covered by it are woken up.
+ *
+ * write() does not wait for the commit, so that the caller can release its own locks first and
+ * concurrent writers can share one force. The caller must call awaitPendingLogs() before
+ * acknowledging the operations it has written.
+ */
+public class GroupCommitWriteLogNode implements WriteLogNode, GroupCommitWriteLogNodeMBean,
+    Comparable<GroupCommitWriteLogNode> {
+
+  private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriteLogNode.class);
+  private static final int INITIAL_SERIALIZE_BUFFER_SIZE = 4 * 1024;
+  private static final int MAX_UNCHECKED_PENDING_ENTRY_NUM = 1024;
+  private static int logBufferSize = IoTDBDescriptor.getInstance().getConfig().getWalBufferSize();
+
+  /**
+   * the buffer each writer thread serializes its plans into, it grows on demand
+   */
+  private static final ThreadLocal<ByteBuffer> serializeBuffer = ThreadLocal
+      .withInitial(() -> ByteBuffer.allocate(INITIAL_SERIALIZE_BUFFER_SIZE));
+
+  /**
+   * logs appended by a writer thread that it has not waited for
+   */
+  private static final ThreadLocal<List<LogEntry>> pendingEntries = ThreadLocal
+      .withInitial(ArrayList::new);
+
+  private String identifier;
+
+  private String logDirectory;
+
+  private String jmxName;
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private Queue<LogEntry> pendingLogs = new ConcurrentLinkedQueue<>();
+  private AtomicInteger pendingLogNum = new AtomicInteger();
+
+  /**
+   * guards the log file and the commit buffer
+   */
+  private ReentrantLock fileLock = new ReentrantLock();
+  private ILogWriter currentFileWriter;
+  private ByteBuffer commitBuffer = ByteBuffer.allocateDirect(logBufferSize);
+  private long fileId = 0;
+  private long lastFlushedId = 0;
+
+  private volatile boolean running = false;
+  private volatile Thread commitThread;
+  private final Object commitMonitor = new Object();
+
+  private long createTime = System.currentTimeMillis();
+  private AtomicLong appendedLogNum = new AtomicLong();
+  private AtomicLong appendedLogBytes = new AtomicLong();
+  private AtomicLong commitEpoch = new AtomicLong();
+  private AtomicLong committedLogNum = new AtomicLong();
+  private AtomicLong committedLogBytes = new AtomicLong();
+  private AtomicLong totalCommitTimeNs = new AtomicLong();
+  private AtomicLong maxCommitTimeNs = new AtomicLong();
+  private AtomicLong waitNum = new AtomicLong();
+  private AtomicLong totalWaitTimeNs = new AtomicLong();
+
+  /**
+   * constructor of GroupCommitWriteLogNode.
+   *
+   * @param identifier GroupCommitWriteLogNode identifier
+   */
+  public GroupCommitWriteLogNode(String identifier) {
+    this.identifier = identifier;
+    this.logDirectory =
+        DirectoryManager.getInstance().getWALFolder() + File.separator + this.identifier;
+    if (SystemFileFactory.INSTANCE.getFile(logDirectory).mkdirs()) {
+      logger.info("create the WAL folder {}.", logDirectory);
+    }
+    this.jmxName = String.format("%s:type=%s,name=%s", GroupCommitWriteLogNode.class.getPackage()
+        .getName(), GroupCommitWriteLogNode.class.getSimpleName(), ObjectName.quote(identifier));
+  }
+
+  /**
+   * Register the node as an MBean, called only once the node is the one kept for its identifier.
+   */
+  public void registerMBean() {
+    JMXService.registerMBean(this, jmxName);
+  }
+
+  /**
+   * Wait until all logs appended by the current thread are persisted.
+   *
+   * @throws IOException if any of the logs failed to be persisted
+   */
+  public static void awaitPendingLogs() throws IOException {
+    List<LogEntry> entries = pendingEntries.get();
+    if (entries.isEmpty()) {
+      return;
+    }
+    try {
+      for (LogEntry entry : entries) {
+        entry.node.await(entry);
+      }
+    } finally {
+      entries.clear();
+    }
+  }
+
+  @Override
+  public void write(PhysicalPlan plan) throws IOException {
+    LogEntry entry = new LogEntry(this, serialize(plan));
+    pendingLogs.add(entry);
+    List<LogEntry> entries = pendingEntries.get();
+    if (entries.size() >= MAX_UNCHECKED_PENDING_ENTRY_NUM) {
+      // the writer has not waited for a while, forget the logs that are successfully committed
+      entries.removeIf(e -> e.committed && e.failure == null);
+    }
+    entries.add(entry);
+    appendedLogNum.incrementAndGet();
+    appendedLogBytes.addAndGet(entry.data.length);
+
+    int pendingNum = pendingLogNum.incrementAndGet();
+    if (!running) {
+      startCommitThread();
+    } else if (pendingNum == 1 || pendingNum >= config.getWalGroupCommitMaxBatchNum()) {
+      LockSupport.unpark(commitThread);
+    }
+  }
+
+  private byte[] serialize(PhysicalPlan plan) throws IOException {
+    ByteBuffer buffer = serializeBuffer.get();
+    while (true) {
+      buffer.clear();
+      try {
+        plan.serializeTo(buffer);
+        break;
+      } catch (BufferOverflowException e) {
+        if (buffer.capacity() >= logBufferSize) {
+          throw new IOException("Log cannot fit into buffer, please increase wal_buffer_size", e);
+        }
+        buffer = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, logBufferSize));
+        serializeBuffer.set(buffer);
+      }
+    }
+    buffer.flip();
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return data;
+  }
+
+  private void await(LogEntry entry) throws IOException {
+    if (!entry.committed) {
+      long startTime = System.nanoTime();
+      synchronized (commitMonitor) {
+        while (!entry.committed) {
+          try {
+            commitMonitor.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted when waiting for the commit of " + this, e);
+          }
+        }
+      }
+      waitNum.incrementAndGet();
+      totalWaitTimeNs.addAndGet(System.nanoTime() - startTime);
+    }
+    if (entry.failure != null) {
+      throw new IOException("Log node " + identifier + " failed to commit a log", entry.failure);
+    }
+  }
+
+  private synchronized void startCommitThread() {
+    if (running) {
+      return;
+    }
+    running = true;
+    commitThread = new Thread(this::commitLoop,
+        ThreadName.WAL_GROUP_COMMIT_DAEMON.getName() + "-" + identifier);
+    commitThread.setDaemon(true);
+    commitThread.start();
+  }
+
+  private void stopCommitThread() {
+    Thread thread;
+    synchronized (this) {
+      running = false;
+      thread = commitThread;
+      commitThread = null;
+    }
+    if (thread == null || thread == Thread.currentThread()) {
+      return;
+    }
+    LockSupport.unpark(thread);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted when waiting for the commit thread of {} to stop", identifier);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void commitLoop() {
+    try {
+      while (running) {
+        try {
+          if (pendingLogNum.get() <= 0) {
+            LockSupport.park(this);
+            continue;
+          }
+          long commitWindow = config.getWalGroupCommitWindowInMs();
+          if (commitWindow > 0 && pendingLogNum.get() < config.getWalGroupCommitMaxBatchNum()) {
+            // gather more logs, a full batch will wake this thread up earlier
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(commitWindow));
+          }
+          commit(config.getWalGroupCommitMaxBatchNum());
+        } catch (RuntimeException e) {
+          // commit() has failed the logs of its batch, keep committing the following logs
+          logger.error("Unexpected error in the commit thread of log node {}", identifier, e);
+        }
+      }
+      logger.debug("The commit thread of log node {} exits.", identifier);
+    } catch (Error e) {
+      logger.error("The commit thread of log node {} dies", identifier, e);
+      onCommitThreadDeath(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Fail the logs that are waiting for the dead commit thread, the next write starts a new one.
+   */
+  private void onCommitThreadDeath(Error e) {
+    synchronized (this) {
+      if (commitThread == Thread.currentThread()) {
+        running = false;
+        commitThread = null;
+      }
+    }
+    List<LogEntry> abandoned = new ArrayList<>();
+    LogEntry entry;
+    while ((entry = pendingLogs.poll()) != null) {
+      pendingLogNum.decrementAndGet();
+      abandoned.add(entry);
+    }
+    finish(abandoned, new IOException("The commit thread of log node " + identifier + " dies", e));
+  }
+
+  /**
+   * Persist all logs in the queue.
+   */
+  private void commitAll() {
+    fileLock.lock();
+    try {
+      while (!pendingLogs.isEmpty()) {
+        commit(Integer.MAX_VALUE);
+      }
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  /**
+   * Persist at most maxLogNum logs in the queue with one force, and wake up the writers of them.
+   */
+  private void commit(int maxLogNum) {
+    fileLock.lock();
+    try {
+      List<LogEntry> batch = new ArrayList<>();
+      long batchBytes = 0;
+      long startTime = System.nanoTime();
+      IOException failure = null;
+      try {
+        LogEntry entry;
+        while (batch.size() < maxLogNum && (entry = pendingLogs.poll()) != null) {
+          pendingLogNum.decrementAndGet();
+          // the entry joins the batch first so that its writer is woken up whatever happens
+          batch.add(entry);
+          batchBytes += entry.data.length;
+          if (commitBuffer.remaining() < entry.data.length) {
+            writeCommitBuffer();
+          }
+          commitBuffer.put(entry.data);
+        }
+        if (batch.isEmpty()) {
+          return;
+        }
+        writeCommitBuffer();
+        currentFileWriter.force();
+      } catch (IOException | RuntimeException e) {
+        logger.error("Log node {} commit failed, change system mode to read-only", identifier, e);
+        IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+        commitBuffer.clear();
+        failure = e instanceof IOException ? (IOException) e : new IOException(e);
+      }
+
+      long commitTime = System.nanoTime() - startTime;
+      commitEpoch.incrementAndGet();
+      committedLogNum.addAndGet(batch.size());
+      committedLogBytes.addAndGet(batchBytes);
+      totalCommitTimeNs.addAndGet(commitTime);
+      maxCommitTimeNs.accumulateAndGet(commitTime, Math::max);
+      finish(batch, failure);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  private void writeCommitBuffer() throws IOException {
+    if (commitBuffer.position() == 0) {
+      return;
+    }
+    getCurrentFileWriter().write(commitBuffer);
+    commitBuffer.clear();
+  }
+
+  private void finish(List<LogEntry> batch, IOException failure) {
+    for (LogEntry entry : batch) {
+      entry.failure = failure;
+      entry.committed = true;
+    }
+    synchronized (commitMonitor) {
+      commitMonitor.notifyAll();
+    }
+  }
+
+  @Override
+  public void close() {
+    stopCommitThread();
+    commitAll();
+    fileLock.lock();
+    try {
+      closeCurrentFileWriter();
+      logger.debug("Log node {} closed successfully", identifier);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public void forceSync() {
+    commitAll();
+  }
+
+  @Override
+  public void notifyStartFlush() {
+    fileLock.lock();
+    try {
+      // logs appended before the flush must stay in the old file
+      commitAll();
+      closeCurrentFileWriter();
+      nextFileWriter();
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public void notifyEndFlush() {
+    fileLock.lock();
+    try {
+      File logFile = SystemFileFactory.INSTANCE
+          .getFile(logDirectory, ExclusiveWriteLogNode.WAL_FILE_NAME + ++lastFlushedId);
+      discard(logFile);
+    } finally {
+      fileLock.unlock();
+    }
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  @Override
+  public String getLogDirectory() {
+    return logDirectory;
+  }
+
+  @Override
+  public void delete() throws IOException {
+    stopCommitThread();
+    fileLock.lock();
+    try {
+      // the logs are abandoned together with the node
+      List<LogEntry> abandoned = new ArrayList<>();
+      LogEntry entry;
+      while ((entry = pendingLogs.poll()) != null) {
+        pendingLogNum.decrementAndGet();
+        abandoned.add(entry);
+      }
+      finish(abandoned, new IOException("The log node " + identifier + " is deleted"));
+      commitBuffer.clear();
+      closeCurrentFileWriter();
+      FileUtils.deleteDirectory(SystemFileFactory.INSTANCE.getFile(logDirectory));
+    } finally {
+      fileLock.unlock();
+    }
+    JMXService.deregisterMBean(jmxName);
+  }
+
+  @Override
+  public ILogReader getLogReader() {
+    File[] logFiles = SystemFileFactory.INSTANCE.getFile(logDirectory).listFiles();
+    Arrays.sort(logFiles, Comparator.comparingInt(
+        f -> Integer.parseInt(f.getName().replace(ExclusiveWriteLogNode.WAL_FILE_NAME, ""))));
+    return new MultiFileLogReader(logFiles);
+  }
+
+  private void discard(File logFile) {
+    if (!logFile.exists()) {
+      logger.info("Log file does not exist");
+    } else {
+      try {
+        FileUtils.forceDelete(logFile);
+        logger.info("Log node {} cleaned old file", identifier);
+      } catch (IOException e) {
+        logger.error("Old log file {} of {} cannot be deleted", logFile.getName(), identifier, e);
+      }
+    }
+  }
+
+  private void closeCurrentFileWriter() {
+    try {
+      if (currentFileWriter != null) {
+        currentFileWriter.close();
+        currentFileWriter = null;
+      }
+    } catch (IOException e) {
+      logger.error("Cannot close log node {} because:", identifier, e);
+    }
+  }
+
+  private ILogWriter getCurrentFileWriter() {
+    if (currentFileWriter == null) {
+      nextFileWriter();
+    }
+    return currentFileWriter;
+  }
+
+  private void nextFileWriter() {
+    fileId++;
+    File newFile = SystemFileFactory.INSTANCE
+        .getFile(logDirectory, ExclusiveWriteLogNode.WAL_FILE_NAME + fileId);
+    if (newFile.getParentFile().mkdirs()) {
+      logger.info("create WAL parent folder {}.", newFile.getParent());
+    }
+    // each commit forces the file by itself
+    currentFileWriter = new LogWriter(newFile, false);
+  }
+
+  @Override
+  public long getAppendedLogNum() {
+    return appendedLogNum.get();
+  }
+
+  @Override
+  public long getAppendedLogBytes() {
+    return appendedLogBytes.get();
+  }
+
+  @Override
+  public int getPendingLogNum() {
+    return Math.max(pendingLogNum.get(), 0);
+  }
+
+  @Override
+  public long getCommitEpoch() {
+    return commitEpoch.get();
+  }
+
+  @Override
+  public double getAverageLogNumPerCommit() {
+    long epoch = commitEpoch.get();
+    return epoch == 0 ? 0 : (double) committedLogNum.get() / epoch;
+  }
+
+  @Override
+  public double getAverageCommitTimeInMs() {
+    long epoch = commitEpoch.get();
+    return epoch == 0 ? 0 : totalCommitTimeNs.get() / 1000_000.0 / epoch;
+  }
+
+  @Override
+  public double getMaxCommitTimeInMs() {
+    return maxCommitTimeNs.get() / 1000_000.0;
+  }
+
+  @Override
+  public double getAverageWaitTimeInMs() {
+    long num = waitNum.get();
+    return num == 0 ? 0 : totalWaitTimeNs.get() / 1000_000.0 / num;
+  }
+
+  @Override
+  public double getCommittedBytesPerSecond() {
+    long elapsedTime = System.currentTimeMillis() - createTime;
+    return elapsedTime <= 0 ? 0 : committedLogBytes.get() * 1000.0 / elapsedTime;
+  }
+
+  @Override
+  public int hashCode() {
+    return identifier.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+
+    return compareTo((GroupCommitWriteLogNode) obj) == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "Group commit log node " + identifier;
+  }
+
+  @Override
+  public int compareTo(GroupCommitWriteLogNode o) {
+    return this.identifier.compareTo(o.identifier);
+  }
+
+  private static class LogEntry {
+
+    private final GroupCommitWriteLogNode node;
+    private final byte[] data;
+    private volatile boolean committed = false;
+    private volatile IOException failure;
+
+    private LogEntry(GroupCommitWriteLogNode node, byte[] data) {
+      this.node = node;
+      this.data = data;
+    }
+  }
+}
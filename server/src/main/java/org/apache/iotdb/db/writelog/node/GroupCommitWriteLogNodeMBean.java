@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.node;
+
+public interface GroupCommitWriteLogNodeMBean {
+
+  /**
+   * @return the number of logs appended to this node
+   */
+  long getAppendedLogNum();
+
+  /**
+   * @return the number of bytes of logs appended to this node
+   */
+  long getAppendedLogBytes();
+
+  /**
+   * @return the number of logs that are appended but not yet persisted
+   */
+  int getPendingLogNum();
+
+  /**
+   * @return the number of commits (one write and one force for each) that are finished
+   */
+  long getCommitEpoch();
+
+  /**
+   * @return the average number of logs persisted by one commit
+   */
+  double getAverageLogNumPerCommit();
+
+  /**
+   * @return the average time cost of one commit in milliseconds
+   */
+  double getAverageCommitTimeInMs();
+
+  /**
+   * @return the max time cost of one commit in milliseconds
+   */
+  double getMaxCommitTimeInMs();
+
+  /**
+   * @return the average time a writer waits for its logs to be persisted in milliseconds
+   */
+  double getAverageWaitTimeInMs();
+
+  /**
+   * @return the average number of bytes persisted per second since this node was created
+   */
+  double getCommittedBytesPerSecond();
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.encoding.common.EndianType;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkCacheTest {
+
+  private TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+  private int prevMaxNumberOfPointsInPage;
+  private File file = new File(TestConstant.BASE_OUTPUT_PATH.concat("chunkCacheTest.tsfile"));
+  private Path path = new Path("root.sg.d0", "s0");
+  private int pointNum = 1000;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    prevMaxNumberOfPointsInPage = tsFileConfig.getMaxNumberOfPointsInPage();
+    // make the chunk contain several pages
+    tsFileConfig.setMaxNumberOfPointsInPage(100);
+    if (!file.getParentFile().exists()) {
+      file.getParentFile().mkdirs();
+    }
+    TsFileWriter writer = new TsFileWriter(file);
+    writer.addMeasurement(new MeasurementSchema(path.getMeasurement(), TSDataType.INT64,
+        TSEncoding.RLE, CompressionType.SNAPPY));
+    for (int i = 0; i < pointNum; i++) {
+      TSRecord record = new TSRecord(i, path.getDevice());
+      record.addTuple(new LongDataPoint(path.getMeasurement(), i * 10L));
+      writer.write(record);
+    }
+    writer.close();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    tsFileConfig.setMaxNumberOfPointsInPage(prevMaxNumberOfPointsInPage);
+    file.delete();
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testGetAndRemove() throws IOException {
+    ChunkCache chunkCache = ChunkCache.getInstance();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      List<ChunkMetaData> metaDataList = reader.getChunkMetadataList(path);
+      assertEquals(1, metaDataList.size());
+      ChunkMetaData metaData = metaDataList.get(0);
+
+      Chunk chunk = chunkCache.get(metaData, reader);
+      assertEquals(CompressionType.UNCOMPRESSED, chunk.getHeader().getCompressionType());
+      assertTrue(chunk.getHeader().getNumOfPages() > 1);
+      checkChunk(chunk, -1);
+
+      // a hit shares the cached data but carries the deletion of the given meta data
+      metaData.setDeletedAt(499);
+      Chunk cachedChunk = chunkCache.get(metaData, reader);
+      assertEquals(499, cachedChunk.getDeletedAt());
+      checkChunk(cachedChunk, 499);
+      assertTrue(chunkCache.calculateChunkHitRatio() > 0);
+
+      // each request gets its own view of the cached data
+      checkChunk(chunkCache.get(metaData, reader), 499);
+
+      chunkCache.remove(new TsFileResource(file));
+      metaData.setDeletedAt(Long.MIN_VALUE);
+      checkChunk(chunkCache.get(metaData, reader), -1);
+    }
+  }
+
+  @Test
+  public void testUncompressedChunkCopiedToHeap() throws IOException {
+    // the data of an uncompressed chunk read from a mapped file is a slice of the mapping
+    ByteBuffer mapped = ByteBuffer.allocateDirect(16);
+    for (int i = 0; i < 16; i++) {
+      mapped.put((byte) i);
+    }
+    mapped.flip();
+    ChunkHeader header = new ChunkHeader(path.getMeasurement(), 16, TSDataType.INT64,
+        CompressionType.UNCOMPRESSED, TSEncoding.PLAIN, 1);
+    Chunk chunk = ChunkCache.decompress(new Chunk(header, mapped, Long.MIN_VALUE,
+        EndianType.BIG_ENDIAN));
+    assertFalse(chunk.getData().isDirect());
+    assertEquals(16, chunk.getData().remaining());
+    for (int i = 0; i < 16; i++) {
+      assertEquals(i, chunk.getData().get(i));
+    }
+  }
+
+  private void checkChunk(Chunk chunk, long deletedAt) throws IOException {
+    ChunkReader chunkReader = new ChunkReader(chunk, null);
+    long expectedTime = deletedAt + 1;
+    while (chunkReader.hasNextSatisfiedPage()) {
+      BatchData batchData = chunkReader.nextPageData();
+      while (batchData.hasCurrent()) {
+        assertEquals(expectedTime, batchData.currentTime());
+        assertEquals(expectedTime * 10, batchData.getLong());
+        expectedTime++;
+        batchData.next();
+      }
+    }
+    assertEquals(pointNum, expectedTime);
+    assertFalse(chunk.getData().hasRemaining());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ConcurrentLRUCacheTest {
+
+  private ConcurrentLRUCache<Integer, String> createCache(long maxMemInB, int segmentNum) {
+    return new ConcurrentLRUCache<Integer, String>(maxMemInB, segmentNum) {
+      @Override
+      protected long calEntrySize(Integer key, String value) {
+        return value.length();
+      }
+    };
+  }
+
+  private static void await(CountDownLatch latch) throws IOException {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  @Test
+  public void testEviction() {
+    ConcurrentLRUCache<Integer, String> cache = createCache(30, 1);
+    for (int i = 0; i < 3; i++) {
+      cache.putIfAbsent(i, "0123456789");
+    }
+    assertEquals(3, cache.size());
+    assertEquals(1.0, cache.getUsedMemoryProportion(), 0.001);
+
+    // the accessed entry gets a second chance, the eldest one that is not accessed is evicted
+    assertEquals("0123456789", cache.get(0));
+    cache.putIfAbsent(3, "0123456789");
+    assertEquals(3, cache.size());
+    assertEquals("0123456789", cache.get(0));
+    assertNull(cache.get(1));
+    assertEquals(2.0 / 3, cache.calculateHitRatio(), 0.001);
+
+    cache.removeIf(key -> key >= 2);
+    assertEquals(1, cache.size());
+    cache.remove(0);
+    assertEquals(0, cache.size());
+    assertEquals(0.0, cache.getUsedMemoryProportion(), 0.001);
+  }
+
+  @Test
+  public void testSingleFlightLoading() throws Exception {
+    ConcurrentLRUCache<Integer, String> cache = createCache(1024, 4);
+    AtomicInteger loadNum = new AtomicInteger();
+    int threadNum = 8;
+    // the load finishes only after every thread has started its request, the requests that come
+    // after the load either wait for it or hit the cached value
+    CountDownLatch started = new CountDownLatch(threadNum);
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      futures.add(pool.submit(() -> {
+        started.countDown();
+        return cache.get(1, key -> {
+          loadNum.incrementAndGet();
+          await(started);
+          return "value" + key;
+        });
+      }));
+    }
+    for (Future<String> future : futures) {
+      assertEquals("value1", future.get());
+    }
+    pool.shutdown();
+    assertEquals(1, loadNum.get());
+    assertEquals("value1", cache.get(1));
+  }
+
+  @Test
+  public void testRemoveWhileLoading() throws Exception {
+    ConcurrentLRUCache<Integer, String> cache = createCache(1024, 4);
+    CountDownLatch loadStarted = new CountDownLatch(1);
+    CountDownLatch removed = new CountDownLatch(1);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    Future<String> future = pool.submit(() -> cache.get(1, key -> {
+      loadStarted.countDown();
+      await(removed);
+      return "stale";
+    }));
+    loadStarted.await();
+    cache.remove(1);
+    removed.countDown();
+    // the requester still gets the loaded value, but it is not cached
+    assertEquals("stale", future.get());
+    pool.shutdown();
+    assertNull(cache.get(1));
+  }
+}
@@ -21,12 +21,15 @@ package org.apache.iotdb.db.engine.memtable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
@@ -82,4 +85,27 @@ public class MemTableFlushTaskTest {
     assertEquals(MemTableTestUtils.dataType0, chunkMetaData.getDataType());
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testFlushMultiDevices() throws ExecutionException, InterruptedException {
+    int deviceNum = 20;
+    for (int i = 0; i < deviceNum; i++) {
+      MemTableTestUtils.produceData(memTable, startTime, endTime, "d" + i,
+          MemTableTestUtils.measurementId0, MemTableTestUtils.dataType0);
+    }
+    MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable,
+        MemTableTestUtils.getSchema(), writer, storageGroup);
+    memTableFlushTask.syncFlushMemTable();
+
+    // the chunk groups are written in the iteration order of the devices in the memtable
+    List<ChunkGroupMetaData> chunkGroupMetaDatas = writer.getChunkGroupMetaDatas();
+    List<String> devices = new ArrayList<>(memTable.getMemTableMap().keySet());
+    assertEquals(deviceNum, chunkGroupMetaDatas.size());
+    for (int i = 0; i < deviceNum; i++) {
+      assertEquals(devices.get(i), chunkGroupMetaDatas.get(i).getDeviceID());
+      assertEquals(1, chunkGroupMetaDatas.get(i).getChunkMetaDataList().size());
+      assertEquals(endTime - startTime + 1,
+          chunkGroupMetaDatas.get(i).getChunkMetaDataList().get(0).getNumOfPoints());
+    }
+  }
+}
@@ -22,13 +22,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Random;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk.MemChunkBatchReader;
 import org.apache.iotdb.db.utils.MathUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.Assert;
 import org.junit.Before;
@@ -88,6 +92,70 @@ public class PrimitiveMemTableTest {
     }
   }
 
+  @Test
+  public void queryIsolationTest() {
+    IMemTable memTable = new PrimitiveMemTable();
+    String deviceId = "d1";
+    String measurementId = "s1";
+    int dataSize = 1000;
+    for (int i = 0; i < dataSize; i++) {
+      memTable.write(deviceId, measurementId, TSDataType.INT64, dataSize + i, (long) i);
+    }
+    ReadOnlyMemChunk memChunk = memTable
+        .query(deviceId, measurementId, TSDataType.INT64, Collections.emptyMap(), Long.MIN_VALUE);
+
+    // the data written, sorted or deleted after the query must be invisible to it
+    for (int i = 0; i < dataSize; i++) {
+      memTable.write(deviceId, measurementId, TSDataType.INT64, i, (long) -i);
+    }
+    memTable.query(deviceId, measurementId, TSDataType.INT64, Collections.emptyMap(),
+        Long.MIN_VALUE);
+    memTable.delete(deviceId, measurementId, Long.MIN_VALUE, dataSize + dataSize / 2);
+
+    MemChunkBatchReader batchReader = memChunk.getBatchReader();
+    long expectedTime = dataSize;
+    while (batchReader.hasNextBatch()) {
+      BatchData batchData = batchReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        Assert.assertEquals(expectedTime, batchData.currentTime());
+        Assert.assertEquals(expectedTime - dataSize, batchData.getLong());
+        expectedTime++;
+        batchData.next();
+      }
+    }
+    Assert.assertEquals(2 * dataSize, expectedTime);
+  }
+
+  @Test
+  public void batchReaderTest() {
+    IMemTable memTable = new PrimitiveMemTable();
+    String deviceId = "d1";
+    String measurementId = "s1";
+    int dataSize = 5000;
+    for (int i = dataSize - 1; i >= 0; i--) {
+      memTable.write(deviceId, measurementId, TSDataType.INT32, i, i);
+      // overwritten by the later one
+      memTable.write(deviceId, measurementId, TSDataType.INT32, i, i + 1);
+    }
+    // timestamps less than the lower bound are invisible
+    ReadOnlyMemChunk memChunk = memTable
+        .query(deviceId, measurementId, TSDataType.INT32, Collections.emptyMap(), 100);
+
+    MemChunkBatchReader batchReader = memChunk.getBatchReader();
+    int expectedTime = 100;
+    while (batchReader.hasNextBatch()) {
+      BatchData batchData = batchReader.nextBatch();
+      Assert.assertTrue(batchData.length() <= TSFileConfig.DYNAMIC_DATA_SIZE);
+      while (batchData.hasCurrent()) {
+        Assert.assertEquals(expectedTime, batchData.currentTime());
+        Assert.assertEquals(expectedTime + 1, batchData.getInt());
+        expectedTime++;
+        batchData.next();
+      }
+    }
+    Assert.assertEquals(dataSize, expectedTime);
+  }
+
   private void write(IMemTable memTable, String deviceId, String sensorId, TSDataType dataType,
       int size) {
     TimeValuePair[] ret = genTimeValuePair(size, dataType);
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.selector.SeqFileCompactionSelector;
+import org.apache.iotdb.db.engine.merge.task.CompactionTask;
+import org.apache.iotdb.db.engine.merge.task.RecoverCompactionTask;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.path.PathException;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactionTaskTest extends MergeTest {
+
+  private File tempSGDir;
+  private TsFileResource targetFile;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException, PathException {
+    super.setUp();
+    tempSGDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("tempSG"));
+    tempSGDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    if (targetFile != null) {
+      targetFile.remove();
+      targetFile = null;
+    }
+    super.tearDown();
+    FileUtils.deleteDirectory(tempSGDir);
+  }
+
+  @Test
+  public void testSelect() {
+    List<TsFileResource> selected = new SeqFileCompactionSelector(seqResources, Long.MIN_VALUE,
+        3, Long.MAX_VALUE).select();
+    assertEquals(seqResources, selected);
+
+    selected = new SeqFileCompactionSelector(seqResources, Long.MIN_VALUE, seqFileNum + 1,
+        Long.MAX_VALUE).select();
+    assertTrue(selected.isEmpty());
+
+    // the collection stops once the files reach the target size
+    long fileSize = seqResources.get(0).getFileSize();
+    selected = new SeqFileCompactionSelector(seqResources, Long.MIN_VALUE, 2,
+        fileSize * 2 + fileSize / 2).select();
+    assertEquals(seqResources.subList(0, 3), selected);
+
+    // a merging file breaks the run
+    seqResources.get(2).setMerging(true);
+    selected = new SeqFileCompactionSelector(seqResources, Long.MIN_VALUE, 2,
+        Long.MAX_VALUE).select();
+    assertEquals(seqResources.subList(0, 2), selected);
+    seqResources.get(2).setMerging(false);
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    compact();
+
+    assertEquals("4seq-4-4-1.tsfile", targetFile.getFile().getName());
+    assertEquals(seqFileNum, targetFile.getHistoricalVersions().size());
+    assertEquals(0, (long) targetFile.getStartTimeMap().get(deviceIds[0]));
+    assertEquals(seqFileNum * ptNum - 1, (long) targetFile.getEndTimeMap().get(deviceIds[0]));
+    assertFalse(new File(tempSGDir, CompactionTask.COMPACTION_LOG_NAME).exists());
+
+    // the small chunks of each series are compacted into one chunk
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(
+        targetFile.getFile().getPath())) {
+      assertEquals(1, reader.getChunkMetadataList(path).size());
+    }
+    assertEquals(seqFileNum * ptNum, checkData(path, 0));
+  }
+
+  @Test
+  public void testCompactionWithDeletion() throws Exception {
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    try {
+      seqResources.get(0).getModFile().write(new Deletion(path, 10000, 49));
+    } finally {
+      seqResources.get(0).getModFile().close();
+    }
+    compact();
+
+    assertEquals(seqFileNum * ptNum - 50, checkData(path, 50));
+  }
+
+  @Test
+  public void testRecoverAfterAllTsEnd() throws Exception {
+    CompactionTask compactionTask =
+        new CompactionTask(new MergeResource(seqResources, Collections.emptyList()),
+            tempSGDir.getPath(), (s, t, l) -> targetFile = t, "test", MERGE_TEST_SG);
+    compactionTask.call();
+    assertNotNull(targetFile);
+
+    // the callback does not remove the source files, as if the system crashed
+    new RecoverCompactionTask(tempSGDir.getPath(), new File(tempSGDir, "merge.mods"), "test")
+        .recoverCompaction();
+    for (TsFileResource seqFile : seqResources) {
+      assertFalse(seqFile.getFile().exists());
+    }
+    assertTrue(targetFile.getFile().exists());
+    assertTrue(targetFile.fileExists());
+    assertFalse(new File(tempSGDir, CompactionTask.COMPACTION_LOG_NAME).exists());
+  }
+
+  private void compact() throws Exception {
+    CompactionTask compactionTask =
+        new CompactionTask(new MergeResource(seqResources, Collections.emptyList()),
+            tempSGDir.getPath(), (s, t, l) -> {
+          targetFile = t;
+          l.delete();
+        }, "test", MERGE_TEST_SG);
+    compactionTask.call();
+    assertNotNull(targetFile);
+  }
+
+  private int checkData(Path path, long firstTime) throws IOException {
+    SeqResourceIterateReader tsFilesReader = new SeqResourceIterateReader(path,
+        Collections.singletonList(targetFile), null, new QueryContext());
+    int count = 0;
+    long expectedTime = firstTime;
+    while (tsFilesReader.hasNextBatch()) {
+      BatchData batchData = tsFilesReader.nextBatch();
+      for (int i = 0; i < batchData.length(); i++) {
+        assertEquals(expectedTime++, batchData.getTimeByIndex(i));
+        assertEquals(batchData.getTimeByIndex(i), batchData.getDoubleByIndex(i), 0.001);
+        count++;
+      }
+    }
+    tsFilesReader.close();
+    return count;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.merge.manage.MergeIOLimiter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MergeIOLimiterTest {
+
+  private static final long MB = 1024L * 1024L;
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevThroughput;
+
+  @Before
+  public void setUp() {
+    prevThroughput = config.getMergeThroughputMbPerSec();
+  }
+
+  @After
+  public void tearDown() {
+    config.setMergeThroughputMbPerSec(prevThroughput);
+  }
+
+  @Test
+  public void testUnlimited() {
+    config.setMergeThroughputMbPerSec(0);
+    MergeIOLimiter limiter = MergeIOLimiter.getInstance();
+    long prevRead = limiter.getTotalReadBytes();
+    long prevWritten = limiter.getTotalWrittenBytes();
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < 100; i++) {
+      limiter.acquireRead(100 * MB);
+      limiter.acquireWrite(100 * MB);
+    }
+    assertTrue(System.currentTimeMillis() - startTime < 1000);
+    assertEquals(100 * 100 * MB, limiter.getTotalReadBytes() - prevRead);
+    assertEquals(100 * 100 * MB, limiter.getTotalWrittenBytes() - prevWritten);
+  }
+
+  @Test
+  public void testLimited() {
+    config.setMergeThroughputMbPerSec(10);
+    AtomicLong time = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    List<Long> waitTimes = new ArrayList<>();
+    MergeIOLimiter limiter = new MergeIOLimiter(time::get, nanos -> {
+      waitTimes.add(nanos);
+      time.addAndGet(nanos);
+    });
+    long tokenTime = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // no token is saved at first, so each MB after the first one waits for 0.1 second
+    for (int i = 0; i < 15; i++) {
+      limiter.acquireRead(MB);
+      limiter.acquireWrite(MB);
+    }
+    assertEquals(29, waitTimes.size());
+    for (long waitTime : waitTimes) {
+      assertEquals(tokenTime, waitTime, 10);
+    }
+    assertEquals(2900, limiter.getTotalThrottledTimeInMs(), 1);
+    assertEquals(15 * MB, limiter.getTotalReadBytes());
+    assertEquals(15 * MB, limiter.getTotalWrittenBytes());
+
+    // after being idle, the tokens of at most one second are saved
+    waitTimes.clear();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    for (int i = 0; i < 10; i++) {
+      limiter.acquireRead(MB);
+    }
+    assertTrue(waitTimes.isEmpty());
+    limiter.acquireRead(MB);
+    limiter.acquireRead(MB);
+    assertEquals(1, waitTimes.size());
+    assertEquals(tokenTime, waitTimes.get(0), 10);
+
+    // the rate is read on each acquisition
+    waitTimes.clear();
+    config.setMergeThroughputMbPerSec(1);
+    limiter.acquireRead(MB);
+    limiter.acquireRead(MB);
+    assertEquals(2, waitTimes.size());
+    assertEquals(tokenTime, waitTimes.get(0), 10);
+    assertEquals(TimeUnit.SECONDS.toNanos(1), waitTimes.get(1), 10);
+  }
+}
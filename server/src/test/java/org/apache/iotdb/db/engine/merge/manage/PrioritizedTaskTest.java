@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.manage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PrioritizedTaskTest {
+
+  private MergeManager manager = MergeManager.getINSTANCE();
+
+  @Test
+  public void testOrder() throws InterruptedException {
+    ThreadPoolExecutor pool = MergeManager.newPriorityThreadPool(1, Thread::new);
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    try {
+      // occupy the only thread so that the following tasks are queued
+      pool.execute(manager.new PrioritizedTask(() -> {
+        started.countDown();
+        blocked.await();
+        return null;
+      }, 0, 0));
+      started.await();
+
+      pool.execute(newTask(executed, "small", 1, 10));
+      pool.execute(newTask(executed, "large", 3, 100));
+      pool.execute(newTask(executed, "medium", 3, 50));
+      pool.execute(newTask(executed, "small-later", 1, 10));
+      pool.execute(newTask(executed, "selection", Integer.MAX_VALUE, 0));
+      pool.execute(newTask(executed, "none", 0, 0));
+      blocked.countDown();
+    } finally {
+      pool.shutdown();
+      assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    // more removed files first, then smaller, then earlier
+    assertEquals(Arrays.asList("selection", "medium", "large", "small", "small-later", "none"),
+        executed);
+  }
+
+  private MergeManager.PrioritizedTask newTask(List<String> executed, String name,
+      int removedFileNum, long fileSize) {
+    return manager.new PrioritizedTask(() -> {
+      executed.add(name);
+      return null;
+    }, removedFileNum, fileSize);
+  }
+}
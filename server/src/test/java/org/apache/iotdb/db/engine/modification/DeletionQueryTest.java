@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.modification;
 
 import static org.apache.iotdb.db.utils.EnvironmentUtils.TEST_QUERY_CONTEXT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -43,6 +44,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.QueryExpression;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
@@ -334,4 +336,79 @@ public class DeletionQueryTest {
     }
     assertEquals(100, count);
   }
+
+  @Test
+  public void testDeleteTimeRange()
+      throws StorageEngineException, IOException, QueryProcessException {
+    for (int i = 1; i <= 100; i++) {
+      TSRecord record = new TSRecord(i, processorName);
+      for (int j = 0; j < 10; j++) {
+        record.addTuple(new DoubleDataPoint(measurements[j], i * 1.0));
+      }
+      StorageEngine.getInstance().insert(new InsertPlan(record));
+      if (i == 50) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+
+    // the ranges span both the sealed file and the working memtable
+    StorageEngine.getInstance().delete(processorName, measurements[3], 20, 60);
+    StorageEngine.getInstance().delete(processorName, measurements[4], 30, 70);
+
+    List<Path> pathList = new ArrayList<>();
+    pathList.add(new Path(processorName, measurements[3]));
+    pathList.add(new Path(processorName, measurements[4]));
+    List<TSDataType> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.valueOf(dataType));
+    dataTypes.add(TSDataType.valueOf(dataType));
+
+    QueryPlan queryPlan = new QueryPlan();
+    queryPlan.setDeduplicatedDataTypes(dataTypes);
+    queryPlan.setDeduplicatedPaths(pathList);
+    QueryDataSet dataSet = router.query(queryPlan, TEST_QUERY_CONTEXT);
+
+    int count = 0;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      long time = record.getTimestamp();
+      assertEquals(time >= 20 && time <= 60, record.getFields().get(0).getDataType() == null);
+      assertEquals(time >= 30 && time <= 70, record.getFields().get(1).getDataType() == null);
+      count++;
+    }
+    assertEquals(69, count);
+  }
+
+  @Test
+  public void testDeleteToTheEndAfterManyVersions()
+      throws StorageEngineException, IOException, QueryProcessException {
+    // each file takes versions for its name and its flush, more than the save interval of the
+    // version controller in total
+    for (int i = 1; i <= 100; i++) {
+      TSRecord record = new TSRecord(i, processorName);
+      record.addTuple(new DoubleDataPoint(measurements[3], i * 1.0));
+      StorageEngine.getInstance().insert(new InsertPlan(record));
+      StorageEngine.getInstance().syncCloseAllProcessor();
+    }
+
+    // time > 50
+    StorageEngine.getInstance().delete(processorName, measurements[3], 51, Long.MAX_VALUE);
+
+    List<Path> pathList = new ArrayList<>();
+    pathList.add(new Path(processorName, measurements[3]));
+    List<TSDataType> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.valueOf(dataType));
+
+    QueryPlan queryPlan = new QueryPlan();
+    queryPlan.setDeduplicatedDataTypes(dataTypes);
+    queryPlan.setDeduplicatedPaths(pathList);
+    QueryDataSet dataSet = router.query(queryPlan, TEST_QUERY_CONTEXT);
+
+    int count = 0;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      assertTrue(record.getTimestamp() <= 50);
+      count++;
+    }
+    assertEquals(50, count);
+  }
 }
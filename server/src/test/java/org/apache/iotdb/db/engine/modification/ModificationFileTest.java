@@ -20,6 +20,8 @@
 package org.apache.iotdb.db.engine.modification;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
@@ -27,6 +29,8 @@ import java.io.IOException;
 import java.util.List;
 
 import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.io.LocalBinaryModificationAccessor;
+import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -98,4 +102,69 @@ public class ModificationFileTest {
       new File(tempFileName).delete();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testPathIndex() {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 5, 10),
+        new Deletion(new Path("d1", "s1"), 3, 20, 30),
+        new Deletion(new Path("d1", "s2"), 4, 4),
+    };
+    try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+      for (Modification modification : modifications) {
+        mFile.write(modification);
+      }
+      mFile.abort();
+      List<Modification> modificationList = mFile.getModifications("d1.s1");
+      assertEquals(2, modificationList.size());
+      assertEquals(modifications[0], modificationList.get(0));
+      assertEquals(modifications[2], modificationList.get(1));
+      modificationList = mFile.getModifications("d1.s2");
+      assertEquals(1, modificationList.size());
+      assertEquals(modifications[1], modificationList.get(0));
+      assertTrue(mFile.getModifications("d1.s3").isEmpty());
+
+      // the index is built again when the file is loaded
+      mFile.close();
+      modificationList = mFile.getModifications("d1.s1");
+      assertEquals(2, modificationList.size());
+      assertEquals(modifications[2], modificationList.get(1));
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void testAppendTextFile() {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 5, 10),
+    };
+    try (LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(
+        tempFileName)) {
+      accessor.write(modifications[0]);
+    } catch (IOException e) {
+      fail(e.getMessage());
+    }
+    try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+      mFile.write(modifications[1]);
+      mFile.close();
+      List<Modification> modificationList = (List<Modification>) mFile.getModifications();
+      assertEquals(2, modificationList.size());
+      for (int i = 0; i < 2; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+      // the file is still in text format
+      assertFalse(LocalBinaryModificationAccessor.isBinaryFormat(tempFileName));
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.modification.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.Test;
+
+public class LocalBinaryModificationAccessorTest {
+
+  private String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+
+  @Test
+  public void readMyWrite() {
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 10, 20),
+        new Deletion(new Path("d1", "s3"), 3, 3),
+        new Deletion(new Path("d1", "s4"), 4, -5, Long.MAX_VALUE),
+    };
+    try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+        tempFileName)) {
+      for (int i = 0; i < 2; i++) {
+        accessor.write(modifications[i]);
+      }
+      List<Modification> modificationList = (List<Modification>) accessor.read();
+      assertEquals(2, modificationList.size());
+      for (int i = 0; i < 2; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+
+      for (int i = 2; i < 4; i++) {
+        accessor.write(modifications[i]);
+      }
+      modificationList = (List<Modification>) accessor.read();
+      assertEquals(4, modificationList.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+      assertTrue(LocalBinaryModificationAccessor.isBinaryFormat(tempFileName));
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void readAbort() {
+    try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+        tempFileName)) {
+      Modification deletion = new Deletion(new Path("d1", "s1"), 1, 1);
+      accessor.write(deletion);
+      accessor.write(new Deletion(new Path("d1", "s2"), 2, 5, 8));
+      accessor.abort();
+      // reopen the file to append
+      accessor.close();
+      accessor.abort();
+      List<Modification> modificationList = (List<Modification>) accessor.read();
+      assertEquals(new ArrayList<>(), modificationList);
+
+      accessor.write(deletion);
+      modificationList = (List<Modification>) accessor.read();
+      assertEquals(1, modificationList.size());
+      assertEquals(deletion, modificationList.get(0));
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void readIncompleteTail() {
+    Modification deletion = new Deletion(new Path("d1", "s1"), 1, 10, 100);
+    try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+        tempFileName)) {
+      accessor.write(deletion);
+      accessor.close();
+      // a record that is not completely written
+      try (FileOutputStream outputStream = new FileOutputStream(tempFileName, true)) {
+        outputStream.write(new byte[]{0, 0, 5, 'd'});
+      }
+      List<Modification> modificationList = (List<Modification>) accessor.read();
+      assertEquals(1, modificationList.size());
+      assertEquals(deletion, modificationList.get(0));
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void appendAfterIncompleteTail() {
+    Modification deletion1 = new Deletion(new Path("d1", "s1"), 1, 10, 100);
+    Modification deletion2 = new Deletion(new Path("d1", "s2"), 2, 20, 200);
+    try {
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        accessor.write(deletion1);
+      }
+      long completeLength = new File(tempFileName).length();
+      // a record that is not completely written before a restart
+      try (FileOutputStream outputStream = new FileOutputStream(tempFileName, true)) {
+        outputStream.write(new byte[]{0, 0, 5, 'd'});
+      }
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        accessor.write(deletion2);
+        List<Modification> modificationList = (List<Modification>) accessor.read();
+        assertEquals(2, modificationList.size());
+        assertEquals(deletion1, modificationList.get(0));
+        assertEquals(deletion2, modificationList.get(1));
+      }
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        accessor.write(deletion1);
+      }
+      // the torn record is truncated and both appends are complete
+      assertEquals(completeLength + 2 * (completeLength
+              - LocalBinaryModificationAccessor.MAGIC_STRING.length),
+          new File(tempFileName).length());
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void readIncompleteMagic() {
+    Modification deletion = new Deletion(new Path("d1", "s1"), 1, 10, 100);
+    try {
+      try (FileOutputStream outputStream = new FileOutputStream(tempFileName)) {
+        outputStream.write(LocalBinaryModificationAccessor.MAGIC_STRING, 0, 4);
+      }
+      assertTrue(LocalBinaryModificationAccessor.isBinaryFormat(tempFileName));
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        assertEquals(new ArrayList<>(), accessor.read());
+        accessor.write(deletion);
+        List<Modification> modificationList = (List<Modification>) accessor.read();
+        assertEquals(1, modificationList.size());
+        assertEquals(deletion, modificationList.get(0));
+      }
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void readTextFormat() throws IOException {
+    try (LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(
+        tempFileName)) {
+      accessor.write(new Deletion(new Path("d1", "s1"), 1, 1));
+    }
+    try {
+      assertFalse(LocalBinaryModificationAccessor.isBinaryFormat(tempFileName));
+    } finally {
+      new File(tempFileName).delete();
+    }
+    assertTrue(LocalBinaryModificationAccessor.isBinaryFormat(tempFileName));
+  }
+
+  @Test
+  public void readNull() {
+    LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(tempFileName);
+    new File(tempFileName).delete();
+    Collection<Modification> modifications = accessor.read();
+    assertEquals(new ArrayList<>(), modifications);
+  }
+}
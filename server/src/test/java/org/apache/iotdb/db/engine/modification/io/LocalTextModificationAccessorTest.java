@@ -43,7 +43,7 @@ public class LocalTextModificationAccessorTest {
     Modification[] modifications = new Modification[]{
         new Deletion(new Path("d1", "s1"), 1, 1),
         new Deletion(new Path("d1", "s2"), 2, 2),
-        new Deletion(new Path("d1", "s3"), 3, 3),
+        new Deletion(new Path("d1", "s3"), 3, 1, 3),
         new Deletion(new Path("d1", "s4"), 4, 4),
     };
     try (LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(tempFileName)) {
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class DeviceTimeMapTest {
+
+  @Test
+  public void testGetAndPut() {
+    Map<String, Long> expected = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      expected.put("root.DeviceTimeMapTest.d" + (i * 7 % 100), (long) i);
+    }
+    DeviceTimeMap map = new DeviceTimeMap(expected);
+    assertEquals(expected, map);
+    assertFalse(map.containsKey("root.DeviceTimeMapTest.d100"));
+    assertNull(map.get("root.DeviceTimeMapTest.d100"));
+
+    // update a present device in place
+    assertEquals(Long.valueOf(0), map.put("root.DeviceTimeMapTest.d0", 1000L));
+    expected.put("root.DeviceTimeMapTest.d0", 1000L);
+    // add new devices
+    for (int i = 100; i < 110; i++) {
+      assertNull(map.put("root.DeviceTimeMapTest.d" + i, (long) i));
+      expected.put("root.DeviceTimeMapTest.d" + i, (long) i);
+    }
+    assertEquals(expected, map);
+    assertEquals(110, map.size());
+  }
+
+  @Test
+  public void testUnsortedIds() {
+    DeviceIdTable idTable = DeviceIdTable.getInstance();
+    int[] ids = new int[]{idTable.getOrCreateId("root.DeviceTimeMapTest.b"),
+        idTable.getOrCreateId("root.DeviceTimeMapTest.a"),
+        idTable.getOrCreateId("root.DeviceTimeMapTest.c"), 0};
+    long[] times = new long[]{2, 1, 3, 0};
+    DeviceTimeMap map = new DeviceTimeMap(ids, times, 3);
+    assertEquals(3, map.size());
+    assertEquals(Long.valueOf(1), map.get("root.DeviceTimeMapTest.a"));
+    assertEquals(Long.valueOf(2), map.get("root.DeviceTimeMapTest.b"));
+    assertEquals(Long.valueOf(3), map.get("root.DeviceTimeMapTest.c"));
+    assertTrue(map.keySet().contains("root.DeviceTimeMapTest.c"));
+  }
+}
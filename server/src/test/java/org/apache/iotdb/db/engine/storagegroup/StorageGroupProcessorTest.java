@@ -40,8 +40,12 @@ import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
@@ -140,6 +144,67 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testTimeFilterPruning() throws QueryProcessException {
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.putAllWorkingTsFileProcessorIntoClosingList();
+    }
+    processor.waitForAllCurrentTsFileProcessorsClosed();
+    // an unsealed file
+    TSRecord record = new TSRecord(11, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(11)));
+    processor.insert(new InsertPlan(record));
+    // an unsequence file overlapping [4, 7]
+    record = new TSRecord(5, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(5)));
+    processor.insert(new InsertPlan(record));
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context,
+        null, FilterFactory.and(TimeFilter.gtEq(4L), TimeFilter.ltEq(7L)));
+    Assert.assertEquals(4, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(1, queryDataSource.getUnseqResources().size());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals(i + 4L, (long) queryDataSource.getSeqResources().get(i)
+          .getStartTimeMap().get(deviceId));
+    }
+
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        TimeFilter.lt(3L));
+    Assert.assertEquals(2, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(0, queryDataSource.getUnseqResources().size());
+
+    // the end time of the unsealed file is unknown, so it is always involved
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        TimeFilter.gt(100L));
+    Assert.assertEquals(1, queryDataSource.getSeqResources().size());
+    Assert.assertFalse(queryDataSource.getSeqResources().get(0).isClosed());
+
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        FilterFactory.or(TimeFilter.eq(2L), TimeFilter.eq(9L)));
+    Assert.assertEquals(2, queryDataSource.getSeqResources().size());
+
+    // only the time part of the filter is used for pruning
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        FilterFactory.and(TimeFilter.lt(3L), ValueFilter.gt(100)));
+    Assert.assertEquals(2, queryDataSource.getSeqResources().size());
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        FilterFactory.or(TimeFilter.lt(3L), ValueFilter.gt(100)));
+    Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        FilterFactory.not(ValueFilter.gt(100)));
+    Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+    queryDataSource = processor.query(deviceId, measurementId, context, null,
+        FilterFactory.not(TimeFilter.ltEq(3L)));
+    Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+
+    queryDataSource = processor.query(deviceId, measurementId, context, null);
+    Assert.assertEquals(11, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(1, queryDataSource.getUnseqResources().size());
+  }
+
   @Test
   public void testIoTDBRowBatchWriteAndSyncClose() throws QueryProcessException {
 
@@ -197,6 +262,51 @@ public class StorageGroupProcessorTest {
   }
 
 
+  @Test
+  public void testInsertBatches() {
+    String[] measurements = new String[]{"s0", "s1"};
+    List<Integer> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.INT32.ordinal());
+    dataTypes.add(TSDataType.INT64.ordinal());
+
+    List<BatchInsertPlan> batchInsertPlans = new ArrayList<>();
+    for (int b = 0; b < 3; b++) {
+      BatchInsertPlan batchInsertPlan = new BatchInsertPlan(deviceId, measurements, dataTypes);
+      long[] times = new long[10];
+      Object[] columns = new Object[]{new int[10], new long[10]};
+      for (int r = 0; r < 10; r++) {
+        // nothing is flushed yet, so the older last batch is also sequence data
+        times[r] = (b + 1) % 3 * 10 + r;
+        ((int[]) columns[0])[r] = r;
+        ((long[]) columns[1])[r] = r;
+      }
+      batchInsertPlan.setTimes(times);
+      batchInsertPlan.setColumns(columns);
+      batchInsertPlan.setRowCount(times.length);
+      batchInsertPlans.add(batchInsertPlan);
+    }
+
+    List<Integer[]> results = processor.insertBatches(batchInsertPlans);
+    Assert.assertEquals(3, results.size());
+    for (Integer[] result : results) {
+      Assert.assertEquals(10, result.length);
+      for (Integer code : result) {
+        Assert.assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(), (int) code);
+      }
+    }
+
+    QueryDataSource queryDataSource = processor.query(deviceId, measurementId, context,
+        null);
+    Assert.assertEquals(1, queryDataSource.getSeqResources().size());
+    Assert.assertEquals(0, queryDataSource.getUnseqResources().size());
+    List<TimeValuePair> timeValuePairs = queryDataSource.getSeqResources().get(0)
+        .getReadOnlyMemChunk().getSortedTimeValuePairList();
+    Assert.assertEquals(30, timeValuePairs.size());
+    for (int i = 0; i < timeValuePairs.size(); i++) {
+      Assert.assertEquals(i, timeValuePairs.get(i).getTimestamp());
+    }
+  }
+
   @Test
   public void testSeqAndUnSeqSyncClose() throws QueryProcessException {
 
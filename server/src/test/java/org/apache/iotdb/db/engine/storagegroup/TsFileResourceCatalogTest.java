@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TsFileResourceCatalogTest {
+
+  private File dir = new File(TestConstant.OUTPUT_DATA_DIR.concat("catalog"));
+  private File catalogFile = new File(dir, TsFileResourceCatalog.CATALOG_FILE_NAME);
+  private List<TsFileResource> resources = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    dir.mkdirs();
+    for (int i = 0; i < 3; i++) {
+      File file = new File(dir, i + "-" + i + ".tsfile");
+      try (FileOutputStream outputStream = new FileOutputStream(file)) {
+        outputStream.write(new byte[100 + i]);
+      }
+      TsFileResource resource = new TsFileResource(file);
+      for (int j = 0; j < 10; j++) {
+        resource.updateStartTime("root.catalog.d" + j, i * 100L + j);
+        resource.updateEndTime("root.catalog.d" + j, i * 100L + j + 50);
+      }
+      resource.setHistoricalVersions(Collections.singleton((long) i));
+      resource.serialize();
+      resource.setClosed(true);
+      resources.add(resource);
+    }
+    // an unsealed TsFile is not saved
+    TsFileResource unsealed = new TsFileResource(new File(dir, "3-3.tsfile"));
+    unsealed.updateStartTime("root.catalog.d0", 300);
+    resources.add(unsealed);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testSaveAndRestore() throws IOException {
+    TsFileResourceCatalog.save(catalogFile, resources);
+    TsFileResourceCatalog catalog = TsFileResourceCatalog.load(catalogFile);
+    assertEquals(3, catalog.size());
+    for (int i = 0; i < 3; i++) {
+      TsFileResource origin = resources.get(i);
+      TsFileResource restored = new TsFileResource(origin.getFile());
+      assertTrue(catalog.restore(restored));
+      assertEquals(origin.getStartTimeMap(), restored.getStartTimeMap());
+      assertEquals(origin.getEndTimeMap(), restored.getEndTimeMap());
+      assertEquals(origin.getHistoricalVersions(), restored.getHistoricalVersions());
+    }
+    assertFalse(catalog.restore(new TsFileResource(resources.get(3).getFile())));
+  }
+
+  @Test
+  public void testChangedFile() throws IOException {
+    TsFileResourceCatalog.save(catalogFile, resources);
+    try (FileOutputStream outputStream = new FileOutputStream(resources.get(1).getFile(), true)) {
+      outputStream.write(1);
+    }
+    TsFileResourceCatalog catalog = TsFileResourceCatalog.load(catalogFile);
+    assertTrue(catalog.restore(new TsFileResource(resources.get(0).getFile())));
+    assertFalse(catalog.restore(new TsFileResource(resources.get(1).getFile())));
+  }
+
+  @Test
+  public void testBrokenCatalog() throws IOException {
+    TsFileResourceCatalog.save(catalogFile, resources);
+    try (FileOutputStream outputStream = new FileOutputStream(catalogFile)) {
+      outputStream.write(new byte[]{0, 0, 0, 1, 0, 0});
+    }
+    assertEquals(0, TsFileResourceCatalog.load(catalogFile).size());
+    assertEquals(0, TsFileResourceCatalog.load(new File(dir, "missing")).size());
+  }
+}
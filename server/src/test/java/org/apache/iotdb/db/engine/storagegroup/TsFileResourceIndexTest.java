@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class TsFileResourceIndexTest {
+
+  private static final String DEVICE = "root.TsFileResourceIndexTest.d0";
+  private static final String OTHER_DEVICE = "root.TsFileResourceIndexTest.d1";
+
+  private TsFileResource newResource(String name, String deviceId, long startTime,
+      boolean closed) throws IOException {
+    TsFileResource resource = new TsFileResource(new File(name));
+    resource.getStartTimeMap().put(deviceId, startTime);
+    resource.getEndTimeMap().put(deviceId, startTime + 10);
+    if (closed) {
+      resource.close();
+    }
+    return resource;
+  }
+
+  @Test
+  public void testSeqFilesOrderedByStartTime() throws IOException {
+    // the files of partition 10 are ordered before those of partition 2 by directory names
+    TsFileResource partition10 = newResource("10/1-1-0.tsfile", DEVICE, 1000, true);
+    TsFileResource partition2 = newResource("2/2-2-0.tsfile", DEVICE, 200, true);
+    TsFileResource other = newResource("2/3-3-0.tsfile", OTHER_DEVICE, 300, true);
+    List<TsFileResource> seqFiles = Arrays.asList(partition10, partition2, other);
+
+    TsFileResourceIndex index = new TsFileResourceIndex();
+    assertEquals(Arrays.asList(partition2, partition10),
+        index.getSeqFiles(DEVICE, seqFiles, Collections.emptyList()));
+    assertEquals(Collections.singletonList(other),
+        index.getSeqFiles(OTHER_DEVICE, seqFiles, Collections.emptyList()));
+    assertEquals(Collections.emptyList(),
+        index.getSeqFiles("root.TsFileResourceIndexTest.d2", seqFiles, Collections.emptyList()));
+  }
+
+  @Test
+  public void testUnsealedFiles() throws IOException {
+    TsFileResource sealed = newResource("0/1-1-0.tsfile", DEVICE, 100, true);
+    List<TsFileResource> seqFiles = new ArrayList<>(Collections.singletonList(sealed));
+    List<TsFileResource> unseqFiles = new ArrayList<>();
+    TsFileResourceIndex index = new TsFileResourceIndex();
+    assertEquals(seqFiles, index.getSeqFiles(DEVICE, seqFiles, unseqFiles));
+
+    TsFileResource unsealedSeq = newResource("0/2-2-0.tsfile", OTHER_DEVICE, 200, false);
+    seqFiles.add(unsealedSeq);
+    index.addUnsealedFile(unsealedSeq, true);
+    TsFileResource unsealedUnseq = newResource("0/3-3-0.tsfile", DEVICE, 50, false);
+    unseqFiles.add(unsealedUnseq);
+    index.addUnsealedFile(unsealedUnseq, false);
+    assertEquals(Collections.singletonList(sealed), index.getSeqFiles(DEVICE, seqFiles,
+        unseqFiles));
+
+    // the device is inserted into the unsealed file after it is indexed
+    unsealedSeq.getStartTimeMap().put(DEVICE, 200L);
+    assertEquals(Arrays.asList(sealed, unsealedSeq),
+        index.getSeqFiles(DEVICE, seqFiles, unseqFiles));
+    assertEquals(Collections.singletonList(unsealedUnseq),
+        index.getUnseqFiles(DEVICE, seqFiles, unseqFiles));
+
+    unsealedSeq.close();
+    index.sealFile(unsealedSeq, true);
+    assertEquals(Arrays.asList(sealed, unsealedSeq),
+        index.getSeqFiles(DEVICE, seqFiles, unseqFiles));
+    assertEquals(Collections.singletonList(unsealedSeq),
+        index.getSeqFiles(OTHER_DEVICE, seqFiles, unseqFiles));
+  }
+
+  @Test
+  public void testUnseqFilesInAddedOrder() throws IOException {
+    TsFileResource first = newResource("0/1-1-0.tsfile", DEVICE, 300, false);
+    TsFileResource second = newResource("0/2-2-0.tsfile", DEVICE, 100, false);
+    List<TsFileResource> unseqFiles = new ArrayList<>();
+    TsFileResourceIndex index = new TsFileResourceIndex();
+    index.getUnseqFiles(DEVICE, Collections.emptyList(), unseqFiles);
+    unseqFiles.add(first);
+    index.addUnsealedFile(first, false);
+    unseqFiles.add(second);
+    index.addUnsealedFile(second, false);
+
+    // the second file is sealed first
+    second.close();
+    index.sealFile(second, false);
+    assertEquals(Arrays.asList(first, second),
+        index.getUnseqFiles(DEVICE, Collections.emptyList(), unseqFiles));
+    first.close();
+    index.sealFile(first, false);
+    assertEquals(Arrays.asList(first, second),
+        index.getUnseqFiles(DEVICE, Collections.emptyList(), unseqFiles));
+
+    // rebuilt from the list after being invalidated
+    unseqFiles.remove(first);
+    index.invalidate();
+    assertEquals(Collections.singletonList(second),
+        index.getUnseqFiles(DEVICE, Collections.emptyList(), unseqFiles));
+  }
+}
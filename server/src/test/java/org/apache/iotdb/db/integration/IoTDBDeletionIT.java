@@ -19,8 +19,13 @@
 
 package org.apache.iotdb.db.integration;
 
+import static org.apache.iotdb.db.integration.Constant.TIMESTAMP_STR;
+import static org.apache.iotdb.db.integration.Constant.count;
+import static org.apache.iotdb.db.integration.Constant.max_value;
+import static org.apache.iotdb.db.integration.Constant.sum;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -162,6 +167,47 @@ public class IoTDBDeletionIT {
     }
   }
 
+  @Test
+  public void testAggregationOverPartiallyDeletedPage() throws SQLException {
+    try (Connection connection = DriverManager
+        .getConnection(Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/", "root",
+            "root");
+        Statement statement = connection.createStatement()) {
+      // a single page of [1, 100] in a sealed file
+      for (int i = 1; i <= 100; i++) {
+        statement.execute(
+            String.format(Locale.ENGLISH, insertTemplate, i, i, i, (double) i, "\'" + i + "\'",
+                i % 2 == 0));
+      }
+      statement.execute("flush");
+      // the range cuts the page, so its statistics still count the deleted points
+      statement.execute("DELETE FROM root.vehicle.d0.s0 WHERE time >= 41 and time <= 60");
+
+      try (ResultSet set = statement.executeQuery(
+          "SELECT count(s0), sum(s0), max_value(s0) FROM root.vehicle.d0")) {
+        assertTrue(set.next());
+        assertEquals("80", set.getString(count("root.vehicle.d0.s0")));
+        assertEquals(4040.0, set.getDouble(sum("root.vehicle.d0.s0")), 0.001);
+        assertEquals("100", set.getString(max_value("root.vehicle.d0.s0")));
+        assertFalse(set.next());
+      }
+
+      String[] retArray = new String[]{"1,80,4040.0", "101,0,0.0"};
+      try (ResultSet set = statement.executeQuery(
+          "SELECT count(s0), sum(s0) FROM root.vehicle.d0 GROUP BY ([1, 200], 100ms)")) {
+        int cnt = 0;
+        while (set.next()) {
+          String ans = set.getString(TIMESTAMP_STR) + "," + set
+              .getString(count("root.vehicle.d0.s0")) + "," + set
+              .getString(sum("root.vehicle.d0.s0"));
+          assertEquals(retArray[cnt], ans);
+          cnt++;
+        }
+        assertEquals(retArray.length, cnt);
+      }
+    }
+  }
+
 
   private static void prepareSeries() {
     try (Connection connection = DriverManager
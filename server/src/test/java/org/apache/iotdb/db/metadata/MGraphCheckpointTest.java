@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MGraphCheckpointTest {
+
+  private File dir = new File(TestConstant.OUTPUT_DATA_DIR.concat("checkpoint"));
+  private File logFile = new File(dir, MetadataConstant.METADATA_LOG);
+  private File checkpointFile = new File(dir, MetadataConstant.MTREE_CHECKPOINT);
+  private MGraph mgraph;
+
+  @Before
+  public void setUp() throws Exception {
+    dir.mkdirs();
+    try (FileOutputStream outputStream = new FileOutputStream(logFile)) {
+      outputStream.write("some operations\n".getBytes());
+    }
+
+    mgraph = new MGraph(MetadataConstant.ROOT);
+    mgraph.setStorageGroup("root.a.sg1");
+    mgraph.setStorageGroup("root.a.sg2");
+    mgraph.setStorageGroup("root.b");
+    for (int i = 0; i < 10; i++) {
+      mgraph.addPathToMTree("root.a.sg1.d" + i + ".s0", TSDataType.INT32, TSEncoding.RLE,
+          CompressionType.SNAPPY, Collections.emptyMap());
+      mgraph.addPathToMTree("root.a.sg1.d" + i + ".s1", TSDataType.DOUBLE, TSEncoding.GORILLA,
+          CompressionType.UNCOMPRESSED, Collections.singletonMap("max_point_number", "3"));
+      mgraph.addPathToMTree("root.a.sg2.d" + i + ".s0", TSDataType.TEXT, TSEncoding.PLAIN,
+          CompressionType.SNAPPY, null);
+    }
+    mgraph.addPathToMTree("root.b.d0.d1.s0", TSDataType.INT64, TSEncoding.TS_2DIFF,
+        CompressionType.SNAPPY, null);
+    mgraph.getNodeByPath("root.a.sg2").setDataTTL(1000);
+
+    mgraph.addAPTree("p");
+    mgraph.addPathToPTree("p.c.s0");
+    mgraph.linkMNodeToPTree("p.c.s0", "root.a.sg1.d0.s0");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    MGraphCheckpoint.save(mgraph, logFile, logFile.length(), checkpointFile);
+    try (FileOutputStream outputStream = new FileOutputStream(logFile, true)) {
+      outputStream.write("operations after the checkpoint\n".getBytes());
+    }
+
+    MGraph restored = new MGraph(MetadataConstant.ROOT);
+    long logLength = MGraphCheckpoint.load(checkpointFile, logFile, restored, 2);
+    assertEquals("some operations\n".length(), logLength);
+    assertEquals(mgraph.toString(), restored.toString());
+    assertEquals(mgraph.getAllStorageGroupNames(), restored.getAllStorageGroupNames());
+    assertEquals(mgraph.countSeriesNumberInEachStorageGroup(),
+        restored.countSeriesNumberInEachStorageGroup());
+    assertEquals(1000, restored.getNodeByPath("root.a.sg2").getDataTTL());
+    assertEquals("root.a.sg1", restored.getNodeByPath("root.a.sg1.d3").getDataFileName());
+    assertEquals(Collections.singletonList("root.a.sg1.d0.s0"),
+        restored.getAllPathGroupByStorageGroup("p.c.s0").get("root.a.sg1"));
+
+    // the leaves with the same schema share it
+    MeasurementSchema schema = restored.getSchemaForOnePath("root.a.sg1.d0.s1");
+    assertSame(schema, restored.getSchemaForOnePath("root.a.sg1.d9.s1"));
+    assertEquals("3", schema.getProps().get("max_point_number"));
+    Map<String, Integer> numSchemaMap = restored.getNumSchemaMapForOneFileNode("root.a.sg1");
+    assertEquals(10, (int) numSchemaMap.get("s0"));
+    assertEquals(10, (int) numSchemaMap.get("s1"));
+    assertSame(schema, restored.getSchemaMapForOneFileNode("root.a.sg1").get("s1"));
+  }
+
+  @Test
+  public void testChangedLog() throws Exception {
+    MGraphCheckpoint.save(mgraph, logFile, logFile.length(), checkpointFile);
+    try (FileOutputStream outputStream = new FileOutputStream(logFile)) {
+      outputStream.write("other operations\n".getBytes());
+    }
+    try {
+      MGraphCheckpoint.load(checkpointFile, logFile, new MGraph(MetadataConstant.ROOT), 1);
+      fail("the checkpoint of another log should not be loaded");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
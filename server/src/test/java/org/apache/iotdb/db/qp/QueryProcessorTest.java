@@ -24,6 +24,7 @@ import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
 import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -139,6 +140,24 @@ public class QueryProcessorTest {
     assertEquals(OperatorType.FILL, plan10.getOperatorType());
   }
 
+  @Test
+  public void parseDeleteTimeRange() throws QueryProcessException {
+    DeletePlan plan = (DeletePlan) processor.parseSQLToPhysicalPlan(
+        "DELETE FROM root.vehicle.device1.sensor1 WHERE time > 100 and time <= 5000");
+    assertEquals(101, plan.getDeleteStartTime());
+    assertEquals(5000, plan.getDeleteTime());
+
+    plan = (DeletePlan) processor.parseSQLToPhysicalPlan(
+        "DELETE FROM root.vehicle.device1.sensor1 WHERE time >= 100");
+    assertEquals(100, plan.getDeleteStartTime());
+    assertEquals(Long.MAX_VALUE, plan.getDeleteTime());
+
+    plan = (DeletePlan) processor.parseSQLToPhysicalPlan(
+        "DELETE FROM root.vehicle.device1.sensor1 WHERE time < 5000");
+    assertEquals(Long.MIN_VALUE, plan.getDeleteStartTime());
+    assertEquals(4999, plan.getDeleteTime());
+  }
+
   @Test(expected = ParseCancellationException.class)
   public void parseErrorSQLToPhysicalPlan() throws QueryProcessException {
     String createTSStatement = "create timeseriess root.vehicle.d1.s1 with datatype=INT32,encoding=RLE";
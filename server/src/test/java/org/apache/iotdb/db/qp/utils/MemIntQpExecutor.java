@@ -140,7 +140,7 @@ public class MemIntQpExecutor extends AbstractQueryProcessExecutor {
   }
 
   @Override
-  public void delete(Path path, long deleteTime) {
+  public void delete(Path path, long startTime, long deleteTime) {
     if (!demoMemDataBase.containsKey(path.toString())) {
       return;
     }
@@ -148,7 +148,7 @@ public class MemIntQpExecutor extends AbstractQueryProcessExecutor {
     TreeMap<Long, Integer> delResult = new TreeMap<>();
     for (Entry<Long, Integer> entry : series.data.entrySet()) {
       long timestamp = entry.getKey();
-      if (timestamp >= deleteTime) {
+      if (timestamp < startTime || timestamp >= deleteTime) {
         delResult.put(timestamp, entry.getValue());
       }
     }
@@ -184,6 +184,11 @@ public class MemIntQpExecutor extends AbstractQueryProcessExecutor {
     return null;
   }
 
+  @Override
+  public List<Integer[]> insertBatches(List<BatchInsertPlan> batchInsertPlans) {
+    return null;
+  }
+
   @Override
   protected QueryDataSet processAuthorQuery(AuthorPlan plan, QueryContext context) {
     return null;
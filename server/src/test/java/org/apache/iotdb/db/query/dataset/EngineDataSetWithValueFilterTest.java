@@ -125,4 +125,31 @@ public class EngineDataSetWithValueFilterTest {
     assertNull(dataSet.next());
 
   }
+
+  @Test
+  public void testSelectFilteredSeries() throws Exception {
+    // the values of root.vehicle.d0.s0 come from the time generator
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(
+        "select vehicle.d0.s0, vehicle.d0.s1 from root where root.vehicle.d0.s0 > 125");
+    QueryDataSet dataSet = queryExecutor.processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    String[] expected = {"16\t128\tnull", "18\t189\t198", "20\t1000\tnull", "22\t1001\t1002",
+        "206\t131\t132", "209\t130\tnull"};
+    for (String row : expected) {
+      assertTrue(dataSet.hasNext());
+      assertEquals(row, dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+
+    // a series under OR is read again
+    queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan("select vehicle.d0.s0, test.d0.s0 from "
+        + "root where root.vehicle.d0.s0 > 1000 or root.test.d0.s0 > 1000");
+    dataSet = queryExecutor.processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    expected = new String[]{"22\t1001\tnull", "30\tnull\t1006", "34\tnull\t1007",
+        "700\tnull\t1307", "1900\tnull\t1316"};
+    for (String row : expected) {
+      assertTrue(dataSet.hasNext());
+      assertEquals(row, dataSet.next().toString());
+    }
+    assertFalse(dataSet.hasNext());
+  }
 }
\ No newline at end of file
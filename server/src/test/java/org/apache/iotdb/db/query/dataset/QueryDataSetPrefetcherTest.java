@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.junit.Test;
+
+public class QueryDataSetPrefetcherTest {
+
+  private static final int ROW_NUM = 25;
+
+  private AtomicInteger producedRowNum = new AtomicInteger();
+  private AtomicInteger producedBatchNum = new AtomicInteger();
+
+  private TSQueryDataSet produce(int fetchSize) {
+    producedBatchNum.incrementAndGet();
+    int start = producedRowNum.get();
+    int end = Math.min(ROW_NUM, start + fetchSize);
+    ByteBuffer time = ByteBuffer.allocate((end - start) * Long.BYTES);
+    for (int i = start; i < end; i++) {
+      time.putLong(i);
+    }
+    time.flip();
+    producedRowNum.set(end);
+    return new TSQueryDataSet(time, new ArrayList<>(), new ArrayList<>());
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, this::produce, 2,
+        Long.MAX_VALUE);
+    checkBatch(prefetcher.next(10), 0, 10, true);
+    waitForPrefetch(prefetcher);
+    // the remaining batches are prepared before they are fetched
+    assertEquals(2, prefetcher.getPrefetchedBatchNum());
+    assertEquals(3, producedBatchNum.get());
+
+    checkBatch(prefetcher.next(10), 10, 10, true);
+    // the query has no more data
+    checkBatch(prefetcher.next(10), 20, 5, false);
+    waitForPrefetch(prefetcher);
+    assertEquals(0, prefetcher.getPrefetchedBatchNum());
+    assertEquals(3, producedBatchNum.get());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testLastFullBatch() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, this::produce, 2,
+        Long.MAX_VALUE);
+    for (int i = 0; i < 4; i++) {
+      checkBatch(prefetcher.next(5), i * 5, 5, true);
+      waitForPrefetch(prefetcher);
+    }
+    // the prefetched empty batch tells that the last full batch is the last one
+    checkBatch(prefetcher.next(5), 20, 5, false);
+    assertEquals(6, producedBatchNum.get());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testMemoryLimit() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, this::produce, 2, 1);
+    checkBatch(prefetcher.next(5), 0, 5, true);
+    waitForPrefetch(prefetcher);
+    assertEquals(1, prefetcher.getPrefetchedBatchNum());
+    assertEquals(2, producedBatchNum.get());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testNoPrefetch() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, this::produce, 0,
+        Long.MAX_VALUE);
+    for (int i = 0; i < 5; i++) {
+      checkBatch(prefetcher.next(5), i * 5, 5, true);
+      assertFalse(prefetcher.isProducing());
+      assertEquals(i + 1, producedBatchNum.get());
+    }
+    prefetcher.close();
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, fetchSize -> {
+      if (producedBatchNum.get() > 0) {
+        throw new IOException("failed batch");
+      }
+      return produce(fetchSize);
+    }, 2, Long.MAX_VALUE);
+    checkBatch(prefetcher.next(5), 0, 5, true);
+    try {
+      prefetcher.next(5);
+      fail();
+    } catch (IOException e) {
+      assertEquals("failed batch", e.getMessage());
+    }
+    prefetcher.close();
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    QueryDataSetPrefetcher prefetcher = new QueryDataSetPrefetcher(0, fetchSize -> {
+      LockSupport.parkNanos(10_000_000);
+      return produce(fetchSize);
+    }, 2, Long.MAX_VALUE);
+    prefetcher.next(5);
+    prefetcher.close();
+    // the batch being produced is finished before close() returns and no more is produced
+    assertFalse(prefetcher.isProducing());
+    int batchNum = producedBatchNum.get();
+    LockSupport.parkNanos(50_000_000);
+    assertEquals(batchNum, producedBatchNum.get());
+    assertEquals(0, prefetcher.getPrefetchedBatchNum());
+    try {
+      prefetcher.next(5);
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().contains("closed"));
+    }
+  }
+
+  private void waitForPrefetch(QueryDataSetPrefetcher prefetcher) {
+    while (prefetcher.isProducing()) {
+      LockSupport.parkNanos(1_000_000);
+    }
+  }
+
+  private void checkBatch(TSQueryDataSet batch, long startTime, int rowNum, boolean moreData) {
+    assertEquals(rowNum * Long.BYTES, batch.time.remaining());
+    for (int i = 0; i < rowNum; i++) {
+      assertEquals(startTime + i, batch.time.getLong());
+    }
+    assertEquals(moreData, batch.isMoreData());
+    assertEquals(Collections.emptyList(), batch.getValueList());
+  }
+}
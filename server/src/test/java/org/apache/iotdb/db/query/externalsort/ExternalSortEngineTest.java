@@ -27,11 +27,13 @@ import java.util.Random;
 
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
 import org.apache.iotdb.db.query.reader.universal.FakedSeriesReader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
 import org.junit.After;
@@ -43,6 +45,7 @@ public class ExternalSortEngineTest {
 
   private String baseDir = TestConstant.BASE_OUTPUT_PATH.concat("externalSortTestTmp").concat(File.separator);
   private long queryId = EnvironmentUtils.TEST_QUERY_JOB_ID;
+  private QueryContext context = new QueryContext(queryId);
   private SimpleExternalSortEngine engine;
   private String preBaseDir;
   private int preMinExternalSortSourceCount;
@@ -71,7 +74,7 @@ public class ExternalSortEngineTest {
     List<IPointReader> readerList2 = genSimple();
     List<ChunkReaderWrap> chunkReaderWrapList = new ArrayList<>();
     readerList1.forEach(x -> chunkReaderWrapList.add(new FakeChunkReaderWrap(x)));
-    readerList1 = engine.executeForIPointReader(queryId, chunkReaderWrapList);
+    readerList1 = engine.executeForIPointReader(context, chunkReaderWrapList);
     PriorityMergeReader reader1 = new PriorityMergeReader(readerList1, 1);
     PriorityMergeReader reader2 = new PriorityMergeReader(readerList2, 1);
 //    check(reader1, reader2);
@@ -90,7 +93,7 @@ public class ExternalSortEngineTest {
     List<IPointReader> readerList2 = genReaders(data);
     List<ChunkReaderWrap> chunkReaderWrapList = new ArrayList<>();
     readerList1.forEach(x -> chunkReaderWrapList.add(new FakeChunkReaderWrap(x)));
-    readerList1 = engine.executeForIPointReader(queryId, chunkReaderWrapList);
+    readerList1 = engine.executeForIPointReader(context, chunkReaderWrapList);
     PriorityMergeReader reader1 = new PriorityMergeReader(readerList1, 1);
     PriorityMergeReader reader2 = new PriorityMergeReader(readerList2, 1);
 
@@ -99,6 +102,62 @@ public class ExternalSortEngineTest {
     reader2.close();
   }
 
+  @Test
+  public void testSpillOverMemoryBudget() throws IOException, StorageEngineException {
+    engine.setMinExternalSortSourceCount(50);
+    QueryMemoryPool memoryPool = QueryMemoryPool.getInstance();
+    long budgetQueryId = QueryResourceManager.getInstance().assignQueryId(true);
+    QueryContext budgetContext = new QueryContext(budgetQueryId);
+    try {
+      int lineCount = 10;
+      int valueCount = 100;
+      List<long[]> data = genData(lineCount, valueCount);
+
+      // leave room for only one of the sources in the budget of the query
+      long reserved = Math.min(memoryPool.getMaxMemoryPerQuery(), memoryPool.getFreeMemory()) - 150;
+      budgetContext.reserveMemory(reserved);
+      List<ChunkReaderWrap> chunkReaderWrapList = new ArrayList<>();
+      genReaders(data).forEach(x -> chunkReaderWrapList.add(new FakeChunkReaderWrap(x, 100)));
+      List<IPointReader> readerList = engine
+          .executeForIPointReader(budgetContext, chunkReaderWrapList);
+      // the sources are merged into external sort files, two at a time
+      Assert.assertEquals(1, readerList.size());
+      Assert.assertEquals(reserved, memoryPool.getQueryMemory(budgetQueryId));
+      IPointReader reader = readerList.get(0);
+      long lastTime = Long.MIN_VALUE;
+      int pointCount = 0;
+      while (reader.hasNext()) {
+        long time = reader.next().getTimestamp();
+        Assert.assertTrue(time > lastTime);
+        lastTime = time;
+        pointCount++;
+      }
+      Assert.assertEquals(lineCount * valueCount, pointCount);
+
+      // the sources are sorted in memory once the budget allows
+      budgetContext.releaseMemory(reserved);
+      chunkReaderWrapList.clear();
+      genReaders(data).forEach(x -> chunkReaderWrapList.add(new FakeChunkReaderWrap(x, 100)));
+      readerList = engine.executeForIPointReader(budgetContext, chunkReaderWrapList);
+      Assert.assertEquals(lineCount, readerList.size());
+      Assert.assertEquals(100L * lineCount, memoryPool.getQueryMemory(budgetQueryId));
+
+      // the memory of a source is released once its reader is exhausted or closed
+      IPointReader firstReader = readerList.get(0);
+      while (firstReader.hasNext()) {
+        firstReader.next();
+      }
+      Assert.assertEquals(100L * (lineCount - 1), memoryPool.getQueryMemory(budgetQueryId));
+      readerList.get(1).close();
+      Assert.assertEquals(100L * (lineCount - 2), memoryPool.getQueryMemory(budgetQueryId));
+      firstReader.close();
+      Assert.assertEquals(100L * (lineCount - 2), memoryPool.getQueryMemory(budgetQueryId));
+    } finally {
+      QueryResourceManager.getInstance().endQuery(budgetQueryId);
+    }
+    Assert.assertEquals(0, memoryPool.getQueryMemory(budgetQueryId));
+  }
+
   public void efficiencyTest() throws IOException {
     engine.setMinExternalSortSourceCount(50);
     int lineCount = 100000;
@@ -110,7 +169,7 @@ public class ExternalSortEngineTest {
     readerList1.forEach(x -> chunkReaderWrapList.add(new FakeChunkReaderWrap(x)));
 
     long startTimestamp = System.currentTimeMillis();
-    readerList1 = engine.executeForIPointReader(queryId, chunkReaderWrapList);
+    readerList1 = engine.executeForIPointReader(context, chunkReaderWrapList);
     PriorityMergeReader reader1 = new PriorityMergeReader();
     for (int i = 0; i < readerList1.size(); i++) {
       reader1.addReaderWithPriority(readerList1.get(i), i);
@@ -27,11 +27,23 @@ import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
  */
 public class FakeChunkReaderWrap extends ChunkReaderWrap {
   private IPointReader pointReader;
+  private long memorySize;
+
   public FakeChunkReaderWrap(IPointReader pointReader){
     super();
     this.pointReader = pointReader;
   }
 
+  public FakeChunkReaderWrap(IPointReader pointReader, long memorySize) {
+    this(pointReader);
+    this.memorySize = memorySize;
+  }
+
+  @Override
+  public long getMemorySize() {
+    return memorySize;
+  }
+
   @Override
   public IPointReader getIPointReader() {
     return pointReader;
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.junit.Test;
+
+public class SeriesTaskRunnerTest {
+
+  @Test
+  public void testRun() throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(false);
+    int parallelism = 4;
+    SeriesTaskRunner runner = new SeriesTaskRunner(queryId, parallelism);
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    AtomicInteger runningNum = new AtomicInteger();
+    AtomicInteger maxRunningNum = new AtomicInteger();
+    List<Integer> results = runner.run(100, i -> {
+      threads.add(Thread.currentThread());
+      maxRunningNum.accumulateAndGet(runningNum.incrementAndGet(), Math::max);
+      LockSupport.parkNanos(1_000_000);
+      runningNum.decrementAndGet();
+      return i * 2;
+    });
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i * 2, (int) results.get(i));
+    }
+    assertTrue(threads.contains(Thread.currentThread()));
+    assertTrue(maxRunningNum.get() <= parallelism);
+
+    // the runner can be reused
+    assertEquals(1, (int) runner.run(1, i -> 1).get(0));
+    QueryResourceManager.getInstance().endQuery(queryId);
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(false);
+    SeriesTaskRunner runner = new SeriesTaskRunner(queryId, 4);
+    try {
+      runner.run(100, i -> {
+        if (i == 50) {
+          throw new IOException("series " + i);
+        }
+        return i;
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("series 50", e.getMessage());
+    }
+    QueryResourceManager.getInstance().endQuery(queryId);
+  }
+
+  @Test
+  public void testEndQuery() throws Exception {
+    long queryId = QueryResourceManager.getInstance().assignQueryId(false);
+    SeriesTaskRunner runner = new SeriesTaskRunner(queryId, 2);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch ended = new CountDownLatch(1);
+    AtomicInteger calculatedNum = new AtomicInteger();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<List<Object>> future = executor.submit(() -> runner.run(100, i -> {
+      started.countDown();
+      try {
+        ended.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      calculatedNum.incrementAndGet();
+      return null;
+    }));
+    started.await();
+    QueryResourceManager.getInstance().endQuery(queryId);
+    ended.countDown();
+    try {
+      future.get();
+      fail();
+    } catch (Exception e) {
+      assertTrue(e.getCause() instanceof QueryProcessException);
+    }
+    executor.shutdown();
+    // only the series started before the query ends are calculated
+    assertTrue(calculatedNum.get() <= 2);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.seriesRelated;
+
+import java.io.IOException;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.ReaderTestHelper;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeriesLastPointReaderTest extends ReaderTestHelper {
+
+  private Path path = new Path(deviceId, measurementId);
+
+  @Test
+  public void testSeqData() throws IOException {
+    // the last point is in the memtable of the unsealed file
+    checkLastPoint(null, 5049);
+    // the last points of chunks and pages are read from statistics
+    checkLastPoint(TimeFilter.ltEq(5029L), 5029);
+    checkLastPoint(TimeFilter.ltEq(3500L), 3500);
+    checkLastPoint(FilterFactory.and(TimeFilter.gtEq(1005L), TimeFilter.ltEq(1015L)), 1015);
+    checkLastPoint(TimeFilter.lt(1000L), null);
+  }
+
+  @Test
+  public void testDeletion() throws IOException {
+    storageGroupProcessor.delete(deviceId, measurementId, 2000);
+    checkLastPoint(TimeFilter.ltEq(2500L), 2500);
+    checkLastPoint(TimeFilter.ltEq(2000L), null);
+  }
+
+  @Test
+  public void testUnseqData() throws IOException, QueryProcessException {
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+    insertOneRecord(2000, 0);
+    // the end time of an unsealed unsequence file is unknown
+    Assert.assertFalse(createReader(TimeFilter.ltEq(2500L), new QueryContext()).readLastPoint());
+
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+    // the unsequence data is earlier than the last point of the sequence data
+    checkLastPoint(TimeFilter.ltEq(2500L), 2500);
+    // the unsequence data does not satisfy the filter
+    checkLastPoint(TimeFilter.ltEq(1500L), 1500);
+    // the unsequence data overwrites the last point of the sequence data
+    Assert.assertFalse(createReader(TimeFilter.ltEq(2000L), new QueryContext()).readLastPoint());
+  }
+
+  private SeriesLastPointReader createReader(Filter timeFilter, QueryContext context) {
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null, timeFilter);
+    return new SeriesLastPointReader(path, dataType, queryDataSource, timeFilter, context);
+  }
+
+  private void checkLastPoint(Filter timeFilter, Integer expected) throws IOException {
+    SeriesLastPointReader reader = createReader(timeFilter,
+        new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID));
+    Assert.assertTrue(reader.readLastPoint());
+    TimeValuePair lastPoint = reader.getLastPoint();
+    if (expected == null) {
+      Assert.assertNull(lastPoint);
+    } else {
+      Assert.assertEquals((long) expected, lastPoint.getTimestamp());
+      Assert.assertEquals((int) expected, lastPoint.getValue().getInt());
+    }
+  }
+
+  @Override
+  protected void insertData() throws IOException, QueryProcessException {
+    for (int j = 1000; j <= 1019; j++) {
+      insertOneRecord(j, j);
+    }
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+
+    for (int j = 1020; j <= 3019; j++) {
+      insertOneRecord(j, j);
+    }
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+
+    for (int j = 3020; j <= 5029; j++) {
+      insertOneRecord(j, j);
+    }
+    storageGroupProcessor.putAllWorkingTsFileProcessorIntoClosingList();
+
+    for (int j = 5030; j <= 5049; j++) {
+      insertOneRecord(j, j);
+    }
+  }
+}
@@ -91,6 +91,32 @@ public class PriorityMergeReaderByTimestampTest {
 
   }
 
+  @Test
+  public void testBatch() throws IOException {
+    PriorityMergeReaderByTimestamp priorityReader = new PriorityMergeReaderByTimestamp();
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    priorityReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+    PriorityMergeReaderByTimestamp expectedReader = new PriorityMergeReaderByTimestamp();
+    expectedReader.addReaderWithPriority(new FakedReaderByTimestamp(100, 200, 5, 11), 1);
+    expectedReader.addReaderWithPriority(new FakedReaderByTimestamp(850, 200, 7, 19), 2);
+
+    Random random = new Random();
+    long[] timestamps = new long[64];
+    long time = 4;
+    while (time < 850 + 200 * 7 + 600) {
+      int length = random.nextInt(timestamps.length) + 1;
+      for (int i = 0; i < length; i++) {
+        timestamps[i] = time;
+        time += random.nextInt(10) + 1;
+      }
+      Object[] values = priorityReader.getValuesInTimestamps(timestamps, length);
+      Assert.assertEquals(length, values.length);
+      for (int i = 0; i < length; i++) {
+        Assert.assertEquals(expectedReader.getValueInTimestamp(timestamps[i]), values[i]);
+      }
+    }
+  }
+
   public static class FakedReaderByTimestamp implements IReaderByTimestamp,
       IPointReader {
 
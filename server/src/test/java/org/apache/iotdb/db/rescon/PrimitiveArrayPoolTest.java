@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayPool.ARRAY_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.junit.Test;
+
+public class PrimitiveArrayPoolTest {
+
+  @Test
+  public void testReuseAndCap() {
+    // room for 2 idle long arrays
+    PrimitiveArrayPool pool = new PrimitiveArrayPool(2L * ARRAY_SIZE * Long.BYTES);
+    long[] array1 = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+    long[] array2 = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+    long[] array3 = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+    assertEquals(3L, (long) pool.getAllocatedArrayNumbers().get(TSDataType.INT64.name()));
+
+    pool.release(array1);
+    pool.release(array2);
+    // beyond the cap
+    pool.release(array3);
+    assertEquals(2L, (long) pool.getPooledArrayNumbers().get(TSDataType.INT64.name()));
+    assertEquals(1L, (long) pool.getDroppedArrayNumbers().get(TSDataType.INT64.name()));
+    assertEquals(2L * ARRAY_SIZE * Long.BYTES, pool.getPooledMemoryInB());
+
+    assertSame(array2, pool.getPrimitiveDataListByType(TSDataType.INT64));
+    assertEquals(1L, (long) pool.getReusedArrayNumbers().get(TSDataType.INT64.name()));
+    assertEquals(3L, (long) pool.getAllocatedArrayNumbers().get(TSDataType.INT64.name()));
+
+    // the arrays of other types are pooled separately
+    pool.getPrimitiveDataListByType(TSDataType.INT32);
+    assertEquals(1L, (long) pool.getAllocatedArrayNumbers().get(TSDataType.INT32.name()));
+
+    pool.clear();
+    assertEquals(0L, (long) pool.getPooledArrayNumbers().get(TSDataType.INT64.name()));
+    assertEquals(0, pool.getPooledMemoryInB());
+  }
+
+  @Test
+  public void testConcurrentGetAndRelease() throws Exception {
+    PrimitiveArrayPool pool = new PrimitiveArrayPool(Long.MAX_VALUE);
+    int threadNum = 8;
+    int arrayNum = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threadNum);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      futures.add(executor.submit(() -> {
+        for (int round = 0; round < 10; round++) {
+          List<Object> arrays = new ArrayList<>();
+          for (int j = 0; j < arrayNum; j++) {
+            arrays.add(pool.getPrimitiveDataListByType(TSDataType.DOUBLE));
+          }
+          arrays.forEach(pool::release);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    String type = TSDataType.DOUBLE.name();
+    long allocatedNum = pool.getAllocatedArrayNumbers().get(type);
+    long reusedNum = pool.getReusedArrayNumbers().get(type);
+    assertEquals((long) threadNum * arrayNum * 10, allocatedNum + reusedNum);
+    // every allocated array is idle in the pool at last
+    assertEquals(allocatedNum, (long) pool.getPooledArrayNumbers().get(type));
+    assertEquals(allocatedNum * ARRAY_SIZE * Double.BYTES, pool.getPooledMemoryInB());
+  }
+}
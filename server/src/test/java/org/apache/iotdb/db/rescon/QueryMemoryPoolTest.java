@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.iotdb.db.exception.query.QueryMemoryExceededException;
+import org.junit.Test;
+
+public class QueryMemoryPoolTest {
+
+  @Test
+  public void testBudgetAndCapacity() {
+    QueryMemoryPool pool = new QueryMemoryPool(1000, 600);
+    pool.registerQuery(1);
+    pool.registerQuery(2);
+
+    assertTrue(pool.tryReserve(1, 500));
+    // beyond the budget of query 1
+    assertFalse(pool.tryReserve(1, 200));
+    assertTrue(pool.tryReserve(2, 400));
+    // beyond the capacity of the pool
+    assertFalse(pool.tryReserve(2, 200));
+    assertEquals(100, pool.getFreeMemory());
+
+    pool.release(1, 300);
+    assertTrue(pool.tryReserve(2, 200));
+    assertEquals(200, pool.getQueryMemory(1));
+    assertEquals(600, pool.getQueryMemory(2));
+
+    // all memory of a query is returned when it is unregistered
+    pool.unregisterQuery(2);
+    assertEquals(0, pool.getQueryMemory(2));
+    assertEquals(800, pool.getFreeMemory());
+    // the late releases of an unregistered query do not affect the pool
+    pool.release(2, 600);
+    assertEquals(800, pool.getFreeMemory());
+    pool.unregisterQuery(1);
+    assertEquals(1000, pool.getFreeMemory());
+  }
+
+  @Test
+  public void testUntrackedQuery() throws QueryMemoryExceededException {
+    QueryMemoryPool pool = new QueryMemoryPool(1000, 600);
+    // the queries not registered are not accounted
+    pool.reserve(3, 2000);
+    assertEquals(0, pool.getQueryMemory(3));
+    assertEquals(1000, pool.getFreeMemory());
+  }
+
+  @Test
+  public void testReserveFailsFast() {
+    QueryMemoryPool pool = new QueryMemoryPool(1000, 600);
+    pool.registerQuery(1);
+    try {
+      pool.reserve(1, 700);
+      fail();
+    } catch (QueryMemoryExceededException e) {
+      assertTrue(e.getMessage().contains("Query 1 fails to reserve 700 bytes"));
+    }
+    assertEquals(0, pool.getQueryMemory(1));
+    assertEquals(1000, pool.getFreeMemory());
+  }
+}
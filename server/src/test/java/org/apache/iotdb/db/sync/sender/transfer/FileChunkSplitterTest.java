@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.sender.transfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.service.sync.thrift.ChunkDigest;
+import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileChunkSplitterTest {
+
+  private File tsFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("splitterTest.tsfile"));
+  private File otherFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("splitterTest.txt"));
+
+  @Before
+  public void setUp() throws Exception {
+    if (!tsFile.getParentFile().exists()) {
+      tsFile.getParentFile().mkdirs();
+    }
+    TsFileWriter writer = new TsFileWriter(tsFile);
+    for (int i = 0; i < 3; i++) {
+      writer.addMeasurement(new MeasurementSchema("s" + i, TSDataType.INT64, TSEncoding.RLE,
+          CompressionType.UNCOMPRESSED));
+    }
+    for (int d = 0; d < 2; d++) {
+      for (long t = 0; t < 100; t++) {
+        TSRecord record = new TSRecord(t, "root.sg.d" + d);
+        for (int i = 0; i < 3; i++) {
+          record.addTuple(new LongDataPoint("s" + i, t * i));
+        }
+        writer.write(record);
+      }
+    }
+    writer.close();
+  }
+
+  @After
+  public void tearDown() {
+    tsFile.delete();
+    otherFile.delete();
+  }
+
+  @Test
+  public void testSplitTsFile() throws Exception {
+    MessageDigest fileDigest = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    List<ChunkDigest> chunks = FileChunkSplitter.split(tsFile, fileDigest);
+    checkCoverage(tsFile, chunks, fileDigest);
+
+    // each chunk starts a piece
+    Set<Long> offsets = new HashSet<>();
+    chunks.forEach(chunk -> offsets.add(chunk.getOffset()));
+    int chunkNum = 0;
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getAbsolutePath())) {
+      for (ChunkGroupMetaData chunkGroupMetaData : reader
+          .getSortedChunkGroupMetaDataListByDeviceIds()) {
+        for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+          assertTrue(offsets.contains(chunkMetaData.getOffsetOfChunkHeader()));
+          chunkNum++;
+        }
+      }
+    }
+    assertEquals(6, chunkNum);
+    assertTrue(chunks.size() > chunkNum);
+  }
+
+  @Test
+  public void testSplitOtherFile() throws Exception {
+    try (FileOutputStream outputStream = new FileOutputStream(otherFile)) {
+      outputStream.write(new byte[1024]);
+    }
+    MessageDigest fileDigest = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    List<ChunkDigest> chunks = FileChunkSplitter.split(otherFile, fileDigest);
+    assertEquals(1, chunks.size());
+    checkCoverage(otherFile, chunks, fileDigest);
+  }
+
+  private void checkCoverage(File file, List<ChunkDigest> chunks, MessageDigest fileDigest)
+      throws Exception {
+    byte[] content = Files.readAllBytes(file.toPath());
+    long offset = 0;
+    for (ChunkDigest chunk : chunks) {
+      assertEquals(offset, chunk.getOffset());
+      assertNotEquals(0, chunk.getLength());
+      MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+      md.update(content, (int) chunk.getOffset(), chunk.getLength());
+      assertEquals(new BigInteger(1, md.digest()).toString(16), chunk.getDigest());
+      offset += chunk.getLength();
+    }
+    assertEquals(content.length, offset);
+
+    MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    md.update(content);
+    assertEquals(new BigInteger(1, md.digest()).toString(16),
+        new BigInteger(1, fileDigest.digest()).toString(16));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class ConcurrentLinkedMapTest {
+
+  @Test
+  public void testInsertionOrder() {
+    Map<String, Integer> map = new ConcurrentLinkedMap<>();
+    map.put("c", 1);
+    map.put("a", 2);
+    map.put("b", 3);
+    // updating a key does not move it
+    assertEquals(Integer.valueOf(2), map.put("a", 4));
+    assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(map.keySet()));
+    assertEquals(Arrays.asList(1, 4, 3), new ArrayList<>(map.values()));
+
+    assertEquals(Integer.valueOf(1), map.remove("c"));
+    assertNull(map.remove("c"));
+    map.put("c", 5);
+    assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(map.keySet()));
+    assertEquals(3, map.size());
+  }
+
+  @Test
+  public void testIteratorRemove() {
+    Map<String, Integer> map = new ConcurrentLinkedMap<>();
+    map.put("a", 1);
+    map.put("b", 2);
+    Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+    assertEquals("a", iterator.next().getKey());
+    iterator.remove();
+    assertFalse(map.containsKey("a"));
+
+    // a key removed after the iterator is created is skipped
+    map.put("c", 3);
+    iterator = map.entrySet().iterator();
+    map.remove("b");
+    assertTrue(iterator.hasNext());
+    assertEquals("c", iterator.next().getKey());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testConcurrentPut() throws Exception {
+    Map<Integer, Integer> map = new ConcurrentLinkedMap<>();
+    int threadNum = 4;
+    int keyNum = 1000;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        int offset = i;
+        futures.add(pool.submit(() -> {
+          for (int j = offset; j < keyNum; j += threadNum) {
+            map.put(j, j);
+            // reads are not blocked by the writers
+            map.values().forEach(v -> assertTrue(v < keyNum));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(keyNum, map.size());
+    assertEquals(keyNum, map.keySet().size());
+  }
+}
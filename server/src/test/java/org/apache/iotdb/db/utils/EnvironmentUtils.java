@@ -31,6 +31,7 @@ import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.exception.StartupException;
@@ -91,6 +92,9 @@ public class EnvironmentUtils {
       TsFileMetaDataCache.getInstance().clear();
       DeviceMetaDataCache.getInstance().clear();
     }
+    if (config.isChunkCacheEnable()) {
+      ChunkCache.getInstance().clear();
+    }
     // close metadata
     MManager.getInstance().clear();
 
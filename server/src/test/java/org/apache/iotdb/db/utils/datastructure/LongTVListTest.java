@@ -90,4 +90,68 @@ public class LongTVListTest {
     }
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testSnapshot() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 1000; i < 2000; i++) {
+      tvList.putLong(i, i);
+    }
+    TVList snapshot = tvList.getSnapshot();
+
+    // appending, sorting and deleting the list must not change the snapshot
+    for (long i = 999; i >= 0; i--) {
+      tvList.putLong(i, -i);
+    }
+    tvList.sort();
+    tvList.delete(1500);
+    Assert.assertEquals(499, tvList.size());
+    Assert.assertEquals(1501, tvList.getTime(0));
+
+    Assert.assertEquals(1000, snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      Assert.assertEquals(1000 + i, snapshot.getTime(i));
+      Assert.assertEquals(1000 + i, snapshot.getLong(i));
+    }
+
+    // the arrays shared with the snapshot must not be reused by others after clearing the list
+    tvList.clear();
+    LongTVList newList = new LongTVList();
+    for (long i = 0; i < 2000; i++) {
+      newList.putLong(i, -i);
+    }
+    for (int i = 0; i < snapshot.size(); i++) {
+      Assert.assertEquals(1000 + i, snapshot.getTime(i));
+      Assert.assertEquals(1000 + i, snapshot.getLong(i));
+    }
+  }
+
+  @Test
+  public void testReleaseSnapshot() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 1000; i < 2000; i++) {
+      tvList.putLong(i, i);
+    }
+    TVList snapshot1 = tvList.getSnapshot();
+    TVList snapshot2 = tvList.getSnapshot();
+    Assert.assertTrue(tvList.isShared());
+    snapshot1.releaseSnapshot();
+    // releasing twice does not release the other snapshot
+    snapshot1.releaseSnapshot();
+    Assert.assertTrue(tvList.isShared());
+    snapshot2.releaseSnapshot();
+    // the arrays are owned by the list again, so sorting it does not copy them
+    Assert.assertFalse(tvList.isShared());
+
+    TVList snapshot3 = tvList.getSnapshot();
+    tvList.putLong(0, 0);
+    tvList.sort();
+    // the sort copied the arrays, a new snapshot is not affected by releasing the old one
+    TVList snapshot4 = tvList.getSnapshot();
+    snapshot3.releaseSnapshot();
+    Assert.assertTrue(tvList.isShared());
+    snapshot4.releaseSnapshot();
+    Assert.assertFalse(tvList.isShared());
+    Assert.assertEquals(1000, snapshot3.size());
+    Assert.assertEquals(1001, snapshot4.size());
+  }
+}
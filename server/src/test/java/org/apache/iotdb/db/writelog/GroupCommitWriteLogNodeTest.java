@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.writelog.io.ILogReader;
+import org.apache.iotdb.db.writelog.node.GroupCommitWriteLogNode;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupCommitWriteLogNodeTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private boolean enableWal;
+
+  @Before
+  public void setUp() throws Exception {
+    enableWal = config.isEnableWal();
+    config.setEnableWal(true);
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setEnableWal(enableWal);
+  }
+
+  @Test
+  public void testWriteAndAwait() throws IOException {
+    String identifier = "root.groupCommitTestDevice";
+    GroupCommitWriteLogNode logNode = new GroupCommitWriteLogNode(identifier);
+
+    InsertPlan insertPlan = new InsertPlan(identifier, 100,
+        new String[]{"s1", "s2", "s3", "s4"},
+        new String[]{"1.0", "15", "str", "false"});
+    DeletePlan deletePlan = new DeletePlan(50, new Path(identifier + ".s1"));
+
+    logNode.write(insertPlan);
+    logNode.write(deletePlan);
+    // the logs must be persisted once the writer returns from waiting
+    GroupCommitWriteLogNode.awaitPendingLogs();
+
+    File walFile = new File(
+        config.getWalFolder() + File.separator + identifier + File.separator + "wal1");
+    assertTrue(walFile.exists());
+    assertEquals(2, logNode.getAppendedLogNum());
+    assertEquals(0, logNode.getPendingLogNum());
+    assertTrue(logNode.getCommitEpoch() >= 1);
+
+    ILogReader reader = logNode.getLogReader();
+    assertEquals(insertPlan, reader.next());
+    assertEquals(deletePlan, reader.next());
+    assertFalse(reader.hasNext());
+    reader.close();
+
+    logNode.delete();
+    assertFalse(new File(logNode.getLogDirectory()).exists());
+  }
+
+  @Test
+  public void testConcurrentWriters() throws Exception {
+    String identifier = "root.groupCommitTestDevice";
+    GroupCommitWriteLogNode logNode = new GroupCommitWriteLogNode(identifier);
+    int threadNum = 8;
+    int logNumPerThread = 100;
+    long commitWindow = config.getWalGroupCommitWindowInMs();
+    // give the commit thread time to gather the logs of several writers
+    config.setWalGroupCommitWindowInMs(10);
+
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < threadNum; i++) {
+        int threadId = i;
+        futures.add(pool.submit(() -> {
+          for (int j = 0; j < logNumPerThread; j++) {
+            logNode.write(new InsertPlan(identifier, threadId * logNumPerThread + j,
+                new String[]{"s1"}, new String[]{"1.0"}));
+            if (j % 10 == 9) {
+              GroupCommitWriteLogNode.awaitPendingLogs();
+            }
+          }
+          GroupCommitWriteLogNode.awaitPendingLogs();
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+      config.setWalGroupCommitWindowInMs(commitWindow);
+    }
+
+    int logNum = threadNum * logNumPerThread;
+    assertEquals(logNum, logNode.getAppendedLogNum());
+    assertEquals(0, logNode.getPendingLogNum());
+    // each writer waits once per 10 logs, so the logs must have been committed in groups
+    assertTrue(logNode.getCommitEpoch() < logNum);
+
+    // every log is persisted exactly once
+    Set<Long> times = new HashSet<>();
+    ILogReader reader = logNode.getLogReader();
+    while (reader.hasNext()) {
+      assertTrue(times.add(((InsertPlan) reader.next()).getTime()));
+    }
+    reader.close();
+    assertEquals(logNum, times.size());
+    for (long i = 0; i < logNum; i++) {
+      assertTrue(times.contains(i));
+    }
+
+    logNode.delete();
+  }
+
+  @Test
+  public void testCommitFailure() throws IOException {
+    String identifier = "root.groupCommitTestDevice";
+    GroupCommitWriteLogNode logNode = new GroupCommitWriteLogNode(identifier);
+    InsertPlan insertPlan = new InsertPlan(identifier, 100, new String[]{"s1"},
+        new String[]{"1.0"});
+    logNode.write(insertPlan);
+    GroupCommitWriteLogNode.awaitPendingLogs();
+
+    // the next log file cannot be opened as a directory takes its place
+    logNode.notifyStartFlush();
+    File blocker = new File(logNode.getLogDirectory(), "wal2");
+    assertTrue(blocker.mkdirs());
+    try {
+      logNode.write(insertPlan);
+      GroupCommitWriteLogNode.awaitPendingLogs();
+      fail("The failure of the commit is not passed back to the writer");
+    } catch (IOException e) {
+      // expected
+    } finally {
+      config.setReadOnly(false);
+    }
+
+    // the commit thread survives the failure
+    assertTrue(blocker.delete());
+    logNode.write(insertPlan);
+    GroupCommitWriteLogNode.awaitPendingLogs();
+    assertEquals(0, logNode.getPendingLogNum());
+    assertTrue(new File(logNode.getLogDirectory(), "wal2").isFile());
+
+    logNode.delete();
+  }
+
+  @Test
+  public void testNotifyFlush() throws IOException {
+    String identifier = "root.groupCommitTestDevice";
+    GroupCommitWriteLogNode logNode = new GroupCommitWriteLogNode(identifier);
+
+    InsertPlan insertPlan = new InsertPlan(identifier, 100,
+        new String[]{"s1", "s2", "s3", "s4"},
+        new String[]{"1.0", "15", "str", "false"});
+    DeletePlan deletePlan = new DeletePlan(50, new Path(identifier + ".s1"));
+
+    logNode.write(insertPlan);
+    logNode.notifyStartFlush();
+    logNode.write(deletePlan);
+    logNode.notifyStartFlush();
+    GroupCommitWriteLogNode.awaitPendingLogs();
+
+    ILogReader logReader = logNode.getLogReader();
+    assertEquals(insertPlan, logReader.next());
+    assertEquals(deletePlan, logReader.next());
+    logReader.close();
+
+    logNode.notifyEndFlush();
+    logReader = logNode.getLogReader();
+    assertEquals(deletePlan, logReader.next());
+    logReader.close();
+
+    logNode.notifyEndFlush();
+    logReader = logNode.getLogReader();
+    assertFalse(logReader.hasNext());
+    logReader.close();
+
+    logNode.delete();
+  }
+}
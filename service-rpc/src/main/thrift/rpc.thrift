@@ -190,6 +190,18 @@ struct TSBatchInsertionReq {
     7: required i32 size
 }
 
+// the tablets of several devices in one request, the i-th element of each list belongs to the
+// i-th device and is encoded as the fields of TSBatchInsertionReq
+struct TSMultiBatchInsertionReq {
+    1: required i64 sessionId
+    2: required list<string> deviceIds
+    3: required list<list<string>> measurementsList
+    4: required list<binary> valuesList
+    5: required list<binary> timestampsList
+    6: required list<list<i32>> typesList
+    7: required list<i32> sizeList
+}
+
 struct TSInsertInBatchReq {
     1: required i64 sessionId
     2: required list<string> deviceIds
@@ -225,6 +237,8 @@ struct TSQueryDataSet{
    2: required list<binary> valueList
    // Bitmap for each column to indicate whether it is a null value
    3: required list<binary> bitmapList
+   // false if it is the last non-empty batch of the query, so that the client need not fetch again
+   4: optional bool moreData
 }
 
 
@@ -269,12 +283,17 @@ service TSIService {
 
 	TSExecuteInsertRowInBatchResp insertRowInBatch(1:TSInsertInBatchReq req);
 
+  // the result holds the results of the rows of all devices in the order of the request
+  TSExecuteBatchStatementResp insertMultiBatch(1:TSMultiBatchInsertionReq req);
+
 	TSExecuteBatchStatementResp testInsertBatch(1:TSBatchInsertionReq req);
 
   TSStatus testInsertRow(1:TSInsertReq req);
 
   TSExecuteInsertRowInBatchResp testInsertRowInBatch(1:TSInsertInBatchReq req);
 
+  TSExecuteBatchStatementResp testInsertMultiBatch(1:TSMultiBatchInsertionReq req);
+
 	TSStatus deleteData(1:TSDeleteDataReq req);
 
 	i64 requestStatementId(1:i64 sessionId);
@@ -25,6 +25,13 @@ struct SyncStatus{
   required string msg
 }
 
+// a piece of a file that is transferred, or found on the receiver, as a whole
+struct ChunkDigest{
+  required i64 offset
+  required i32 length
+  required string digest
+}
+
 service SyncService{
 	SyncStatus check(1:string address, 2:string uuid)
 	SyncStatus startSync();
@@ -34,4 +41,13 @@ service SyncService{
 	SyncStatus syncData(1:binary buff)
 	SyncStatus checkDataMD5(1:string md5)
 	SyncStatus endSync()
+
+	// attach another connection to the sync process of the sender to transfer files in parallel
+	SyncStatus joinSync(1:string address, 2:string uuid, 3:string storageGroupName)
+	// the msg of the status is the offset from which the file should be transferred
+	SyncStatus initSyncChunks(1:string filename, 2:i64 length, 3:string md5)
+	// whether the receiver already has each chunk of the current file
+	list<bool> checkChunks(1:list<ChunkDigest> chunks)
+	SyncStatus syncChunkData(1:i64 offset, 2:binary buff, 3:i16 compressionType)
+	SyncStatus syncChunkReference(1:ChunkDigest chunk)
 }
\ No newline at end of file
@@ -42,6 +42,7 @@ import org.apache.iotdb.service.rpc.thrift.TSGetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSInsertInBatchReq;
 import org.apache.iotdb.service.rpc.thrift.TSInsertReq;
+import org.apache.iotdb.service.rpc.thrift.TSMultiBatchInsertionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
@@ -244,6 +245,41 @@ public class Session {
     return insertSortedBatchIntern(rowBatch);
   }
 
+  /**
+   * use batch interface to insert the data of several devices in one request, which suits the
+   * clients that collect a few rows from each of many devices. The server inserts the batches of
+   * the same storage group at once.
+   *
+   * @param rowBatches data batches of different devices
+   * @return the result of each row, in the order of rowBatches
+   */
+  public TSExecuteBatchStatementResp insertMultiBatch(List<RowBatch> rowBatches)
+      throws IoTDBSessionException {
+    TSMultiBatchInsertionReq request = new TSMultiBatchInsertionReq();
+    request.setSessionId(sessionId);
+    for (RowBatch rowBatch : rowBatches) {
+      sortRowBatch(rowBatch);
+      request.addToDeviceIds(rowBatch.deviceId);
+      List<String> measurements = new ArrayList<>();
+      List<Integer> types = new ArrayList<>();
+      for (MeasurementSchema measurementSchema : rowBatch.measurements) {
+        measurements.add(measurementSchema.getMeasurementId());
+        types.add(measurementSchema.getType().ordinal());
+      }
+      request.addToMeasurementsList(measurements);
+      request.addToTypesList(types);
+      request.addToTimestampsList(SessionUtils.getTimeBuffer(rowBatch));
+      request.addToValuesList(SessionUtils.getValueBuffer(rowBatch));
+      request.addToSizeList(rowBatch.batchSize);
+    }
+
+    try {
+      return checkAndReturn(client.insertMultiBatch(request));
+    } catch (TException e) {
+      throw new IoTDBSessionException(e);
+    }
+  }
+
   private void sortRowBatch(RowBatch rowBatch){
     /*
        * following part of code sort the batch data by time,
@@ -408,6 +444,36 @@ public class Session {
     }
   }
 
+  /**
+   * This method NOT insert data into database and the server just return after accept the request,
+   * this method should be used to test other time cost in client
+   */
+  public TSExecuteBatchStatementResp testInsertMultiBatch(List<RowBatch> rowBatches)
+      throws IoTDBSessionException {
+    TSMultiBatchInsertionReq request = new TSMultiBatchInsertionReq();
+    request.setSessionId(sessionId);
+    for (RowBatch rowBatch : rowBatches) {
+      request.addToDeviceIds(rowBatch.deviceId);
+      List<String> measurements = new ArrayList<>();
+      List<Integer> types = new ArrayList<>();
+      for (MeasurementSchema measurementSchema : rowBatch.measurements) {
+        measurements.add(measurementSchema.getMeasurementId());
+        types.add(measurementSchema.getType().ordinal());
+      }
+      request.addToMeasurementsList(measurements);
+      request.addToTypesList(types);
+      request.addToTimestampsList(SessionUtils.getTimeBuffer(rowBatch));
+      request.addToValuesList(SessionUtils.getValueBuffer(rowBatch));
+      request.addToSizeList(rowBatch.batchSize);
+    }
+
+    try {
+      return client.testInsertMultiBatch(request);
+    } catch (TException e) {
+      throw new IoTDBSessionException(e);
+    }
+  }
+
   /**
    * This method NOT insert data into database and the server just return after accept the request,
    * this method should be used to test other time cost in client
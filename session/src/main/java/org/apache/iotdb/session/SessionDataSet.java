@@ -87,6 +87,10 @@ public class SessionDataSet {
     if (hasCachedRecord)
       return true;
     if (tsQueryDataSet == null || !tsQueryDataSet.time.hasRemaining()) {
+      if (tsQueryDataSet != null && tsQueryDataSet.isSetMoreData() && !tsQueryDataSet.isMoreData()) {
+        // the server tells that the consumed batch is the last one
+        return false;
+      }
       TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, batchSize, queryId);
       try {
         TSFetchResultsResp resp = client.fetchResults(req);
@@ -31,6 +31,8 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.jdbc.Config;
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -98,6 +100,63 @@ public class IoTDBSessionIT {
     queryForBatchSeqAndUnseq();
   }
 
+  @Test
+  public void testMultiBatchInsert()
+      throws IoTDBSessionException, SQLException, ClassNotFoundException {
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+
+    session.setStorageGroup("root.sg1");
+    session.setStorageGroup("root.sg2");
+    createTimeseries();
+    for (int i = 1; i <= 3; i++) {
+      session.createTimeseries("root.sg2.d1.s" + i, TSDataType.INT64, TSEncoding.RLE,
+          CompressionType.SNAPPY);
+    }
+
+    // two devices of the same storage group and one of another
+    String[] deviceIds = {"root.sg1.d1", "root.sg1.d2", "root.sg2.d1"};
+    Schema schema = new Schema();
+    schema.registerMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+    schema.registerMeasurement(new MeasurementSchema("s2", TSDataType.INT64, TSEncoding.RLE));
+    schema.registerMeasurement(new MeasurementSchema("s3", TSDataType.INT64, TSEncoding.RLE));
+    List<RowBatch> rowBatches = new ArrayList<>();
+    for (String deviceId : deviceIds) {
+      RowBatch rowBatch = schema.createRowBatch(deviceId, 100);
+      for (long time = 0; time < 100; time++) {
+        int row = rowBatch.batchSize++;
+        rowBatch.timestamps[row] = time;
+        for (int i = 0; i < 3; i++) {
+          ((long[]) rowBatch.values[i])[row] = time * (i + 1);
+        }
+      }
+      rowBatches.add(rowBatch);
+    }
+    TSExecuteBatchStatementResp resp = session.insertMultiBatch(rowBatches);
+    Assert.assertEquals(300, resp.getResult().size());
+    for (int result : resp.getResult()) {
+      Assert.assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(), result);
+    }
+
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    try (Connection connection = DriverManager
+        .getConnection(Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      for (String deviceId : deviceIds) {
+        ResultSet resultSet = statement.executeQuery("select s1,s2,s3 from " + deviceId);
+        long time = 0;
+        while (resultSet.next()) {
+          Assert.assertEquals(time, resultSet.getLong("Time"));
+          for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(time * (i + 1), resultSet.getLong(deviceId + ".s" + (i + 1)));
+          }
+          time++;
+        }
+        Assert.assertEquals(100, time);
+      }
+    }
+  }
+
   @Test
   public void testBatchInsert()
       throws IoTDBSessionException, SQLException, ClassNotFoundException, TException, IoTDBRPCException {
@@ -27,4 +27,7 @@ public class SQLConstant {
   public static final String TIMESTAMP_STR = "Time";
   public static final String NULL_STR = "null";
   public static final String WHERE = "where";
+  public static final String ROOT = "root";
+  public static final String MIN_TIME = "min_time";
+  public static final String MAX_TIME = "max_time";
 }
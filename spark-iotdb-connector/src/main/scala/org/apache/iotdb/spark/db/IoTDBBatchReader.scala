@@ -0,0 +1,217 @@
+/**
+  * Licensed to the Apache Software Foundation (ASF) under one
+  * or more contributor license agreements.  See the NOTICE file
+  * distributed with this work for additional information
+  * regarding copyright ownership.  The ASF licenses this file
+  * to you under the Apache License, Version 2.0 (the
+  * "License"); you may not use this file except in compliance
+  * with the License.  You may obtain a copy of the License at
+  *
+  * http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing,
+  * software distributed under the License is distributed on an
+  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+  * KIND, either express or implied.  See the License for the
+  * specific language governing permissions and limitations
+  * under the License.
+  */
+package org.apache.iotdb.spark.db
+
+import java.nio.ByteBuffer
+import java.sql.{DriverManager, SQLException}
+
+import org.apache.iotdb.jdbc.{Config, IoTDBConnection}
+import org.apache.iotdb.rpc.{IoTDBRPCException, RpcUtils}
+import org.apache.iotdb.service.rpc.thrift.{TSCloseOperationReq, TSExecuteStatementReq, TSFetchResultsReq, TSQueryDataSet}
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.types._
+import org.apache.spark.sql.vectorized.{ColumnVector, ColumnarBatch}
+import org.apache.thrift.TException
+import org.slf4j.LoggerFactory
+
+/**
+  * Read the result of a query from IoTDB page by page. Each TSQueryDataSet fetched from the server
+  * is decoded column by column into a ColumnarBatch, only the columns in the required schema are
+  * decoded and the others are skipped.
+  *
+  * The batch and its vectors are reused, so a batch is only valid until the next call of
+  * `nextBatch`.
+  */
+class IoTDBBatchReader(options: IoTDBOptions, sql: String, requiredSchema: StructType) {
+
+  private final val logger = LoggerFactory.getLogger(classOf[IoTDBBatchReader])
+
+  private final val FLAG = 0x80
+
+  Class.forName(Config.JDBC_DRIVER_NAME)
+  private val conn = DriverManager.getConnection(options.url, options.user, options.password)
+    .asInstanceOf[IoTDBConnection]
+  private val client = conn.getClient
+  private val sessionId = conn.getSessionId
+  private val fetchSize = options.fetchSize.toInt
+
+  private var queryId: Long = -1
+  private var dataSet: TSQueryDataSet = _
+  // the data types of the columns sent by the server, duplicated columns are sent once
+  private var columnTypes: Array[String] = _
+  // the index of each required field in the columns sent by the server, -1 for the time column
+  private var fieldIndexes: Array[Int] = _
+
+  private var capacity = fetchSize
+  private var vectors: Array[OnHeapColumnVector] = _
+  private var batch: ColumnarBatch = _
+
+  execute()
+
+  private def execute(): Unit = {
+    try {
+      val statementId = client.requestStatementId(sessionId)
+      val req = new TSExecuteStatementReq(sessionId, sql, statementId)
+      req.setFetchSize(fetchSize)
+      val resp = client.executeQueryStatement(req)
+      RpcUtils.verifySuccess(resp.getStatus)
+      queryId = resp.getQueryId
+      dataSet = resp.getQueryDataSet
+
+      val columnIndexes = new scala.collection.mutable.HashMap[String, Int]()
+      val types = new scala.collection.mutable.ArrayBuffer[String]()
+      for (i <- 0 until resp.getColumnsSize) {
+        val name = resp.getColumns.get(i)
+        if (!columnIndexes.contains(name)) {
+          columnIndexes.put(name, types.length)
+          types += resp.getDataTypeList.get(i)
+        }
+      }
+      columnTypes = types.toArray
+      fieldIndexes = requiredSchema.fields.map(field =>
+        if (SQLConstant.TIMESTAMP_STR.equals(field.name)) -1
+        else columnIndexes.getOrElse(field.name,
+          throw new SQLException(s"Column ${field.name} is not in the result of $sql")))
+    } catch {
+      case e: TException =>
+        close()
+        throw new SQLException(s"Cannot execute $sql because of network connection", e)
+      case e: IoTDBRPCException =>
+        close()
+        throw new SQLException(s"Cannot execute $sql", e)
+      case e: SQLException =>
+        close()
+        throw e
+    }
+  }
+
+  /**
+    * @return the next non-empty batch, or null if the result is exhausted
+    */
+  def nextBatch(): ColumnarBatch = {
+    while (dataSet == null || !dataSet.time.hasRemaining) {
+      if (dataSet != null && dataSet.isSetMoreData && !dataSet.isMoreData) {
+        // the server tells that the consumed page is the last one
+        return null
+      }
+      val resp = try {
+        client.fetchResults(new TSFetchResultsReq(sessionId, sql, fetchSize, queryId))
+      } catch {
+        case e: TException =>
+          throw new SQLException(s"Cannot fetch the result of $sql because of network connection", e)
+      }
+      try {
+        RpcUtils.verifySuccess(resp.getStatus)
+      } catch {
+        case e: IoTDBRPCException => throw new SQLException(s"Cannot fetch the result of $sql", e)
+      }
+      if (!resp.hasResultSet) {
+        return null
+      }
+      dataSet = resp.getQueryDataSet
+    }
+    decode(dataSet)
+    // keep the page to know whether it is the last one
+    dataSet.time.position(dataSet.time.limit())
+    batch
+  }
+
+  private def decode(page: TSQueryDataSet): ColumnarBatch = {
+    val rowNum = page.time.remaining() / java.lang.Long.BYTES
+    if (vectors == null || rowNum > capacity) {
+      if (vectors != null) {
+        batch.close()
+      }
+      capacity = math.max(capacity, rowNum)
+      vectors = OnHeapColumnVector.allocateColumns(capacity, requiredSchema)
+      batch = new ColumnarBatch(vectors.asInstanceOf[Array[ColumnVector]])
+    } else {
+      vectors.foreach(_.reset())
+    }
+
+    for (i <- fieldIndexes.indices) {
+      val vector = vectors(i)
+      val index = fieldIndexes(i)
+      if (index < 0) {
+        val time = page.time.duplicate()
+        for (row <- 0 until rowNum) {
+          vector.putLong(row, time.getLong)
+        }
+      } else {
+        decodeColumn(columnTypes(index), page.valueList.get(index).duplicate(),
+          page.bitmapList.get(index).duplicate(), rowNum, vector)
+      }
+    }
+    batch.setNumRows(rowNum)
+    batch
+  }
+
+  private def decodeColumn(columnType: String, values: ByteBuffer, bitmaps: ByteBuffer,
+                           rowNum: Int, vector: OnHeapColumnVector): Unit = {
+    var bitmap = 0
+    for (row <- 0 until rowNum) {
+      // each byte of the bitmap covers 8 rows, the first row is the highest bit
+      if (row % 8 == 0) {
+        bitmap = bitmaps.get()
+      }
+      if (((FLAG >>> (row % 8)) & bitmap) == 0) {
+        vector.putNull(row)
+      } else {
+        columnType match {
+          case "BOOLEAN" => vector.putBoolean(row, values.get() != 0)
+          case "INT32" => vector.putInt(row, values.getInt)
+          case "INT64" => vector.putLong(row, values.getLong)
+          case "FLOAT" => vector.putFloat(row, values.getFloat)
+          case "DOUBLE" => vector.putDouble(row, values.getDouble)
+          case "TEXT" =>
+            val length = values.getInt
+            if (values.hasArray) {
+              vector.putByteArray(row, values.array(), values.arrayOffset() + values.position(),
+                length)
+              values.position(values.position() + length)
+            } else {
+              val bytes = new Array[Byte](length)
+              values.get(bytes)
+              vector.putByteArray(row, bytes, 0, length)
+            }
+          case other => throw new UnsupportedOperationException(s"Unsupported type $other")
+        }
+      }
+    }
+  }
+
+  def close(): Unit = {
+    if (queryId != -1) {
+      try {
+        val req = new TSCloseOperationReq(sessionId)
+        req.setQueryId(queryId)
+        RpcUtils.verifySuccess(client.closeOperation(req))
+      } catch {
+        case e@(_: TException | _: IoTDBRPCException) =>
+          logger.warn("Cannot close the query {}", sql, e)
+      }
+      queryId = -1
+    }
+    if (batch != null) {
+      batch.close()
+      batch = null
+    }
+    conn.close()
+  }
+}
@@ -36,6 +36,8 @@ class IoTDBOptions(
 
   val upperBound = parameters.getOrElse("upperBound", "0")
 
+  val fetchSize = parameters.getOrElse("fetchSize", "10000")
+
   def get(name: String): Unit = {
 
   }
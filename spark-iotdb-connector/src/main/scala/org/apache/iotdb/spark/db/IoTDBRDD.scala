@@ -18,10 +18,8 @@
   */
 package org.apache.iotdb.spark.db
 
-import java.sql.{Connection, DriverManager, ResultSet, Statement}
-
 import org.apache.spark.rdd.RDD
-import org.apache.spark.sql.Row
+import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.sources._
 import org.apache.spark.sql.types._
 import org.apache.spark.{Partition, SparkContext, TaskContext}
@@ -39,8 +37,28 @@ object IoTDBRDD {
     new StructType(columns.map(name => fieldMap(name)))
   }
 
+  /**
+    * Add the time range of the partition and the filters pushed down to the where clause of the sql
+    */
+  private[db] def buildSql(sql: String, part: IoTDBPartition, filterWhere: String): String = {
+    val conditions = Seq(part.where, filterWhere).filter(_ != null)
+    if (conditions.isEmpty) {
+      return sql
+    }
+    val where = conditions.map(condition => s"($condition)").mkString(" and ")
+    val sqlPart = sql.split(s"(?i)\\b${SQLConstant.WHERE}\\b", 2)
+    var result = sqlPart(0) + " " + SQLConstant.WHERE + " " + where + " "
+    if (sqlPart.length == 2) {
+      result += "and (" + sqlPart(1) + ")"
+    }
+    result
+  }
 }
 
+/**
+  * The rows of a partition are decoded from the pages of the query result into columnar batches and
+  * returned as the InternalRows of the batches, so no Row object is created or converted for them.
+  */
 class IoTDBRDD private[iotdb](
                                sc: SparkContext,
                                options: IoTDBOptions,
@@ -48,83 +66,36 @@ class IoTDBRDD private[iotdb](
                                requiredColumns: Array[String],
                                filters: Array[Filter],
                                partitions: Array[Partition])
-  extends RDD[Row](sc, Nil) {
-
-  override def compute(split: Partition, context: TaskContext): Iterator[Row] = new Iterator[Row] {
-    var finished = false
-    var gotNext = false
-    var nextValue: Row = _
-    val inputMetrics = context.taskMetrics().inputMetrics
+  extends RDD[InternalRow](sc, Nil) {
 
+  override def compute(split: Partition, context: TaskContext): Iterator[InternalRow] = new Iterator[InternalRow] {
     val part = split.asInstanceOf[IoTDBPartition]
 
-    var taskInfo: String = _
-    Option(TaskContext.get()).foreach { taskContext => {
-      taskContext.addTaskCompletionListener { _ => conn.close() }
-      taskInfo = "task Id: " + taskContext.taskAttemptId() + " partition Id: " + taskContext.partitionId()
-    }
-    }
-
-    Class.forName("org.apache.iotdb.jdbc.IoTDBDriver")
-    val conn: Connection = DriverManager.getConnection(options.url, options.user, options.password)
-    val stmt: Statement = conn.createStatement()
-
-    var sql = options.sql
-    // for different partition
-    if (part.where != null) {
-      val sqlPart = options.sql.split(SQLConstant.WHERE)
-      sql = sqlPart(0) + " " + SQLConstant.WHERE + " (" + part.where + ") "
-      if (sqlPart.length == 2) {
-        sql += "and (" + sqlPart(1) + ")"
-      }
-    }
-    //
-    var rs: ResultSet = stmt.executeQuery(sql)
+    val sql = IoTDBRDD.buildSql(options.sql, part, IoTDBRelation.compileFilters(options, filters))
     val prunedSchema = IoTDBRDD.pruneSchema(schema, requiredColumns)
-    private val rowBuffer = Array.fill[Any](prunedSchema.length)(null)
-
-    def getNext: Row = {
-      if (rs.next()) {
-        val fields = new scala.collection.mutable.HashMap[String, String]()
-        for (i <- 1 until rs.getMetaData.getColumnCount + 1) {
-          // start from 1
-          val field = rs.getString(i)
-          fields.put(rs.getMetaData.getColumnName(i), field)
-        }
-
-        //index in one required row
-        var index = 0
-        prunedSchema.foreach((field: StructField) => {
-          val r = Converter.toSqlData(field, fields.getOrElse(field.name, null))
-          rowBuffer(index) = r
-          index += 1
-        })
-        Row.fromSeq(rowBuffer)
-
-      }
-      else {
-        finished = true
-        null
-      }
-    }
+    val reader = new IoTDBBatchReader(options, sql, prunedSchema)
+    context.addTaskCompletionListener { _ => reader.close() }
 
+    var rows: java.util.Iterator[InternalRow] = java.util.Collections.emptyIterator()
+    var finished = false
 
     override def hasNext: Boolean = {
-      if (!finished) {
-        if (!gotNext) {
-          nextValue = getNext
-          gotNext = true
+      while (!finished && !rows.hasNext) {
+        val batch = reader.nextBatch()
+        if (batch == null) {
+          finished = true
+        } else {
+          rows = batch.rowIterator()
         }
       }
       !finished
     }
 
-    override def next(): Row = {
+    override def next(): InternalRow = {
       if (!hasNext) {
         throw new NoSuchElementException("End of stream")
       }
-      gotNext = false
-      nextValue
+      rows.next()
     }
   }
 
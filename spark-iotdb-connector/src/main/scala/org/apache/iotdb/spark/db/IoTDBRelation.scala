@@ -18,9 +18,12 @@
   */
 package org.apache.iotdb.spark.db
 
+import java.sql.{DriverManager, ResultSet}
+
+import org.apache.iotdb.jdbc.Config
 import org.apache.spark.Partition
 import org.apache.spark.rdd.RDD
-import org.apache.spark.sql.sources.{BaseRelation, Filter, PrunedFilteredScan}
+import org.apache.spark.sql.sources._
 import org.apache.spark.sql.types.StructType
 import org.apache.spark.sql.{Row, SQLContext, SparkSession}
 import org.slf4j.LoggerFactory
@@ -36,6 +39,112 @@ private object IoTDBRelation {
 
   private final val logger = LoggerFactory.getLogger(classOf[IoTDBRelation])
 
+  // the clauses after which the rows of the result are no longer the rows in the database
+  private final val NOT_RAW_DATA_CLAUSE =
+    "(?is).*\\b(group|fill|limit|offset|slimit|soffset|align|disable)\\b.*".r
+
+  private final val SELECT_FROM = "(?is)\\s*select\\s+(.+?)\\s+from\\s+(.+)".r
+
+  /**
+    * Whether the rows of the result are selected from the data without aggregation, fill, limit or
+    * alignment, so that filters on them can be pushed down to the where clause.
+    */
+  def isRawDataQuery(sql: String): Boolean = sql match {
+    case NOT_RAW_DATA_CLAUSE(_) => false
+    case SELECT_FROM(select, _) => !select.contains("(")
+    case _ => false
+  }
+
+  /**
+    * Translate the filters that IoTDB evaluates in the same way as Spark into a where condition.
+    * Spark evaluates all the filters again, so a filter that cannot be translated is simply left out.
+    *
+    * @return null if no filter can be pushed down
+    */
+  def compileFilters(options: IoTDBOptions, filters: Array[Filter]): String = {
+    if (!isRawDataQuery(options.sql)) {
+      return null
+    }
+    val conditions = filters.flatMap(compileFilter)
+    if (conditions.isEmpty) null else conditions.mkString(" and ")
+  }
+
+  private def compileFilter(filter: Filter): Option[String] = filter match {
+    case EqualTo(attribute, value) => compileComparison(attribute, "=", value)
+    case GreaterThan(attribute, value) => compileComparison(attribute, ">", value)
+    case GreaterThanOrEqual(attribute, value) => compileComparison(attribute, ">=", value)
+    case LessThan(attribute, value) => compileComparison(attribute, "<", value)
+    case LessThanOrEqual(attribute, value) => compileComparison(attribute, "<=", value)
+    case And(left, right) =>
+      // pushing one side keeps all the rows that match both
+      (compileFilter(left), compileFilter(right)) match {
+        case (Some(l), Some(r)) => Some(s"($l and $r)")
+        case (l, r) => l.orElse(r)
+      }
+    case Or(left, right) =>
+      for (l <- compileFilter(left); r <- compileFilter(right)) yield s"($l or $r)"
+    case _ => None
+  }
+
+  private def compileComparison(attribute: String, op: String, value: Any): Option[String] = {
+    if (SQLConstant.TIMESTAMP_STR.equals(attribute)) {
+      value match {
+        case v@(_: Int | _: Long | _: Short | _: Byte) => Some(s"${SQLConstant.RESERVED_TIME} $op $v")
+        case _ => None
+      }
+    } else if (attribute.startsWith(SQLConstant.ROOT + ".") && !attribute.exists(c =>
+      c.isWhitespace || "\"'()`".contains(c))) {
+      value match {
+        case v@(_: Int | _: Long | _: Short | _: Byte | _: Boolean) => Some(s"$attribute $op $v")
+        case v: Float if !v.isNaN && !v.isInfinite =>
+          Some(s"$attribute $op ${new java.math.BigDecimal(v.toString).toPlainString}")
+        case v: Double if !v.isNaN && !v.isInfinite =>
+          Some(s"$attribute $op ${java.math.BigDecimal.valueOf(v).toPlainString}")
+        case _ => None
+      }
+    } else {
+      None
+    }
+  }
+
+  /**
+    * Ask the server for the first and the last time of the selected series, which are answered
+    * from the statistics of the files instead of reading the data.
+    *
+    * @return None if the series have no data
+    */
+  def getTimeRange(options: IoTDBOptions): Option[(Long, Long)] = {
+    val SELECT_FROM(select, from) = options.sql
+    val paths = select.split(",").map(_.trim)
+    val sql = "select " + (paths.map(path => s"${SQLConstant.MIN_TIME}($path)") ++
+      paths.map(path => s"${SQLConstant.MAX_TIME}($path)")).mkString(", ") + " from " + from
+
+    Class.forName(Config.JDBC_DRIVER_NAME)
+    val conn = DriverManager.getConnection(options.url, options.user, options.password)
+    try {
+      val stmt = conn.createStatement()
+      val rs: ResultSet = stmt.executeQuery(sql)
+      if (!rs.next()) {
+        return None
+      }
+      var start = Long.MaxValue
+      var end = Long.MinValue
+      for (i <- 1 to rs.getMetaData.getColumnCount) {
+        val value = rs.getString(i)
+        if (value != null && !SQLConstant.NULL_STR.equals(value)) {
+          if (rs.getMetaData.getColumnName(i).startsWith(SQLConstant.MIN_TIME)) {
+            start = math.min(start, value.toLong)
+          } else {
+            end = math.max(end, value.toLong)
+          }
+        }
+      }
+      if (start > end) None else Some((start, end))
+    } finally {
+      conn.close()
+    }
+  }
+
   def getPartitions(partitionInfo: IoTDBPartitioningInfo): Array[Partition] = {
     if (partitionInfo == null || partitionInfo.numPartitions <= 1 ||
       partitionInfo.start == partitionInfo.end) {
@@ -93,15 +202,29 @@ class IoTDBRelation protected[iotdb](val options: IoTDBOptions)(@transient val s
 
   private final val logger = LoggerFactory.getLogger(classOf[IoTDBRelation])
 
-  override def schema: StructType = {
+  override lazy val schema: StructType = {
     Converter.toSparkSchema(options)
   }
 
+  // the rows are produced as InternalRows by IoTDBRDD
+  override def needConversion: Boolean = false
+
   override def buildScan(requiredColumns: Array[String], filters: Array[Filter]): RDD[Row] = {
-    val start: Long = options.lowerBound.toLong
-    val end: Long = options.upperBound.toLong
+    var start: Long = options.lowerBound.toLong
+    var end: Long = options.upperBound.toLong
     val numPartition = options.numPartition.toInt
 
+    // split the time range of the data when the bounds are not given
+    if (numPartition > 1 && start == end && IoTDBRelation.isRawDataQuery(options.sql)) {
+      IoTDBRelation.getTimeRange(options) match {
+        case Some((first, last)) =>
+          start = first
+          end = last
+        case None =>
+          logger.info("No data is selected by {}, the scan is not partitioned", options.sql)
+      }
+    }
+
     val partitionInfo = IoTDBPartitioningInfo(start, end, numPartition)
 
     val parts = IoTDBRelation.getPartitions(partitionInfo)
@@ -101,6 +101,24 @@ class IoTDBTest extends FunSuite with BeforeAndAfterAll {
     Assert.assertEquals(499, df.count())
   }
 
+  test("test partition without bounds") {
+    val df = spark.read.format("org.apache.iotdb.sparkdb")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", "select * from root")
+      .option("numPartition", 10).load
+    Assert.assertEquals(10, df.rdd.getNumPartitions)
+    Assert.assertEquals(7505, df.count())
+  }
+
+  test("test pushed down filter") {
+    val df = spark.read.format("org.apache.iotdb.sparkdb")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", "select * from root").load
+    Assert.assertEquals(499, df.filter("Time < 2000 and Time > 1000").count())
+    Assert.assertEquals(499, df.filter("Time < 2000 and Time > 1000")
+      .select("Time").collect().length)
+  }
+
   test("test transform to narrow") {
     val df = spark.read.format("org.apache.iotdb.sparkdb")
       .option("url", "jdbc:iotdb://127.0.0.1:6667/")
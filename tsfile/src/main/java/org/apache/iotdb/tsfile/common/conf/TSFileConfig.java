@@ -52,7 +52,12 @@ public class TSFileConfig {
   public static final Charset STRING_CHARSET = Charset.forName(STRING_ENCODING);
   public static final String CONFIG_FILE_NAME = "iotdb-engine.properties";
   public static final String MAGIC_STRING = "TsFile";
-  public static final String VERSION_NUMBER = "000002";
+  public static final String VERSION_NUMBER = "000003";
+  /**
+   * the version of the files whose footer serializes the devices directly rather than the root of
+   * an index tree of devices
+   */
+  public static final String FLAT_DEVICE_MAP_VERSION = "000002";
   public static final String OLD_MAGIC_STRING = "TsFile";
   public static final String OLD_VERSION = "000001";
 
@@ -191,6 +196,19 @@ public class TSFileConfig {
    * The acceptable error rate of bloom filter
    */
   private double bloomFilterErrorRate = 0.05;
+  /**
+   * whether to read sealed TsFiles through memory-mapped buffers instead of file channel reads
+   */
+  private boolean enableMmapRead = false;
+  /**
+   * The maximum bytes of TsFiles mapped into memory at the same time, a file that exceeds it is
+   * read through its file channel
+   */
+  private long maxMappedSizeInByte = 8L * 1024 * 1024 * 1024;
+  /**
+   * The maximum number of children of a node in the device index of a TsFile
+   */
+  private int maxDegreeOfIndexNode = 256;
 
   public TSFileConfig() {
 
@@ -372,6 +390,30 @@ public class TSFileConfig {
     this.bloomFilterErrorRate = bloomFilterErrorRate;
   }
 
+  public boolean isEnableMmapRead() {
+    return enableMmapRead;
+  }
+
+  public void setEnableMmapRead(boolean enableMmapRead) {
+    this.enableMmapRead = enableMmapRead;
+  }
+
+  public long getMaxMappedSizeInByte() {
+    return maxMappedSizeInByte;
+  }
+
+  public void setMaxMappedSizeInByte(long maxMappedSizeInByte) {
+    this.maxMappedSizeInByte = maxMappedSizeInByte;
+  }
+
+  public int getMaxDegreeOfIndexNode() {
+    return maxDegreeOfIndexNode;
+  }
+
+  public void setMaxDegreeOfIndexNode(int maxDegreeOfIndexNode) {
+    this.maxDegreeOfIndexNode = maxDegreeOfIndexNode;
+  }
+
 
   public FSType getTSFileStorageFs() {
     return this.TSFileStorageFs;
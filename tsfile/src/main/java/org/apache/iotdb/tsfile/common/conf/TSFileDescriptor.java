@@ -128,6 +128,13 @@ public class TSFileDescriptor {
       conf.setTimeEncoder(properties.getProperty("time_encoder", conf.getTimeEncoder()));
       conf.setValueEncoder(properties.getProperty("value_encoder", conf.getValueEncoder()));
       conf.setCompressor(properties.getProperty("compressor", conf.getCompressor()));
+      conf.setEnableMmapRead(Boolean.parseBoolean(properties.getProperty("enable_mmap_read",
+          Boolean.toString(conf.isEnableMmapRead()))));
+      conf.setMaxMappedSizeInByte(Long.parseLong(properties.getProperty("max_mapped_size_in_byte",
+          Long.toString(conf.getMaxMappedSizeInByte()))));
+      conf.setMaxDegreeOfIndexNode(Integer.parseInt(properties
+          .getProperty("max_degree_of_index_node",
+              Integer.toString(conf.getMaxDegreeOfIndexNode()))));
     } catch (IOException e) {
       logger.warn("Cannot load config file, use default configuration", e);
     } catch (Exception e) {
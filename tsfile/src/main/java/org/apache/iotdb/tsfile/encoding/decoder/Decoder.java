@@ -149,6 +149,135 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supproted by Decoder");
   }
 
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readBooleans(ByteBuffer buffer, boolean[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readBoolean(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readInt(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readLong(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readFloats(ByteBuffer buffer, float[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readFloat(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readDoubles(ByteBuffer buffer, double[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readDouble(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * decode at most length values into values[offset, offset + length).
+   *
+   * @return the number of decoded values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int readBinaries(ByteBuffer buffer, Binary[] values, int offset, int length)
+      throws IOException {
+    int readNum = 0;
+    while (readNum < length && hasNext(buffer)) {
+      values[offset + readNum++] = readBinary(buffer);
+    }
+    return readNum;
+  }
+
+  /**
+   * skip at most length values without returning them. It decodes and drops the values by
+   * default, the decoders that can locate a later value without decoding the former ones override
+   * it.
+   *
+   * @param dataType data type of the values
+   * @return the number of skipped values, which is less than length only if the buffer has no
+   * more value
+   */
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int skipNum = 0;
+    while (skipNum < length && hasNext(buffer)) {
+      switch (dataType) {
+        case BOOLEAN:
+          readBoolean(buffer);
+          break;
+        case INT32:
+          readInt(buffer);
+          break;
+        case INT64:
+          readLong(buffer);
+          break;
+        case FLOAT:
+          readFloat(buffer);
+          break;
+        case DOUBLE:
+          readDouble(buffer);
+          break;
+        case TEXT:
+          readBinary(buffer);
+          break;
+        default:
+          throw new TsFileDecodingException("Unsupported data type: " + dataType);
+      }
+      skipNum++;
+    }
+    return skipNum;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
@@ -22,6 +22,7 @@ package org.apache.iotdb.tsfile.encoding.decoder;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import org.apache.iotdb.tsfile.encoding.encoder.DeltaBinaryEncoder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -66,6 +67,16 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
   protected abstract void readValue(int i);
 
+  /**
+   * load the next pack, whose first value is regarded as read.
+   */
+  protected abstract void loadPack(ByteBuffer buffer);
+
+  /**
+   * @return the bytes of minDeltaBase and firstValue in a pack header
+   */
+  protected abstract int getHeaderSize();
+
   /**
    * calculate the bytes length containing v bits.
    *
@@ -81,6 +92,65 @@ public abstract class DeltaBinaryDecoder extends Decoder {
     return (nextReadIndex < readIntTotalCount) || buffer.remaining() > 0;
   }
 
+  /**
+   * skip the values left in the current pack, and the following packs that are skipped as a whole
+   * by their lengths without being unpacked.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) {
+    int skipNum = 0;
+    while (skipNum < length) {
+      if (nextReadIndex < readIntTotalCount) {
+        int num = Math.min(length - skipNum, readIntTotalCount - nextReadIndex);
+        nextReadIndex += num;
+        skipNum += num;
+      } else if (!buffer.hasRemaining()) {
+        break;
+      } else if (length - skipNum > buffer.getInt(buffer.position())) {
+        // a pack holds its first value and packNum deltas
+        int skippedPackNum = buffer.getInt();
+        int skippedPackWidth = buffer.getInt();
+        count++;
+        buffer.position(
+            buffer.position() + getHeaderSize() + ceil(skippedPackNum * skippedPackWidth));
+        skipNum += skippedPackNum + 1;
+      } else {
+        loadPack(buffer);
+        skipNum++;
+      }
+    }
+    return skipNum;
+  }
+
+  /**
+   * read the value of width bits starting from bit pos of deltaBuf, the bits of a byte are read
+   * from the highest one. It takes the bits byte by byte, which is equivalent to but much faster
+   * than {@link BytesUtils#bytesToLong(byte[], int, int)}.
+   *
+   * @param width no more than 64
+   */
+  protected long readBits(int pos, int width) {
+    if (width == 0) {
+      return 0;
+    }
+    int bytePos = pos >>> 3;
+    int availableBits = 8 - (pos & 7);
+    long value = deltaBuf[bytePos] & (0xff >>> (pos & 7));
+    if (width <= availableBits) {
+      return value >>> (availableBits - width);
+    }
+    int remainingBits = width - availableBits;
+    bytePos++;
+    while (remainingBits >= 8) {
+      value = (value << 8) | (deltaBuf[bytePos++] & 0xff);
+      remainingBits -= 8;
+    }
+    if (remainingBits > 0) {
+      value = (value << remainingBits) | ((deltaBuf[bytePos] & 0xff) >>> (8 - remainingBits));
+    }
+    return value;
+  }
+
   public static class IntDeltaDecoder extends DeltaBinaryDecoder {
 
     private int firstValue;
@@ -113,6 +183,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy the decoded values of the current pack and decode the next packs as a whole.
+     */
+    @Override
+    public int readInts(ByteBuffer buffer, int[] values, int offset, int length) {
+      int readNum = 0;
+      while (readNum < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + readNum++] = loadIntBatch(buffer);
+          continue;
+        }
+        int copyNum = Math.min(length - readNum, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, offset + readNum, copyNum);
+        nextReadIndex += copyNum;
+        readNum += copyNum;
+      }
+      return readNum;
+    }
+
     /**
      * if remaining data has been run out, load next pack from InputStream.
      *
@@ -150,14 +242,27 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       firstValue = ReadWriteIOUtils.readInt(buffer);
     }
 
+    @Override
+    protected void loadPack(ByteBuffer buffer) {
+      loadIntBatch(buffer);
+    }
+
+    @Override
+    protected int getHeaderSize() {
+      return 8;
+    }
+
     @Override
     protected void allocateDataArray() {
-      data = new int[packNum];
+      // the array is reused by the following packs, which are usually of the same size
+      if (data == null || data.length < packNum) {
+        data = new int[packNum];
+      }
     }
 
     @Override
     protected void readValue(int i) {
-      int v = BytesUtils.bytesToInt(deltaBuf, packWidth * i, packWidth);
+      int v = (int) readBits(packWidth * i, packWidth);
       data[i] = previous + minDeltaBase + v;
     }
 
@@ -231,20 +336,55 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    /**
+     * copy the decoded values of the current pack and decode the next packs as a whole.
+     */
+    @Override
+    public int readLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+      int readNum = 0;
+      while (readNum < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + readNum++] = loadIntBatch(buffer);
+          continue;
+        }
+        int copyNum = Math.min(length - readNum, readIntTotalCount - nextReadIndex);
+        System.arraycopy(data, nextReadIndex, values, offset + readNum, copyNum);
+        nextReadIndex += copyNum;
+        readNum += copyNum;
+      }
+      return readNum;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
       firstValue = ReadWriteIOUtils.readLong(buffer);
     }
 
+    @Override
+    protected void loadPack(ByteBuffer buffer) {
+      loadIntBatch(buffer);
+    }
+
+    @Override
+    protected int getHeaderSize() {
+      return 16;
+    }
+
     @Override
     protected void allocateDataArray() {
-      data = new long[packNum];
+      // the array is reused by the following packs, which are usually of the same size
+      if (data == null || data.length < packNum) {
+        data = new long[packNum];
+      }
     }
 
     @Override
     protected void readValue(int i) {
-      long v = BytesUtils.bytesToLong(deltaBuf, packWidth * i, packWidth);
+      long v = readBits(packWidth * i, packWidth);
       data[i] = previous + minDeltaBase + v;
     }
 
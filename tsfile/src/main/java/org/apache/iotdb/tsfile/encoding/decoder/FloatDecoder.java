@@ -96,6 +96,16 @@ public class FloatDecoder extends Decoder {
     return value / maxPointValue;
   }
 
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    if (length == 0 || !hasNext(buffer)) {
+      return 0;
+    }
+    readMaxPointValue(buffer);
+    return decoder.skip(buffer, dataType == TSDataType.FLOAT ? TSDataType.INT32
+        : TSDataType.INT64, length);
+  }
+
   private void readMaxPointValue(ByteBuffer buffer) {
     if (!isMaxPointNumberRead) {
       int maxPointNumber = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
@@ -26,6 +26,7 @@ import java.nio.ByteOrder;
 
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.slf4j.Logger;
@@ -97,6 +98,88 @@ public class PlainDecoder extends Decoder {
     return buffer.getDouble();
   }
 
+  @Override
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int readNum = Math.min(length, buffer.remaining() / Integer.BYTES);
+    buffer.asIntBuffer().get(values, offset, readNum);
+    buffer.position(buffer.position() + readNum * Integer.BYTES);
+    return readNum;
+  }
+
+  @Override
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int readNum = Math.min(length, buffer.remaining() / Long.BYTES);
+    buffer.asLongBuffer().get(values, offset, readNum);
+    buffer.position(buffer.position() + readNum * Long.BYTES);
+    return readNum;
+  }
+
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] values, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int readNum = Math.min(length, buffer.remaining() / Float.BYTES);
+    buffer.asFloatBuffer().get(values, offset, readNum);
+    buffer.position(buffer.position() + readNum * Float.BYTES);
+    return readNum;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] values, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int readNum = Math.min(length, buffer.remaining() / Double.BYTES);
+    buffer.asDoubleBuffer().get(values, offset, readNum);
+    buffer.position(buffer.position() + readNum * Double.BYTES);
+    return readNum;
+  }
+
+  /**
+   * values of fixed width are skipped by moving the position, a binary is skipped by its length.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (dataType == TSDataType.TEXT) {
+      int skipNum = 0;
+      while (skipNum < length && buffer.hasRemaining()) {
+        int binaryLength = buffer.getInt();
+        buffer.position(buffer.position() + binaryLength);
+        skipNum++;
+      }
+      return skipNum;
+    }
+    int width;
+    switch (dataType) {
+      case BOOLEAN:
+        width = 1;
+        break;
+      case INT32:
+      case FLOAT:
+        width = 4;
+        break;
+      case INT64:
+      case DOUBLE:
+        width = 8;
+        break;
+      default:
+        throw new TsFileDecodingException("Unsupported data type: " + dataType);
+    }
+    int skipNum = Math.min(length, buffer.remaining() / width);
+    buffer.position(buffer.position() + skipNum * width);
+    return skipNum;
+  }
+
   @Override
   public Binary readBinary(ByteBuffer buffer) {
     int length = readInt(buffer);
@@ -26,6 +26,7 @@ import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.exception.encoding.TsFileDecodingException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
@@ -186,6 +187,30 @@ public abstract class RleDecoder extends Decoder {
     return currentCount > 0 || byteCache.remaining() > 0;
   }
 
+  /**
+   * skip the values by counting them down run by run, an rle run is skipped as a whole.
+   */
+  @Override
+  public int skip(ByteBuffer buffer, TSDataType dataType, int length) throws IOException {
+    int skipNum = 0;
+    while (skipNum < length && hasNext(buffer)) {
+      if (!isLengthAndBitWidthReaded) {
+        // start to read a new rle+bit-packing pattern
+        readLengthAndBitWidth(buffer);
+      }
+      if (currentCount == 0) {
+        readNext();
+      }
+      int num = Math.min(length - skipNum, currentCount);
+      currentCount -= num;
+      skipNum += num;
+      if (!hasNextPackage()) {
+        isLengthAndBitWidthReaded = false;
+      }
+    }
+    return skipNum;
+  }
+
   protected abstract void initPacker();
 
   /**
@@ -32,6 +32,11 @@ public class PageHeader {
   private int uncompressedSize;
   private int compressedSize;
   private Statistics statistics;
+  /**
+   * whether some data of the page are deleted, so that the statistics may count the deleted data.
+   * It is set by the reader of the page and not serialized.
+   */
+  private boolean modified;
 
   public PageHeader(int uncompressedSize, int compressedSize, Statistics statistics) {
     this.uncompressedSize = uncompressedSize;
@@ -90,6 +95,14 @@ public class PageHeader {
     return statistics.getStartTime();
   }
 
+  public boolean isModified() {
+    return modified;
+  }
+
+  public void setModified(boolean modified) {
+    this.modified = modified;
+  }
+
   public void serializeTo(OutputStream outputStream) throws IOException {
     ReadWriteIOUtils.write(uncompressedSize, outputStream);
     ReadWriteIOUtils.write(compressedSize, outputStream);
@@ -22,10 +22,12 @@ package org.apache.iotdb.tsfile.file.metadata;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Objects;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
-import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +60,13 @@ public class ChunkMetaData {
    */
   private long deletedAt = Long.MIN_VALUE;
 
+  /**
+   * The closed time ranges of the deletions that do not start from the beginning, sorted and
+   * disjoint, all data with timestamp in any of them are considered deleted. Null if there are no
+   * such deletions.
+   */
+  private List<TimeRange> deleteIntervalList;
+
   /**
    * Priority of chunk metadata, used in unsequence resource merge reader to identify the priority
    * of reader
@@ -67,7 +76,7 @@ public class ChunkMetaData {
   /**
    * ChunkLoader of metadata, used to create ChunkReaderWrap
    */
-  private ChunkLoaderImpl chunkLoader;
+  private IChunkLoader chunkLoader;
 
   private Statistics statistics;
 
@@ -90,6 +99,21 @@ public class ChunkMetaData {
     this.statistics = statistics;
   }
 
+  /**
+   * copy the ChunkMetaData so that the copy can be modified (e.g., deletedAt) without affecting
+   * this one. The statistics are shared.
+   */
+  public ChunkMetaData copy() {
+    ChunkMetaData copy = new ChunkMetaData(measurementUid, tsDataType, offsetOfChunkHeader,
+        statistics);
+    copy.version = version;
+    copy.deletedAt = deletedAt;
+    copy.deleteIntervalList = deleteIntervalList;
+    copy.priority = priority;
+    copy.chunkLoader = chunkLoader;
+    return copy;
+  }
+
   @Override
   public String toString() {
     return String.format("measurementId: %s, datatype: %s, version: %d, deletedAt: %d, "
@@ -181,6 +205,14 @@ public class ChunkMetaData {
     this.deletedAt = deletedAt;
   }
 
+  public List<TimeRange> getDeleteIntervalList() {
+    return deleteIntervalList;
+  }
+
+  public void setDeleteIntervalList(List<TimeRange> deleteIntervalList) {
+    this.deleteIntervalList = deleteIntervalList;
+  }
+
   public int getPriority() {
     return priority;
   }
@@ -189,11 +221,11 @@ public class ChunkMetaData {
     this.priority = priority;
   }
 
-  public ChunkLoaderImpl getChunkLoader() {
+  public IChunkLoader getChunkLoader() {
     return chunkLoader;
   }
 
-  public void setChunkLoader(ChunkLoaderImpl chunkLoader) {
+  public void setChunkLoader(IChunkLoader chunkLoader) {
     this.chunkLoader = chunkLoader;
   }
 
@@ -209,6 +241,7 @@ public class ChunkMetaData {
     return offsetOfChunkHeader == that.offsetOfChunkHeader &&
         version == that.version &&
         deletedAt == that.deletedAt &&
+        Objects.equals(deleteIntervalList, that.deleteIntervalList) &&
         Objects.equals(measurementUid, that.measurementUid) &&
         tsDataType == that.tsDataType &&
         Objects.equals(statistics, that.statistics);
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.file.metadata;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * A node of the device index in the footer of a TsFile. The index is a B+ tree whose keys are the
+ * device ids in ascending order. A leaf node holds the TsDeviceMetadataIndex of each of its
+ * devices, and an internal node holds the first device id, the offset and the size of each of its
+ * children, so that a reader only loads the nodes on the path to a device.
+ */
+public class MetadataIndexNode {
+
+  private static final byte LEAF_NODE = 0;
+  private static final byte INTERNAL_NODE = 1;
+
+  private boolean leaf;
+
+  /**
+   * the device ids of a leaf node, or the first device id of each child of an internal node
+   */
+  private List<String> keys = new ArrayList<>();
+
+  /**
+   * the TsDeviceMetadataIndex of each device of a leaf node
+   */
+  private List<TsDeviceMetadataIndex> deviceIndexes;
+
+  /**
+   * the offset and the size of each child of an internal node
+   */
+  private List<Long> childOffsets;
+  private List<Integer> childLens;
+
+  private MetadataIndexNode(boolean leaf) {
+    this.leaf = leaf;
+    if (leaf) {
+      deviceIndexes = new ArrayList<>();
+    } else {
+      childOffsets = new ArrayList<>();
+      childLens = new ArrayList<>();
+    }
+  }
+
+  public static MetadataIndexNode leafNode() {
+    return new MetadataIndexNode(true);
+  }
+
+  public static MetadataIndexNode internalNode() {
+    return new MetadataIndexNode(false);
+  }
+
+  /**
+   * devices must be added in ascending order.
+   */
+  public void addDevice(String deviceId, TsDeviceMetadataIndex deviceIndex) {
+    keys.add(deviceId);
+    deviceIndexes.add(deviceIndex);
+  }
+
+  /**
+   * children must be added in ascending order of their first device ids.
+   */
+  public void addChild(String firstDeviceId, long offset, int len) {
+    keys.add(firstDeviceId);
+    childOffsets.add(offset);
+    childLens.add(len);
+  }
+
+  public boolean isLeaf() {
+    return leaf;
+  }
+
+  public int size() {
+    return keys.size();
+  }
+
+  public String getKey(int i) {
+    return keys.get(i);
+  }
+
+  public TsDeviceMetadataIndex getDeviceIndex(int i) {
+    return deviceIndexes.get(i);
+  }
+
+  public long getChildOffset(int i) {
+    return childOffsets.get(i);
+  }
+
+  public int getChildLen(int i) {
+    return childLens.get(i);
+  }
+
+  /**
+   * @return the TsDeviceMetadataIndex of the device in this leaf node, or null if the device is
+   * not in this node
+   */
+  public TsDeviceMetadataIndex getDeviceIndex(String deviceId) {
+    int i = Collections.binarySearch(keys, deviceId);
+    return i >= 0 ? deviceIndexes.get(i) : null;
+  }
+
+  /**
+   * @return the position of the child of this internal node that may contain the device, or -1 if
+   * the device is smaller than all devices under this node
+   */
+  public int getChildIndex(String deviceId) {
+    int i = Collections.binarySearch(keys, deviceId);
+    // the insertion point is after the last child whose first device is smaller
+    return i >= 0 ? i : -i - 2;
+  }
+
+  public int serializeTo(OutputStream outputStream) throws IOException {
+    int byteLen = 0;
+    byteLen += ReadWriteIOUtils.write(leaf ? LEAF_NODE : INTERNAL_NODE, outputStream);
+    byteLen += ReadWriteIOUtils.write(keys.size(), outputStream);
+    for (int i = 0; i < keys.size(); i++) {
+      byteLen += ReadWriteIOUtils.write(keys.get(i), outputStream);
+      if (leaf) {
+        byteLen += deviceIndexes.get(i).serializeTo(outputStream);
+      } else {
+        byteLen += ReadWriteIOUtils.write(childOffsets.get(i), outputStream);
+        byteLen += ReadWriteIOUtils.write(childLens.get(i), outputStream);
+      }
+    }
+    return byteLen;
+  }
+
+  public static MetadataIndexNode deserializeFrom(ByteBuffer buffer) {
+    MetadataIndexNode node = new MetadataIndexNode(buffer.get() == LEAF_NODE);
+    int size = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < size; i++) {
+      String key = ReadWriteIOUtils.readString(buffer);
+      if (node.leaf) {
+        node.addDevice(key, TsDeviceMetadataIndex.deserializeFrom(buffer));
+      } else {
+        node.addChild(key, ReadWriteIOUtils.readLong(buffer), ReadWriteIOUtils.readInt(buffer));
+      }
+    }
+    return node;
+  }
+}
@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,8 +43,27 @@ import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
  */
 public class TsFileMetaData {
 
+  /**
+   * the device index map is not serialized in the footer but as a tree of MetadataIndexNode
+   */
+  private static final int INDEXED_DEVICE_MAP = -1;
+
   private Map<String, TsDeviceMetadataIndex> deviceIndexMap = new HashMap<>();
 
+  /**
+   * whether deviceIndexMap holds all devices of the file. It is false when the file metadata is
+   * read without loading the index tree, see TsFileSequenceReader.readFileMetadata(boolean).
+   */
+  private volatile boolean deviceIndexLoaded = true;
+
+  /**
+   * the offset and the size of the root MetadataIndexNode, the offset is -1 if the devices are
+   * serialized in the footer directly, as in the files written by older versions
+   */
+  private long metadataIndexOffset = -1;
+  private int metadataIndexLen;
+  private int deviceNum;
+
   /**
    * TSFile schema for this file. This schema contains metadata for all the measurements.
    */
@@ -90,7 +110,12 @@ public class TsFileMetaData {
     TsFileMetaData fileMetaData = new TsFileMetaData();
 
     int size = ReadWriteIOUtils.readInt(inputStream);
-    if (size > 0) {
+    if (size == INDEXED_DEVICE_MAP) {
+      fileMetaData.metadataIndexOffset = ReadWriteIOUtils.readLong(inputStream);
+      fileMetaData.metadataIndexLen = ReadWriteIOUtils.readInt(inputStream);
+      fileMetaData.deviceNum = ReadWriteIOUtils.readInt(inputStream);
+      fileMetaData.deviceIndexLoaded = false;
+    } else if (size > 0) {
       Map<String, TsDeviceMetadataIndex> deviceMap = new HashMap<>();
       String key;
       TsDeviceMetadataIndex value;
@@ -151,7 +176,12 @@ public class TsFileMetaData {
     TsFileMetaData fileMetaData = new TsFileMetaData();
 
     int size = ReadWriteIOUtils.readInt(buffer);
-    if (size > 0) {
+    if (size == INDEXED_DEVICE_MAP) {
+      fileMetaData.metadataIndexOffset = ReadWriteIOUtils.readLong(buffer);
+      fileMetaData.metadataIndexLen = ReadWriteIOUtils.readInt(buffer);
+      fileMetaData.deviceNum = ReadWriteIOUtils.readInt(buffer);
+      fileMetaData.deviceIndexLoaded = false;
+    } else if (size > 0) {
       Map<String, TsDeviceMetadataIndex> deviceMap = new HashMap<>();
       String key;
       TsDeviceMetadataIndex value;
@@ -228,14 +258,76 @@ public class TsFileMetaData {
     this.createdBy = createdBy;
   }
 
+  /**
+   * @return all devices of the file if isDeviceIndexLoaded(), otherwise an empty map
+   */
   public Map<String, TsDeviceMetadataIndex> getDeviceMap() {
     return deviceIndexMap;
   }
 
   public void setDeviceMap(Map<String, TsDeviceMetadataIndex> deviceMap) {
     this.deviceIndexMap = deviceMap;
+    this.deviceIndexLoaded = true;
+  }
+
+  public boolean isDeviceIndexLoaded() {
+    return deviceIndexLoaded;
+  }
+
+  /**
+   * @return whether the devices are serialized as a tree of MetadataIndexNode
+   */
+  public boolean hasMetadataIndex() {
+    return metadataIndexOffset >= 0;
+  }
+
+  public long getMetadataIndexOffset() {
+    return metadataIndexOffset;
+  }
+
+  public int getMetadataIndexLen() {
+    return metadataIndexLen;
   }
 
+  /**
+   * @return the number of devices in the file, whether the device index is loaded or not
+   */
+  public int getDeviceNum() {
+    return hasMetadataIndex() ? deviceNum : deviceIndexMap.size();
+  }
+
+  /**
+   * serialize the devices as a tree of MetadataIndexNode whose root is at the given position
+   * instead of serializing deviceIndexMap.
+   */
+  public void setMetadataIndex(long offset, int len, int deviceNum) {
+    this.metadataIndexOffset = offset;
+    this.metadataIndexLen = len;
+    this.deviceNum = deviceNum;
+  }
+
+  /**
+   * @return a copy sharing the members of this file metadata, which does not see the device map
+   * set later by loading the device index into this file metadata
+   */
+  public TsFileMetaData copy() {
+    TsFileMetaData copy = new TsFileMetaData(Collections.unmodifiableMap(deviceIndexMap),
+        measurementSchema);
+    copy.deviceIndexLoaded = deviceIndexLoaded;
+    copy.metadataIndexOffset = metadataIndexOffset;
+    copy.metadataIndexLen = metadataIndexLen;
+    copy.deviceNum = deviceNum;
+    copy.createdBy = createdBy;
+    copy.totalChunkNum = totalChunkNum;
+    copy.invalidChunkNum = invalidChunkNum;
+    copy.bloomFilter = bloomFilter;
+    return copy;
+  }
+
+  /**
+   * only valid if isDeviceIndexLoaded(), otherwise use
+   * TsFileSequenceReader.readDeviceMetadataIndex(String).
+   */
   public boolean containsDevice(String deltaObjUid) {
     return this.deviceIndexMap.containsKey(deltaObjUid);
   }
@@ -275,10 +367,17 @@ public class TsFileMetaData {
   public int serializeTo(OutputStream outputStream) throws IOException {
     int byteLen = 0;
 
-    byteLen += ReadWriteIOUtils.write(deviceIndexMap.size(), outputStream);
-    for (Map.Entry<String, TsDeviceMetadataIndex> entry : deviceIndexMap.entrySet()) {
-      byteLen += ReadWriteIOUtils.write(entry.getKey(), outputStream);
-      byteLen += entry.getValue().serializeTo(outputStream);
+    if (metadataIndexOffset >= 0) {
+      byteLen += ReadWriteIOUtils.write(INDEXED_DEVICE_MAP, outputStream);
+      byteLen += ReadWriteIOUtils.write(metadataIndexOffset, outputStream);
+      byteLen += ReadWriteIOUtils.write(metadataIndexLen, outputStream);
+      byteLen += ReadWriteIOUtils.write(deviceNum, outputStream);
+    } else {
+      byteLen += ReadWriteIOUtils.write(deviceIndexMap.size(), outputStream);
+      for (Map.Entry<String, TsDeviceMetadataIndex> entry : deviceIndexMap.entrySet()) {
+        byteLen += ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        byteLen += entry.getValue().serializeTo(outputStream);
+      }
     }
 
     byteLen += ReadWriteIOUtils.write(measurementSchema.size(), outputStream);
@@ -362,10 +461,17 @@ public class TsFileMetaData {
   public int serializeTo(ByteBuffer buffer) throws IOException {
     int byteLen = 0;
 
-    byteLen += ReadWriteIOUtils.write(deviceIndexMap.size(), buffer);
-    for (Map.Entry<String, TsDeviceMetadataIndex> entry : deviceIndexMap.entrySet()) {
-      byteLen += ReadWriteIOUtils.write(entry.getKey(), buffer);
-      byteLen += entry.getValue().serializeTo(buffer);
+    if (metadataIndexOffset >= 0) {
+      byteLen += ReadWriteIOUtils.write(INDEXED_DEVICE_MAP, buffer);
+      byteLen += ReadWriteIOUtils.write(metadataIndexOffset, buffer);
+      byteLen += ReadWriteIOUtils.write(metadataIndexLen, buffer);
+      byteLen += ReadWriteIOUtils.write(deviceNum, buffer);
+    } else {
+      byteLen += ReadWriteIOUtils.write(deviceIndexMap.size(), buffer);
+      for (Map.Entry<String, TsDeviceMetadataIndex> entry : deviceIndexMap.entrySet()) {
+        byteLen += ReadWriteIOUtils.write(entry.getKey(), buffer);
+        byteLen += entry.getValue().serializeTo(buffer);
+      }
     }
 
     byteLen += ReadWriteIOUtils.write(measurementSchema.size(), buffer);
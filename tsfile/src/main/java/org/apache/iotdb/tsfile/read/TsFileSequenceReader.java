@@ -39,6 +39,7 @@ import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.MetadataIndexNode;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
@@ -66,8 +67,14 @@ public class TsFileSequenceReader implements AutoCloseable {
   private ByteBuffer markerBuffer = ByteBuffer.allocate(Byte.BYTES);
   private int totalChunkNum;
   private TsFileMetaData tsFileMetaData;
+  private MetadataIndexNode metadataIndexRoot;
   private EndianType endianType = EndianType.BIG_ENDIAN;
   private boolean isOldVersion = false;
+  /**
+   * whether the version of the file predates the index tree of devices, so that its footer must
+   * serialize the devices directly
+   */
+  private boolean hasFlatDeviceMap = false;
 
   private boolean cacheDeviceMetadata = false;
   private Map<TsDeviceMetadataIndex, TsDeviceMetadata> deviceMetadataMap;
@@ -92,12 +99,28 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @param loadMetadataSize -whether load meta data size
    */
   public TsFileSequenceReader(String file, boolean loadMetadataSize) throws IOException {
+    this(file, FSFactoryProducer.getFileInputFactory().getTsFileInput(file), loadMetadataSize);
+  }
+
+  /**
+   * construct function for TsFileSequenceReader, which reads the file through the given input,
+   * e.g., a {@link org.apache.iotdb.tsfile.read.reader.MmapTsFileInput}.
+   *
+   * @param file -given file name
+   * @param input -the input of the file
+   * @param loadMetadataSize -whether load meta data size
+   */
+  public TsFileSequenceReader(String file, TsFileInput input, boolean loadMetadataSize)
+      throws IOException {
     this.file = file;
-    tsFileInput = FSFactoryProducer.getFileInputFactory().getTsFileInput(file);
+    tsFileInput = input;
+    String versionNumber = this.readVersionNumber();
     // old version number of TsFile using little endian starts with "v"
-    this.endianType = this.readVersionNumber().startsWith("v")
+    this.endianType = versionNumber.startsWith("v")
         ? EndianType.LITTLE_ENDIAN : EndianType.BIG_ENDIAN;
-    this.isOldVersion = this.readVersionNumber().startsWith("v");
+    this.isOldVersion = versionNumber.startsWith("v");
+    this.hasFlatDeviceMap = isOldVersion || versionNumber.equals(TSFileConfig.OLD_VERSION)
+        || versionNumber.equals(TSFileConfig.FLAT_DEVICE_MAP_VERSION);
     try {
       if (loadMetadataSize) {
         loadMetadataSize();
@@ -255,12 +278,33 @@ public class TsFileSequenceReader implements AutoCloseable {
   }
 
   /**
-   * this function does not modify the position of the file reader.
+   * read the file metadata with the TsDeviceMetadataIndex of all devices. this function does not
+   * modify the position of the file reader.
    */
   public TsFileMetaData readFileMetadata() throws IOException {
+    return readFileMetadata(true);
+  }
+
+  /**
+   * this function does not modify the position of the file reader.
+   *
+   * @param loadDeviceIndex whether to load the TsDeviceMetadataIndex of all devices into the device
+   * map of the file metadata. If false and the file has an index tree of devices, the device map is
+   * empty and the index of a device is read by readDeviceMetadataIndex(String) on demand.
+   */
+  public TsFileMetaData readFileMetadata(boolean loadDeviceIndex) throws IOException {
     if (tsFileMetaData == null) {
-      tsFileMetaData = TsFileMetaData
+      TsFileMetaData fileMetaData = TsFileMetaData
           .deserializeFrom(readData(fileMetadataPos, fileMetadataSize), isOldVersion);
+      if (hasFlatDeviceMap && fileMetaData.hasMetadataIndex()) {
+        throw new NotCompatibleException(String.format(
+            "The footer of %s has an index tree of devices, which its version does not support",
+            file));
+      }
+      tsFileMetaData = fileMetaData;
+    }
+    if (loadDeviceIndex && !tsFileMetaData.isDeviceIndexLoaded()) {
+      loadDeviceIndex();
     }
     if (isOldVersion) {
       tsFileMetaData.setTotalChunkNum(countTotalChunkNum());
@@ -268,6 +312,68 @@ public class TsFileSequenceReader implements AutoCloseable {
     return tsFileMetaData;
   }
 
+  /**
+   * read all leaves of the index tree into the device map of the file metadata.
+   */
+  private synchronized void loadDeviceIndex() throws IOException {
+    if (tsFileMetaData.isDeviceIndexLoaded()) {
+      return;
+    }
+    Map<String, TsDeviceMetadataIndex> deviceMap = new HashMap<>();
+    loadDeviceIndex(readMetadataIndexRoot(), deviceMap);
+    tsFileMetaData.setDeviceMap(deviceMap);
+  }
+
+  private void loadDeviceIndex(MetadataIndexNode node, Map<String, TsDeviceMetadataIndex> deviceMap)
+      throws IOException {
+    for (int i = 0; i < node.size(); i++) {
+      if (node.isLeaf()) {
+        deviceMap.put(node.getKey(i), node.getDeviceIndex(i));
+      } else {
+        loadDeviceIndex(readMetadataIndexNode(node.getChildOffset(i), node.getChildLen(i)),
+            deviceMap);
+      }
+    }
+  }
+
+  /**
+   * get the TsDeviceMetadataIndex of a device by searching the index tree of devices from its
+   * root, only the nodes on the path to the device are read. this function does not modify the
+   * position of the file reader.
+   *
+   * @return the TsDeviceMetadataIndex of the device, or null if the device is not in the file
+   */
+  public TsDeviceMetadataIndex readDeviceMetadataIndex(String device) throws IOException {
+    if (tsFileMetaData == null) {
+      readFileMetadata(false);
+    }
+    if (tsFileMetaData.isDeviceIndexLoaded()) {
+      return tsFileMetaData.getDeviceMetadataIndex(device);
+    }
+    MetadataIndexNode node = readMetadataIndexRoot();
+    while (!node.isLeaf()) {
+      int i = node.getChildIndex(device);
+      if (i < 0) {
+        return null;
+      }
+      node = readMetadataIndexNode(node.getChildOffset(i), node.getChildLen(i));
+    }
+    return node.getDeviceIndex(device);
+  }
+
+  private MetadataIndexNode readMetadataIndexRoot() throws IOException {
+    // the root is read by every search, so it is kept
+    if (metadataIndexRoot == null) {
+      metadataIndexRoot = readMetadataIndexNode(tsFileMetaData.getMetadataIndexOffset(),
+          tsFileMetaData.getMetadataIndexLen());
+    }
+    return metadataIndexRoot;
+  }
+
+  private MetadataIndexNode readMetadataIndexNode(long offset, int len) throws IOException {
+    return MetadataIndexNode.deserializeFrom(readData(offset, len));
+  }
+
   /**
    * count total chunk num
    */
@@ -404,7 +510,9 @@ public class TsFileSequenceReader implements AutoCloseable {
     ChunkHeader header = readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize, false);
     ByteBuffer buffer = readChunk(metaData.getOffsetOfChunkHeader() + header.getSerializedSize(),
         header.getDataSize());
-    return new Chunk(header, buffer, metaData.getDeletedAt(), endianType);
+    Chunk chunk = new Chunk(header, buffer, metaData.getDeletedAt(), endianType);
+    chunk.setDeleteIntervalList(metaData.getDeleteIntervalList());
+    return chunk;
   }
 
   /**
@@ -441,10 +549,14 @@ public class TsFileSequenceReader implements AutoCloseable {
       case UNCOMPRESSED:
         return buffer;
       default:
-        // FIXME if the buffer is not array-implemented.
-        unCompressor.uncompress(buffer.array(), buffer.position(), buffer.remaining(),
-            uncompressedBuffer.array(),
-            0);
+        if (!buffer.hasArray()) {
+          // a slice of a mapped file
+          byte[] compressed = new byte[buffer.remaining()];
+          buffer.get(compressed);
+          buffer = ByteBuffer.wrap(compressed);
+        }
+        unCompressor.uncompress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+            buffer.remaining(), uncompressedBuffer.array(), 0);
         return uncompressedBuffer;
     }
   }
@@ -487,21 +599,16 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @param position the start position of data in the tsFileInput, or the current position if
    * position = -1
    * @param size the size of data that want to read
-   * @return data that been read.
+   * @return data that been read, which may be a read-only view of the input.
    */
   private ByteBuffer readData(long position, int size) throws IOException {
-    ByteBuffer buffer = ByteBuffer.allocate(size);
     if (position == -1) {
-      if (ReadWriteIOUtils.readAsPossible(tsFileInput, buffer) != size) {
-        throw new IOException("reach the end of the data");
-      }
-    } else {
-      if (ReadWriteIOUtils.readAsPossible(tsFileInput, buffer, position, size) != size) {
-        throw new IOException("reach the end of the data");
-      }
+      long currentPosition = tsFileInput.position();
+      ByteBuffer buffer = tsFileInput.readSlice(currentPosition, size);
+      tsFileInput.position(currentPosition + size);
+      return buffer;
     }
-    buffer.flip();
-    return buffer;
+    return tsFileInput.readSlice(position, size);
   }
 
   /**
@@ -657,16 +764,12 @@ public class TsFileSequenceReader implements AutoCloseable {
   }
 
   public List<ChunkMetaData> getChunkMetadataList(Path path) throws IOException {
-    if (tsFileMetaData == null) {
-      readFileMetadata();
-    }
-    if (!tsFileMetaData.containsDevice(path.getDevice())) {
+    // get the index information of TsDeviceMetadata
+    TsDeviceMetadataIndex index = readDeviceMetadataIndex(path.getDevice());
+    if (index == null) {
       return new ArrayList<>();
     }
 
-    // get the index information of TsDeviceMetadata
-    TsDeviceMetadataIndex index = tsFileMetaData.getDeviceMetadataIndex(path.getDevice());
-
     // read TsDeviceMetadata from file
     TsDeviceMetadata tsDeviceMetadata = readTsDeviceMetaData(index);
 
@@ -687,9 +790,7 @@ public class TsFileSequenceReader implements AutoCloseable {
   }
 
   public List<ChunkGroupMetaData> getSortedChunkGroupMetaDataListByDeviceIds() throws IOException {
-    if (tsFileMetaData == null) {
-      readFileMetadata();
-    }
+    readFileMetadata();
 
     List<ChunkGroupMetaData> result = new ArrayList<>();
 
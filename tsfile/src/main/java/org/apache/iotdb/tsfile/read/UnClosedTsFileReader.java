@@ -48,6 +48,14 @@ public class UnClosedTsFileReader extends TsFileSequenceReader {
     throw new NotImplementedException();
   }
 
+  /**
+   * unclosed file has no file metadata.
+   */
+  @Override
+  public TsFileMetaData readFileMetadata(boolean loadDeviceIndex) throws IOException {
+    throw new NotImplementedException();
+  }
+
   /**
    * unclosed file has no metadata.
    */
@@ -384,6 +384,90 @@ public class BatchData implements Serializable {
     count++;
   }
 
+  /**
+   * put the points [offset, offset + length) of the arrays in bulk.
+   *
+   * @param times timestamps
+   * @param values a boolean[], int[], long[], float[], double[] or Binary[] according to the data
+   * type
+   */
+  public void putBatch(long[] times, Object values, int offset, int length) {
+    while (length > 0) {
+      if (writeCurArrayIndex == capacity) {
+        growCapacity();
+      }
+      int copyNum = Math.min(length, capacity - writeCurArrayIndex);
+      System.arraycopy(times, offset, timeRet.get(writeCurListIndex), writeCurArrayIndex, copyNum);
+      System.arraycopy(values, offset, getValueArrays().get(writeCurListIndex), writeCurArrayIndex,
+          copyNum);
+      writeCurArrayIndex += copyNum;
+      count += copyNum;
+      offset += copyNum;
+      length -= copyNum;
+    }
+  }
+
+  /**
+   * double the capacity, or add a new array of the capacity if it has reached the threshold.
+   */
+  @SuppressWarnings("unchecked")
+  private void growCapacity() {
+    ArrayList<Object> valueArrays = getValueArrays();
+    if (capacity >= capacityThreshold) {
+      timeRet.add(new long[capacity]);
+      valueArrays.add(newValueArray(capacity));
+      writeCurListIndex++;
+      writeCurArrayIndex = 0;
+    } else {
+      long[] newTimeData = new long[capacity * 2];
+      System.arraycopy(timeRet.get(0), 0, newTimeData, 0, capacity);
+      timeRet.set(0, newTimeData);
+      Object newValueData = newValueArray(capacity * 2);
+      System.arraycopy(valueArrays.get(0), 0, newValueData, 0, capacity);
+      valueArrays.set(0, newValueData);
+      capacity = capacity * 2;
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private ArrayList getValueArrays() {
+    switch (dataType) {
+      case BOOLEAN:
+        return booleanRet;
+      case INT32:
+        return intRet;
+      case INT64:
+        return longRet;
+      case FLOAT:
+        return floatRet;
+      case DOUBLE:
+        return doubleRet;
+      case TEXT:
+        return binaryRet;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  private Object newValueArray(int size) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[size];
+      case INT32:
+        return new int[size];
+      case INT64:
+        return new long[size];
+      case FLOAT:
+        return new float[size];
+      case DOUBLE:
+        return new double[size];
+      case TEXT:
+        return new Binary[size];
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
 
 
   public boolean getBoolean() {
@@ -19,6 +19,7 @@
 package org.apache.iotdb.tsfile.read.common;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
@@ -34,6 +35,10 @@ public class Chunk {
    * All data with timestamp <= deletedAt are considered deleted.
    */
   private long deletedAt;
+  /**
+   * All data with timestamp in any of these closed ranges are considered deleted, null if none.
+   */
+  private List<TimeRange> deleteIntervalList;
   private EndianType endianType;
 
   public Chunk(ChunkHeader header, ByteBuffer buffer, long deletedAt, EndianType endianType) {
@@ -62,4 +67,12 @@ public class Chunk {
   public void setDeletedAt(long deletedAt) {
     this.deletedAt = deletedAt;
   }
+
+  public List<TimeRange> getDeleteIntervalList() {
+    return deleteIntervalList;
+  }
+
+  public void setDeleteIntervalList(List<TimeRange> deleteIntervalList) {
+    this.deleteIntervalList = deleteIntervalList;
+  }
 }
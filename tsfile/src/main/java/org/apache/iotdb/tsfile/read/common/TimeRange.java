@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.impl.BinaryExpression;
 import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
@@ -166,6 +167,24 @@ public class TimeRange implements Comparable<TimeRange> {
     }
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TimeRange that = (TimeRange) o;
+    return min == that.min && max == that.max && leftClose == that.leftClose
+        && rightClose == that.rightClose;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(min, max, leftClose, rightClose);
+  }
+
   @Override
   public String toString() {
     StringBuilder res = new StringBuilder();
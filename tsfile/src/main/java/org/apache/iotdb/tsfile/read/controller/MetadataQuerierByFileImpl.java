@@ -45,7 +45,7 @@ public class MetadataQuerierByFileImpl implements IMetadataQuerier {
    */
   public MetadataQuerierByFileImpl(TsFileSequenceReader tsFileReader) throws IOException {
     this.tsFileReader = tsFileReader;
-    this.fileMetaData = tsFileReader.readFileMetadata();
+    this.fileMetaData = tsFileReader.readFileMetadata(false);
     chunkMetaDataCache = new LRUCache<Path, List<ChunkMetaData>>(CHUNK_METADATA_CACHE_SIZE) {
       @Override
       public List<ChunkMetaData> loadObjectByKey(Path key) throws IOException {
@@ -106,7 +106,7 @@ public class MetadataQuerierByFileImpl implements IMetadataQuerier {
       Set<String> selectedMeasurements = deviceMeasurements.getValue();
 
       // get the index information of TsDeviceMetadata
-      TsDeviceMetadataIndex index = fileMetaData.getDeviceMetadataIndex(selectedDevice);
+      TsDeviceMetadataIndex index = tsFileReader.readDeviceMetadataIndex(selectedDevice);
       TsDeviceMetadata tsDeviceMetadata = tsFileReader.readTsDeviceMetaData(index);
 
       if (tsDeviceMetadata == null) {
@@ -193,8 +193,11 @@ public class MetadataQuerierByFileImpl implements IMetadataQuerier {
       String selectedDevice = deviceMeasurements.getKey();
       Set<String> selectedMeasurements = deviceMeasurements.getValue();
 
-      TsDeviceMetadataIndex index = fileMetaData.getDeviceMetadataIndex(selectedDevice);
+      TsDeviceMetadataIndex index = tsFileReader.readDeviceMetadataIndex(selectedDevice);
       TsDeviceMetadata tsDeviceMetadata = tsFileReader.readTsDeviceMetaData(index);
+      if (tsDeviceMetadata == null) {
+        continue;
+      }
 
       for (ChunkGroupMetaData chunkGroupMetaData : tsDeviceMetadata
           .getChunkGroupMetaDataList()) {
@@ -59,6 +59,13 @@ public class GroupByFilter implements Filter, Serializable {
       return (time - startTime) % slidingStep <= unit;
   }
 
+  @Override
+  public void satisfyBatch(long[] times, Object values, int length, boolean[] selection) {
+    for (int i = 0; i < length; i++) {
+      selection[i] = selection[i] && satisfy(times[i], null);
+    }
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     if (endTime < this.startTime)
@@ -47,6 +47,23 @@ public interface Filter {
    */
   boolean satisfy(long time, Object value);
 
+  /**
+   * To examine a batch of points at once without boxing their values. A selected point is
+   * unselected if it is not satisfied with the filter, and the unselected points are left
+   * unselected.
+   *
+   * @param times
+   *            times of the points
+   * @param values
+   *            values of the points, a boolean[], int[], long[], float[], double[] or Binary[]
+   *            according to the data type
+   * @param length
+   *            number of the points
+   * @param selection
+   *            whether each point is selected
+   */
+  void satisfyBatch(long[] times, Object values, int length, boolean[] selection);
+
   /**
    * To examine whether the min time and max time are satisfied with the filter.
    *
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.read.filter.basic;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.util.Objects;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
@@ -35,6 +36,14 @@ import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 public abstract class UnaryFilter<T extends Comparable<T>> implements Filter, Serializable {
 
   private static final long serialVersionUID = 1431606024929453556L;
+
+  /**
+   * the results of comparing the time or value of a point with the value of the filter.
+   */
+  protected static final int LESS = 1;
+  protected static final int EQUAL = 1 << 1;
+  protected static final int GREATER = 1 << 2;
+
   protected T value;
 
   protected FilterType filterType;
@@ -55,6 +64,70 @@ public abstract class UnaryFilter<T extends Comparable<T>> implements Filter, Se
     return filterType;
   }
 
+  /**
+   * @return the results of comparing a point with the value of the filter that satisfy the
+   * filter, a combination of LESS, EQUAL and GREATER
+   */
+  protected abstract int getSatisfiedComparisons();
+
+  /**
+   * The times or values are compared with the unboxed value of the filter in a tight loop per
+   * type, the points are examined one by one only if the value of the filter does not match the
+   * type of the values.
+   */
+  @Override
+  public void satisfyBatch(long[] times, Object values, int length, boolean[] selection) {
+    int satisfied = getSatisfiedComparisons();
+    if (filterType == FilterType.TIME_FILTER && value instanceof Long) {
+      long v = (Long) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Long.compare(times[i], v));
+      }
+    } else if (filterType == FilterType.TIME_FILTER) {
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && satisfy(times[i], null);
+      }
+    } else if (values instanceof long[] && value instanceof Long) {
+      long[] longs = (long[]) values;
+      long v = (Long) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Long.compare(longs[i], v));
+      }
+    } else if (values instanceof int[] && value instanceof Integer) {
+      int[] ints = (int[]) values;
+      int v = (Integer) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Integer.compare(ints[i], v));
+      }
+    } else if (values instanceof double[] && value instanceof Double) {
+      double[] doubles = (double[]) values;
+      double v = (Double) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Double.compare(doubles[i], v));
+      }
+    } else if (values instanceof float[] && value instanceof Float) {
+      float[] floats = (float[]) values;
+      float v = (Float) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Float.compare(floats[i], v));
+      }
+    } else if (values instanceof boolean[] && value instanceof Boolean) {
+      boolean[] booleans = (boolean[]) values;
+      boolean v = (Boolean) value;
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && isSatisfied(satisfied, Boolean.compare(booleans[i], v));
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        selection[i] = selection[i] && satisfy(times[i], Array.get(values, i));
+      }
+    }
+  }
+
+  private static boolean isSatisfied(int satisfied, int comparison) {
+    return (satisfied & (1 << (Integer.signum(comparison) + 1))) != 0;
+  }
+
   @Override
   public abstract String toString();
 
@@ -47,6 +47,13 @@ public class AndFilter extends BinaryFilter {
     return left.satisfy(time, value) && right.satisfy(time, value);
   }
 
+  @Override
+  public void satisfyBatch(long[] times, Object values, int length, boolean[] selection) {
+    // the right filter only examines the points satisfying the left one
+    left.satisfyBatch(times, values, length, selection);
+    right.satisfyBatch(times, values, length, selection);
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     return left.satisfyStartEndTime(startTime, endTime) && right
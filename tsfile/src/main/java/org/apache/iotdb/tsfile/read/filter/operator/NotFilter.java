@@ -22,6 +22,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Objects;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -53,13 +54,22 @@ public class NotFilter implements Filter, Serializable {
     return !that.satisfy(time, value);
   }
 
+  @Override
+  public void satisfyBatch(long[] times, Object values, int length, boolean[] selection) {
+    boolean[] thatSelection = Arrays.copyOf(selection, length);
+    that.satisfyBatch(times, values, length, thatSelection);
+    for (int i = 0; i < length; i++) {
+      selection[i] = selection[i] && !thatSelection[i];
+    }
+  }
+
   /**
-   * Notice that, if the not filter only contains value filter, this method may return false, this
-   * may cause misunderstanding.
+   * That the inner filter may be satisfied in [startTime, endTime] does not mean it is satisfied by
+   * every point in the range, so the negation can never rule out the range.
    */
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
-    return !that.satisfyStartEndTime(startTime, endTime);
+    return true;
   }
 
   @Override
@@ -19,6 +19,7 @@
 package org.apache.iotdb.tsfile.read.filter.operator;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -58,6 +59,20 @@ public class OrFilter extends BinaryFilter implements Serializable {
     return left.satisfy(time, value) || right.satisfy(time, value);
   }
 
+  @Override
+  public void satisfyBatch(long[] times, Object values, int length, boolean[] selection) {
+    boolean[] leftSelection = Arrays.copyOf(selection, length);
+    left.satisfyBatch(times, values, length, leftSelection);
+    // the right filter only examines the selected points not satisfying the left one
+    for (int i = 0; i < length; i++) {
+      selection[i] = selection[i] && !leftSelection[i];
+    }
+    right.satisfyBatch(times, values, length, selection);
+    for (int i = 0; i < length; i++) {
+      selection[i] = selection[i] || leftSelection[i];
+    }
+  }
+
   @Override
   public boolean satisfyStartEndTime(long startTime, long endTime) {
     return left.satisfyStartEndTime(startTime, endTime) || right
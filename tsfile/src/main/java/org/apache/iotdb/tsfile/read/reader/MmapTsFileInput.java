@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MmapTsFileInput maps a sealed TsFile into memory as a whole, so that reading a chunk or a page
+ * returns a read-only slice of the mapped buffer without a system call or a copy. The file must not
+ * be modified while it is mapped.
+ *
+ * <p>
+ * The bytes mapped by all inputs are limited by maxMappedSizeInByte of TSFileConfig. {@link
+ * #open(Path)} opens a file that exceeds the limit, or is too large for a single buffer, as a
+ * {@link DefaultTsFileInput} instead.
+ * </p>
+ *
+ * <p>
+ * The mapping is unmapped as soon as the input is closed instead of waiting for GC, accessing a
+ * slice of it afterwards crashes the JVM. So the input must only be closed when no query is reading
+ * the file, and the slices must be copied before they are kept beyond the query, e.g., by a cache.
+ * </p>
+ */
+public class MmapTsFileInput implements TsFileInput {
+
+  private static final Logger logger = LoggerFactory.getLogger(MmapTsFileInput.class);
+
+  /**
+   * the bytes mapped by all the open inputs.
+   */
+  private static final AtomicLong mappedSize = new AtomicLong();
+
+  /**
+   * the instance of sun.misc.Unsafe and its invokeCleaner(), which are null before Java 9.
+   */
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Java 8, the Cleaner of the buffer is used
+      invokeCleaner = null;
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private final FileChannel channel;
+  /**
+   * null once the input is closed.
+   */
+  private volatile MappedByteBuffer mappedBuffer;
+  private final long mappedLength;
+
+  private MmapTsFileInput(FileChannel channel, MappedByteBuffer mappedBuffer) {
+    this.channel = channel;
+    this.mappedBuffer = mappedBuffer;
+    this.mappedLength = mappedBuffer.capacity();
+  }
+
+  /**
+   * @return a MmapTsFileInput of the file if it can be mapped within the limit, or a
+   * DefaultTsFileInput otherwise
+   */
+  public static TsFileInput open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    long size;
+    try {
+      size = channel.size();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    if (size <= Integer.MAX_VALUE && reserve(size)) {
+      try {
+        return new MmapTsFileInput(channel, channel.map(MapMode.READ_ONLY, 0, size));
+      } catch (IOException e) {
+        mappedSize.addAndGet(-size);
+        logger.warn("Failed to map {}, read it through the file channel", file, e);
+      }
+    } else {
+      logger.debug("{} of {} bytes is not mapped, {} bytes have been mapped", file, size,
+          mappedSize.get());
+    }
+    channel.close();
+    return new DefaultTsFileInput(file);
+  }
+
+  private static boolean reserve(long size) {
+    long limit = TSFileDescriptor.getInstance().getConfig().getMaxMappedSizeInByte();
+    long current;
+    do {
+      current = mappedSize.get();
+      if (current + size > limit) {
+        return false;
+      }
+    } while (!mappedSize.compareAndSet(current, current + size));
+    return true;
+  }
+
+  public static long getMappedSize() {
+    return mappedSize.get();
+  }
+
+  @Override
+  public long size() throws IOException {
+    return channel.size();
+  }
+
+  @Override
+  public long position() throws IOException {
+    return channel.position();
+  }
+
+  @Override
+  public TsFileInput position(long newPosition) throws IOException {
+    channel.position(newPosition);
+    return this;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    ByteBuffer buffer = mappedBuffer();
+    long position = channel.position();
+    int read = copy(buffer, dst, position);
+    if (read > 0) {
+      channel.position(position + read);
+    }
+    return read;
+  }
+
+  @Override
+  public int read(ByteBuffer dst, long position) throws IOException {
+    ByteBuffer buffer = mappedBuffer();
+    return copy(buffer, dst, position);
+  }
+
+  private ByteBuffer mappedBuffer() throws IOException {
+    ByteBuffer buffer = mappedBuffer;
+    if (buffer == null) {
+      throw new ClosedChannelException();
+    }
+    return buffer;
+  }
+
+  private int copy(ByteBuffer buffer, ByteBuffer dst, long position) {
+    if (position >= mappedLength) {
+      return -1;
+    }
+    int length = (int) Math.min(dst.remaining(), mappedLength - position);
+    ByteBuffer src = buffer.duplicate();
+    src.position((int) position);
+    src.limit((int) position + length);
+    dst.put(src);
+    return length;
+  }
+
+  @Override
+  public ByteBuffer readSlice(long position, int length) throws IOException {
+    ByteBuffer buffer = mappedBuffer();
+    if (position < 0 || position + length > mappedLength) {
+      throw new IOException("reach the end of the data");
+    }
+    ByteBuffer slice = buffer.duplicate();
+    slice.position((int) position);
+    slice.limit((int) position + length);
+    return slice.slice();
+  }
+
+  @Override
+  public int read() throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public FileChannel wrapAsFileChannel() throws IOException {
+    return channel;
+  }
+
+  @Override
+  public InputStream wrapAsInputStream() throws IOException {
+    return Channels.newInputStream(channel);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    MappedByteBuffer buffer = mappedBuffer;
+    if (buffer != null) {
+      mappedBuffer = null;
+      unmap(buffer);
+      mappedSize.addAndGet(-mappedLength);
+    }
+    channel.close();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * release the mapping through sun.misc.Unsafe.invokeCleaner() since Java 9, or the Cleaner of the
+   * buffer in Java 8. If neither is accessible, the mapping is left to GC.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      if (UNSAFE != null) {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } else {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn("Failed to unmap a buffer, it will be released by GC", e);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 public interface TsFileInput {
 
@@ -103,6 +104,30 @@ public interface TsFileInput {
    */
   int read(ByteBuffer dst, long position) throws IOException;
 
+  /**
+   * Returns the length bytes starting at the given position as a buffer whose position is 0 and
+   * limit is length. This method does not modify this TsFileInput's position.
+   *
+   * <p>
+   * The bytes are copied into a new buffer by default. An input backed by memory may return a
+   * read-only view of the memory instead, so the returned buffer should not be modified.
+   * </p>
+   *
+   * @param position The position of the first byte; must be non-negative
+   * @param length The number of bytes
+   * @return The buffer of the bytes
+   * @throws IOException If there are less than length bytes after the position, or some other I/O
+   * error occurs
+   */
+  default ByteBuffer readSlice(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    if (ReadWriteIOUtils.readAsPossible(this, buffer, position, length) != length) {
+      throw new IOException("reach the end of the data");
+    }
+    buffer.flip();
+    return buffer;
+  }
+
   /**
    * read a byte from the Input.
    */
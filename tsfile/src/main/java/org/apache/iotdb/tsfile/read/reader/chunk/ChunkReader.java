@@ -21,16 +21,19 @@ package org.apache.iotdb.tsfile.read.reader.chunk;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 
@@ -55,6 +58,12 @@ public class ChunkReader {
    */
   protected long deletedAt;
 
+  /**
+   * Data whose timestamp is in any of these sorted closed ranges should be considered deleted, null
+   * if none.
+   */
+  protected List<TimeRange> deleteIntervalList;
+
   /**
    * constructor of ChunkReader.
    *
@@ -65,6 +74,7 @@ public class ChunkReader {
     this.filter = filter;
     this.chunkDataBuffer = chunk.getData();
     this.deletedAt = chunk.getDeletedAt();
+    this.deleteIntervalList = chunk.getDeleteIntervalList();
     EndianType endianType = chunk.getEndianType();
     chunkHeader = chunk.getHeader();
     this.unCompressor = IUnCompressor.getUnCompressor(chunkHeader.getCompressionType());
@@ -88,6 +98,7 @@ public class ChunkReader {
 
       // if the current page satisfies
       if (pageSatisfied(pageHeader)) {
+        pageHeader.setModified(isPageModified(pageHeader));
         hasCachedPageHeader = true;
         return true;
       } else {
@@ -127,16 +138,57 @@ public class ChunkReader {
   }
 
   public boolean pageSatisfied(PageHeader pageHeader) {
-    if (pageHeader.getEndTime() <= deletedAt) {
+    if (pageHeader.getEndTime() <= deletedAt || isPageDeleted(pageHeader)) {
       return false;
     }
     return filter == null || filter.satisfy(pageHeader.getStatistics());
   }
 
+  /**
+   * @return true if all data of the page, according to its statistics, are in one of the deleted
+   * ranges, so that the page can be skipped without being decoded
+   */
+  protected boolean isPageDeleted(PageHeader pageHeader) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    for (TimeRange range : deleteIntervalList) {
+      if (range.getMin() > pageHeader.getStartTime()) {
+        // the ranges are sorted, so no following range covers the start of the page
+        return false;
+      }
+      if (range.getMax() >= pageHeader.getEndTime()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true if some data of the page, according to its statistics, may be deleted, so that
+   * the statistics of the page cannot be used as the aggregation of its data
+   */
+  protected boolean isPageModified(PageHeader pageHeader) {
+    if (pageHeader.getStartTime() <= deletedAt) {
+      return true;
+    }
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    for (TimeRange range : deleteIntervalList) {
+      if (range.getMin() > pageHeader.getEndTime()) {
+        return false;
+      }
+      if (range.getMax() >= pageHeader.getStartTime()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private PageReader constructPageReaderForNextPage(PageHeader pageHeader)
       throws IOException {
     int compressedPageBodyLength = pageHeader.getCompressedSize();
-    byte[] compressedPageBody = new byte[compressedPageBodyLength];
 
     // doesn't has a complete page body
     if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
@@ -144,12 +196,22 @@ public class ChunkReader {
               + ". Actual:" + chunkDataBuffer.remaining());
     }
 
-    chunkDataBuffer.get(compressedPageBody);
     valueDecoder.reset();
-    ByteBuffer pageData = ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody));
+    ByteBuffer pageData;
+    if (chunkHeader.getCompressionType() == CompressionType.UNCOMPRESSED) {
+      // decode the page in place, which may be a slice of a mapped file
+      pageData = chunkDataBuffer.slice();
+      pageData.limit(compressedPageBodyLength);
+      skipBytesInStreamByLength(compressedPageBodyLength);
+    } else {
+      byte[] compressedPageBody = new byte[compressedPageBodyLength];
+      chunkDataBuffer.get(compressedPageBody);
+      pageData = ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody));
+    }
     PageReader reader = new PageReader(pageData, chunkHeader.getDataType(),
         valueDecoder, timeDecoder, filter);
     reader.setDeletedAt(deletedAt);
+    reader.setDeleteIntervalList(deleteIntervalList);
     return reader;
   }
 
@@ -33,7 +33,8 @@ public class ChunkReaderByTimestamp extends ChunkReader {
   public boolean pageSatisfied(PageHeader pageHeader) {
     long maxTimestamp = pageHeader.getEndTime();
     // if maxTimestamp > currentTimestamp, this page should NOT be skipped
-    return maxTimestamp >= currentTimestamp && maxTimestamp > deletedAt;
+    return maxTimestamp >= currentTimestamp && maxTimestamp > deletedAt
+        && !isPageDeleted(pageHeader);
   }
 
   public void setCurrentTimestamp(long currentTimestamp) {
@@ -22,15 +22,29 @@ import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 
 public class PageReader {
 
+  /**
+   * the number of points decoded and filtered at a time.
+   */
+  private static final int DECODE_BATCH_SIZE = 1024;
+
   private TSDataType dataType;
 
   /** decoder for value column */
@@ -45,20 +59,68 @@ public class PageReader {
   /** value column in memory */
   private ByteBuffer valueBuffer;
 
-  private Filter filter;
+  /**
+   * the part of the filter on time only, which is examined before the values are decoded.
+   */
+  private Filter timeFilter;
+
+  /**
+   * the rest of the filter, which is examined on the decoded values.
+   */
+  private Filter valueFilter;
 
   /** Data whose timestamp <= deletedAt should be considered deleted(not be returned). */
   private long deletedAt = Long.MIN_VALUE;
 
+  /**
+   * Data whose timestamp is in any of these sorted closed ranges should be considered deleted, null
+   * if none.
+   */
+  private List<TimeRange> deleteIntervalList;
+
+  /**
+   * the index of the first range in deleteIntervalList that does not end before the timestamps
+   * examined so far, which only moves forward as the timestamps of a page are ascending
+   */
+  private int deleteCursor = 0;
+
   public PageReader(ByteBuffer pageData, TSDataType dataType, Decoder valueDecoder,
       Decoder timeDecoder, Filter filter) {
     this.dataType = dataType;
     this.valueDecoder = valueDecoder;
     this.timeDecoder = timeDecoder;
-    this.filter = filter;
+    if (filter != null) {
+      splitFilter(filter);
+    }
     splitDataToTimeStampAndValue(pageData);
   }
 
+  /**
+   * split the filter into a time filter and a value filter whose conjunction is the filter.
+   */
+  private void splitFilter(Filter filter) {
+    if (isTimeFilter(filter)) {
+      timeFilter = timeFilter == null ? filter : FilterFactory.and(timeFilter, filter);
+    } else if (filter instanceof AndFilter) {
+      splitFilter(((AndFilter) filter).getLeft());
+      splitFilter(((AndFilter) filter).getRight());
+    } else {
+      valueFilter = valueFilter == null ? filter : FilterFactory.and(valueFilter, filter);
+    }
+  }
+
+  private static boolean isTimeFilter(Filter filter) {
+    if (filter instanceof UnaryFilter) {
+      return ((UnaryFilter<?>) filter).getFilterType() == FilterType.TIME_FILTER;
+    } else if (filter instanceof BinaryFilter) {
+      return isTimeFilter(((BinaryFilter) filter).getLeft()) && isTimeFilter(
+          ((BinaryFilter) filter).getRight());
+    } else if (filter instanceof NotFilter) {
+      return isTimeFilter(((NotFilter) filter).getFilter());
+    }
+    return filter instanceof GroupByFilter;
+  }
+
   /**
    * split pageContent into two stream: time and value
    *
@@ -75,59 +137,139 @@ public class PageReader {
   }
 
   /**
+   * The points are decoded, filtered and appended to the BatchData a batch at a time: the decoders
+   * fill primitive arrays, the filter marks the satisfied points in a selection without boxing
+   * the values, and the selected runs are copied into the BatchData in bulk.
+   * <p>
+   * The timestamps of a batch are decoded and examined by the deletion and the time filter first,
+   * only the values from the first to the last remaining point are decoded then, the others are
+   * skipped, which saves most of the value decoding when the time filter cuts the page.
+   *
    * @return the returned BatchData may be empty, but never be null
    */
   public BatchData getAllSatisfiedPageData() throws IOException {
 
     BatchData pageData = new BatchData(dataType);
 
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-
-      switch (dataType) {
-        case BOOLEAN:
-          boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-            pageData.putBoolean(timestamp, aBoolean);
-          }
-          break;
-        case INT32:
-          int anInt = valueDecoder.readInt(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, anInt))) {
-            pageData.putInt(timestamp, anInt);
-          }
-          break;
-        case INT64:
-          long aLong = valueDecoder.readLong(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aLong))) {
-            pageData.putLong(timestamp, aLong);
-          }
-          break;
-        case FLOAT:
-          float aFloat = valueDecoder.readFloat(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aFloat))) {
-            pageData.putFloat(timestamp, aFloat);
-          }
-          break;
-        case DOUBLE:
-          double aDouble = valueDecoder.readDouble(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aDouble))) {
-            pageData.putDouble(timestamp, aDouble);
-          }
-          break;
-        case TEXT:
-          Binary aBinary = valueDecoder.readBinary(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aBinary))) {
-            pageData.putBinary(timestamp, aBinary);
-          }
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    long[] times = new long[DECODE_BATCH_SIZE];
+    Object values = createValueArray();
+    boolean[] selection = new boolean[DECODE_BATCH_SIZE];
+    int readNum;
+    while ((readNum = timeDecoder.readLongs(timeBuffer, times, 0, DECODE_BATCH_SIZE)) > 0) {
+      for (int i = 0; i < readNum; i++) {
+        selection[i] = times[i] > deletedAt && !isDeleted(times[i]);
+      }
+      if (timeFilter != null) {
+        timeFilter.satisfyBatch(times, null, readNum, selection);
+      }
+
+      int first = 0;
+      while (first < readNum && !selection[first]) {
+        first++;
+      }
+      int last = readNum - 1;
+      while (last >= first && !selection[last]) {
+        last--;
       }
+      if (first > last) {
+        skipValues(readNum);
+        continue;
+      }
+      skipValues(first);
+      if (readValues(values, first, last - first + 1) != last - first + 1) {
+        throw new IOException(String.format(
+            "The page has %d values less than its timestamps", readNum));
+      }
+      skipValues(readNum - last - 1);
+
+      if (valueFilter != null) {
+        valueFilter.satisfyBatch(times, values, last + 1, selection);
+      }
+      putSelected(pageData, times, values, selection, first, last + 1);
     }
     return pageData;
   }
 
+  private boolean isDeleted(long time) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    while (deleteCursor < deleteIntervalList.size()) {
+      TimeRange range = deleteIntervalList.get(deleteCursor);
+      if (range.getMax() >= time) {
+        return range.getMin() <= time;
+      }
+      deleteCursor++;
+    }
+    return false;
+  }
+
+  private void skipValues(int length) throws IOException {
+    if (length > 0 && valueDecoder.skip(valueBuffer, dataType, length) != length) {
+      throw new IOException(String.format(
+          "The page has %d values less than its timestamps", length));
+    }
+  }
+
+  private Object createValueArray() {
+    switch (dataType) {
+      case BOOLEAN:
+        return new boolean[DECODE_BATCH_SIZE];
+      case INT32:
+        return new int[DECODE_BATCH_SIZE];
+      case INT64:
+        return new long[DECODE_BATCH_SIZE];
+      case FLOAT:
+        return new float[DECODE_BATCH_SIZE];
+      case DOUBLE:
+        return new double[DECODE_BATCH_SIZE];
+      case TEXT:
+        return new Binary[DECODE_BATCH_SIZE];
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  private int readValues(Object values, int offset, int length) throws IOException {
+    switch (dataType) {
+      case BOOLEAN:
+        return valueDecoder.readBooleans(valueBuffer, (boolean[]) values, offset, length);
+      case INT32:
+        return valueDecoder.readInts(valueBuffer, (int[]) values, offset, length);
+      case INT64:
+        return valueDecoder.readLongs(valueBuffer, (long[]) values, offset, length);
+      case FLOAT:
+        return valueDecoder.readFloats(valueBuffer, (float[]) values, offset, length);
+      case DOUBLE:
+        return valueDecoder.readDoubles(valueBuffer, (double[]) values, offset, length);
+      case TEXT:
+        return valueDecoder.readBinaries(valueBuffer, (Binary[]) values, offset, length);
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
+  }
+
+  /**
+   * append each run of consecutive selected points in [start, end) to the BatchData at once.
+   */
+  private void putSelected(BatchData pageData, long[] times, Object values, boolean[] selection,
+      int start, int end) {
+    int runStart = -1;
+    for (int i = start; i < end; i++) {
+      if (selection[i]) {
+        if (runStart < 0) {
+          runStart = i;
+        }
+      } else if (runStart >= 0) {
+        pageData.putBatch(times, values, runStart, i - runStart);
+        runStart = -1;
+      }
+    }
+    if (runStart >= 0) {
+      pageData.putBatch(times, values, runStart, end - runStart);
+    }
+  }
+
 
   public void close() {
     timeBuffer = null;
@@ -137,4 +279,8 @@ public class PageReader {
   public void setDeletedAt(long deletedAt) {
     this.deletedAt = deletedAt;
   }
+
+  public void setDeleteIntervalList(List<TimeRange> deleteIntervalList) {
+    this.deleteIntervalList = deleteIntervalList;
+  }
 }
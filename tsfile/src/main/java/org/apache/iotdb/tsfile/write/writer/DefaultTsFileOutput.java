@@ -57,7 +57,14 @@ public class DefaultTsFileOutput implements TsFileOutput {
 
   @Override
   public void write(ByteBuffer b) throws IOException {
-    bufferedStream.write(b.array());
+    if (b.hasArray()) {
+      bufferedStream.write(b.array());
+    } else {
+      // e.g., a chunk read from a mapped file
+      byte[] bytes = new byte[b.remaining()];
+      b.duplicate().get(bytes);
+      bufferedStream.write(bytes);
+    }
   }
 
   @Override
@@ -65,6 +65,8 @@ public class ForceAppendTsFileWriter extends TsFileIOWriter{
       // truncate metadata and marker
       truncatePosition = firstDeviceMetaPos - 1;
       knownSchemas = fileMetaData.getMeasurementSchema();
+      // keep the footer layout of the version of the file
+      indexDevices = fileMetaData.hasMetadataIndex();
 
     }
   }
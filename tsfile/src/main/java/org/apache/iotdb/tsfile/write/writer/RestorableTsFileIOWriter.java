@@ -91,7 +91,10 @@ public class RestorableTsFileIOWriter extends TsFileIOWriter {
           return;
         }
 
-        // uncompleted file
+        // uncompleted file, whose footer keeps the layout of its version
+        String versionNumber = reader.readVersionNumber();
+        indexDevices = !versionNumber.equals(TSFileConfig.FLAT_DEVICE_MAP_VERSION)
+            && !versionNumber.equals(TSFileConfig.OLD_VERSION);
         truncatedPosition = reader.selfCheck(knownSchemas, chunkGroupMetaDataList, true);
         totalChunkNum = reader.getTotalChunkNum();
         if (truncatedPosition == TsFileCheckStatus.INCOMPATIBLE_FILE) {
@@ -36,6 +36,7 @@ import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkGroupMetaData;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.MetadataIndexNode;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadataIndex;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
@@ -74,6 +75,11 @@ public class TsFileIOWriter {
   protected int totalChunkNum = 0;
   protected int invalidChunkNum;
   protected File file;
+  /**
+   * whether the footer records the devices by an index tree, it is false only when continuing a
+   * file whose version predates the index tree
+   */
+  protected boolean indexDevices = true;
   private ChunkGroupMetaData currentChunkGroupMetaData;
   private ChunkMetaData currentChunkMetaData;
   private long markedPosition;
@@ -226,6 +232,9 @@ public class TsFileIOWriter {
         this.chunkGroupMetaDataList);
 
     TsFileMetaData tsFileMetaData = new TsFileMetaData(tsDeviceMetadataIndexMap, schemaDescriptors);
+    if (indexDevices) {
+      flushMetadataIndex(tsDeviceMetadataIndexMap, tsFileMetaData);
+    }
 
     tsFileMetaData.setTotalChunkNum(totalChunkNum);
     tsFileMetaData.setInvalidChunkNum(invalidChunkNum);
@@ -267,7 +276,7 @@ public class TsFileIOWriter {
   private Map<String, TsDeviceMetadataIndex> flushTsDeviceMetaDataAndGetIndex(
       List<ChunkGroupMetaData> chunkGroupMetaDataList) throws IOException {
 
-    Map<String, TsDeviceMetadataIndex> tsDeviceMetadataIndexMap = new HashMap<>();
+    Map<String, TsDeviceMetadataIndex> tsDeviceMetadataIndexMap = new TreeMap<>();
 
     long offset; /* offset for the flushing TsDeviceMetadata */
 
@@ -291,6 +300,53 @@ public class TsFileIOWriter {
     return tsDeviceMetadataIndexMap;
   }
 
+  /**
+   * flush the TsDeviceMetadataIndex of all devices as a B+ tree of MetadataIndexNode level by
+   * level from the leaves, so that the root is the last node, and record the root in the
+   * TsFileMetaData.
+   *
+   * @param tsDeviceMetadataIndexMap TsDeviceMetadataIndex of all devices in ascending order
+   */
+  private void flushMetadataIndex(Map<String, TsDeviceMetadataIndex> tsDeviceMetadataIndexMap,
+      TsFileMetaData tsFileMetaData) throws IOException {
+    int maxDegree = Math.max(2, TSFileDescriptor.getInstance().getConfig()
+        .getMaxDegreeOfIndexNode());
+
+    List<MetadataIndexNode> nodes = new ArrayList<>();
+    MetadataIndexNode currentNode = MetadataIndexNode.leafNode();
+    nodes.add(currentNode);
+    for (Map.Entry<String, TsDeviceMetadataIndex> entry : tsDeviceMetadataIndexMap.entrySet()) {
+      if (currentNode.size() == maxDegree) {
+        currentNode = MetadataIndexNode.leafNode();
+        nodes.add(currentNode);
+      }
+      currentNode.addDevice(entry.getKey(), entry.getValue());
+    }
+
+    while (true) {
+      List<MetadataIndexNode> parents = new ArrayList<>();
+      MetadataIndexNode parent = null;
+      long offset = 0;
+      int size = 0;
+      for (MetadataIndexNode node : nodes) {
+        offset = out.getPosition();
+        size = node.serializeTo(out.wrapAsStream());
+        if (parent == null || parent.size() == maxDegree) {
+          parent = MetadataIndexNode.internalNode();
+          parents.add(parent);
+        }
+        // an empty file has a single empty leaf node
+        parent.addChild(node.size() > 0 ? node.getKey(0) : "", offset, size);
+      }
+      if (nodes.size() == 1) {
+        // the last flushed node is the root
+        tsFileMetaData.setMetadataIndex(offset, size, tsDeviceMetadataIndexMap.size());
+        return;
+      }
+      nodes = parents;
+    }
+  }
+
   /**
    * group all chunk group metadata by device.
    *
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.Test;
+
+/**
+ * The batch read methods of decoders should decode the same values as reading them one by one.
+ */
+public class BatchDecodeTest {
+
+  private static final int POINT_NUM = 3000;
+  private static final int BATCH_SIZE = 256;
+
+  private Random random = new Random(1);
+
+  @Test
+  public void testLong() throws IOException {
+    long[] values = new long[POINT_NUM];
+    long time = 1000;
+    for (int i = 0; i < POINT_NUM; i++) {
+      // irregular deltas of various bit widths
+      time += random.nextInt(1 << (i % 40 / 2 + 1)) + 1;
+      values[i] = i % 100 < 50 ? time : random.nextLong();
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      ByteBuffer buffer = encode(encoding, TSDataType.INT64, values);
+      long[] decoded = new long[POINT_NUM + 1];
+      Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.INT64);
+      int readNum = 0;
+      int batchNum;
+      while ((batchNum = decoder.readLongs(buffer, decoded, readNum,
+          Math.min(BATCH_SIZE, decoded.length - readNum))) > 0) {
+        readNum += batchNum;
+      }
+      assertEquals(encoding.toString(), POINT_NUM, readNum);
+      for (int i = 0; i < POINT_NUM; i++) {
+        assertEquals(encoding.toString(), values[i], decoded[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testInt() throws IOException {
+    int[] values = new int[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      values[i] = i % 3 == 0 ? random.nextInt() : random.nextInt(1 << (i % 31));
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      ByteBuffer buffer = encode(encoding, TSDataType.INT32, values);
+      int[] decoded = new int[POINT_NUM];
+      Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.INT32);
+      int readNum = 0;
+      while (readNum < POINT_NUM) {
+        readNum += decoder.readInts(buffer, decoded, readNum,
+            Math.min(BATCH_SIZE, POINT_NUM - readNum));
+      }
+      assertEquals(0, decoder.readInts(buffer, decoded, 0, 1));
+      assertArrayEquals(encoding.toString(), values, decoded);
+    }
+  }
+
+  @Test
+  public void testFloatAndDouble() throws IOException {
+    float[] floats = new float[POINT_NUM];
+    double[] doubles = new double[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      floats[i] = random.nextInt(100000) / 100f;
+      doubles[i] = random.nextInt(100000) / 100d;
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF, TSEncoding.GORILLA}) {
+      // the values may be rounded by the encoding, so compare with the values read one by one
+      ByteBuffer buffer = encode(encoding, TSDataType.FLOAT, floats);
+      float[] decodedFloats = new float[POINT_NUM];
+      Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.FLOAT);
+      assertEquals(POINT_NUM, decoder.readFloats(buffer.duplicate(), decodedFloats, 0, POINT_NUM));
+      decoder = Decoder.getDecoderByType(encoding, TSDataType.FLOAT);
+      for (int i = 0; i < POINT_NUM; i++) {
+        assertEquals(encoding.toString(), decoder.readFloat(buffer), decodedFloats[i], 0);
+      }
+
+      buffer = encode(encoding, TSDataType.DOUBLE, doubles);
+      double[] decodedDoubles = new double[POINT_NUM];
+      decoder = Decoder.getDecoderByType(encoding, TSDataType.DOUBLE);
+      assertEquals(POINT_NUM,
+          decoder.readDoubles(buffer.duplicate(), decodedDoubles, 0, POINT_NUM));
+      decoder = Decoder.getDecoderByType(encoding, TSDataType.DOUBLE);
+      for (int i = 0; i < POINT_NUM; i++) {
+        assertEquals(encoding.toString(), decoder.readDouble(buffer), decodedDoubles[i], 0);
+      }
+    }
+  }
+
+  @Test
+  public void testBooleanAndBinary() throws IOException {
+    boolean[] booleans = new boolean[POINT_NUM];
+    Binary[] binaries = new Binary[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      booleans[i] = random.nextBoolean();
+      binaries[i] = new Binary(String.valueOf(random.nextInt()));
+    }
+    ByteBuffer buffer = encode(TSEncoding.PLAIN, TSDataType.BOOLEAN, booleans);
+    boolean[] decodedBooleans = new boolean[POINT_NUM];
+    Decoder decoder = Decoder.getDecoderByType(TSEncoding.PLAIN, TSDataType.BOOLEAN);
+    assertEquals(POINT_NUM, decoder.readBooleans(buffer, decodedBooleans, 0, POINT_NUM));
+    assertArrayEquals(booleans, decodedBooleans);
+
+    buffer = encode(TSEncoding.PLAIN, TSDataType.TEXT, binaries);
+    Binary[] decodedBinaries = new Binary[POINT_NUM];
+    decoder = Decoder.getDecoderByType(TSEncoding.PLAIN, TSDataType.TEXT);
+    assertEquals(POINT_NUM, decoder.readBinaries(buffer, decodedBinaries, 0, POINT_NUM));
+    assertArrayEquals(binaries, decodedBinaries);
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    long[] longs = new long[POINT_NUM];
+    double[] doubles = new double[POINT_NUM];
+    Binary[] binaries = new Binary[POINT_NUM];
+    for (int i = 0; i < POINT_NUM; i++) {
+      // rle runs mixed with bit-packed values
+      longs[i] = i % 600 < 300 ? i / 100 : random.nextInt(1 << (i % 20 + 1));
+      doubles[i] = longs[i] / 100d;
+      binaries[i] = new Binary(String.valueOf(longs[i]));
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      ByteBuffer buffer = encode(encoding, TSDataType.INT64, longs);
+      Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.INT64);
+      int index = 0;
+      while (index < POINT_NUM) {
+        index += decoder.skip(buffer, TSDataType.INT64, random.nextInt(400));
+        if (index < POINT_NUM) {
+          assertEquals(encoding.toString(), longs[index++], decoder.readLong(buffer));
+        }
+      }
+      assertEquals(0, decoder.skip(buffer, TSDataType.INT64, 1));
+    }
+
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF, TSEncoding.GORILLA}) {
+      // the values may be rounded by the encoding, so compare with the values read one by one
+      ByteBuffer buffer = encode(encoding, TSDataType.DOUBLE, doubles);
+      double[] decodedDoubles = new double[POINT_NUM];
+      Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.DOUBLE);
+      decoder.readDoubles(buffer.duplicate(), decodedDoubles, 0, POINT_NUM);
+      decoder = Decoder.getDecoderByType(encoding, TSDataType.DOUBLE);
+      int index = 0;
+      while (index < POINT_NUM) {
+        index += decoder.skip(buffer, TSDataType.DOUBLE, random.nextInt(400));
+        if (index < POINT_NUM) {
+          assertEquals(encoding.toString(), decodedDoubles[index++], decoder.readDouble(buffer),
+              0);
+        }
+      }
+      assertEquals(0, decoder.skip(buffer, TSDataType.DOUBLE, 1));
+    }
+
+    ByteBuffer buffer = encode(TSEncoding.PLAIN, TSDataType.TEXT, binaries);
+    Decoder decoder = Decoder.getDecoderByType(TSEncoding.PLAIN, TSDataType.TEXT);
+    assertEquals(100, decoder.skip(buffer, TSDataType.TEXT, 100));
+    assertEquals(binaries[100], decoder.readBinary(buffer));
+    assertEquals(POINT_NUM - 101, decoder.skip(buffer, TSDataType.TEXT, POINT_NUM));
+  }
+
+  private ByteBuffer encode(TSEncoding encoding, TSDataType dataType, Object values)
+      throws IOException {
+    Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(dataType);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < POINT_NUM; i++) {
+      switch (dataType) {
+        case BOOLEAN:
+          encoder.encode(((boolean[]) values)[i], out);
+          break;
+        case INT32:
+          encoder.encode(((int[]) values)[i], out);
+          break;
+        case INT64:
+          encoder.encode(((long[]) values)[i], out);
+          break;
+        case FLOAT:
+          encoder.encode(((float[]) values)[i], out);
+          break;
+        case DOUBLE:
+          encoder.encode(((double[]) values)[i], out);
+          break;
+        default:
+          encoder.encode(((Binary[]) values)[i], out);
+      }
+    }
+    encoder.flush(out);
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+}
@@ -19,8 +19,11 @@
 
 package org.apache.iotdb.tsfile.read;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +34,7 @@ import java.util.stream.Collectors;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.exception.NotCompatibleException;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.footer.ChunkGroupFooter;
@@ -45,9 +49,18 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.DefaultTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.TsFileInput;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.FileGenerator;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -117,4 +130,167 @@ public class TsFileSequenceReaderTest {
     }
     reader.close();
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testReadMappedTsFile() throws IOException {
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    long maxMappedSize = config.getMaxMappedSizeInByte();
+    try {
+      TsFileInput input = MmapTsFileInput.open(Paths.get(FILE_PATH));
+      Assert.assertTrue(input instanceof MmapTsFileInput);
+      Assert.assertEquals(new File(FILE_PATH).length(), MmapTsFileInput.getMappedSize());
+      assertSameChunks(new TsFileSequenceReader(FILE_PATH, input, true));
+      // closing the reader unmaps the file
+      Assert.assertEquals(0, MmapTsFileInput.getMappedSize());
+      try {
+        input.readSlice(0, 1);
+        Assert.fail();
+      } catch (ClosedChannelException e) {
+        // expected
+      }
+
+      // the file exceeds the limit, so it is read through the file channel
+      config.setMaxMappedSizeInByte(0);
+      input = MmapTsFileInput.open(Paths.get(FILE_PATH));
+      Assert.assertTrue(input instanceof DefaultTsFileInput);
+      Assert.assertEquals(0, MmapTsFileInput.getMappedSize());
+      assertSameChunks(new TsFileSequenceReader(FILE_PATH, input, true));
+    } finally {
+      config.setMaxMappedSizeInByte(maxMappedSize);
+    }
+  }
+
+  @Test
+  public void testReadDeviceMetadataIndex() throws IOException, WriteProcessException {
+    TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+    int maxDegree = config.getMaxDegreeOfIndexNode();
+    File file = new File(FILE_PATH + ".index");
+    try {
+      // 50 devices make a tree of 3 levels
+      config.setMaxDegreeOfIndexNode(4);
+      TsFileWriter writer = new TsFileWriter(file);
+      writer.addMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+      for (int i = 0; i < 50; i++) {
+        TSRecord record = new TSRecord(i, "d" + i);
+        record.addTuple(new LongDataPoint("s1", i));
+        writer.write(record);
+      }
+      writer.close();
+
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+        TsFileMetaData metaData = reader.readFileMetadata(false);
+        Assert.assertTrue(metaData.hasMetadataIndex());
+        Assert.assertFalse(metaData.isDeviceIndexLoaded());
+        Assert.assertTrue(metaData.getDeviceMap().isEmpty());
+        Assert.assertEquals(50, metaData.getDeviceNum());
+        TsFileMetaData copy = metaData.copy();
+
+        for (int i = 0; i < 50; i++) {
+          TsDeviceMetadataIndex index = reader.readDeviceMetadataIndex("d" + i);
+          Assert.assertEquals(i, index.getStartTime());
+          Assert.assertEquals(i, reader.readTsDeviceMetaData(index).getChunkGroupMetaDataList()
+              .get(0).getChunkMetaDataList().get(0).getStartTime());
+          Assert.assertEquals(1, reader.getChunkMetadataList(new Path("d" + i, "s1")).size());
+        }
+        // before the first device, between two devices and after the last device
+        Assert.assertNull(reader.readDeviceMetadataIndex("a"));
+        Assert.assertNull(reader.readDeviceMetadataIndex("d10a"));
+        Assert.assertNull(reader.readDeviceMetadataIndex("e"));
+        Assert.assertTrue(reader.getChunkMetadataList(new Path("e", "s1")).isEmpty());
+
+        // load all devices from the leaves
+        Assert.assertSame(metaData, reader.readFileMetadata());
+        Assert.assertTrue(metaData.isDeviceIndexLoaded());
+        Assert.assertEquals(50, metaData.getDeviceMap().size());
+        Assert.assertEquals(9, metaData.getDeviceMap().get("d9").getStartTime());
+        // the copy is not changed by the loading
+        Assert.assertFalse(copy.isDeviceIndexLoaded());
+        Assert.assertTrue(copy.getDeviceMap().isEmpty());
+        Assert.assertEquals(50, copy.getDeviceNum());
+      }
+    } finally {
+      config.setMaxDegreeOfIndexNode(maxDegree);
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testReadFlatDeviceMapVersion() throws IOException, WriteProcessException {
+    File file = new File(FILE_PATH + ".flat");
+    try {
+      writeFlatDeviceMapVersionFile(file, false);
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+        Assert.assertEquals(TSFileConfig.FLAT_DEVICE_MAP_VERSION, reader.readVersionNumber());
+        TsFileMetaData metaData = reader.readFileMetadata(false);
+        Assert.assertFalse(metaData.hasMetadataIndex());
+        Assert.assertTrue(metaData.isDeviceIndexLoaded());
+        Assert.assertEquals(10, metaData.getDeviceMap().size());
+        TsDeviceMetadataIndex index = reader.readDeviceMetadataIndex("d3");
+        Assert.assertEquals(3, index.getStartTime());
+        Assert.assertEquals(1, reader.getChunkMetadataList(new Path("d3", "s1")).size());
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expected = NotCompatibleException.class)
+  public void testRejectIndexedFooterOfFlatDeviceMapVersion()
+      throws IOException, WriteProcessException {
+    File file = new File(FILE_PATH + ".flat");
+    try {
+      writeFlatDeviceMapVersionFile(file, true);
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+        reader.readFileMetadata();
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * write a file with the version before the index tree of devices
+   *
+   * @param withIndex whether to write the index tree anyway
+   */
+  private void writeFlatDeviceMapVersionFile(File file, boolean withIndex)
+      throws IOException, WriteProcessException {
+    TsFileIOWriter ioWriter = new TsFileIOWriter(file) {
+      {
+        indexDevices = withIndex;
+      }
+
+      @Override
+      protected void startFile() throws IOException {
+        out.write(magicStringBytes);
+        out.write(TSFileConfig.FLAT_DEVICE_MAP_VERSION.getBytes());
+      }
+    };
+    TsFileWriter writer = new TsFileWriter(ioWriter);
+    writer.addMeasurement(new MeasurementSchema("s1", TSDataType.INT64, TSEncoding.RLE));
+    for (int i = 0; i < 10; i++) {
+      TSRecord record = new TSRecord(i, "d" + i);
+      record.addTuple(new LongDataPoint("s1", i));
+      writer.write(record);
+    }
+    writer.close();
+  }
+
+  private void assertSameChunks(TsFileSequenceReader mappedReader) throws IOException {
+    TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH);
+    TsFileMetaData metaData = reader.readFileMetadata();
+    Assert.assertEquals(metaData.getDeviceMap().keySet(),
+        mappedReader.readFileMetadata().getDeviceMap().keySet());
+    for (TsDeviceMetadataIndex index : metaData.getDeviceMap().values()) {
+      for (ChunkGroupMetaData chunkGroupMetaData : reader.readTsDeviceMetaData(index)
+          .getChunkGroupMetaDataList()) {
+        for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+          Assert.assertEquals(reader.readMemChunk(chunkMetaData).getData(),
+              mappedReader.readMemChunk(chunkMetaData).getData());
+        }
+      }
+    }
+    reader.close();
+    mappedReader.close();
+  }
+}
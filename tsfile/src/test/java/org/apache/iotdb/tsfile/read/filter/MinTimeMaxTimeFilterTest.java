@@ -191,19 +191,19 @@ public class MinTimeMaxTimeFilterTest {
     Assert.assertTrue(not.containStartEndTime(minTime, maxTime));
 
     not = FilterFactory.not(TimeFilter.ltEq(100L));
-    Assert.assertFalse(not.satisfyStartEndTime(minTime, maxTime));
+    Assert.assertTrue(not.satisfyStartEndTime(minTime, maxTime));
     Assert.assertFalse(not.containStartEndTime(minTime, maxTime));
 
     not = FilterFactory.not(TimeFilter.ltEq(200L));
-    Assert.assertFalse(not.satisfyStartEndTime(minTime, maxTime));
+    Assert.assertTrue(not.satisfyStartEndTime(minTime, maxTime));
     Assert.assertFalse(not.containStartEndTime(minTime, maxTime));
 
     not = FilterFactory.not(TimeFilter.ltEq(300L));
-    Assert.assertFalse(not.satisfyStartEndTime(minTime, maxTime));
+    Assert.assertTrue(not.satisfyStartEndTime(minTime, maxTime));
     Assert.assertFalse(not.containStartEndTime(minTime, maxTime));
 
     not = FilterFactory.not(ValueFilter.ltEq(100));
-    Assert.assertFalse(not.satisfyStartEndTime(minTime, maxTime));
+    Assert.assertTrue(not.satisfyStartEndTime(minTime, maxTime));
 
   }
 }
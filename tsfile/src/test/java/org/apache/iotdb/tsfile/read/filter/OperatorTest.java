@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.tsfile.read.filter;
 
+import java.lang.reflect.Array;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -154,6 +155,50 @@ public class OperatorTest {
     }
   }
 
+  @Test
+  public void testSatisfyBatch() {
+    int length = 100;
+    long[] times = new long[length];
+    long[] longs = new long[length];
+    double[] doubles = new double[length];
+    boolean[] booleans = new boolean[length];
+    Binary[] binaries = new Binary[length];
+    for (int i = 0; i < length; i++) {
+      times[i] = i * 10L;
+      longs[i] = i % 7;
+      doubles[i] = i * 0.5;
+      booleans[i] = i % 3 == 0;
+      binaries[i] = new Binary(String.valueOf(i % 10));
+    }
+
+    Filter[] longFilters = {TimeFilter.gt(100L), TimeFilter.ltEq(500L), ValueFilter.eq(3L),
+        ValueFilter.notEq(3L), FilterFactory.and(TimeFilter.gtEq(200L), ValueFilter.lt(4L)),
+        FilterFactory.or(TimeFilter.lt(50L), ValueFilter.gtEq(5L)),
+        FilterFactory.not(ValueFilter.gt(2L)), new GroupByFilter(20, 50, 100, 800)};
+    for (Filter filter : longFilters) {
+      checkSatisfyBatch(filter, times, longs, length);
+    }
+    // the other types of values
+    checkSatisfyBatch(TimeFilter.gt(100L), times, doubles, length);
+    checkSatisfyBatch(FilterFactory.or(ValueFilter.lt(10.0), TimeFilter.gt(900L)), times, doubles,
+        length);
+    checkSatisfyBatch(ValueFilter.eq(true), times, booleans, length);
+    checkSatisfyBatch(ValueFilter.gt(new Binary("5")), times, binaries, length);
+  }
+
+  private void checkSatisfyBatch(Filter filter, long[] times, Object values, int length) {
+    boolean[] selection = new boolean[length];
+    for (int i = 0; i < length; i++) {
+      // the unselected points stay unselected
+      selection[i] = i % 5 != 0;
+    }
+    filter.satisfyBatch(times, values, length, selection);
+    for (int i = 0; i < length; i++) {
+      boolean expected = i % 5 != 0 && filter.satisfy(times[i], Array.get(values, i));
+      Assert.assertEquals(filter + " at " + i, expected, selection[i]);
+    }
+  }
+
   @Test
   public void efficiencyTest() {
     Filter andFilter = FilterFactory.and(TimeFilter.gt(100L), ValueFilter.lt(50.9));
@@ -20,6 +20,7 @@ package org.apache.iotdb.tsfile.read.reader;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.encoding.decoder.DeltaBinaryDecoder;
@@ -35,8 +36,15 @@ import org.apache.iotdb.tsfile.encoding.encoder.IntRleEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.LongRleEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.PlainEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -142,6 +150,71 @@ public class PageReaderTest {
     test.test(TSDataType.TEXT);
   }
 
+  @Test
+  public void testTimeFilter() throws IOException {
+    int pointNum = 10000;
+    Filter filter = FilterFactory.and(TimeFilter.gtEq(3000L),
+        FilterFactory.and(ValueFilter.gt(4000L), TimeFilter.lt(7000L)));
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      PageWriter pageWriter = new PageWriter();
+      pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+      pageWriter.setValueEncoder(
+          TSEncodingBuilder.getConverter(encoding).getEncoder(TSDataType.INT64));
+      pageWriter.initStatistics(TSDataType.INT64);
+      for (int i = 0; i < pointNum; i++) {
+        // values are kept in runs so that rle runs are skipped
+        pageWriter.write(i, (long) (i / 10 * 10));
+      }
+      ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+
+      PageReader pageReader = new PageReader(page, TSDataType.INT64,
+          Decoder.getDecoderByType(encoding, TSDataType.INT64),
+          new DeltaBinaryDecoder.LongDeltaDecoder(), filter);
+      pageReader.setDeletedAt(5000);
+      BatchData data = pageReader.getAllSatisfiedPageData();
+      // only the points in (5000, 7000) are neither filtered nor deleted
+      for (long time = 5001; time < 7000; time++) {
+        Assert.assertTrue(encoding.toString(), data.hasCurrent());
+        Assert.assertEquals(time, data.currentTime());
+        Assert.assertEquals(time / 10 * 10, data.getLong());
+        data.next();
+      }
+      Assert.assertFalse(data.hasCurrent());
+    }
+  }
+
+  @Test
+  public void testDeleteInterval() throws IOException {
+    int pointNum = 10000;
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.initStatistics(TSDataType.INT64);
+    for (int i = 0; i < pointNum; i++) {
+      pageWriter.write(i, (long) i);
+    }
+    ByteBuffer page = ByteBuffer.wrap(pageWriter.getUncompressedBytes().array());
+
+    PageReader pageReader = new PageReader(page, TSDataType.INT64,
+        new DeltaBinaryDecoder.LongDeltaDecoder(), new DeltaBinaryDecoder.LongDeltaDecoder(),
+        TimeFilter.lt(8000L));
+    pageReader.setDeletedAt(999);
+    pageReader.setDeleteIntervalList(Arrays.asList(new TimeRange(2000, 2999),
+        new TimeRange(3500, 3500), new TimeRange(7000, 20000)));
+    BatchData data = pageReader.getAllSatisfiedPageData();
+    for (long time = 1000; time < 7000; time++) {
+      if (time >= 2000 && time <= 2999 || time == 3500) {
+        continue;
+      }
+      Assert.assertTrue(data.hasCurrent());
+      Assert.assertEquals(time, data.currentTime());
+      Assert.assertEquals(time, data.getLong());
+      data.next();
+    }
+    Assert.assertFalse(data.hasCurrent());
+  }
+
   private abstract static class LoopWriteReadTest {
 
     private Encoder encoder;